@@ -0,0 +1,197 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.core.filter.Filter;
+import org.hornetq.core.filter.impl.FilterImpl;
+import org.hornetq.core.postoffice.Binding;
+import org.hornetq.core.postoffice.BindingType;
+import org.hornetq.core.postoffice.impl.BindingsImpl;
+import org.hornetq.core.server.Bindable;
+import org.hornetq.core.server.RoutingContext;
+import org.hornetq.core.server.ServerMessage;
+import org.hornetq.core.server.impl.RoutingContextImpl;
+import org.hornetq.core.server.impl.ServerMessageImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Routing of a message by the {@link BindingsImpl} of an address bound to many queues, as for a
+ * topic with many subscriptions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BindingsRouteBenchmark
+{
+   private static final SimpleString ADDRESS = new SimpleString("benchmark.address");
+
+   @Param({"1", "10", "100"})
+   public int fanOut;
+
+   /**
+    * Whether every other binding has a filter the message doesn't match.
+    */
+   @Param({"false", "true"})
+   public boolean filtered;
+
+   private BindingsImpl bindings;
+
+   private ServerMessage message;
+
+   private RoutingContext context;
+
+   @Setup
+   public void setUp() throws Exception
+   {
+      bindings = new BindingsImpl(ADDRESS, null, null);
+
+      Filter filter = FilterImpl.createFilter("color = 'blue'");
+
+      for (int i = 0; i < fanOut; i++)
+      {
+         bindings.addBinding(new NullBinding(i, new SimpleString("queue" + i), filtered && i % 2 == 1 ? filter : null));
+      }
+
+      message = new ServerMessageImpl(1, 1024);
+      message.setAddress(ADDRESS);
+      message.putStringProperty(new SimpleString("color"), new SimpleString("red"));
+
+      context = new RoutingContextImpl(null);
+   }
+
+   @Benchmark
+   public RoutingContext route() throws Exception
+   {
+      context.clear();
+
+      bindings.route(message, context);
+
+      return context;
+   }
+
+   /**
+    * A local binding which doesn't route the messages any further.
+    */
+   private static final class NullBinding implements Binding, Bindable
+   {
+      private final long id;
+
+      private final SimpleString name;
+
+      private final Filter filter;
+
+      NullBinding(final long id, final SimpleString name, final Filter filter)
+      {
+         this.id = id;
+         this.name = name;
+         this.filter = filter;
+      }
+
+      public SimpleString getAddress()
+      {
+         return ADDRESS;
+      }
+
+      public Bindable getBindable()
+      {
+         return this;
+      }
+
+      public BindingType getType()
+      {
+         return BindingType.LOCAL_QUEUE;
+      }
+
+      public SimpleString getUniqueName()
+      {
+         return name;
+      }
+
+      public SimpleString getRoutingName()
+      {
+         return name;
+      }
+
+      public SimpleString getClusterName()
+      {
+         return name;
+      }
+
+      public Filter getFilter()
+      {
+         return filter;
+      }
+
+      public boolean isHighAcceptPriority(final ServerMessage message)
+      {
+         return true;
+      }
+
+      public boolean isExclusive()
+      {
+         return false;
+      }
+
+      public long getID()
+      {
+         return id;
+      }
+
+      public int getDistance()
+      {
+         return 0;
+      }
+
+      public void route(final ServerMessage message, final RoutingContext context)
+      {
+      }
+
+      public void routeWithAck(final ServerMessage message, final RoutingContext context)
+      {
+      }
+
+      public void unproposed(final SimpleString groupID)
+      {
+      }
+
+      public void close()
+      {
+      }
+
+      public String toManagementString()
+      {
+         return "NullBinding [name=" + name + "]";
+      }
+
+      public boolean isConnected()
+      {
+         return true;
+      }
+   }
+}
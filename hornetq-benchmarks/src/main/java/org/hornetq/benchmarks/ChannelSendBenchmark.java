@@ -0,0 +1,182 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.benchmarks;
+
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.channel.ChannelFutureListener;
+import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.api.core.HornetQBuffers;
+import org.hornetq.api.core.Interceptor;
+import org.hornetq.api.core.TransportConfiguration;
+import org.hornetq.core.protocol.ClientPacketDecoder;
+import org.hornetq.core.protocol.core.Channel;
+import org.hornetq.core.protocol.core.impl.ChannelImpl;
+import org.hornetq.core.protocol.core.impl.RemotingConnectionImpl;
+import org.hornetq.core.protocol.core.impl.wireformat.SessionAcknowledgeMessage;
+import org.hornetq.core.security.HornetQPrincipal;
+import org.hornetq.spi.core.protocol.RemotingConnection;
+import org.hornetq.spi.core.remoting.Connection;
+import org.hornetq.spi.core.remoting.ReadyListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sends of packets through a {@link ChannelImpl}: the encoding of the packet, the locking of the
+ * channel and the write to a transport connection which discards the buffers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChannelSendBenchmark
+{
+   private Channel channel;
+
+   private SessionAcknowledgeMessage packet;
+
+   @Setup
+   public void setUp()
+   {
+      RemotingConnectionImpl connection = new RemotingConnectionImpl(ClientPacketDecoder.INSTANCE,
+                                                                     new NullConnection(),
+                                                                     30000,
+                                                                     30000,
+                                                                     Collections.<Interceptor>emptyList(),
+                                                                     Collections.<Interceptor>emptyList());
+
+      channel = connection.getChannel(10, -1);
+
+      packet = new SessionAcknowledgeMessage(1, 1, false);
+   }
+
+   @Benchmark
+   public boolean send()
+   {
+      return channel.send(packet);
+   }
+
+   @Benchmark
+   public boolean sendBatched()
+   {
+      return channel.sendBatched(packet);
+   }
+
+   /**
+    * A transport connection which discards what's written to it.
+    */
+   private static final class NullConnection implements Connection
+   {
+      private RemotingConnection protocolConnection;
+
+      public HornetQBuffer createBuffer(final int size)
+      {
+         return HornetQBuffers.dynamicBuffer(size);
+      }
+
+      public RemotingConnection getProtocolConnection()
+      {
+         return protocolConnection;
+      }
+
+      public void setProtocolConnection(final RemotingConnection connection)
+      {
+         this.protocolConnection = connection;
+      }
+
+      public Object getID()
+      {
+         return "benchmark";
+      }
+
+      public void write(final HornetQBuffer buffer, final boolean flush, final boolean batched)
+      {
+      }
+
+      public void write(final HornetQBuffer buffer,
+                        final boolean flush,
+                        final boolean batched,
+                        final ChannelFutureListener futureListener)
+      {
+      }
+
+      public void write(final HornetQBuffer buffer)
+      {
+      }
+
+      public boolean isFileRegionCapable()
+      {
+         return false;
+      }
+
+      public void write(final HornetQBuffer header,
+                        final FileChannel file,
+                        final long position,
+                        final long count,
+                        final HornetQBuffer trailer)
+      {
+      }
+
+      public void forceClose()
+      {
+      }
+
+      public void close()
+      {
+      }
+
+      public String getRemoteAddress()
+      {
+         return "benchmark";
+      }
+
+      public void checkFlushBatchBuffer()
+      {
+      }
+
+      public void addReadyListener(final ReadyListener listener)
+      {
+      }
+
+      public void removeReadyListener(final ReadyListener listener)
+      {
+      }
+
+      public TransportConfiguration getConnectorConfig()
+      {
+         return null;
+      }
+
+      public HornetQPrincipal getDefaultHornetQPrincipal()
+      {
+         return null;
+      }
+
+      public boolean isUsingProtocolHandling()
+      {
+         return true;
+      }
+   }
+}
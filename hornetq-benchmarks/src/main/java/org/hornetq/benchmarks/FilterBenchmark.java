@@ -0,0 +1,87 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.core.filter.Filter;
+import org.hornetq.core.filter.impl.FilterImpl;
+import org.hornetq.core.server.ServerMessage;
+import org.hornetq.core.server.impl.ServerMessageImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Matching of messages against the filters of queues and consumers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterBenchmark
+{
+   @Param({"color = 'red'",
+           "color = 'red' AND weight > 10",
+           "color IN ('blue', 'green', 'red') AND weight BETWEEN 5 AND 15",
+           "name LIKE 'order-%'",
+           "HQPriority > 3"})
+   public String filterString;
+
+   private Filter filter;
+
+   private ServerMessage matching;
+
+   private ServerMessage notMatching;
+
+   @Setup
+   public void setUp() throws Exception
+   {
+      filter = FilterImpl.createFilter(filterString);
+
+      matching = new ServerMessageImpl(1, 1024);
+      matching.putStringProperty(new SimpleString("color"), new SimpleString("red"));
+      matching.putIntProperty(new SimpleString("weight"), 12);
+      matching.putStringProperty(new SimpleString("name"), new SimpleString("order-1234"));
+      matching.setPriority((byte) 5);
+
+      notMatching = new ServerMessageImpl(2, 1024);
+      notMatching.putStringProperty(new SimpleString("color"), new SimpleString("yellow"));
+      notMatching.putIntProperty(new SimpleString("weight"), 2);
+      notMatching.putStringProperty(new SimpleString("name"), new SimpleString("invoice-1234"));
+      notMatching.setPriority((byte) 1);
+   }
+
+   @Benchmark
+   public boolean match()
+   {
+      return filter.match(matching);
+   }
+
+   @Benchmark
+   public boolean noMatch()
+   {
+      return filter.match(notMatching);
+   }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.benchmarks;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.hornetq.core.journal.impl.JournalImpl;
+import org.hornetq.core.journal.impl.NIOSequentialFileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Appends of add and delete records to a {@link JournalImpl} on NIO files, through the timed buffer
+ * as the server does. With {@code sync} every append waits for the buffer to be written and synced.
+ * <p>
+ * The files are created under {@code java.io.tmpdir}, or the directory given by the
+ * {@code hornetq.benchmarks.journal.dir} system property.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournalAppendBenchmark
+{
+   private static final byte RECORD_TYPE = 1;
+
+   @Param({"64", "1024"})
+   public int recordSize;
+
+   @Param({"false", "true"})
+   public boolean sync;
+
+   private File directory;
+
+   private JournalImpl journal;
+
+   private byte[] record;
+
+   private long id;
+
+   @Setup
+   public void setUp() throws Exception
+   {
+      directory = new File(System.getProperty("hornetq.benchmarks.journal.dir", System.getProperty("java.io.tmpdir")),
+                           "hornetq-journal-benchmark-" + System.nanoTime());
+
+      directory.mkdirs();
+
+      NIOSequentialFileFactory fileFactory = new NIOSequentialFileFactory(directory.getAbsolutePath(), true);
+
+      journal = new JournalImpl(10 * 1024 * 1024, 2, 0, 0, fileFactory, "hornetq-data", "hq", 1);
+
+      journal.start();
+
+      journal.loadInternalOnly();
+
+      record = new byte[recordSize];
+   }
+
+   @TearDown
+   public void tearDown() throws Exception
+   {
+      journal.stop();
+
+      File[] files = directory.listFiles();
+
+      if (files != null)
+      {
+         for (File file : files)
+         {
+            file.delete();
+         }
+      }
+
+      directory.delete();
+   }
+
+   /**
+    * Adds a record and deletes it, so the files can be reclaimed as the benchmark runs.
+    */
+   @Benchmark
+   public long appendAddAndDelete() throws Exception
+   {
+      long recordID = id++;
+
+      journal.appendAddRecord(recordID, RECORD_TYPE, record, sync);
+
+      journal.appendDeleteRecord(recordID, sync);
+
+      return recordID;
+   }
+}
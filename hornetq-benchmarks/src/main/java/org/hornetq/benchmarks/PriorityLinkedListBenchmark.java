@@ -0,0 +1,118 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hornetq.utils.LinkedListIterator;
+import org.hornetq.utils.PriorityLinkedListImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The operations done by a queue on its {@link PriorityLinkedListImpl} of message references.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriorityLinkedListBenchmark
+{
+   private static final int PRIORITIES = 10;
+
+   @Param({"1000", "100000"})
+   public int size;
+
+   private PriorityLinkedListImpl<Integer> list;
+
+   private LinkedListIterator<Integer> iterator;
+
+   private int next;
+
+   @Setup
+   public void setUp()
+   {
+      list = new PriorityLinkedListImpl<Integer>(PRIORITIES);
+
+      for (int i = 0; i < size; i++)
+      {
+         list.addTail(i, i % PRIORITIES);
+      }
+   }
+
+   @Benchmark
+   public Integer addTailAndPoll()
+   {
+      int value = next++;
+
+      list.addTail(value, value % PRIORITIES);
+
+      return list.poll();
+   }
+
+   @Benchmark
+   public Integer addHeadAndPoll()
+   {
+      int value = next++;
+
+      list.addHead(value, value % PRIORITIES);
+
+      return list.poll();
+   }
+
+   @Benchmark
+   public Object addTailAndRemove()
+   {
+      int value = next++;
+
+      int priority = value % PRIORITIES;
+
+      Object node = list.addTail(value, priority);
+
+      list.remove(node, priority);
+
+      return node;
+   }
+
+   @Benchmark
+   public Integer iterate()
+   {
+      // the iterator is only opened here as the list updates its open iterators on removals
+      if (iterator == null)
+      {
+         iterator = list.iterator();
+      }
+
+      if (!iterator.hasNext())
+      {
+         iterator.close();
+
+         iterator = list.iterator();
+
+         iterator.hasNext();
+      }
+
+      return iterator.next();
+   }
+}
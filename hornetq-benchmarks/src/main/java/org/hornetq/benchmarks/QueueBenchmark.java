@@ -0,0 +1,128 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.api.core.TransportConfiguration;
+import org.hornetq.api.core.client.ClientConsumer;
+import org.hornetq.api.core.client.ClientMessage;
+import org.hornetq.api.core.client.ClientProducer;
+import org.hornetq.api.core.client.ClientSession;
+import org.hornetq.api.core.client.ClientSessionFactory;
+import org.hornetq.api.core.client.HornetQClient;
+import org.hornetq.api.core.client.ServerLocator;
+import org.hornetq.core.config.Configuration;
+import org.hornetq.core.config.impl.ConfigurationImpl;
+import org.hornetq.core.remoting.impl.invm.InVMAcceptorFactory;
+import org.hornetq.core.remoting.impl.invm.InVMConnectorFactory;
+import org.hornetq.core.server.HornetQServer;
+import org.hornetq.core.server.HornetQServers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Messages added to a queue of an embedded server without persistence, delivered to an in-VM
+ * consumer and acknowledged one by one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueueBenchmark
+{
+   private static final SimpleString QUEUE = new SimpleString("benchmark.queue");
+
+   /**
+    * The number of messages sent before they're consumed, i.e. the depth reached by the queue.
+    */
+   @Param({"1", "100"})
+   public int batch;
+
+   private HornetQServer server;
+
+   private ServerLocator locator;
+
+   private ClientSession session;
+
+   private ClientProducer producer;
+
+   private ClientConsumer consumer;
+
+   @Setup
+   public void setUp() throws Exception
+   {
+      Configuration configuration = new ConfigurationImpl()
+         .setPersistenceEnabled(false)
+         .setSecurityEnabled(false)
+         .setJMXManagementEnabled(false)
+         .addAcceptorConfiguration(new TransportConfiguration(InVMAcceptorFactory.class.getName()));
+
+      server = HornetQServers.newHornetQServer(configuration, false);
+      server.start();
+
+      locator = HornetQClient.createServerLocatorWithoutHA(new TransportConfiguration(InVMConnectorFactory.class.getName()));
+      locator.setAckBatchSize(0);
+
+      ClientSessionFactory factory = locator.createSessionFactory();
+
+      session = factory.createSession(false, true, true);
+      session.createQueue(QUEUE, QUEUE, false);
+
+      producer = session.createProducer(QUEUE);
+      consumer = session.createConsumer(QUEUE);
+
+      session.start();
+   }
+
+   @TearDown
+   public void tearDown() throws Exception
+   {
+      session.close();
+      locator.close();
+      server.stop();
+   }
+
+   @Benchmark
+   public ClientMessage sendReceiveAndAcknowledge() throws Exception
+   {
+      for (int i = 0; i < batch; i++)
+      {
+         producer.send(session.createMessage(false));
+      }
+
+      ClientMessage message = null;
+
+      for (int i = 0; i < batch; i++)
+      {
+         message = consumer.receive(5000);
+
+         message.acknowledge();
+      }
+
+      return message;
+   }
+}
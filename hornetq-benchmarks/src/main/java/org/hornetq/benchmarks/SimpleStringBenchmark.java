@@ -0,0 +1,91 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.api.core.HornetQBuffers;
+import org.hornetq.api.core.SimpleString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encoding and decoding of {@link SimpleString}s, as done for the addresses, queue names and
+ * properties of every message.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimpleStringBenchmark
+{
+   @Param({"8", "64"})
+   public int length;
+
+   private String string;
+
+   private SimpleString simpleString;
+
+   private HornetQBuffer buffer;
+
+   @Setup
+   public void setUp()
+   {
+      StringBuilder builder = new StringBuilder(length);
+
+      for (int i = 0; i < length; i++)
+      {
+         builder.append((char) ('a' + i % 26));
+      }
+
+      string = builder.toString();
+
+      simpleString = new SimpleString(string);
+
+      buffer = HornetQBuffers.fixedBuffer(SimpleString.sizeofString(simpleString));
+   }
+
+   @Benchmark
+   public SimpleString fromString()
+   {
+      return new SimpleString(string);
+   }
+
+   @Benchmark
+   public String toJavaString()
+   {
+      return new SimpleString(simpleString.getData()).toString();
+   }
+
+   @Benchmark
+   public SimpleString writeAndRead()
+   {
+      buffer.clear();
+
+      buffer.writeSimpleString(simpleString);
+
+      return buffer.readSimpleString();
+   }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.api.core.HornetQBuffers;
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.utils.TypedProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encoding and decoding of the {@link TypedProperties} of a message.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TypedPropertiesBenchmark
+{
+   @Param({"4", "16"})
+   public int size;
+
+   private TypedProperties properties;
+
+   private HornetQBuffer buffer;
+
+   @Setup
+   public void setUp()
+   {
+      properties = new TypedProperties();
+
+      for (int i = 0; i < size; i++)
+      {
+         switch (i % 4)
+         {
+            case 0:
+               properties.putSimpleStringProperty(new SimpleString("string" + i), new SimpleString("value" + i));
+               break;
+            case 1:
+               properties.putIntProperty(new SimpleString("int" + i), i);
+               break;
+            case 2:
+               properties.putLongProperty(new SimpleString("long" + i), i);
+               break;
+            default:
+               properties.putBooleanProperty(new SimpleString("boolean" + i), true);
+         }
+      }
+
+      buffer = HornetQBuffers.fixedBuffer(properties.getEncodeSize());
+   }
+
+   @Benchmark
+   public HornetQBuffer encode()
+   {
+      buffer.clear();
+
+      properties.encode(buffer);
+
+      return buffer;
+   }
+
+   @Benchmark
+   public TypedProperties encodeAndDecode()
+   {
+      buffer.clear();
+
+      properties.encode(buffer);
+
+      TypedProperties decoded = new TypedProperties();
+
+      decoded.decode(buffer);
+
+      return decoded;
+   }
+}
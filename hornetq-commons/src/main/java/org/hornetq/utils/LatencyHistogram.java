@@ -0,0 +1,195 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies which can be recorded concurrently without locking or allocating.
+ * <p>
+ * The values are counted in buckets with a logarithmic scale: every power of two is split into 16
+ * linear buckets, so the value reported for a percentile is within about 6% of the values recorded.
+ * Values up to 2^40 are tracked, larger values are counted as 2^40.
+ * <p>
+ * The unit of the values is up to the users of the histogram.
+ */
+public final class LatencyHistogram
+{
+   private static final int SUB_BUCKET_BITS = 4;
+
+   private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+   private static final int HIGHEST_BIT = 40;
+
+   public static final long HIGHEST_TRACKABLE_VALUE = 1L << HIGHEST_BIT;
+
+   private final AtomicLongArray counts = new AtomicLongArray((HIGHEST_BIT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS);
+
+   private final AtomicLong count = new AtomicLong();
+
+   private final AtomicLong total = new AtomicLong();
+
+   private final AtomicLong max = new AtomicLong();
+
+   public void record(final long value)
+   {
+      long trackedValue = value < 0 ? 0 : Math.min(value, HIGHEST_TRACKABLE_VALUE);
+
+      counts.incrementAndGet(index(trackedValue));
+
+      count.incrementAndGet();
+
+      total.addAndGet(trackedValue);
+
+      long currentMax = max.get();
+
+      while (trackedValue > currentMax && !max.compareAndSet(currentMax, trackedValue))
+      {
+         currentMax = max.get();
+      }
+   }
+
+   public long getCount()
+   {
+      return count.get();
+   }
+
+   public long getMax()
+   {
+      return max.get();
+   }
+
+   public double getMean()
+   {
+      long currentCount = count.get();
+
+      return currentCount == 0 ? 0 : (double) total.get() / currentCount;
+   }
+
+   /**
+    * @param percentile between 0 and 100
+    * @return the highest value of the bucket in which the given percentile of the values fall,
+    * never more than the maximum value recorded
+    */
+   public long getValueAtPercentile(final double percentile)
+   {
+      long totalCount = 0;
+
+      for (int i = 0; i < counts.length(); i++)
+      {
+         totalCount += counts.get(i);
+      }
+
+      if (totalCount == 0)
+      {
+         return 0;
+      }
+
+      long target = Math.max(1, (long) Math.ceil(totalCount * Math.min(percentile, 100) / 100));
+
+      long seen = 0;
+
+      for (int i = 0; i < counts.length(); i++)
+      {
+         seen += counts.get(i);
+
+         if (seen >= target)
+         {
+            return Math.min(highestValueOf(i), max.get());
+         }
+      }
+
+      return max.get();
+   }
+
+   /**
+    * Adds the values recorded by another histogram to this one.
+    */
+   public void add(final LatencyHistogram other)
+   {
+      for (int i = 0; i < counts.length(); i++)
+      {
+         long otherCount = other.counts.get(i);
+
+         if (otherCount != 0)
+         {
+            counts.addAndGet(i, otherCount);
+         }
+      }
+
+      count.addAndGet(other.count.get());
+
+      total.addAndGet(other.total.get());
+
+      long otherMax = other.max.get();
+
+      long currentMax = max.get();
+
+      while (otherMax > currentMax && !max.compareAndSet(currentMax, otherMax))
+      {
+         currentMax = max.get();
+      }
+   }
+
+   /**
+    * Clears the values recorded so far. The values recorded while it's being reset may or may not be cleared.
+    */
+   public void reset()
+   {
+      for (int i = 0; i < counts.length(); i++)
+      {
+         counts.set(i, 0);
+      }
+      count.set(0);
+      total.set(0);
+      max.set(0);
+   }
+
+   @Override
+   public String toString()
+   {
+      return "LatencyHistogram[count=" + getCount() +
+         ", mean=" + getMean() +
+         ", p50=" + getValueAtPercentile(50) +
+         ", p99=" + getValueAtPercentile(99) +
+         ", max=" + getMax() + "]";
+   }
+
+   static int index(final long value)
+   {
+      if (value < SUB_BUCKETS)
+      {
+         return (int) value;
+      }
+
+      // the buckets of each power of two are indexed by the bits following the highest one
+      int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+
+      return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+   }
+
+   static long highestValueOf(final int index)
+   {
+      if (index < SUB_BUCKETS)
+      {
+         return index;
+      }
+
+      int shift = index / SUB_BUCKETS - 1;
+
+      long top = SUB_BUCKETS + index % SUB_BUCKETS;
+
+      return ((top + 1) << shift) - 1;
+   }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.utils;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatencyHistogramTest extends Assert
+{
+   @Test
+   public void testBuckets()
+   {
+      int previous = -1;
+
+      for (long value = 0; value < 1 << 20; value++)
+      {
+         int index = LatencyHistogram.index(value);
+
+         assertTrue(index == previous || index == previous + 1);
+         assertTrue(LatencyHistogram.highestValueOf(index) >= value);
+         assertTrue(LatencyHistogram.highestValueOf(index) - value <= value / 16);
+
+         previous = index;
+      }
+
+      LatencyHistogram.index(LatencyHistogram.HIGHEST_TRACKABLE_VALUE);
+   }
+
+   @Test
+   public void testPercentiles()
+   {
+      LatencyHistogram histogram = new LatencyHistogram();
+
+      assertEquals(0, histogram.getValueAtPercentile(99));
+
+      for (int i = 1; i <= 1000; i++)
+      {
+         histogram.record(i);
+      }
+
+      assertEquals(1000, histogram.getCount());
+      assertEquals(1000, histogram.getMax());
+      assertEquals(500.5, histogram.getMean(), 0);
+
+      assertEquals(500, histogram.getValueAtPercentile(50), 500 / 16);
+      assertEquals(990, histogram.getValueAtPercentile(99), 990 / 16);
+      assertEquals(1000, histogram.getValueAtPercentile(100));
+
+      histogram.record(Long.MAX_VALUE);
+      histogram.record(-1);
+
+      assertEquals(LatencyHistogram.HIGHEST_TRACKABLE_VALUE, histogram.getMax());
+
+      histogram.reset();
+
+      assertEquals(0, histogram.getCount());
+      assertEquals(0, histogram.getMax());
+      assertEquals(0, histogram.getValueAtPercentile(50));
+   }
+
+   @Test
+   public void testAdd()
+   {
+      LatencyHistogram histogram = new LatencyHistogram();
+      LatencyHistogram other = new LatencyHistogram();
+
+      for (int i = 1; i <= 500; i++)
+      {
+         histogram.record(i);
+         other.record(i + 500);
+      }
+
+      histogram.add(other);
+
+      assertEquals(1000, histogram.getCount());
+      assertEquals(1000, histogram.getMax());
+      assertEquals(500.5, histogram.getMean(), 0);
+      assertEquals(990, histogram.getValueAtPercentile(99), 990 / 16);
+
+      assertEquals(500, other.getCount());
+   }
+
+   @Test
+   public void testConcurrentRecords() throws Exception
+   {
+      final LatencyHistogram histogram = new LatencyHistogram();
+
+      final CountDownLatch start = new CountDownLatch(1);
+
+      Thread[] threads = new Thread[4];
+
+      for (int i = 0; i < threads.length; i++)
+      {
+         final int offset = i;
+         threads[i] = new Thread()
+         {
+            @Override
+            public void run()
+            {
+               try
+               {
+                  start.await();
+               }
+               catch (InterruptedException e)
+               {
+                  return;
+               }
+               for (int j = 0; j < 100000; j++)
+               {
+                  histogram.record(j % 100 + offset);
+               }
+            }
+         };
+         threads[i].start();
+      }
+
+      start.countDown();
+
+      for (Thread thread : threads)
+      {
+         thread.join();
+      }
+
+      assertEquals(400000, histogram.getCount());
+      assertEquals(102, histogram.getMax());
+      assertEquals(102, histogram.getValueAtPercentile(100));
+   }
+}
@@ -40,4 +40,11 @@ public interface AcceptorControl extends HornetQComponentControl
     * Returns the parameters used to configure this acceptor
     */
    Map<String, Object> getParameters();
+
+   /**
+    * Returns the number of connections handled by each event loop (I/O thread) of this acceptor.
+    * <br>
+    * Only Netty acceptors report event loops, other acceptors return an empty map.
+    */
+   Map<String, Object> getConnectionCountPerEventLoop();
 }
@@ -49,6 +49,12 @@ public interface AddressControl
               impact = MBeanOperationInfo.INFO)
    long getNumberOfMessages() throws Exception;
 
+   /**
+    * Returns the latencies (in microseconds) of the queues bound to this address using JSON serialization,
+    * in the same format as {@link QueueControl#getLatenciesAsJSON()}.
+    */
+   String getLatenciesAsJSON() throws Exception;
+
    /**
     * Returns the names of the queues bound to this address.
     */
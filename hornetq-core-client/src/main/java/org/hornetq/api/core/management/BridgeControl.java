@@ -80,4 +80,36 @@ public interface BridgeControl extends HornetQComponentControl
     * Returns whether this bridge is using high availability
     */
    boolean isHA();
+
+   /**
+    * Returns the size in bytes of the batches of forwarded messages acknowledged together, -1 if
+    * messages are acknowledged one by one.
+    */
+   int getBatchSize();
+
+   /**
+    * Returns the maximum time in milliseconds a forwarded message waits for its batch to be acknowledged.
+    */
+   long getBatchDelay();
+
+   /**
+    * Returns the number of messages forwarded and confirmed by the target since this bridge was created.
+    */
+   long getMessagesForwarded();
+
+   /**
+    * Returns the number of messages sent to the target and not acknowledged on the queue yet.
+    */
+   int getMessagesPendingAcknowledgement();
+
+   /**
+    * Returns the number of messages forwarded per second, sampled by the bridge every second.
+    */
+   double getForwardRate();
+
+   /**
+    * Returns how long in milliseconds this bridge has been waiting for the target to confirm
+    * a message, 0 if no message is pending.
+    */
+   long getForwardingLag();
 }
@@ -212,6 +212,45 @@ public interface HornetQServerControl
     */
    boolean isSharedStore();
 
+   /**
+    * Returns the number of bytes sent to, or reused by, the backup during its initial synchronization
+    * with this replicated live server.
+    */
+   long getReplicationSyncBytesDone();
+
+   /**
+    * Returns an estimate of the number of bytes left to send to the backup before it is synchronized
+    * with this replicated live server, {@code 0} if no backup is synchronizing.
+    */
+   long getReplicationSyncBytesRemaining();
+
+   /**
+    * Returns an estimate of the time (in milliseconds) left before the backup is synchronized with
+    * this replicated live server, {@code 0} if no backup is synchronizing and {@code -1} if it is
+    * not known yet.
+    */
+   long getReplicationSyncEstimatedTimeRemaining();
+
+   /**
+    * Returns the number of messages moved to the target server by the current, or the last,
+    * scale-down of this server, a message being counted once for every queue holding it.
+    * <p>
+    * The scale-down takes place while the server is stopping, this attribute is available then.
+    */
+   long getScaleDownMessagesDone();
+
+   /**
+    * Returns an estimate of the number of messages left to move to the target server by the
+    * current scale-down of this server, {@code 0} if it is not scaling down.
+    */
+   long getScaleDownMessagesRemaining();
+
+   /**
+    * Returns the average number of messages moved per second by the current, or the last,
+    * scale-down of this server.
+    */
+   double getScaleDownMessagesPerSecond();
+
    /**
     * Returns the file system directory used to store paging files.
     */
@@ -275,6 +314,22 @@ public interface HornetQServerControl
     */
    long getTransactionTimeoutScanPeriod();
 
+   /**
+    * Returns the number of XA transactions committed since this server was started.
+    */
+   long getXATransactionsCommitted();
+
+   /**
+    * Returns the number of XA transactions rolled back since this server was started,
+    * including the ones which have timed out.
+    */
+   long getXATransactionsRolledBack();
+
+   /**
+    * Returns the number of XA transactions which have timed out since this server was started.
+    */
+   long getXATransactionsTimedOut();
+
    /**
     * Returns the frequency (in milliseconds)  to scan messages to detect which messages
     * have expired.
@@ -451,6 +506,20 @@ public interface HornetQServerControl
     */
    String[] listHeuristicRolledBackTransactions() throws Exception;
 
+   /**
+    * Lists the times (in microseconds) taken by the XA transactions from their start to their prepare
+    * and from their prepare to their commit (or from their start for one-phase commits), in JSON format.
+    */
+   @Operation(desc = "List the prepare and commit times of the XA transactions, in JSON format")
+   String listXATransactionTimesAsJSON() throws Exception;
+
+   /**
+    * Lists the times (in microseconds) taken by the storage to complete the operations lined up by the
+    * sessions of this server, in JSON format.
+    */
+   @Operation(desc = "List the completion times of the storage operations, in JSON format")
+   String listStoreLatenciesAsJSON() throws Exception;
+
    /**
     * Heuristically commits a prepared transaction.
     *
@@ -507,6 +576,13 @@ public interface HornetQServerControl
    @Operation(desc = "List all the connection IDs", impact = MBeanOperationInfo.INFO)
    String[] listConnectionIDs() throws Exception;
 
+   /**
+    * Lists the number and the total size (in bytes) of the packets sent on each core connection that wait
+    * for a confirmation from the other side, kept to be resent on reattach, in JSON format.
+    */
+   @Operation(desc = "List the packets waiting for a confirmation on each core connection, in JSON format", impact = MBeanOperationInfo.INFO)
+   String listResendCacheSizesAsJSON() throws Exception;
+
    String listProducersInfoAsJSON() throws Exception;
 
    /**
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.api.core.management;
+
+import javax.management.MBeanOperationInfo;
+
+/**
+ * A JournalControl is used to look at the I/O of a journal (the {@code messages} journal or
+ * the {@code bindings} journal).
+ * <br>
+ * The times are in microseconds. The distributions are serialized in JSON with their
+ * {@code count}, {@code mean}, {@code p50}, {@code p99} and {@code max}.
+ */
+public interface JournalControl
+{
+   /**
+    * Returns the name of this journal.
+    */
+   String getName();
+
+   /**
+    * Returns the directory of this journal.
+    */
+   String getDirectory();
+
+   /**
+    * Returns the number of records appended to this journal.
+    */
+   long getRecordsAppended();
+
+   /**
+    * Returns the number of bytes appended to this journal.
+    */
+   long getBytesAppended();
+
+   /**
+    * Returns the number of records appended per second during the last completed one-second sample.
+    */
+   double getRecordsAppendedPerSecond();
+
+   /**
+    * Returns the number of bytes appended per second during the last completed one-second sample.
+    */
+   double getBytesAppendedPerSecond();
+
+   /**
+    * Returns the average size (in bytes) of the buffers flushed to the journal files.
+    */
+   double getAverageFlushSize();
+
+   /**
+    * Returns the 99th percentile of the sizes (in bytes) of the buffers flushed to the journal files.
+    */
+   long getFlushSizeP99();
+
+   /**
+    * Returns the average number of records in the buffers flushed to the journal files.
+    */
+   double getAverageFlushRecords();
+
+   /**
+    * Returns the 99th percentile of the numbers of records in the buffers flushed to the journal files.
+    */
+   long getFlushRecordsP99();
+
+   /**
+    * Returns the distribution of the times taken by the synced writes to complete using JSON serialization.
+    */
+   String getSyncTimesAsJSON() throws Exception;
+
+   /**
+    * Returns the total time spent by the threads appending records waiting for one another.
+    */
+   long getAppendLockWaitTime();
+
+   /**
+    * Returns the distribution of the times spent by the threads appending records waiting for one
+    * another using JSON serialization.
+    */
+   String getAppendLockWaitsAsJSON() throws Exception;
+
+   /**
+    * Returns the distribution of the compaction times using JSON serialization.
+    */
+   String getCompactionTimesAsJSON() throws Exception;
+
+   /**
+    * Returns the distribution of the times during which the compactions kept the records from being
+    * appended using JSON serialization.
+    */
+   String getCompactionStallsAsJSON() throws Exception;
+
+   /**
+    * Returns the number of data files of this journal.
+    */
+   int getDataFilesCount();
+
+   /**
+    * Returns the number of free files ready to be used by this journal.
+    */
+   int getFreeFilesCount();
+
+   /**
+    * Returns the number of files opened in advance by this journal.
+    */
+   int getOpenedFilesCount();
+
+   /**
+    * Resets the metrics of this journal.
+    */
+   @Operation(desc = "Resets the metrics of this journal", impact = MBeanOperationInfo.ACTION)
+   void resetMetrics();
+}
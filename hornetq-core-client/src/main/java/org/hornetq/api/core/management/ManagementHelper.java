@@ -79,6 +79,10 @@ public final class ManagementHelper
 
    public static final SimpleString HDR_CONNECTION_NAME = new SimpleString("_HQ_ConnectionName");
 
+   public static final SimpleString HDR_MESSAGE_COUNT = new SimpleString("_HQ_MessageCount");
+
+   public static final SimpleString HDR_CONSUME_RATE = new SimpleString("_HQ_ConsumeRate");
+
    // Attributes ----------------------------------------------------
 
    // Static --------------------------------------------------------
@@ -115,6 +115,16 @@ public final class ObjectNameBuilder
       return createObjectName(ObjectNameBuilder.CORE_MODULE, "Acceptor", name);
    }
 
+   /**
+    * Returns the ObjectName used by JournalControl.
+    *
+    * @see JournalControl
+    */
+   public ObjectName getJournalObjectName(final String name) throws Exception
+   {
+      return createObjectName(ObjectNameBuilder.CORE_MODULE, "Journal", name);
+   }
+
    /**
     * Returns the ObjectName used by BroadcastGroupControl.
     *
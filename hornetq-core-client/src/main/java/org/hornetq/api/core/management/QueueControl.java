@@ -149,6 +149,7 @@ public interface QueueControl
     * 1 Map represents 1 message, keys are the message's properties and headers, values are the corresponding values.
     * <br>
     * Using {@code null} or an empty filter will list <em>all</em> messages from this queue.
+    * On deep queues, use {@link #listMessages(String, int, int)} to list them page by page.
     */
    @Operation(desc = "List all the messages in the queue matching the given filter", impact = MBeanOperationInfo.INFO)
    Map<String, Object>[] listMessages(@Parameter(name = "filter", desc = "A message filter (can be empty)") String filter) throws Exception;
@@ -161,10 +162,35 @@ public interface QueueControl
    @Operation(desc = "List all the messages in the queue matching the given filter and returns them using JSON", impact = MBeanOperationInfo.INFO)
    String listMessagesAsJSON(@Parameter(name = "filter", desc = "A message filter (can be empty)") String filter) throws Exception;
 
+   /**
+    * Lists a page of the messages in this queue matching the specified filter.
+    * <br>
+    * The queue is browsed up to the last message of the page: the first {@code offset} matching messages
+    * are skipped (without being converted) and at most {@code limit} messages are returned. A page with
+    * less than {@code limit} messages is the last one.
+    * <br>
+    * Using {@code null} or an empty filter will page through <em>all</em> messages from this queue.
+    */
+   @Operation(desc = "List a page of the messages in the queue matching the given filter", impact = MBeanOperationInfo.INFO)
+   Map<String, Object>[] listMessages(@Parameter(name = "filter", desc = "A message filter (can be empty)") String filter,
+                                      @Parameter(name = "offset", desc = "The number of matching messages to skip") int offset,
+                                      @Parameter(name = "limit", desc = "The maximum number of messages to list") int limit) throws Exception;
+
+   /**
+    * Lists a page of the messages in this queue matching the specified filter using JSON serialization.
+    *
+    * @see #listMessages(String, int, int)
+    */
+   @Operation(desc = "List a page of the messages in the queue matching the given filter and returns them using JSON", impact = MBeanOperationInfo.INFO)
+   String listMessagesAsJSON(@Parameter(name = "filter", desc = "A message filter (can be empty)") String filter,
+                             @Parameter(name = "offset", desc = "The number of matching messages to skip") int offset,
+                             @Parameter(name = "limit", desc = "The maximum number of messages to list") int limit) throws Exception;
+
    /**
     * Counts the number of messages in this queue matching the specified filter.
     * <br>
     * Using {@code null} or an empty filter will count <em>all</em> messages from this queue.
+    * The matching messages are only counted, they are not listed.
     */
    @Operation(desc = "Returns the number of the messages in the queue matching the given filter", impact = MBeanOperationInfo.INFO)
    long countMessages(@Parameter(name = "filter", desc = "A message filter (can be empty)") String filter) throws Exception;
@@ -368,6 +394,19 @@ public interface QueueControl
    @Operation(desc = "Resets the MessagesAcknowledged property", impact = MBeanOperationInfo.ACTION)
    void resetMessagesAcknowledged() throws Exception;
 
+   /**
+    * Returns the latencies (in microseconds) of this queue using JSON serialization: from the messages
+    * being added to the queue to their delivery ({@code delivery}) and to their acknowledgement
+    * ({@code acknowledge}).
+    */
+   String getLatenciesAsJSON() throws Exception;
+
+   /**
+    * Resets the latencies of this queue.
+    */
+   @Operation(desc = "Resets the latencies", impact = MBeanOperationInfo.ACTION)
+   void resetLatencies() throws Exception;
+
    /**
     * it will flush one cycle on internal executors, so you would be sure that any pending tasks are done before you call
     * any other measure.
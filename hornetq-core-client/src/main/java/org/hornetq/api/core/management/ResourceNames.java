@@ -41,6 +41,8 @@ public final class ResourceNames
 
    public static final String CORE_DISCOVERY_GROUP = "core.discovery.";
 
+   public static final String CORE_JOURNAL = "core.journal.";
+
    public static final String JMS_SERVER = "jms.server";
 
    public static final String JMS_QUEUE = "jms.queue.";
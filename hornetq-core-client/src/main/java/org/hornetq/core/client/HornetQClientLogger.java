@@ -313,6 +313,10 @@ public interface HornetQClientLogger extends BasicLogger
    @Message(id = 212055, value = "Unable to close consumer", format = Message.Format.MESSAGE_FORMAT)
    void unableToCloseConsumer(@Cause Exception e);
 
+   @LogMessage(level = Logger.Level.WARN)
+   @Message(id = 212056, value = "Netty native epoll transport is not available on this platform, falling back to NIO: {0}", format = Message.Format.MESSAGE_FORMAT)
+   void epollNotAvailable(String cause);
+
    @LogMessage(level = Logger.Level.ERROR)
    @Message(id = 214000, value = "Failed to call onMessage", format = Message.Format.MESSAGE_FORMAT)
    void onMessageError(@Cause Throwable e);
@@ -15,10 +15,10 @@ package org.hornetq.core.client.impl;
 import java.io.File;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
-import java.util.Iterator;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 import org.hornetq.api.core.HornetQBuffer;
 import org.hornetq.api.core.HornetQException;
@@ -35,9 +35,8 @@ import org.hornetq.core.client.HornetQClientMessageBundle;
 import org.hornetq.spi.core.remoting.ConsumerContext;
 import org.hornetq.spi.core.remoting.SessionContext;
 import org.hornetq.utils.FutureLatch;
-import org.hornetq.utils.PriorityLinkedList;
-import org.hornetq.utils.PriorityLinkedListImpl;
 import org.hornetq.utils.ReusableLatch;
+import org.hornetq.utils.SingleProducerPriorityBuffer;
 import org.hornetq.utils.TokenBucketLimiter;
 
 /**
@@ -92,7 +91,9 @@ public final class ClientConsumerImpl implements ClientConsumerInternal
 
    private final int ackBatchSize;
 
-   private final PriorityLinkedList<ClientMessageInternal> buffer = new PriorityLinkedListImpl<ClientMessageInternal>(ClientConsumerImpl.NUM_PRIORITIES);
+   // Messages are added by the remoting thread (always under this consumer's lock) and taken by the receiver
+   // or the handler without any lock, so delivery and consumption don't contend on the consumer monitor
+   private final SingleProducerPriorityBuffer<ClientMessageInternal> buffer = new SingleProducerPriorityBuffer<ClientMessageInternal>(ClientConsumerImpl.NUM_PRIORITIES);
 
    private final Runner runner = new Runner();
 
@@ -124,7 +125,7 @@ public final class ClientConsumerImpl implements ClientConsumerInternal
 
    private volatile ClientMessageInternal lastAckedMessage;
 
-   private boolean stopped = false;
+   private volatile boolean stopped = false;
 
    private long forceDeliveryCount;
 
@@ -229,50 +230,47 @@ public final class ClientConsumerImpl implements ClientConsumerInternal
          {
             ClientMessageInternal m = null;
 
-            synchronized (this)
+            while ((stopped || (m = buffer.poll()) == null) && !closed && toWait > 0)
             {
-               while ((stopped || (m = buffer.poll()) == null) && !closed && toWait > 0)
+               if (start == -1)
                {
-                  if (start == -1)
-                  {
-                     start = System.currentTimeMillis();
-                  }
-
-                  if (m == null && forcingDelivery)
-                  {
-                     if (stopped)
-                     {
-                        break;
-                     }
-
-                     // we only force delivery once per call to receive
-                     if (!deliveryForced)
-                     {
-                        callForceDelivery = true;
-                        break;
-                     }
-                  }
+                  start = System.currentTimeMillis();
+               }
 
-                  try
-                  {
-                     wait(toWait);
-                  }
-                  catch (InterruptedException e)
+               if (m == null && forcingDelivery)
+               {
+                  if (stopped)
                   {
-                     throw new HornetQInterruptedException(e);
+                     break;
                   }
 
-                  if (m != null || closed)
+                  // we only force delivery once per call to receive
+                  if (!deliveryForced)
                   {
+                     callForceDelivery = true;
                      break;
                   }
+               }
 
-                  long now = System.currentTimeMillis();
+               // receiverThread is set before polling, so handleMessage will unpark us after adding to the buffer.
+               // Spurious wake ups are fine as we will just poll again
+               LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(toWait));
 
-                  toWait -= now - start;
+               if (Thread.interrupted())
+               {
+                  throw new HornetQInterruptedException(new InterruptedException());
+               }
 
-                  start = now;
+               if (closed)
+               {
+                  break;
                }
+
+               long now = System.currentTimeMillis();
+
+               toWait -= now - start;
+
+               start = now;
             }
 
             if (failedOver)
@@ -545,6 +543,8 @@ public final class ClientConsumerImpl implements ClientConsumerInternal
       stopped = false;
 
       requeueExecutors();
+
+      wakeUpReceiver();
    }
 
    public Exception getLastException()
@@ -623,7 +623,7 @@ public final class ClientConsumerImpl implements ClientConsumerInternal
       }
       else
       {
-         notify();
+         wakeUpReceiver();
       }
    }
 
@@ -733,14 +733,12 @@ public final class ClientConsumerImpl implements ClientConsumerInternal
       {
          // Need to send credits for the messages in the buffer
 
-         Iterator<ClientMessageInternal> iter = buffer.iterator();
+         ClientMessageInternal message;
 
-         while (iter.hasNext())
+         while ((message = buffer.poll()) != null)
          {
             try
             {
-               ClientMessageInternal message = iter.next();
-
                if (message.isLargeMessage())
                {
                   ClientLargeMessageInternal largeMessage = (ClientLargeMessageInternal) message;
@@ -952,12 +950,25 @@ public final class ClientConsumerImpl implements ClientConsumerInternal
 
    private void requeueExecutors()
    {
-      for (int i = 0; i < buffer.size(); i++)
+      // Runners poll the buffer without holding this lock, so the size has to be read only once
+      final int size = buffer.size();
+
+      for (int i = 0; i < size; i++)
       {
          queueExecutor();
       }
    }
 
+   private void wakeUpReceiver()
+   {
+      Thread thread = receiverThread;
+
+      if (thread != null)
+      {
+         LockSupport.unpark(thread);
+      }
+   }
+
    private void queueExecutor()
    {
       if (isTrace)
@@ -1051,10 +1062,7 @@ public final class ClientConsumerImpl implements ClientConsumerInternal
 
          failedOver = false;
 
-         synchronized (this)
-         {
-            message = buffer.poll();
-         }
+         message = buffer.poll();
 
          if (message != null)
          {
@@ -1174,11 +1182,8 @@ public final class ClientConsumerImpl implements ClientConsumerInternal
 
          synchronized (this)
          {
-            if (receiverThread != null)
-            {
-               // Wake up any receive() thread that might be waiting
-               notify();
-            }
+            // Wake up any receive() thread that might be waiting
+            wakeUpReceiver();
 
             handler = null;
 
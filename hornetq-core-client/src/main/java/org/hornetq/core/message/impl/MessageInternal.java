@@ -46,6 +46,14 @@ public interface MessageInternal extends Message
 
    HornetQBuffer getEncodedBuffer();
 
+   int getEncodeSize();
+
+   /**
+    * Writes the message as it follows the packet headers, without handing out its own buffer as
+    * {@link #getEncodedBuffer()} does.
+    */
+   void encode(HornetQBuffer buffer);
+
    int getHeadersAndPropertiesEncodeSize();
 
    HornetQBuffer getWholeBuffer();
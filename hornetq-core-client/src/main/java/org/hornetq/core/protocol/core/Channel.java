@@ -12,9 +12,11 @@
  */
 package org.hornetq.core.protocol.core;
 
+import java.nio.channels.FileChannel;
 import java.util.concurrent.locks.Lock;
 
 import org.hornetq.api.core.HornetQException;
+import org.hornetq.core.protocol.core.impl.wireformat.SessionReceiveContinuationMessage;
 
 /**
  * A channel is a way of interleaving data meant for different endpoints over the same {@link org.hornetq.core.protocol.core.CoreRemotingConnection}.
@@ -63,6 +65,24 @@ public interface Channel
     */
    boolean sendAndFlush(Packet packet);
 
+   /**
+    * Returns whether large message continuations can be sent with
+    * {@link #send(SessionReceiveContinuationMessage, FileChannel, long, int)}. That requires a connection
+    * able to transfer files, see {@link org.hornetq.spi.core.remoting.Connection#isFileRegionCapable()}, no
+    * outgoing interceptor and no resend cache, as the body isn't held by the packet.
+    */
+   boolean supportsFileRegions();
+
+   /**
+    * Sends a large message continuation whose body is a region of a file, transferred straight from
+    * the file to the connection. The file is closed once the packet has been written.
+    * @param packet the packet to send, without body
+    * @param file the file holding the body
+    * @param position where the body starts in the file
+    * @param length the size of the body
+    */
+   void send(SessionReceiveContinuationMessage packet, FileChannel file, long position, int length);
+
    /**
     * Sends a packet on this channel and then blocks until a response is received or a timeout
     * occurs.
@@ -193,6 +213,20 @@ public interface Channel
     */
    int getConfirmationWindowSize();
 
+   /**
+    * returns the number of sent packets waiting for a confirmation, kept to be resent on reattach.
+    *
+    * @return the number of packets, 0 if confirmations are not used
+    */
+   int getResendCacheSize();
+
+   /**
+    * returns the total encoded size of the packets waiting for a confirmation.
+    *
+    * @return the size in bytes, 0 if confirmations are not used
+    */
+   long getResendCacheSizeInBytes();
+
    /**
     * notifies the channel if it is transferring its connection. When true it is illegal to send messages.
     *
@@ -90,6 +90,18 @@ public interface CoreRemotingConnection extends RemotingConnection
     */
    long getBlockingCallFailoverTimeout();
 
+   /**
+    * Returns the number of sent packets waiting for a confirmation on the channels of this connection.
+    * @return the number of packets
+    */
+   int getResendCacheSize();
+
+   /**
+    * Returns the total encoded size of the packets waiting for a confirmation on the channels of this connection.
+    * @return the size in bytes
+    */
+   long getResendCacheSizeInBytes();
+
    /**
     * Returns the transfer lock used when transferring connections.
     * @return the lock
@@ -12,9 +12,10 @@
  */
 package org.hornetq.core.protocol.core.impl;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.util.EnumSet;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Condition;
@@ -34,6 +35,7 @@ import org.hornetq.core.protocol.core.CoreRemotingConnection;
 import org.hornetq.core.protocol.core.Packet;
 import org.hornetq.core.protocol.core.impl.wireformat.HornetQExceptionMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.PacketsConfirmedMessage;
+import org.hornetq.core.protocol.core.impl.wireformat.SessionReceiveContinuationMessage;
 import org.hornetq.spi.core.protocol.RemotingConnection;
 
 /**
@@ -91,9 +93,7 @@ public final class ChannelImpl implements Channel
 
    private Packet response;
 
-   private final java.util.Queue<Packet> resendCache;
-
-   private volatile int firstStoredCommandID;
+   private final ResendCache resendCache;
 
    private final AtomicInteger lastConfirmedCommandID = new AtomicInteger(-1);
 
@@ -133,7 +133,7 @@ public final class ChannelImpl implements Channel
 
       if (confWindowSize != -1)
       {
-         resendCache = new ConcurrentLinkedQueue<Packet>();
+         resendCache = new ResendCache();
       }
       else
       {
@@ -172,6 +172,16 @@ public final class ChannelImpl implements Channel
       return lastConfirmedCommandID.get();
    }
 
+   public int getResendCacheSize()
+   {
+      return resendCache == null ? 0 : resendCache.size();
+   }
+
+   public long getResendCacheSizeInBytes()
+   {
+      return resendCache == null ? 0 : resendCache.getSizeInBytes();
+   }
+
    public Lock getLock()
    {
       return lock;
@@ -289,6 +299,64 @@ public final class ChannelImpl implements Channel
       }
    }
 
+   public boolean supportsFileRegions()
+   {
+      return resendCache == null && (interceptors == null || interceptors.isEmpty()) &&
+         connection.getTransportConnection().isFileRegionCapable();
+   }
+
+   public void send(final SessionReceiveContinuationMessage packet,
+                    final FileChannel file,
+                    final long position,
+                    final int length)
+   {
+      synchronized (sendLock)
+      {
+         packet.setChannelID(id);
+
+         if (isTrace)
+         {
+            HornetQClientLogger.LOGGER.trace("Sending packet nonblocking " + packet + " with " + length +
+                                                " bytes of a file on channeID=" + id);
+         }
+
+         lock.lock();
+
+         try
+         {
+            if (failingOver)
+            {
+               try
+               {
+                  failoverCondition.await(10000, TimeUnit.MILLISECONDS);
+               }
+               catch (InterruptedException e)
+               {
+                  closeFile(file);
+
+                  throw new HornetQInterruptedException(e);
+               }
+            }
+
+            // Sanity check
+            if (transferring)
+            {
+               closeFile(file);
+
+               throw new IllegalStateException("Cannot send a packet while channel is doing failover");
+            }
+         }
+         finally
+         {
+            lock.unlock();
+         }
+
+         HornetQBuffer[] buffers = packet.encodeAroundBody(connection, length);
+
+         connection.getTransportConnection().write(buffers[0], file, position, length, buffers[1]);
+      }
+   }
+
    /**
     * Due to networking issues or server issues the server may take longer to answer than expected.. the client may timeout the call throwing an exception
     * and the client could eventually retry another call, but the server could then answer a previous command issuing a class-cast-exception.
@@ -528,7 +596,7 @@ public final class ChannelImpl implements Channel
          }
          clearUpTo(otherLastConfirmedCommandID);
 
-         for (final Packet packet : resendCache)
+         for (final Packet packet : resendCache.getPackets())
          {
             doWrite(packet);
          }
@@ -602,8 +670,6 @@ public final class ChannelImpl implements Channel
       {
          lastConfirmedCommandID.set(-1);
 
-         firstStoredCommandID = 0;
-
          resendCache.clear();
       }
    }
@@ -628,7 +694,9 @@ public final class ChannelImpl implements Channel
       }
       else
       {
-         if (packet.isResponse())
+         // server side connections never block waiting for a response, an exception they receive is
+         // the failure of a packet sent asynchronously (e.g. a replicated one) and goes to the handler
+         if (packet.isResponse() && (connection.isClient() || packet.getType() != PacketImpl.EXCEPTION))
          {
             confirm(packet);
 
@@ -658,43 +726,31 @@ public final class ChannelImpl implements Channel
       connection.getTransportConnection().write(buffer, false, false);
    }
 
-   private void clearUpTo(final int lastReceivedCommandID)
+   private static void closeFile(final FileChannel file)
    {
-      final int numberToClear = 1 + lastReceivedCommandID - firstStoredCommandID;
-
-      if (numberToClear == -1)
+      try
       {
-         throw HornetQClientMessageBundle.BUNDLE.invalidCommandID(lastReceivedCommandID);
+         file.close();
       }
-
-      int sizeToFree = 0;
-
-      for (int i = 0; i < numberToClear; i++)
+      catch (IOException e)
       {
-         final Packet packet = resendCache.poll();
+         HornetQClientLogger.LOGGER.warn(e.getMessage(), e);
+      }
+   }
 
-         if (packet == null)
-         {
-            if (lastReceivedCommandID > 0)
-            {
-               HornetQClientLogger.LOGGER.cannotFindPacketToClear(lastReceivedCommandID, firstStoredCommandID);
-            }
-            firstStoredCommandID = lastReceivedCommandID + 1;
-            return;
-         }
+   private void clearUpTo(final int lastReceivedCommandID)
+   {
+      final CommandConfirmationHandler confirmationHandler = commandConfirmationHandler;
 
-         if (packet.getType() != PacketImpl.PACKETS_CONFIRMED)
-         {
-            sizeToFree += packet.getPacketSize();
-         }
+      final Packet[] confirmed = resendCache.confirmUpTo(lastReceivedCommandID, confirmationHandler != null);
 
-         if (commandConfirmationHandler != null)
+      if (confirmed != null)
+      {
+         for (Packet packet : confirmed)
          {
-            commandConfirmationHandler.commandConfirmed(packet);
+            confirmationHandler.commandConfirmed(packet);
          }
       }
-
-      firstStoredCommandID += numberToClear;
    }
 
    @Override
@@ -242,6 +242,14 @@ public class PacketImpl implements Packet
 
    public static final byte SCALEDOWN_ANNOUNCEMENT = -6;
 
+   public static final byte REPLICATION_BATCH = -7;
+
+   public static final byte REPLICATION_BATCH_RESPONSE = -8;
+
+   public static final byte REPLICATION_SYNC_DIGEST = -9;
+
+   public static final byte REPLICATION_SYNC_DIGEST_RESPONSE = -10;
+
    // Static --------------------------------------------------------
 
    public PacketImpl(final byte type)
@@ -346,6 +346,30 @@ public class RemotingConnectionImpl extends AbstractRemotingConnection implement
       return blockingCallFailoverTimeout;
    }
 
+   public int getResendCacheSize()
+   {
+      int size = 0;
+
+      for (Channel channel : channels.values())
+      {
+         size += channel.getResendCacheSize();
+      }
+
+      return size;
+   }
+
+   public long getResendCacheSizeInBytes()
+   {
+      long sizeInBytes = 0;
+
+      for (Channel channel : channels.values())
+      {
+         sizeInBytes += channel.getResendCacheSizeInBytes();
+      }
+
+      return sizeInBytes;
+   }
+
    //We flush any confirmations on the connection - this prevents idle bridges for example
    //sitting there with many unacked messages
    public void flush()
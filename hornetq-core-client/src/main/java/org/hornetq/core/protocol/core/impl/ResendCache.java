@@ -0,0 +1,191 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.core.protocol.core.impl;
+
+import org.hornetq.core.client.HornetQClientLogger;
+import org.hornetq.core.client.HornetQClientMessageBundle;
+import org.hornetq.core.protocol.core.Packet;
+
+/**
+ * The packets sent by a {@link ChannelImpl} that have not been confirmed yet, kept for replay on reattach.
+ * <p>
+ * Packets are stored in a ring buffer indexed by command ID: the packet at the head has command ID
+ * {@link #getFirstCommandID()} and each stored packet takes the next ID. A cumulative confirmation just
+ * advances the head, without allocating anything per packet. The ring doubles when it is full since the
+ * number of unconfirmed packets depends on their size and the confirmation window.
+ * <p>
+ * Packets are added by senders holding the channel lock while confirmations come from the remoting
+ * thread, so all the operations are guarded by the cache monitor, which is never held while writing.
+ */
+final class ResendCache
+{
+   private static final int INITIAL_CAPACITY = 64;
+
+   private Packet[] packets = new Packet[INITIAL_CAPACITY];
+
+   // encoded size of each packet when it was added, as a replay encodes it again
+   private int[] sizes = new int[INITIAL_CAPACITY];
+
+   private int head;
+
+   private int size;
+
+   private int firstCommandID;
+
+   private long sizeInBytes;
+
+   public synchronized void add(final Packet packet)
+   {
+      if (size == packets.length)
+      {
+         grow();
+      }
+
+      final int index = (head + size) & (packets.length - 1);
+
+      final int packetSize = packet.getPacketSize();
+
+      packets[index] = packet;
+
+      sizes[index] = packetSize;
+
+      size++;
+
+      sizeInBytes += packetSize;
+   }
+
+   /**
+    * Removes the packets up to and including the given command ID.
+    *
+    * @return the removed packets if {@code collect} is true, {@code null} otherwise
+    */
+   public synchronized Packet[] confirmUpTo(final int lastReceivedCommandID, final boolean collect)
+   {
+      final int numberToClear = 1 + lastReceivedCommandID - firstCommandID;
+
+      if (numberToClear == -1)
+      {
+         throw HornetQClientMessageBundle.BUNDLE.invalidCommandID(lastReceivedCommandID);
+      }
+
+      if (numberToClear <= 0)
+      {
+         return null;
+      }
+
+      final int numberCleared = Math.min(numberToClear, size);
+
+      final Packet[] cleared = collect ? new Packet[numberCleared] : null;
+
+      final int mask = packets.length - 1;
+
+      for (int i = 0; i < numberCleared; i++)
+      {
+         final int index = (head + i) & mask;
+
+         final Packet packet = packets[index];
+
+         packets[index] = null;
+
+         sizeInBytes -= sizes[index];
+
+         if (cleared != null)
+         {
+            cleared[i] = packet;
+         }
+      }
+
+      head = (head + numberCleared) & mask;
+
+      size -= numberCleared;
+
+      if (numberCleared < numberToClear && lastReceivedCommandID > 0)
+      {
+         HornetQClientLogger.LOGGER.cannotFindPacketToClear(lastReceivedCommandID, firstCommandID);
+      }
+
+      firstCommandID = lastReceivedCommandID + 1;
+
+      return cleared;
+   }
+
+   /**
+    * @return the unconfirmed packets, oldest first
+    */
+   public synchronized Packet[] getPackets()
+   {
+      final Packet[] copy = new Packet[size];
+
+      final int mask = packets.length - 1;
+
+      for (int i = 0; i < size; i++)
+      {
+         copy[i] = packets[(head + i) & mask];
+      }
+
+      return copy;
+   }
+
+   public synchronized void clear()
+   {
+      packets = new Packet[INITIAL_CAPACITY];
+
+      sizes = new int[INITIAL_CAPACITY];
+
+      head = 0;
+
+      size = 0;
+
+      firstCommandID = 0;
+
+      sizeInBytes = 0;
+   }
+
+   public synchronized int size()
+   {
+      return size;
+   }
+
+   public synchronized long getSizeInBytes()
+   {
+      return sizeInBytes;
+   }
+
+   public synchronized int getFirstCommandID()
+   {
+      return firstCommandID;
+   }
+
+   private void grow()
+   {
+      final Packet[] newPackets = new Packet[packets.length << 1];
+
+      final int[] newSizes = new int[newPackets.length];
+
+      final int firstPart = packets.length - head;
+
+      System.arraycopy(packets, head, newPackets, 0, firstPart);
+
+      System.arraycopy(packets, 0, newPackets, firstPart, head);
+
+      System.arraycopy(sizes, head, newSizes, 0, firstPart);
+
+      System.arraycopy(sizes, 0, newSizes, firstPart, head);
+
+      packets = newPackets;
+
+      sizes = newSizes;
+
+      head = 0;
+   }
+}
@@ -13,6 +13,7 @@
 package org.hornetq.core.protocol.core.impl.wireformat;
 
 import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.spi.core.protocol.RemotingConnection;
 import org.hornetq.utils.DataConstants;
 
 /**
@@ -85,6 +86,32 @@ public class SessionReceiveContinuationMessage extends SessionContinuationMessag
       super.encodeRest(buffer);
       buffer.writeLong(consumerID);
    }
+   /**
+    * Encodes the packet for a body of the given size written separately, e.g. from a file, instead of
+    * the body held by the packet.
+    *
+    * @return the bytes to write before and after the body
+    */
+   public HornetQBuffer[] encodeAroundBody(final RemotingConnection connection, final int bodySize)
+   {
+      size = SESSION_RECEIVE_CONTINUATION_BASE_SIZE + bodySize;
+
+      HornetQBuffer header = connection.createBuffer(PACKET_HEADERS_SIZE + DataConstants.SIZE_INT);
+
+      // The length doesn't include the actual length int
+      header.writeInt(size - DataConstants.SIZE_INT);
+      header.writeByte(getType());
+      header.writeLong(getChannelID());
+      header.writeInt(bodySize);
+
+      HornetQBuffer trailer = connection.createBuffer(DataConstants.SIZE_BOOLEAN + DataConstants.SIZE_LONG);
+
+      trailer.writeBoolean(continues);
+      trailer.writeLong(consumerID);
+
+      return new HornetQBuffer[]{header, trailer};
+   }
+
    @Override
    public int getPacketSize()
    {
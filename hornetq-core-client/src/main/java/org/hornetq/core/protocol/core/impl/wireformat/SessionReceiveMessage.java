@@ -60,12 +60,19 @@ public class SessionReceiveMessage extends MessagePacket
    @Override
    public HornetQBuffer encode(final RemotingConnection connection)
    {
-      HornetQBuffer buffer = message.getEncodedBuffer();
+      // The message is written into a buffer of the connection, pooled and direct on netty and released once written,
+      // instead of handing over its own heap buffer: that one is copied again for every further delivery and once more
+      // by netty into a direct buffer
+      HornetQBuffer buffer;
 
-      // Sanity check
-      if (buffer.writerIndex() != message.getEndOfMessagePosition())
+      synchronized (message)
       {
-         throw new IllegalStateException("Wrong encode position");
+         buffer = connection.createBuffer(PACKET_HEADERS_SIZE + message.getEncodeSize() +
+                                             DataConstants.SIZE_LONG + DataConstants.SIZE_INT);
+
+         buffer.writerIndex(PACKET_HEADERS_SIZE);
+
+         message.encode(buffer);
       }
 
       buffer.writeLong(consumerID);
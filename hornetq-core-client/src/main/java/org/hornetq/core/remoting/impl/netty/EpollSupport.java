@@ -0,0 +1,95 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.core.remoting.impl.netty;
+
+import java.util.Locale;
+
+import org.hornetq.core.client.HornetQClientLogger;
+
+/**
+ * Checks whether the Netty native epoll transport can be used.
+ * <p>
+ * The native library is only loaded the first time it is requested, and when it can't be loaded
+ * (not Linux, unsupported architecture, noexec temp dir...) the acceptors and connectors fall back to NIO.
+ */
+public final class EpollSupport
+{
+   private static final Throwable UNAVAILABILITY_CAUSE;
+
+   private static volatile boolean warned;
+
+   static
+   {
+      Throwable cause = null;
+
+      String os = System.getProperty("os.name", "").toLowerCase(Locale.US);
+
+      if (!os.startsWith("linux"))
+      {
+         cause = new UnsupportedOperationException("epoll is only supported on Linux, current OS is " + os);
+      }
+      else
+      {
+         try
+         {
+            // loading this class will load the native library
+            Class.forName("io.netty.channel.epoll.Native", true, EpollSupport.class.getClassLoader());
+         }
+         catch (Throwable e)
+         {
+            cause = e;
+         }
+      }
+
+      UNAVAILABILITY_CAUSE = cause;
+   }
+
+   private EpollSupport()
+   {
+   }
+
+   public static boolean isAvailable()
+   {
+      return UNAVAILABILITY_CAUSE == null;
+   }
+
+   public static Throwable unavailabilityCause()
+   {
+      return UNAVAILABILITY_CAUSE;
+   }
+
+   /**
+    * @param requested whether the user configured {@link TransportConstants#USE_EPOLL_PROP_NAME}
+    * @return true if epoll was requested and is available, logging once when falling back to NIO
+    */
+   public static boolean useEpoll(final boolean requested)
+   {
+      if (!requested)
+      {
+         return false;
+      }
+
+      if (isAvailable())
+      {
+         return true;
+      }
+
+      if (!warned)
+      {
+         warned = true;
+         HornetQClientLogger.LOGGER.epollNotAvailable(String.valueOf(UNAVAILABILITY_CAUSE));
+      }
+
+      return false;
+   }
+}
@@ -13,6 +13,7 @@
 package org.hornetq.core.remoting.impl.netty;
 
 import java.net.SocketAddress;
+import java.nio.channels.FileChannel;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Semaphore;
@@ -23,6 +24,7 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.EventLoop;
+import io.netty.channel.DefaultFileRegion;
 import io.netty.handler.ssl.SslHandler;
 import org.hornetq.api.core.HornetQBuffer;
 import org.hornetq.api.core.HornetQBuffers;
@@ -58,8 +60,29 @@ public class NettyConnection implements Connection
 
    private final boolean batchingEnabled;
 
+   private final boolean coalesceWrites;
+
+   // only accessed from the event loop
+   private int pendingCoalescedBytes;
+
+   // only accessed from the event loop
+   private boolean coalescedFlushScheduled;
+
+   private final Runnable coalescedFlushTask = new Runnable()
+   {
+      @Override
+      public void run()
+      {
+         coalescedFlushScheduled = false;
+
+         flushCoalescedWrites();
+      }
+   };
+
    private final boolean directDeliver;
 
+   private final boolean fileRegions;
+
    private volatile HornetQBuffer batchBuffer;
 
    private final Map<String, Object> configuration;
@@ -79,6 +102,37 @@ public class NettyConnection implements Connection
                           final ConnectionLifeCycleListener listener,
                           boolean batchingEnabled,
                           boolean directDeliver)
+   {
+      this(configuration, channel, listener, batchingEnabled, directDeliver, false);
+   }
+
+   /**
+    * @param coalesceWrites if true batched writes are queued on the channel and flushed together
+    *                       instead of being copied into a batch buffer
+    */
+   public NettyConnection(final Map<String, Object> configuration,
+                          final Channel channel,
+                          final ConnectionLifeCycleListener listener,
+                          boolean batchingEnabled,
+                          boolean directDeliver,
+                          boolean coalesceWrites)
+   {
+      this(configuration, channel, listener, batchingEnabled, directDeliver, coalesceWrites, false);
+   }
+
+   /**
+    * @param coalesceWrites if true batched writes are queued on the channel and flushed together
+    *                       instead of being copied into a batch buffer
+    * @param fileRegions    if true the channel can write {@link DefaultFileRegion}s, i.e. it is neither
+    *                       encrypted nor compressed
+    */
+   public NettyConnection(final Map<String, Object> configuration,
+                          final Channel channel,
+                          final ConnectionLifeCycleListener listener,
+                          boolean batchingEnabled,
+                          boolean directDeliver,
+                          boolean coalesceWrites,
+                          boolean fileRegions)
    {
       this.configuration = configuration;
 
@@ -89,6 +143,10 @@ public class NettyConnection implements Connection
       this.batchingEnabled = batchingEnabled;
 
       this.directDeliver = directDeliver;
+
+      this.coalesceWrites = batchingEnabled && coalesceWrites;
+
+      this.fileRegions = fileRegions;
    }
 
    // Public --------------------------------------------------------
@@ -145,6 +203,11 @@ public class NettyConnection implements Connection
 
       final SslHandler sslHandler = (SslHandler) channel.pipeline().get("ssl");
       EventLoop eventLoop = channel.eventLoop();
+      if (coalesceWrites)
+      {
+         // don't lose the writes still waiting for the event loop to flush them
+         eventLoop.execute(coalescedFlushTask);
+      }
       boolean inEventLoop = eventLoop.inEventLoop();
       //if we are in an event loop we need to close the channel after the writes have finished
       if (!inEventLoop)
@@ -182,7 +245,8 @@ public class NettyConnection implements Connection
    // This is called periodically to flush the batch buffer
    public void checkFlushBatchBuffer()
    {
-      if (!batchingEnabled)
+      // coalesced writes are flushed by the event loop itself
+      if (!batchingEnabled || coalesceWrites)
       {
          return;
       }
@@ -218,6 +282,12 @@ public class NettyConnection implements Connection
    public void write(HornetQBuffer buffer, final boolean flush, final boolean batched, final ChannelFutureListener futureListener)
    {
 
+      if (coalesceWrites && batched && !flush && futureListener == null)
+      {
+         writeCoalesced(buffer.byteBuf());
+         return;
+      }
+
       try
       {
          writeLock.acquire();
@@ -235,6 +305,9 @@ public class NettyConnection implements Connection
             {
                batchBuffer.writeBytes(buffer, 0, buffer.writerIndex());
 
+               // the packet buffer may be pooled and it has been copied, it won't be written itself
+               buffer.byteBuf().release();
+
                if (batchBuffer.writerIndex() >= BATCHING_BUFFER_SIZE || !batched || flush)
                {
                   // If the batch buffer is full or it's flush param or not batched then flush the buffer
@@ -343,6 +416,68 @@ public class NettyConnection implements Connection
       }
    }
 
+   public void write(final HornetQBuffer header,
+                     final FileChannel file,
+                     final long position,
+                     final long count,
+                     final HornetQBuffer trailer)
+   {
+      // closes the file once released
+      final DefaultFileRegion region = new DefaultFileRegion(file, position, count);
+
+      try
+      {
+         writeLock.acquire();
+
+         try
+         {
+            final ByteBuf batched;
+
+            if (batchBuffer != null && batchBuffer.readable())
+            {
+               batched = batchBuffer.byteBuf();
+
+               // it will be lazily created by the next batched write
+               batchBuffer = null;
+            }
+            else
+            {
+               batched = null;
+            }
+
+            // written from the event loop, after any pending batched write
+            channel.eventLoop().execute(new Runnable()
+            {
+               @Override
+               public void run()
+               {
+                  if (batched != null)
+                  {
+                     channel.write(batched, channel.voidPromise());
+                  }
+
+                  channel.write(header.byteBuf(), channel.voidPromise());
+                  channel.write(region, channel.voidPromise());
+                  channel.writeAndFlush(trailer.byteBuf(), channel.voidPromise());
+
+                  // the coalesced writes have been flushed as well
+                  pendingCoalescedBytes = 0;
+               }
+            });
+         }
+         finally
+         {
+            writeLock.release();
+         }
+      }
+      catch (InterruptedException e)
+      {
+         region.release();
+
+         throw new HornetQInterruptedException(e);
+      }
+   }
+
    public String getRemoteAddress()
    {
       SocketAddress address = channel.remoteAddress();
@@ -358,6 +493,11 @@ public class NettyConnection implements Connection
       return directDeliver;
    }
 
+   public boolean isFileRegionCapable()
+   {
+      return fileRegions;
+   }
+
    public void addReadyListener(final ReadyListener listener)
    {
       readyListeners.add(listener);
@@ -417,6 +557,47 @@ public class NettyConnection implements Connection
 
    // Private -------------------------------------------------------
 
+   /**
+    * Queues the buffer on the channel without copying it. The write always goes through the event loop
+    * so it is ordered with the other writes, and the pending buffers are flushed as a single gathering
+    * write when they reach {@link #BATCHING_BUFFER_SIZE} or once the tasks already queued on the event
+    * loop have run. Writes that need to be flushed straight away flush the pending ones as well.
+    */
+   private void writeCoalesced(final ByteBuf buf)
+   {
+      channel.eventLoop().execute(new Runnable()
+      {
+         @Override
+         public void run()
+         {
+            pendingCoalescedBytes += buf.readableBytes();
+
+            channel.write(buf, channel.voidPromise());
+
+            if (pendingCoalescedBytes >= BATCHING_BUFFER_SIZE)
+            {
+               flushCoalescedWrites();
+            }
+            else if (!coalescedFlushScheduled)
+            {
+               coalescedFlushScheduled = true;
+
+               channel.eventLoop().execute(coalescedFlushTask);
+            }
+         }
+      });
+   }
+
+   private void flushCoalescedWrites()
+   {
+      if (pendingCoalescedBytes > 0)
+      {
+         pendingCoalescedBytes = 0;
+
+         channel.flush();
+      }
+   }
+
 
    private void closeSSLAndChannel(SslHandler sslHandler, Channel channel)
    {
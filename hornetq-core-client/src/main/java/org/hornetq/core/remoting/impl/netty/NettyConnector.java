@@ -69,9 +69,14 @@ import io.netty.channel.EventLoopGroup;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.channel.group.ChannelGroup;
 import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.base64.Base64;
+import io.netty.handler.codec.compression.JdkZlibDecoder;
+import io.netty.handler.codec.compression.JdkZlibEncoder;
 import io.netty.handler.codec.http.ClientCookieEncoder;
 import io.netty.handler.codec.http.Cookie;
 import io.netty.handler.codec.http.CookieDecoder;
@@ -150,8 +155,12 @@ public class NettyConnector extends AbstractConnector
 
    static
    {
-      // Disable resource leak detection for performance reasons by default
-      ResourceLeakDetector.setEnabled(false);
+      // Disable resource leak detection for performance reasons by default, unless it is asked for
+      // with -Dio.netty.leakDetectionLevel as the test suite does
+      if (System.getProperty("io.netty.leakDetectionLevel") == null)
+      {
+         ResourceLeakDetector.setEnabled(false);
+      }
 
       // Set default Configuration
       Map<String, Object> config = new HashMap<String , Object>();
@@ -221,6 +230,10 @@ public class NettyConnector extends AbstractConnector
 
    private final long batchDelay;
 
+   private final boolean coalesceWrites;
+
+   private final boolean compression;
+
    private final ConcurrentMap<Object, Connection> connections = new ConcurrentHashMap<Object, Connection>();
 
    private final String servletPath;
@@ -229,6 +242,13 @@ public class NettyConnector extends AbstractConnector
 
    private final boolean useNioGlobalWorkerPool;
 
+   private final boolean useEpoll;
+
+   private final boolean epollTcpCork;
+
+   // true when group is the shared epoll group, which has to be released instead of shut down
+   private boolean sharedEpollGroup;
+
    private final ScheduledExecutorService scheduledThreadPool;
 
    private final Executor closeExecutor;
@@ -325,6 +345,14 @@ public class NettyConnector extends AbstractConnector
                                                                       TransportConstants.DEFAULT_USE_NIO_GLOBAL_WORKER_POOL,
                                                                       configuration);
 
+      useEpoll = ConfigurationHelper.getBooleanProperty(TransportConstants.USE_EPOLL_PROP_NAME,
+                                                        TransportConstants.DEFAULT_USE_EPOLL,
+                                                        configuration);
+
+      epollTcpCork = ConfigurationHelper.getBooleanProperty(TransportConstants.EPOLL_TCP_CORK_PROP_NAME,
+                                                            TransportConstants.DEFAULT_EPOLL_TCP_CORK,
+                                                            configuration);
+
       useServlet = ConfigurationHelper.getBooleanProperty(TransportConstants.USE_SERVLET_PROP_NAME,
                                                           TransportConstants.DEFAULT_USE_SERVLET,
                                                           configuration);
@@ -405,6 +433,14 @@ public class NettyConnector extends AbstractConnector
                                                        TransportConstants.DEFAULT_BATCH_DELAY,
                                                        configuration);
 
+      coalesceWrites = ConfigurationHelper.getBooleanProperty(TransportConstants.COALESCE_WRITES_PROP_NAME,
+                                                              TransportConstants.DEFAULT_COALESCE_WRITES,
+                                                              configuration);
+
+      compression = ConfigurationHelper.getBooleanProperty(TransportConstants.COMPRESSION_PROP_NAME,
+                                                           TransportConstants.DEFAULT_COMPRESSION,
+                                                           configuration);
+
       connectTimeoutMillis = ConfigurationHelper.getIntProperty(TransportConstants.NETTY_CONNECT_TIMEOUT,
                                                                 TransportConstants.DEFAULT_NETTY_CONNECT_TIMEOUT,
                                                                 configuration);
@@ -430,6 +466,10 @@ public class NettyConnector extends AbstractConnector
          sslEnabled +
          ", useNio=" +
          true +
+         ", useEpoll=" +
+         useEpoll +
+         ", compression=" +
+         compression +
          "]";
    }
 
@@ -454,7 +494,22 @@ public class NettyConnector extends AbstractConnector
       }
 
 
-      if (useNioGlobalWorkerPool)
+      boolean epoll = EpollSupport.useEpoll(useEpoll);
+
+      if (epoll)
+      {
+         channelClazz = EpollSocketChannel.class;
+         if (useNioGlobalWorkerPool)
+         {
+            group = SharedEpollEventLoopGroup.acquire(threadsToUse);
+            sharedEpollGroup = true;
+         }
+         else
+         {
+            group = new EpollEventLoopGroup(threadsToUse);
+         }
+      }
+      else if (useNioGlobalWorkerPool)
       {
          channelClazz = NioSocketChannel.class;
          group = SharedNioEventLoopGroup.getInstance(threadsToUse);
@@ -486,7 +541,19 @@ public class NettyConnector extends AbstractConnector
       }
       bootstrap.option(ChannelOption.SO_KEEPALIVE, true);
       bootstrap.option(ChannelOption.SO_REUSEADDR, true);
-      bootstrap.option(ChannelOption.ALLOCATOR, new UnpooledByteBufAllocator(false));
+      if (epoll)
+      {
+         // epoll reads straight into the memory of direct buffers, heap ones need a copy through JNI
+         bootstrap.option(ChannelOption.ALLOCATOR, PartialPooledByteBufAllocator.DIRECT_IO_INSTANCE);
+         if (epollTcpCork)
+         {
+            bootstrap.option(EpollChannelOption.TCP_CORK, true);
+         }
+      }
+      else
+      {
+         bootstrap.option(ChannelOption.ALLOCATOR, new UnpooledByteBufAllocator(false));
+      }
       channelGroup = new DefaultChannelGroup("hornetq-connector", GlobalEventExecutor.INSTANCE);
 
       final SSLContext context;
@@ -618,6 +685,13 @@ public class NettyConnector extends AbstractConnector
                pipeline.addLast(handler);
             }
 
+            if (compression && !httpEnabled)
+            {
+               pipeline.addLast(new JdkZlibEncoder());
+
+               pipeline.addLast(new JdkZlibDecoder());
+            }
+
             if (httpEnabled)
             {
                pipeline.addLast(new HttpRequestEncoder());
@@ -643,7 +717,8 @@ public class NettyConnector extends AbstractConnector
          }
       });
 
-      if (batchDelay > 0)
+      // coalesced writes are flushed by the event loops, no need for the timer
+      if (batchDelay > 0 && !coalesceWrites)
       {
          flusher = new BatchFlusher();
 
@@ -674,9 +749,17 @@ public class NettyConnector extends AbstractConnector
       bootstrap = null;
       channelGroup.close().awaitUninterruptibly();
 
-      // Shutdown the EventLoopGroup if no new task was added for 100ms or if
-      // 3000ms elapsed.
-      group.shutdownGracefully(100, 3000, TimeUnit.MILLISECONDS);
+      if (sharedEpollGroup)
+      {
+         SharedEpollEventLoopGroup.release();
+         sharedEpollGroup = false;
+      }
+      else
+      {
+         // Shutdown the EventLoopGroup if no new task was added for 100ms or if
+         // 3000ms elapsed.
+         group.shutdownGracefully(100, 3000, TimeUnit.MILLISECONDS);
+      }
 
       channelClazz = null;
 
@@ -825,7 +908,7 @@ public class NettyConnector extends AbstractConnector
 
          // No acceptor on a client connection
          Listener connectionListener = new Listener();
-         NettyConnection conn = new NettyConnection(configuration, ch, connectionListener, !httpEnabled && batchDelay > 0, false);
+         NettyConnection conn = new NettyConnection(configuration, ch, connectionListener, !httpEnabled && (batchDelay > 0 || coalesceWrites), false, coalesceWrites);
          connectionListener.connectionCreated(null, conn, protocolManager.getName());
          return conn;
       }
@@ -1200,6 +1283,7 @@ public class NettyConnector extends AbstractConnector
    public static void clearThreadPools()
    {
       SharedNioEventLoopGroup.forceShutdown();
+      SharedEpollEventLoopGroup.forceShutdown();
    }
 
    private static ClassLoader getThisClassLoader()
@@ -22,6 +22,9 @@ import io.netty.buffer.UnpooledByteBufAllocator;
 /**
  * A {@link ByteBufAllocator} which is partial pooled. Which means only direct {@link ByteBuf}s are pooled. The rest
  * is unpooled.
+ * <p>
+ * The buffers read from the socket can be pooled too when the protocol releases every one of them, see
+ * {@link #withPooledIO()}.
  *
  * @author <a href="mailto:nmaurer@redhat.com">Norman Maurer</a>
  */
@@ -30,10 +33,37 @@ public class PartialPooledByteBufAllocator implements ByteBufAllocator
    private static final ByteBufAllocator POOLED = new PooledByteBufAllocator(false);
    private static final ByteBufAllocator UNPOOLED = new UnpooledByteBufAllocator(false);
 
-   public static final PartialPooledByteBufAllocator INSTANCE = new PartialPooledByteBufAllocator();
+   public static final PartialPooledByteBufAllocator INSTANCE = new PartialPooledByteBufAllocator(false, false);
 
-   private PartialPooledByteBufAllocator()
+   /**
+    * Same as {@link #INSTANCE} but with direct I/O buffers, as required by the native epoll transport.
+    */
+   public static final PartialPooledByteBufAllocator DIRECT_IO_INSTANCE = new PartialPooledByteBufAllocator(true, false);
+
+   private static final PartialPooledByteBufAllocator POOLED_IO_INSTANCE = new PartialPooledByteBufAllocator(false, true);
+
+   private static final PartialPooledByteBufAllocator POOLED_DIRECT_IO_INSTANCE = new PartialPooledByteBufAllocator(true, true);
+
+   private final boolean directIO;
+
+   private final ByteBufAllocator ioAllocator;
+
+   private PartialPooledByteBufAllocator(final boolean directIO, final boolean pooledIO)
    {
+      this.directIO = directIO;
+      this.ioAllocator = pooledIO ? POOLED : UNPOOLED;
+   }
+
+   /**
+    * Returns the same allocator but with pooled I/O buffers.
+    * <p>
+    * I/O buffers are the ones the transport reads into. They may only be pooled when the first handler of the
+    * pipeline is a decoder releasing every buffer it gets, as the core protocol frame decoder does. Otherwise
+    * they are handed to the protocol as they are and would never go back to the pool.
+    */
+   public PartialPooledByteBufAllocator withPooledIO()
+   {
+      return directIO ? POOLED_DIRECT_IO_INSTANCE : POOLED_IO_INSTANCE;
    }
 
    @Override
@@ -57,19 +87,31 @@ public class PartialPooledByteBufAllocator implements ByteBufAllocator
    @Override
    public ByteBuf ioBuffer()
    {
-      return UNPOOLED.heapBuffer();
+      if (directIO)
+      {
+         return ioAllocator.directBuffer();
+      }
+      return ioAllocator.heapBuffer();
    }
 
    @Override
    public ByteBuf ioBuffer(int initialCapacity)
    {
-      return UNPOOLED.heapBuffer(initialCapacity);
+      if (directIO)
+      {
+         return ioAllocator.directBuffer(initialCapacity);
+      }
+      return ioAllocator.heapBuffer(initialCapacity);
    }
 
    @Override
    public ByteBuf ioBuffer(int initialCapacity, int maxCapacity)
    {
-      return UNPOOLED.heapBuffer(initialCapacity, maxCapacity);
+      if (directIO)
+      {
+         return ioAllocator.directBuffer(initialCapacity, maxCapacity);
+      }
+      return ioAllocator.heapBuffer(initialCapacity, maxCapacity);
    }
 
    @Override
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.core.remoting.impl.netty;
+
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import org.hornetq.core.client.impl.ClientSessionFactoryImpl;
+import org.hornetq.utils.HornetQThreadFactory;
+
+/**
+ * The epoll counterpart of {@link SharedNioEventLoopGroup}, used by connectors when
+ * {@link TransportConstants#USE_NIO_GLOBAL_WORKER_POOL_PROP_NAME} is set.
+ * <p>
+ * {@link EpollEventLoopGroup} can't be extended, so connectors {@link #acquire(int)} the group and
+ * {@link #release()} it instead of shutting it down. The group is shut down 10 seconds after the last
+ * connector released it, unless it is acquired again in the meantime.
+ */
+public final class SharedEpollEventLoopGroup
+{
+   private static EpollEventLoopGroup instance;
+
+   private static int references;
+
+   private static ScheduledFuture<?> shutdown;
+
+   private SharedEpollEventLoopGroup()
+   {
+   }
+
+   public static synchronized EventLoopGroup acquire(final int numThreads)
+   {
+      if (instance == null)
+      {
+         instance = new EpollEventLoopGroup(numThreads, new HornetQThreadFactory("HornetQ-client-netty-threads", true, getThisClassLoader()));
+      }
+      else if (shutdown != null)
+      {
+         shutdown.cancel(false);
+         shutdown = null;
+      }
+
+      references++;
+
+      return instance;
+   }
+
+   public static synchronized void release()
+   {
+      if (instance == null || --references > 0)
+      {
+         return;
+      }
+
+      final EpollEventLoopGroup group = instance;
+
+      shutdown = group.next().schedule(new Runnable()
+      {
+         @Override
+         public void run()
+         {
+            synchronized (SharedEpollEventLoopGroup.class)
+            {
+               if (instance == group && references == 0)
+               {
+                  group.shutdownGracefully(100, 3000, TimeUnit.MILLISECONDS);
+                  instance = null;
+                  shutdown = null;
+               }
+            }
+         }
+      }, 10, TimeUnit.SECONDS);
+   }
+
+   public static synchronized void forceShutdown()
+   {
+      if (instance != null)
+      {
+         instance.shutdown();
+         instance = null;
+         references = 0;
+         shutdown = null;
+      }
+   }
+
+   private static ClassLoader getThisClassLoader()
+   {
+      return AccessController.doPrivileged(new PrivilegedAction<ClassLoader>()
+      {
+         public ClassLoader run()
+         {
+            return ClientSessionFactoryImpl.class.getClassLoader();
+         }
+      });
+   }
+}
@@ -54,6 +54,23 @@ public class TransportConstants
 
    public static final String USE_INVM_PROP_NAME = "use-invm";
 
+   /**
+    * Use the Netty native epoll transport instead of NIO (Linux only).<br>
+    * If the native library can't be loaded NIO is used instead.
+    */
+   public static final String USE_EPOLL_PROP_NAME = "use-epoll";
+
+   /**
+    * Set SO_REUSEPORT on the listening sockets, binding one server socket per acceptor thread so the
+    * kernel spreads incoming connections across them. Only used with {@link #USE_EPOLL_PROP_NAME}.
+    */
+   public static final String EPOLL_REUSE_PORT_PROP_NAME = "epoll-reuse-port";
+
+   /**
+    * Set TCP_CORK on the sockets. Only used with {@link #USE_EPOLL_PROP_NAME}.
+    */
+   public static final String EPOLL_TCP_CORK_PROP_NAME = "epoll-tcp-cork";
+
    public static final String PROTOCOL_PROP_NAME = "protocol";
 
    public static final String PROTOCOLS_PROP_NAME = "protocols";
@@ -110,6 +127,26 @@ public class TransportConstants
 
    public static final String DIRECT_DELIVER = "direct-deliver";
 
+   /**
+    * Batch writes by queueing the packet buffers on the channel and flushing them together in a single
+    * gathering write, instead of copying them into a batch buffer flushed every {@link #BATCH_DELAY}.<br>
+    * Pending writes are flushed once they reach 8 KiB, on an explicit flush or at the end of the current
+    * event loop run.
+    */
+   public static final String COALESCE_WRITES_PROP_NAME = "coalesce-writes";
+
+   /**
+    * Compress the stream with zlib, e.g. for bridges over slow links. Both the acceptor and the connector
+    * must set it. Not supported with HTTP.
+    */
+   public static final String COMPRESSION_PROP_NAME = "compression";
+
+   /**
+    * Send the bodies of large messages to consumers straight from their files with {@link io.netty.channel.FileRegion}s,
+    * without copying them through the heap. Acceptor only. Ignored with SSL, compression or HTTP.
+    */
+   public static final String ZERO_COPY_LARGE_MESSAGES_PROP_NAME = "zero-copy-large-messages";
+
    public static final String CLUSTER_CONNECTION = "cluster-connection";
 
    public static final String STOMP_CONSUMERS_CREDIT = "stomp-consumer-credits";
@@ -122,6 +159,12 @@ public class TransportConstants
 
    public static final boolean DEFAULT_USE_INVM = false;
 
+   public static final boolean DEFAULT_USE_EPOLL = false;
+
+   public static final boolean DEFAULT_EPOLL_REUSE_PORT = false;
+
+   public static final boolean DEFAULT_EPOLL_TCP_CORK = false;
+
    public static final boolean DEFAULT_USE_SERVLET = false;
 
    public static final String DEFAULT_HOST = "localhost";
@@ -178,6 +221,12 @@ public class TransportConstants
 
    public static final boolean DEFAULT_DIRECT_DELIVER = true;
 
+   public static final boolean DEFAULT_COALESCE_WRITES = false;
+
+   public static final boolean DEFAULT_COMPRESSION = false;
+
+   public static final boolean DEFAULT_ZERO_COPY_LARGE_MESSAGES = false;
+
    public static final Set<String> ALLOWABLE_CONNECTOR_KEYS;
 
    public static final Set<String> ALLOWABLE_ACCEPTOR_KEYS;
@@ -201,6 +250,9 @@ public class TransportConstants
       allowableAcceptorKeys.add(TransportConstants.HTTP_UPGRADE_ENABLED_PROP_NAME);
       allowableAcceptorKeys.add(TransportConstants.USE_NIO_PROP_NAME);
       allowableAcceptorKeys.add(TransportConstants.USE_INVM_PROP_NAME);
+      allowableAcceptorKeys.add(TransportConstants.USE_EPOLL_PROP_NAME);
+      allowableAcceptorKeys.add(TransportConstants.EPOLL_REUSE_PORT_PROP_NAME);
+      allowableAcceptorKeys.add(TransportConstants.EPOLL_TCP_CORK_PROP_NAME);
       allowableAcceptorKeys.add(TransportConstants.PROTOCOL_PROP_NAME);
       allowableAcceptorKeys.add(TransportConstants.PROTOCOLS_PROP_NAME);
       allowableAcceptorKeys.add(TransportConstants.HOST_PROP_NAME);
@@ -220,6 +272,9 @@ public class TransportConstants
       allowableAcceptorKeys.add(TransportConstants.NIO_REMOTING_THREADS_PROPNAME);
       allowableAcceptorKeys.add(TransportConstants.BATCH_DELAY);
       allowableAcceptorKeys.add(TransportConstants.DIRECT_DELIVER);
+      allowableAcceptorKeys.add(TransportConstants.COALESCE_WRITES_PROP_NAME);
+      allowableAcceptorKeys.add(TransportConstants.COMPRESSION_PROP_NAME);
+      allowableAcceptorKeys.add(TransportConstants.ZERO_COPY_LARGE_MESSAGES_PROP_NAME);
       allowableAcceptorKeys.add(TransportConstants.CLUSTER_CONNECTION);
       allowableAcceptorKeys.add(TransportConstants.STOMP_CONSUMERS_CREDIT);
       allowableAcceptorKeys.add(TransportConstants.STOMP_MIN_LARGE_MESSAGE_SIZE);
@@ -242,6 +297,8 @@ public class TransportConstants
       allowableConnectorKeys.add(TransportConstants.SERVLET_PATH);
       allowableConnectorKeys.add(TransportConstants.USE_NIO_PROP_NAME);
       allowableConnectorKeys.add(TransportConstants.USE_NIO_GLOBAL_WORKER_POOL_PROP_NAME);
+      allowableConnectorKeys.add(TransportConstants.USE_EPOLL_PROP_NAME);
+      allowableConnectorKeys.add(TransportConstants.EPOLL_TCP_CORK_PROP_NAME);
       allowableConnectorKeys.add(TransportConstants.HOST_PROP_NAME);
       allowableConnectorKeys.add(TransportConstants.PORT_PROP_NAME);
       allowableConnectorKeys.add(TransportConstants.LOCAL_ADDRESS_PROP_NAME);
@@ -259,6 +316,8 @@ public class TransportConstants
       allowableConnectorKeys.add(TransportConstants.TCP_RECEIVEBUFFER_SIZE_PROPNAME);
       allowableConnectorKeys.add(TransportConstants.NIO_REMOTING_THREADS_PROPNAME);
       allowableConnectorKeys.add(TransportConstants.BATCH_DELAY);
+      allowableConnectorKeys.add(TransportConstants.COALESCE_WRITES_PROP_NAME);
+      allowableConnectorKeys.add(TransportConstants.COMPRESSION_PROP_NAME);
       allowableConnectorKeys.add(HornetQDefaultConfiguration.getPropMaskPassword());
       allowableConnectorKeys.add(HornetQDefaultConfiguration.getPropPasswordCodec());
       allowableConnectorKeys.add(TransportConstants.NETTY_CONNECT_TIMEOUT);
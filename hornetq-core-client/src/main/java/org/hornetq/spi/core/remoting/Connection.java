@@ -12,6 +12,8 @@
  */
 package org.hornetq.spi.core.remoting;
 
+import java.nio.channels.FileChannel;
+
 import io.netty.channel.ChannelFutureListener;
 import org.hornetq.api.core.HornetQBuffer;
 import org.hornetq.api.core.TransportConfiguration;
@@ -71,6 +73,27 @@ public interface Connection
     */
    void write(HornetQBuffer buffer);
 
+   /**
+    * Returns whether {@link #write(HornetQBuffer, FileChannel, long, long, HornetQBuffer)} can be used, i.e. whether
+    * this connection can transfer the bytes of a file to the wire without copying them through the heap.
+    */
+   boolean isFileRegionCapable();
+
+   /**
+    * writes a packet whose body is a region of a file, transferred straight from the file to the connection.
+    * <p>
+    * The bytes before the body, the body and the bytes after it are written and flushed together, no other write
+    * comes between them. The file belongs to the connection from then on: it is closed once written, or if the write
+    * fails. Only used if {@link #isFileRegionCapable()}.
+    *
+    * @param header   the bytes of the packet before the body
+    * @param file     the file holding the body
+    * @param position where the body starts in the file
+    * @param count    the size of the body
+    * @param trailer  the bytes of the packet after the body
+    */
+   void write(HornetQBuffer header, FileChannel file, long position, long count, HornetQBuffer trailer);
+
 
    /**
     * This should close the internal channel without calling any listeners.
@@ -21,9 +21,22 @@ package org.hornetq.utils;
  */
 public interface LinkedList<E>
 {
-   void addHead(E e);
+   /**
+    * @return the node of the element, which can be used to {@link #remove(Object)} it
+    */
+   Object addHead(E e);
 
-   void addTail(E e);
+   /**
+    * @return the node of the element, which can be used to {@link #remove(Object)} it
+    */
+   Object addTail(E e);
+
+   /**
+    * Removes an element in constant time, using the node returned when it was added.
+    *
+    * @return false if the element had already been removed
+    */
+   boolean remove(Object node);
 
    E poll();
 
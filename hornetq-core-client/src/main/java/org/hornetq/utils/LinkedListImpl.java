@@ -48,7 +48,7 @@ public class LinkedListImpl<E> implements LinkedList<E>
       iters = createIteratorArray(INITIAL_ITERATOR_ARRAY_SIZE);
    }
 
-   public void addHead(E e)
+   public Object addHead(E e)
    {
       Node<E> node = new Node<E>(e);
 
@@ -69,13 +69,15 @@ public class LinkedListImpl<E> implements LinkedList<E>
       }
 
       size++;
+
+      return node;
    }
 
-   public void addTail(E e)
+   public Object addTail(E e)
    {
       if (size == 0)
       {
-         addHead(e);
+         return addHead(e);
       }
       else
       {
@@ -88,9 +90,26 @@ public class LinkedListImpl<E> implements LinkedList<E>
          tail = node;
 
          size++;
+
+         return node;
       }
    }
 
+   public boolean remove(Object node)
+   {
+      Node<E> toRemove = (Node<E>) node;
+
+      // the links of a node are cleared once it is removed
+      if (toRemove.prev == null)
+      {
+         return false;
+      }
+
+      removeAfter(toRemove.prev);
+
+      return true;
+   }
+
    public E poll()
    {
       Node<E> ret = head.next;
@@ -109,6 +128,20 @@ public class LinkedListImpl<E> implements LinkedList<E>
 
    public void clear()
    {
+      // unlinks the nodes, so removing one of them afterwards is a noop and doesn't corrupt the size
+      Node<E> node = head.next;
+
+      while (node != null)
+      {
+         Node<E> next = node.next;
+
+         node.prev = null;
+
+         node.next = null;
+
+         node = next;
+      }
+
       tail = head.next = null;
 
       size = 0;
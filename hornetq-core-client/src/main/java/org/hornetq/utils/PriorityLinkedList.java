@@ -22,9 +22,22 @@ package org.hornetq.utils;
  */
 public interface PriorityLinkedList<T>
 {
-   void addHead(T t, int priority);
-
-   void addTail(T t, int priority);
+   /**
+    * @return the node of the element, which can be used to {@link #remove(Object, int)} it
+    */
+   Object addHead(T t, int priority);
+
+   /**
+    * @return the node of the element, which can be used to {@link #remove(Object, int)} it
+    */
+   Object addTail(T t, int priority);
+
+   /**
+    * Removes an element in constant time, using the node returned when it was added with the same priority.
+    *
+    * @return false if the element had already been removed
+    */
+   boolean remove(Object node, int priority);
 
    T poll();
 
@@ -67,22 +67,46 @@ public class PriorityLinkedListImpl<T> implements PriorityLinkedList<T>
       }
    }
 
-   public void addHead(final T t, final int priority)
+   public Object addHead(final T t, final int priority)
    {
       checkHighest(priority);
 
-      levels[priority].addHead(t);
+      Object node = levels[priority].addHead(t);
 
       size++;
+
+      return node;
    }
 
-   public void addTail(final T t, final int priority)
+   public Object addTail(final T t, final int priority)
    {
       checkHighest(priority);
 
-      levels[priority].addTail(t);
+      Object node = levels[priority].addTail(t);
 
       size++;
+
+      return node;
+   }
+
+   public boolean remove(final Object node, final int priority)
+   {
+      if (!levels[priority].remove(node))
+      {
+         return false;
+      }
+
+      size--;
+
+      if (priority == highestPriority)
+      {
+         while (highestPriority >= 0 && levels[highestPriority].size() == 0)
+         {
+            highestPriority--;
+         }
+      }
+
+      return true;
    }
 
    public T poll()
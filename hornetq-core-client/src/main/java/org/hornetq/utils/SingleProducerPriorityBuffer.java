@@ -0,0 +1,176 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * A priority aware hand-off buffer between one producer and its consumer(s).
+ * <p>
+ * Each priority level is a linked queue where the producer only ever touches the tail and
+ * the consumers only ever touch the head, so adding an element is wait-free and never
+ * contends with a thread polling from the buffer. Polling is lock-free.
+ * <p>
+ * Calls to {@link #addTail(Object, int)} must be serialized by the caller (e.g. the remoting
+ * thread delivering to a consumer). {@link #poll()} and {@link #clear()} may be called from any thread.
+ * <p>
+ * As with {@link PriorityLinkedListImpl}, highest priority elements are always returned first.
+ */
+public final class SingleProducerPriorityBuffer<T>
+{
+   private final Level<T>[] levels;
+
+   private final AtomicInteger size = new AtomicInteger(0);
+
+   @SuppressWarnings("unchecked")
+   public SingleProducerPriorityBuffer(final int priorities)
+   {
+      levels = new Level[priorities];
+
+      for (int i = 0; i < priorities; i++)
+      {
+         levels[i] = new Level<T>();
+      }
+   }
+
+   /**
+    * Producer side only.
+    */
+   public void addTail(final T t, final int priority)
+   {
+      levels[priority].offer(t);
+
+      size.incrementAndGet();
+   }
+
+   public T poll()
+   {
+      // Highest priority always get returned first, same as PriorityLinkedListImpl
+      for (int i = levels.length - 1; i >= 0; i--)
+      {
+         T t = levels[i].poll();
+
+         if (t != null)
+         {
+            size.decrementAndGet();
+
+            return t;
+         }
+      }
+
+      return null;
+   }
+
+   public void clear()
+   {
+      while (poll() != null)
+      {
+         // discarding
+      }
+   }
+
+   /**
+    * The size may lag behind a concurrent {@link #addTail(Object, int)} or {@link #poll()}.
+    */
+   public int size()
+   {
+      int value = size.get();
+
+      return value < 0 ? 0 : value;
+   }
+
+   public boolean isEmpty()
+   {
+      for (Level<T> level : levels)
+      {
+         if (!level.isEmpty())
+         {
+            return false;
+         }
+      }
+
+      return true;
+   }
+
+   private static final class Node<T>
+   {
+      T value;
+
+      volatile Node<T> next;
+
+      Node(final T value)
+      {
+         this.value = value;
+      }
+   }
+
+   private static final class Level<T>
+   {
+      @SuppressWarnings("rawtypes")
+      private static final AtomicReferenceFieldUpdater<Level, Node> HEAD_UPDATER = AtomicReferenceFieldUpdater.newUpdater(Level.class,
+                                                                                                                          Node.class,
+                                                                                                                          "head");
+
+      // the head is always a consumed (or stub) node, the first element lives at head.next
+      private volatile Node<T> head;
+
+      // only touched by the producer
+      private Node<T> tail;
+
+      Level()
+      {
+         head = tail = new Node<T>(null);
+      }
+
+      void offer(final T value)
+      {
+         Node<T> node = new Node<T>(value);
+
+         // volatile write: publishes the value to the consumer and orders it before any wake-up done by the producer
+         tail.next = node;
+
+         tail = node;
+      }
+
+      T poll()
+      {
+         while (true)
+         {
+            Node<T> currentHead = head;
+
+            Node<T> next = currentHead.next;
+
+            if (next == null)
+            {
+               return null;
+            }
+
+            if (HEAD_UPDATER.compareAndSet(this, currentHead, next))
+            {
+               // next becomes the new stub
+               T value = next.value;
+
+               next.value = null;
+
+               return value;
+            }
+         }
+      }
+
+      boolean isEmpty()
+      {
+         return head.next == null;
+      }
+   }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.core.protocol.core.impl;
+
+import org.hornetq.core.protocol.core.Packet;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ResendCacheTest extends Assert
+{
+   @Test
+   public void testConfirmAdvancesCursor() throws Exception
+   {
+      ResendCache cache = new ResendCache();
+
+      for (int i = 0; i < 10; i++)
+      {
+         cache.add(new SizedPacket(i, 100));
+      }
+
+      assertEquals(10, cache.size());
+      assertEquals(1000, cache.getSizeInBytes());
+
+      Packet[] confirmed = cache.confirmUpTo(3, true);
+
+      assertEquals(4, confirmed.length);
+      for (int i = 0; i < confirmed.length; i++)
+      {
+         assertEquals(i, ((SizedPacket) confirmed[i]).index);
+      }
+
+      assertEquals(4, cache.getFirstCommandID());
+      assertEquals(6, cache.size());
+      assertEquals(600, cache.getSizeInBytes());
+
+      // an old confirmation doesn't change anything
+      assertNull(cache.confirmUpTo(3, true));
+      assertEquals(6, cache.size());
+
+      assertNull(cache.confirmUpTo(5, false));
+      assertEquals(6, cache.getFirstCommandID());
+
+      Packet[] unconfirmed = cache.getPackets();
+      assertEquals(4, unconfirmed.length);
+      assertEquals(6, ((SizedPacket) unconfirmed[0]).index);
+      assertEquals(9, ((SizedPacket) unconfirmed[3]).index);
+   }
+
+   @Test
+   public void testGrowWhileWrapped() throws Exception
+   {
+      ResendCache cache = new ResendCache();
+
+      int added = 0;
+      int confirmed = 0;
+
+      // move the head so the ring wraps before it needs to grow
+      for (; added < 50; added++)
+      {
+         cache.add(new SizedPacket(added, 10));
+      }
+      confirmed = 40;
+      cache.confirmUpTo(confirmed - 1, false);
+
+      for (; added < 1000; added++)
+      {
+         cache.add(new SizedPacket(added, 10));
+      }
+
+      assertEquals(added - confirmed, cache.size());
+      assertEquals((added - confirmed) * 10, cache.getSizeInBytes());
+
+      Packet[] unconfirmed = cache.getPackets();
+      for (int i = 0; i < unconfirmed.length; i++)
+      {
+         assertEquals(confirmed + i, ((SizedPacket) unconfirmed[i]).index);
+      }
+
+      cache.confirmUpTo(added - 1, false);
+
+      assertEquals(0, cache.size());
+      assertEquals(0, cache.getSizeInBytes());
+   }
+
+   @Test
+   public void testClear() throws Exception
+   {
+      ResendCache cache = new ResendCache();
+
+      cache.add(new SizedPacket(0, 10));
+      cache.add(new SizedPacket(1, 10));
+      cache.confirmUpTo(0, false);
+
+      cache.clear();
+
+      assertEquals(0, cache.size());
+      assertEquals(0, cache.getSizeInBytes());
+      assertEquals(0, cache.getFirstCommandID());
+      assertEquals(0, cache.getPackets().length);
+   }
+
+   private static final class SizedPacket extends PacketImpl
+   {
+      private final int index;
+
+      private final int packetSize;
+
+      SizedPacket(final int index, final int packetSize)
+      {
+         super(PacketImpl.NULL_RESPONSE);
+         this.index = index;
+         this.packetSize = packetSize;
+      }
+
+      @Override
+      public int getPacketSize()
+      {
+         return packetSize;
+      }
+   }
+}
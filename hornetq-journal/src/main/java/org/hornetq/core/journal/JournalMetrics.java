@@ -0,0 +1,211 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.core.journal;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hornetq.utils.LatencyHistogram;
+
+/**
+ * The metrics of a journal and of the I/O done through its {@link SequentialFileFactory}.
+ * <p>
+ * The metrics are recorded without locking or allocating. The times are in microseconds.
+ */
+public final class JournalMetrics
+{
+   private final AtomicLong recordsAppended = new AtomicLong();
+
+   private final AtomicLong bytesAppended = new AtomicLong();
+
+   private final LatencyHistogram flushedBytes = new LatencyHistogram();
+
+   private final LatencyHistogram flushedRecords = new LatencyHistogram();
+
+   private final LatencyHistogram syncTimes = new LatencyHistogram();
+
+   private final AtomicLong appendLockWaitTime = new AtomicLong();
+
+   private final LatencyHistogram appendLockWaits = new LatencyHistogram();
+
+   private final LatencyHistogram compactionTimes = new LatencyHistogram();
+
+   private final LatencyHistogram compactionStalls = new LatencyHistogram();
+
+   // the rates are sampled on a fixed period by whoever owns the journal, guarded by this
+
+   private long sampleTime = System.nanoTime();
+
+   private long sampledRecords;
+
+   private long sampledBytes;
+
+   private volatile double recordsPerSecond;
+
+   private volatile double bytesPerSecond;
+
+   public void recordAppended(final int bytes)
+   {
+      recordsAppended.incrementAndGet();
+      bytesAppended.addAndGet(bytes);
+   }
+
+   public void bufferFlushed(final int bytes, final int records)
+   {
+      flushedBytes.record(bytes);
+      flushedRecords.record(records);
+   }
+
+   public void synced(final long nanos)
+   {
+      syncTimes.record(nanos / 1000);
+   }
+
+   public void appendLockWaited(final long nanos)
+   {
+      appendLockWaitTime.addAndGet(nanos);
+      appendLockWaits.record(nanos / 1000);
+   }
+
+   public void compacted(final long nanos)
+   {
+      compactionTimes.record(nanos / 1000);
+   }
+
+   public void compactionStalled(final long nanos)
+   {
+      compactionStalls.record(nanos / 1000);
+   }
+
+   public long getRecordsAppended()
+   {
+      return recordsAppended.get();
+   }
+
+   public long getBytesAppended()
+   {
+      return bytesAppended.get();
+   }
+
+   /**
+    * @return the records appended per second between the last two calls to {@link #sampleRates()}
+    */
+   public double getRecordsAppendedPerSecond()
+   {
+      return recordsPerSecond;
+   }
+
+   /**
+    * @return the bytes appended per second between the last two calls to {@link #sampleRates()}
+    */
+   public double getBytesAppendedPerSecond()
+   {
+      return bytesPerSecond;
+   }
+
+   /**
+    * @return the sizes (in bytes, not in microseconds) of the buffers flushed to the files
+    */
+   public LatencyHistogram getFlushedBytes()
+   {
+      return flushedBytes;
+   }
+
+   /**
+    * @return the numbers of records (not microseconds) in the buffers flushed to the files
+    */
+   public LatencyHistogram getFlushedRecords()
+   {
+      return flushedRecords;
+   }
+
+   /**
+    * @return the times between the flushes requiring a sync and the completion of their writes
+    */
+   public LatencyHistogram getSyncTimes()
+   {
+      return syncTimes;
+   }
+
+   /**
+    * @return the total time (in microseconds) spent waiting for the append lock
+    */
+   public long getAppendLockWaitTime()
+   {
+      return TimeUnit.NANOSECONDS.toMicros(appendLockWaitTime.get());
+   }
+
+   /**
+    * @return the times spent waiting for the append lock when it was already held
+    */
+   public LatencyHistogram getAppendLockWaits()
+   {
+      return appendLockWaits;
+   }
+
+   public LatencyHistogram getCompactionTimes()
+   {
+      return compactionTimes;
+   }
+
+   /**
+    * @return the times during which the compactor kept the records from being appended
+    */
+   public LatencyHistogram getCompactionStalls()
+   {
+      return compactionStalls;
+   }
+
+   public synchronized void reset()
+   {
+      recordsAppended.set(0);
+      bytesAppended.set(0);
+      flushedBytes.reset();
+      flushedRecords.reset();
+      syncTimes.reset();
+      appendLockWaitTime.set(0);
+      appendLockWaits.reset();
+      compactionTimes.reset();
+      compactionStalls.reset();
+
+      sampleTime = System.nanoTime();
+      sampledRecords = 0;
+      sampledBytes = 0;
+      recordsPerSecond = 0;
+      bytesPerSecond = 0;
+   }
+
+   /**
+    * Computes the rates since the previous call. It is meant to be called on a fixed period so the
+    * rates don't depend on when or how often they are read.
+    */
+   public synchronized void sampleRates()
+   {
+      long now = System.nanoTime();
+
+      long elapsed = now - sampleTime;
+
+      if (elapsed > 0)
+      {
+         long records = recordsAppended.get();
+         long bytes = bytesAppended.get();
+
+         recordsPerSecond = (double) (records - sampledRecords) * TimeUnit.SECONDS.toNanos(1) / elapsed;
+         bytesPerSecond = (double) (bytes - sampledBytes) * TimeUnit.SECONDS.toNanos(1) / elapsed;
+
+         sampleTime = now;
+         sampledRecords = records;
+         sampledBytes = bytes;
+      }
+   }
+}
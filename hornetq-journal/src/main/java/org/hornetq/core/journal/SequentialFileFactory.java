@@ -85,4 +85,9 @@ public interface SequentialFileFactory
    void createDirs() throws Exception;
 
    void flush();
+
+   /**
+    * @return the metrics of the I/O done through this factory, and of the journal using it
+    */
+   JournalMetrics getMetrics();
 }
@@ -15,6 +15,7 @@ package org.hornetq.core.journal.impl;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
@@ -27,6 +28,7 @@ import org.hornetq.api.core.HornetQException;
 import org.hornetq.api.core.HornetQIOErrorException;
 import org.hornetq.core.journal.EncodingSupport;
 import org.hornetq.core.journal.IOAsyncTask;
+import org.hornetq.core.journal.JournalMetrics;
 import org.hornetq.core.journal.SequentialFile;
 import org.hornetq.core.journal.SequentialFileFactory;
 import org.hornetq.journal.HornetQJournalBundle;
@@ -246,7 +248,7 @@ public abstract class AbstractSequentialFile implements SequentialFile
          ByteBuffer buffer = factory.newBuffer(bytes.capacity());
          buffer.put(bytes.toByteBuffer().array());
          buffer.rewind();
-         writeDirect(buffer, sync, callback);
+         writeDirect(buffer, sync, timeSync(sync, callback));
       }
    }
 
@@ -284,10 +286,23 @@ public abstract class AbstractSequentialFile implements SequentialFile
          HornetQBuffer outBuffer = HornetQBuffers.wrappedBuffer(buffer);
          bytes.encode(outBuffer);
          buffer.rewind();
-         writeDirect(buffer, sync, callback);
+         writeDirect(buffer, sync, timeSync(sync, callback));
       }
    }
 
+   /**
+    * Without a TimedBuffer the writes go straight to the file, their sync times are measured here.
+    */
+   private IOAsyncTask timeSync(final boolean sync, final IOAsyncTask callback)
+   {
+      if (!sync)
+      {
+         return callback;
+      }
+
+      return new DelegateCallback(Collections.singletonList(callback), factory.getMetrics());
+   }
+
    public void write(final EncodingSupport bytes, final boolean sync) throws InterruptedException, HornetQException
    {
       if (sync)
@@ -313,13 +328,27 @@ public abstract class AbstractSequentialFile implements SequentialFile
    {
       final List<IOAsyncTask> delegates;
 
-      private DelegateCallback(final List<IOAsyncTask> delegates)
+      /**
+       * Only set if the writes were synced
+       */
+      final JournalMetrics metrics;
+
+      final long writeTime;
+
+      private DelegateCallback(final List<IOAsyncTask> delegates, final JournalMetrics metrics)
       {
          this.delegates = delegates;
+         this.metrics = metrics;
+         this.writeTime = metrics == null ? 0 : System.nanoTime();
       }
 
       public void done()
       {
+         if (metrics != null)
+         {
+            metrics.synced(System.nanoTime() - writeTime);
+         }
+
          for (IOAsyncTask callback : delegates)
          {
             try
@@ -371,7 +400,7 @@ public abstract class AbstractSequentialFile implements SequentialFile
          }
          else
          {
-            writeDirect(buffer, requestedSync, new DelegateCallback(callbacks));
+            writeDirect(buffer, requestedSync, new DelegateCallback(callbacks, requestedSync ? factory.getMetrics() : null));
          }
       }
 
@@ -26,6 +26,7 @@ import java.util.concurrent.TimeUnit;
 
 import org.hornetq.api.core.HornetQInterruptedException;
 import org.hornetq.core.journal.IOCriticalErrorListener;
+import org.hornetq.core.journal.JournalMetrics;
 import org.hornetq.core.journal.SequentialFile;
 import org.hornetq.core.journal.SequentialFileFactory;
 import org.hornetq.journal.HornetQJournalLogger;
@@ -49,6 +50,8 @@ abstract class AbstractSequentialFileFactory implements SequentialFileFactory
 
    protected final TimedBuffer timedBuffer;
 
+   protected final JournalMetrics metrics = new JournalMetrics();
+
    protected final int bufferSize;
 
    protected final long bufferTimeout;
@@ -73,7 +76,7 @@ abstract class AbstractSequentialFileFactory implements SequentialFileFactory
 
       if (buffered)
       {
-         timedBuffer = new TimedBuffer(bufferSize, bufferTimeout, logRates);
+         timedBuffer = new TimedBuffer(bufferSize, bufferTimeout, logRates, metrics);
       }
       else
       {
@@ -156,6 +159,11 @@ abstract class AbstractSequentialFileFactory implements SequentialFileFactory
       }
    }
 
+   public JournalMetrics getMetrics()
+   {
+      return metrics;
+   }
+
    public void deactivateBuffer()
    {
       if (timedBuffer != null)
@@ -45,6 +45,7 @@ import org.hornetq.api.core.Pair;
 import org.hornetq.core.journal.EncodingSupport;
 import org.hornetq.core.journal.IOAsyncTask;
 import org.hornetq.core.journal.IOCompletion;
+import org.hornetq.core.journal.JournalMetrics;
 import org.hornetq.core.journal.JournalLoadInformation;
 import org.hornetq.core.journal.LoaderCallback;
 import org.hornetq.core.journal.PreparedTransactionInfo;
@@ -197,6 +198,8 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
    // After a record is appended, the usedFile can't be changed until the positives and negatives are updated
    private final ReentrantLock lockAppend = new ReentrantLock();
 
+   private final JournalMetrics metrics;
+
    /**
     * We don't lock the journal during the whole compacting operation. During compacting we only
     * lock it (i) when gathering the initial structure, and (ii) when replicating the structures
@@ -266,6 +269,8 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
 
       this.fileFactory = fileFactory;
 
+      this.metrics = fileFactory.getMetrics();
+
       filesRepository = new JournalFilesRepository(fileFactory,
                                                    this,
                                                    filePrefix,
@@ -790,7 +795,7 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
             callback.storeLineUp();
          }
 
-         lockAppend.lock();
+         acquireLockAppend();
          try
          {
             JournalFile usedFile = appendRecord(addRecord, false, sync, null, callback);
@@ -847,7 +852,7 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
             callback.storeLineUp();
          }
 
-         lockAppend.lock();
+         acquireLockAppend();
          try
          {
             JournalFile usedFile = appendRecord(updateRecord, false, sync, null, callback);
@@ -919,7 +924,7 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
             callback.storeLineUp();
          }
 
-         lockAppend.lock();
+         acquireLockAppend();
          try
          {
             JournalFile usedFile = appendRecord(deleteRecord, false, sync, null, callback);
@@ -968,7 +973,7 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
 
          JournalTransaction tx = getTransactionInfo(txID);
 
-         lockAppend.lock();
+         acquireLockAppend();
          try
          {
             JournalFile usedFile = appendRecord(addRecord, false, false, tx, null);
@@ -1026,7 +1031,7 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
 
          JournalTransaction tx = getTransactionInfo(txID);
 
-         lockAppend.lock();
+         acquireLockAppend();
          try
          {
             JournalFile usedFile = appendRecord(updateRecordTX, false, false, tx, null);
@@ -1069,7 +1074,7 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
 
          JournalTransaction tx = getTransactionInfo(txID);
 
-         lockAppend.lock();
+         acquireLockAppend();
          try
          {
             JournalFile usedFile = appendRecord(deleteRecordTX, false, false, tx, null);
@@ -1131,7 +1136,7 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
             callback.storeLineUp();
          }
 
-         lockAppend.lock();
+         acquireLockAppend();
          try
          {
             JournalFile usedFile = appendRecord(prepareRecord, true, sync, tx, callback);
@@ -1188,7 +1193,7 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
             callback.storeLineUp();
          }
 
-         lockAppend.lock();
+         acquireLockAppend();
          try
          {
             JournalFile usedFile = appendRecord(commitRecord, true, sync, tx, callback);
@@ -1237,7 +1242,7 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
             callback.storeLineUp();
          }
 
-         lockAppend.lock();
+         acquireLockAppend();
          try
          {
             JournalFile usedFile = appendRecord(rollbackRecord, false, sync, tx, callback);
@@ -1458,6 +1463,8 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
          throw new IllegalStateException("There is pending compacting operation");
       }
 
+      long compactStart = System.nanoTime();
+
       compactorLock.writeLock().lock();
       try
       {
@@ -1473,6 +1480,7 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
 
             // We need to guarantee that the journal is frozen for this short time
             // We don't freeze the journal as we compact, only for the short time where we replace records
+            long stallStart = System.nanoTime();
             journalLock.writeLock().lock();
             try
             {
@@ -1519,6 +1527,7 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
             finally
             {
                journalLock.writeLock().unlock();
+               metrics.compactionStalled(System.nanoTime() - stallStart);
             }
 
             Collections.sort(dataFilesToProcess, new JournalFileComparator());
@@ -1554,6 +1563,7 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
 
             SequentialFile controlFile = createControlFile(dataFilesToProcess, compactor.getNewDataFiles(), null);
 
+            stallStart = System.nanoTime();
             journalLock.writeLock().lock();
             try
             {
@@ -1619,12 +1629,15 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
             finally
             {
                journalLock.writeLock().unlock();
+               metrics.compactionStalled(System.nanoTime() - stallStart);
             }
 
             // At this point the journal is unlocked. We keep renaming files while the journal is already operational
             renameFiles(dataFilesToProcess, newDatafiles);
             deleteControlFile(controlFile);
 
+            metrics.compacted(System.nanoTime() - compactStart);
+
             HornetQJournalLogger.LOGGER.debug("Finished compacting on journal");
 
          }
@@ -2328,7 +2341,7 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
       journalLock.readLock().lock();
       try
       {
-         lockAppend.lock();
+         acquireLockAppend();
          try
          {
             moveNextFile(false);
@@ -2401,7 +2414,7 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
       journalLock.writeLock().lock();
       try
       {
-         lockAppend.lock();
+         acquireLockAppend();
 
          try
          {
@@ -2759,6 +2772,23 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
       buffer.writeLong(fileID);
    }
 
+   /**
+    * Takes the append lock, measuring the time spent waiting for it when it's already held.
+    */
+   private void acquireLockAppend()
+   {
+      if (lockAppend.tryLock())
+      {
+         return;
+      }
+
+      long start = System.nanoTime();
+
+      lockAppend.lock();
+
+      metrics.appendLockWaited(System.nanoTime() - start);
+   }
+
    /**
     * @param completeTransaction If the appendRecord is for a prepare or commit, where we should
     *                            update the number of pendingTransactions on the current file
@@ -2813,6 +2843,8 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
       // Adding fileID
       encoder.setFileID(currentFile.getRecordID());
 
+      metrics.recordAppended(size);
+
       if (callback != null)
       {
          currentFile.getFile().write(encoder, sync, callback);
@@ -3016,7 +3048,7 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
       @Override
       public void run()
       {
-         lockAppend.lock();
+         acquireLockAppend();
          try
          {
 
@@ -26,6 +26,7 @@ import org.hornetq.api.core.HornetQBuffers;
 import org.hornetq.api.core.HornetQInterruptedException;
 import org.hornetq.core.journal.EncodingSupport;
 import org.hornetq.core.journal.IOAsyncTask;
+import org.hornetq.core.journal.JournalMetrics;
 import org.hornetq.core.journal.impl.dataformat.ByteArrayEncoding;
 import org.hornetq.journal.HornetQJournalLogger;
 
@@ -83,6 +84,8 @@ public class TimedBuffer
 
    private final AtomicLong flushesDone = new AtomicLong(0);
 
+   private final JournalMetrics metrics;
+
    private Timer logRatesTimer;
 
    private TimerTask logRatesTimerTask;
@@ -99,9 +102,16 @@ public class TimedBuffer
    // Public --------------------------------------------------------
 
    public TimedBuffer(final int size, final int timeout, final boolean logRates)
+   {
+      this(size, timeout, logRates, null);
+   }
+
+   public TimedBuffer(final int size, final int timeout, final boolean logRates, final JournalMetrics metrics)
    {
       bufferSize = size;
 
+      this.metrics = metrics;
+
       this.logRates = logRates;
 
       if (logRates)
@@ -316,6 +326,11 @@ public class TimedBuffer
                bytesFlushed.addAndGet(pos);
             }
 
+            if (metrics != null)
+            {
+               metrics.bufferFlushed(pos, callbacks.size());
+            }
+
             ByteBuffer bufferToFlush = bufferObserver.newBuffer(bufferSize, pos);
 
             // Putting a byteArray on a native buffer is much faster, since it will do in a single native call.
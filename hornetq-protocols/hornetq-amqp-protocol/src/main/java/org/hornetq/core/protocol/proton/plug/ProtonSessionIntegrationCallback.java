@@ -14,6 +14,8 @@
 package org.hornetq.core.protocol.proton.plug;
 
 
+import java.nio.channels.FileChannel;
+
 import io.netty.buffer.ByteBuf;
 import org.apache.qpid.proton.amqp.Binary;
 import org.apache.qpid.proton.amqp.transport.AmqpError;
@@ -294,6 +296,14 @@ public class ProtonSessionIntegrationCallback implements AMQPSessionCallback, Se
       return 0;
    }
 
+   @Override
+   public int sendLargeMessageContinuation(ServerConsumer consumer, FileChannel file, long position, int length, boolean continues) throws Exception
+   {
+      file.close();
+
+      return 0;
+   }
+
    @Override
    public void closed()
    {
@@ -13,6 +13,7 @@
 package org.hornetq.core.protocol.openwire.amq;
 
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -182,6 +183,14 @@ public class AMQSession implements SessionCallback
       return 0;
    }
 
+   @Override
+   public int sendLargeMessageContinuation(ServerConsumer consumer, FileChannel file, long position, int length, boolean continues) throws Exception
+   {
+      file.close();
+
+      return 0;
+   }
+
    @Override
    public void closed()
    {
@@ -12,6 +12,7 @@
  */
 package org.hornetq.core.protocol.stomp;
 
+import java.nio.channels.FileChannel;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -186,6 +187,13 @@ public class StompSession implements SessionCallback
       return 0;
    }
 
+   public int sendLargeMessageContinuation(ServerConsumer consumer, FileChannel file, long position, int length, boolean continues) throws Exception
+   {
+      file.close();
+
+      return 0;
+   }
+
    public int sendLargeMessage(ServerMessage msg, ServerConsumer consumer, long bodySize, int deliveryCount)
    {
       return 0;
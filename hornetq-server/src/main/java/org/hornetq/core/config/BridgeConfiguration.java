@@ -72,6 +72,9 @@ public final class BridgeConfiguration implements Serializable
    // The bridge shouldn't be sending blocking anyways
    private long callTimeout = HornetQClient.DEFAULT_CALL_TIMEOUT;
 
+   private int batchSize = HornetQDefaultConfiguration.getDefaultBridgeBatchSize();
+
+   private long batchDelay = HornetQDefaultConfiguration.getDefaultBridgeBatchDelay();
 
    public BridgeConfiguration()
    {
@@ -380,11 +383,42 @@ public final class BridgeConfiguration implements Serializable
       return this;
    }
 
+   /**
+    * @return the size in bytes of the forwarded messages acknowledged together once the target
+    * confirmed them, -1 if every message is acknowledged on its own
+    */
+   public int getBatchSize()
+   {
+      return batchSize;
+   }
+
+   public BridgeConfiguration setBatchSize(int batchSize)
+   {
+      this.batchSize = batchSize;
+      return this;
+   }
+
+   /**
+    * @return the maximum time in milliseconds a confirmed message waits for its batch to be acknowledged
+    */
+   public long getBatchDelay()
+   {
+      return batchDelay;
+   }
+
+   public BridgeConfiguration setBatchDelay(long batchDelay)
+   {
+      this.batchDelay = batchDelay;
+      return this;
+   }
+
    @Override
    public int hashCode()
    {
       final int prime = 31;
       int result = 1;
+      result = prime * result + (int)(batchDelay ^ (batchDelay >>> 32));
+      result = prime * result + batchSize;
       result = prime * result + (int)(callTimeout ^ (callTimeout >>> 32));
       result = prime * result + (int)(clientFailureCheckPeriod ^ (clientFailureCheckPeriod >>> 32));
       result = prime * result + confirmationWindowSize;
@@ -421,6 +455,10 @@ public final class BridgeConfiguration implements Serializable
       if (getClass() != obj.getClass())
          return false;
       BridgeConfiguration other = (BridgeConfiguration)obj;
+      if (batchDelay != other.batchDelay)
+         return false;
+      if (batchSize != other.batchSize)
+         return false;
       if (callTimeout != other.callTimeout)
          return false;
       if (clientFailureCheckPeriod != other.clientFailureCheckPeriod)
@@ -72,6 +72,12 @@ public final class ClusterConnectionConfiguration implements Serializable
 
    private int clusterNotificationAttempts = HornetQDefaultConfiguration.getDefaultClusterNotificationAttempts();
 
+   private long loadReportPeriod = HornetQDefaultConfiguration.getDefaultClusterLoadReportPeriod();
+
+   private double loadSmoothingFactor = HornetQDefaultConfiguration.getDefaultClusterLoadSmoothingFactor();
+
+   private long loadStaleTimeout = HornetQDefaultConfiguration.getDefaultClusterLoadStaleTimeout();
+
    public ClusterConnectionConfiguration()
    {
    }
@@ -379,6 +385,43 @@ public final class ClusterConnectionConfiguration implements Serializable
       return this;
    }
 
+   /**
+    * @return how often the local queue loads are advertised to the cluster, load-aware load balancing
+    * is disabled if not positive
+    */
+   public long getLoadReportPeriod()
+   {
+      return loadReportPeriod;
+   }
+
+   public ClusterConnectionConfiguration setLoadReportPeriod(long loadReportPeriod)
+   {
+      this.loadReportPeriod = loadReportPeriod;
+      return this;
+   }
+
+   public double getLoadSmoothingFactor()
+   {
+      return loadSmoothingFactor;
+   }
+
+   public ClusterConnectionConfiguration setLoadSmoothingFactor(double loadSmoothingFactor)
+   {
+      this.loadSmoothingFactor = loadSmoothingFactor;
+      return this;
+   }
+
+   public long getLoadStaleTimeout()
+   {
+      return loadStaleTimeout;
+   }
+
+   public ClusterConnectionConfiguration setLoadStaleTimeout(long loadStaleTimeout)
+   {
+      this.loadStaleTimeout = loadStaleTimeout;
+      return this;
+   }
+
    @Override
    public int hashCode()
    {
@@ -407,6 +450,10 @@ public final class ClusterConnectionConfiguration implements Serializable
       long temp;
       temp = Double.doubleToLongBits(retryIntervalMultiplier);
       result = prime * result + (int)(temp ^ (temp >>> 32));
+      result = prime * result + (int)(loadReportPeriod ^ (loadReportPeriod >>> 32));
+      temp = Double.doubleToLongBits(loadSmoothingFactor);
+      result = prime * result + (int)(temp ^ (temp >>> 32));
+      result = prime * result + (int)(loadStaleTimeout ^ (loadStaleTimeout >>> 32));
       result = prime * result + ((staticConnectors == null) ? 0 : staticConnectors.hashCode());
       return result;
    }
@@ -442,6 +489,12 @@ public final class ClusterConnectionConfiguration implements Serializable
          return false;
       if (confirmationWindowSize != other.confirmationWindowSize)
          return false;
+      if (loadReportPeriod != other.loadReportPeriod)
+         return false;
+      if (Double.doubleToLongBits(loadSmoothingFactor) != Double.doubleToLongBits(other.loadSmoothingFactor))
+         return false;
+      if (loadStaleTimeout != other.loadStaleTimeout)
+         return false;
       if (connectionTTL != other.connectionTTL)
          return false;
       if (connectorName == null)
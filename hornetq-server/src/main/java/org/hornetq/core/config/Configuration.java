@@ -772,6 +772,29 @@ public interface Configuration extends Serializable
     */
    Configuration setLargeMessagesDirectory(String directory);
 
+   /**
+    * Returns the size (in bytes) of the segment files large message bodies are appended to, or
+    * {@code -1} to store each large message body in its own file. <br>
+    * Default value is {@value org.hornetq.api.config.HornetQDefaultConfiguration#DEFAULT_LARGE_MESSAGES_SEGMENT_SIZE}.
+    */
+   int getLargeMessagesSegmentSize();
+
+   /**
+    * Sets the size (in bytes) of the segment files large message bodies are appended to.
+    */
+   Configuration setLargeMessagesSegmentSize(int size);
+
+   /**
+    * Returns the percentage of live data under which a large message segment file is compacted. <br>
+    * Default value is {@value org.hornetq.api.config.HornetQDefaultConfiguration#DEFAULT_LARGE_MESSAGES_COMPACT_PERCENTAGE}.
+    */
+   int getLargeMessagesCompactPercentage();
+
+   /**
+    * Sets the percentage of live data under which a large message segment file is compacted.
+    */
+   Configuration setLargeMessagesCompactPercentage(int percentage);
+
    // Other Properties ---------------------------------------------------------------------
 
    /**
@@ -67,7 +67,10 @@ public final class ConfigurationUtils
          case REPLICATED:
          {
             ReplicatedPolicyConfiguration pc = (ReplicatedPolicyConfiguration) conf;
-            return new ReplicatedPolicy(pc.isCheckForLiveServer(), pc.getGroupName(), pc.getClusterName());
+            ReplicatedPolicy policy = new ReplicatedPolicy(pc.isCheckForLiveServer(), pc.getGroupName(), pc.getClusterName());
+            policy.setSyncStreams(pc.getSyncStreams());
+            policy.setSyncMaxBytesPerSecond(pc.getSyncMaxBytesPerSecond());
+            return policy;
          }
          case REPLICA:
          {
@@ -126,16 +129,20 @@ public final class ConfigurationUtils
    {
       if (scaleDownConfiguration != null)
       {
+         ScaleDownPolicy scaleDownPolicy;
          if (scaleDownConfiguration.getDiscoveryGroup() != null)
          {
-            return new ScaleDownPolicy(scaleDownConfiguration.getDiscoveryGroup(), scaleDownConfiguration.getGroupName(),
+            scaleDownPolicy = new ScaleDownPolicy(scaleDownConfiguration.getDiscoveryGroup(), scaleDownConfiguration.getGroupName(),
                   scaleDownConfiguration.getClusterName(), scaleDownConfiguration.isEnabled());
          }
          else
          {
-            return new ScaleDownPolicy(scaleDownConfiguration.getConnectors(), scaleDownConfiguration.getGroupName(),
+            scaleDownPolicy = new ScaleDownPolicy(scaleDownConfiguration.getConnectors(), scaleDownConfiguration.getGroupName(),
                   scaleDownConfiguration.getClusterName(), scaleDownConfiguration.isEnabled());
          }
+         scaleDownPolicy.setParallelism(scaleDownConfiguration.getParallelism());
+         scaleDownPolicy.setBatchSize(scaleDownConfiguration.getBatchSize());
+         return scaleDownPolicy;
       }
       return null;
    }
@@ -30,6 +30,10 @@ public class ScaleDownConfiguration implements Serializable
 
    private boolean enabled = HornetQDefaultConfiguration.isDefaultScaleDownEnabled();
 
+   private int parallelism = HornetQDefaultConfiguration.getDefaultScaleDownParallelism();
+
+   private int batchSize = HornetQDefaultConfiguration.getDefaultScaleDownBatchSize();
+
    public List<String> getConnectors()
    {
       return connectors;
@@ -90,4 +94,26 @@ public class ScaleDownConfiguration implements Serializable
       this.enabled = enabled;
       return this;
    }
+
+   public int getParallelism()
+   {
+      return parallelism;
+   }
+
+   public ScaleDownConfiguration setParallelism(int parallelism)
+   {
+      this.parallelism = parallelism;
+      return this;
+   }
+
+   public int getBatchSize()
+   {
+      return batchSize;
+   }
+
+   public ScaleDownConfiguration setBatchSize(int batchSize)
+   {
+      this.batchSize = batchSize;
+      return this;
+   }
 }
@@ -23,6 +23,10 @@ public class ReplicatedPolicyConfiguration implements HAPolicyConfiguration
 
    private String clusterName = null;
 
+   private int syncStreams = HornetQDefaultConfiguration.getDefaultReplicationSyncStreams();
+
+   private long syncMaxBytesPerSecond = HornetQDefaultConfiguration.getDefaultReplicationSyncMaxBytesPerSecond();
+
    public ReplicatedPolicyConfiguration()
    {
    }
@@ -65,4 +69,26 @@ public class ReplicatedPolicyConfiguration implements HAPolicyConfiguration
       this.clusterName = clusterName;
       return this;
    }
+
+   public int getSyncStreams()
+   {
+      return syncStreams;
+   }
+
+   public ReplicatedPolicyConfiguration setSyncStreams(int syncStreams)
+   {
+      this.syncStreams = syncStreams;
+      return this;
+   }
+
+   public long getSyncMaxBytesPerSecond()
+   {
+      return syncMaxBytesPerSecond;
+   }
+
+   public ReplicatedPolicyConfiguration setSyncMaxBytesPerSecond(long syncMaxBytesPerSecond)
+   {
+      this.syncMaxBytesPerSecond = syncMaxBytesPerSecond;
+      return this;
+   }
 }
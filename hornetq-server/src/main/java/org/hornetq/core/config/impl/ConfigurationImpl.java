@@ -124,6 +124,10 @@ public class ConfigurationImpl implements Configuration
 
    protected String largeMessagesDirectory = HornetQDefaultConfiguration.getDefaultLargeMessagesDir();
 
+   protected int largeMessagesSegmentSize = HornetQDefaultConfiguration.getDefaultLargeMessagesSegmentSize();
+
+   protected int largeMessagesCompactPercentage = HornetQDefaultConfiguration.getDefaultLargeMessagesCompactPercentage();
+
    protected String bindingsDirectory = HornetQDefaultConfiguration.getDefaultBindingsDirectory();
 
    protected boolean createBindingsDir = HornetQDefaultConfiguration.isDefaultCreateBindingsDir();
@@ -797,6 +801,28 @@ public class ConfigurationImpl implements Configuration
       return this;
    }
 
+   public int getLargeMessagesSegmentSize()
+   {
+      return largeMessagesSegmentSize;
+   }
+
+   public ConfigurationImpl setLargeMessagesSegmentSize(final int size)
+   {
+      largeMessagesSegmentSize = size;
+      return this;
+   }
+
+   public int getLargeMessagesCompactPercentage()
+   {
+      return largeMessagesCompactPercentage;
+   }
+
+   public ConfigurationImpl setLargeMessagesCompactPercentage(final int percentage)
+   {
+      largeMessagesCompactPercentage = percentage;
+      return this;
+   }
+
    public boolean isMessageCounterEnabled()
    {
       return messageCounterEnabled;
@@ -1381,6 +1407,8 @@ public class ConfigurationImpl implements Configuration
       result = prime * result + (journalSyncTransactional ? 1231 : 1237);
       result = prime * result + ((journalType == null) ? 0 : journalType.hashCode());
       result = prime * result + ((largeMessagesDirectory == null) ? 0 : largeMessagesDirectory.hashCode());
+      result = prime * result + largeMessagesSegmentSize;
+      result = prime * result + largeMessagesCompactPercentage;
       result = prime * result + (logJournalWriteRate ? 1231 : 1237);
       result = prime * result + ((managementAddress == null) ? 0 : managementAddress.hashCode());
       result =
@@ -1595,6 +1623,10 @@ public class ConfigurationImpl implements Configuration
       }
       else if (!largeMessagesDirectory.equals(other.largeMessagesDirectory))
          return false;
+      if (largeMessagesSegmentSize != other.largeMessagesSegmentSize)
+         return false;
+      if (largeMessagesCompactPercentage != other.largeMessagesCompactPercentage)
+         return false;
       if (logJournalWriteRate != other.logJournalWriteRate)
          return false;
       if (managementAddress == null)
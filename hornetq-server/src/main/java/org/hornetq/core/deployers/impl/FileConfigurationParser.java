@@ -140,6 +140,10 @@ public final class FileConfigurationParser extends XMLConfigurationUtil
 
    private static final String REDISTRIBUTION_DELAY_NODE_NAME = "redistribution-delay";
 
+   private static final String REDISTRIBUTION_BATCH_SIZE_NODE_NAME = "redistribution-batch-size";
+
+   private static final String REDISTRIBUTION_MAX_RATE_NODE_NAME = "redistribution-max-rate";
+
    private static final String SEND_TO_DLA_ON_NO_ROUTE = "send-to-dla-on-no-route";
 
    private static final String SLOW_CONSUMER_THRESHOLD_NODE_NAME = "slow-consumer-threshold";
@@ -706,6 +710,16 @@ public final class FileConfigurationParser extends XMLConfigurationUtil
                                                  config.getLargeMessagesDirectory(),
                                                  Validators.NOT_NULL_OR_EMPTY));
 
+      config.setLargeMessagesSegmentSize(getInteger(e,
+                                                    "large-messages-segment-size",
+                                                    config.getLargeMessagesSegmentSize(),
+                                                    Validators.MINUS_ONE_OR_GT_ZERO));
+
+      config.setLargeMessagesCompactPercentage(getInteger(e,
+                                                          "large-messages-compact-percentage",
+                                                          config.getLargeMessagesCompactPercentage(),
+                                                          Validators.PERCENTAGE));
+
       config.setBindingsDirectory(getString(e,
                                             "bindings-directory",
                                             config.getBindingsDirectory(),
@@ -1109,6 +1123,18 @@ public final class FileConfigurationParser extends XMLConfigurationUtil
          {
             addressSettings.setRedistributionDelay(XMLUtil.parseLong(child));
          }
+         else if (REDISTRIBUTION_BATCH_SIZE_NODE_NAME.equalsIgnoreCase(name))
+         {
+            int batchSize = XMLUtil.parseInt(child);
+            Validators.GT_ZERO.validate(REDISTRIBUTION_BATCH_SIZE_NODE_NAME, batchSize);
+            addressSettings.setRedistributionBatchSize(batchSize);
+         }
+         else if (REDISTRIBUTION_MAX_RATE_NODE_NAME.equalsIgnoreCase(name))
+         {
+            int maxRate = XMLUtil.parseInt(child);
+            Validators.MINUS_ONE_OR_GT_ZERO.validate(REDISTRIBUTION_MAX_RATE_NODE_NAME, maxRate);
+            addressSettings.setRedistributionMaxRate(maxRate);
+         }
          else if (SEND_TO_DLA_ON_NO_ROUTE.equalsIgnoreCase(name))
          {
             addressSettings.setSendToDLAOnNoRoute(XMLUtil.parseBoolean(child));
@@ -1309,6 +1335,11 @@ public final class FileConfigurationParser extends XMLConfigurationUtil
 
       configuration.setClusterName(getString(policyNode, "cluster-name", configuration.getClusterName(), Validators.NO_CHECK));
 
+      configuration.setSyncStreams(getInteger(policyNode, "sync-streams", configuration.getSyncStreams(), Validators.GT_ZERO));
+
+      configuration.setSyncMaxBytesPerSecond(getLong(policyNode, "sync-max-bytes-per-second",
+            configuration.getSyncMaxBytesPerSecond(), Validators.MINUS_ONE_OR_GT_ZERO));
+
       return configuration;
    }
 
@@ -1437,6 +1468,10 @@ public final class FileConfigurationParser extends XMLConfigurationUtil
 
          scaleDownConfiguration.setGroupName(scaleDownDiscoveryGroupName);
 
+         scaleDownConfiguration.setParallelism(getInteger(scaleDownElement, "parallelism", scaleDownConfiguration.getParallelism(), Validators.GT_ZERO));
+
+         scaleDownConfiguration.setBatchSize(getInteger(scaleDownElement, "batch-size", scaleDownConfiguration.getBatchSize(), Validators.GT_ZERO));
+
          NodeList scaleDownConnectorNode = scaleDownElement.getElementsByTagName("connectors");
 
          if (scaleDownConnectorNode != null && scaleDownConnectorNode.getLength() > 0)
@@ -1636,6 +1671,12 @@ public final class FileConfigurationParser extends XMLConfigurationUtil
 
       int clusterNotificationAttempts = getInteger(e, "notification-attempts", HornetQDefaultConfiguration.getDefaultClusterNotificationAttempts(), Validators.GT_ZERO);
 
+      long loadReportPeriod = getLong(e, "load-report-period", HornetQDefaultConfiguration.getDefaultClusterLoadReportPeriod(), Validators.MINUS_ONE_OR_GT_ZERO);
+
+      double loadSmoothingFactor = getDouble(e, "load-smoothing-factor", HornetQDefaultConfiguration.getDefaultClusterLoadSmoothingFactor(), Validators.GT_ZERO);
+
+      long loadStaleTimeout = getLong(e, "load-stale-timeout", HornetQDefaultConfiguration.getDefaultClusterLoadStaleTimeout(), Validators.GT_ZERO);
+
       String scaleDownConnector = e.getAttribute("scale-down-connector");
 
       String discoveryGroupName = null;
@@ -1685,7 +1726,10 @@ public final class FileConfigurationParser extends XMLConfigurationUtil
          .setConfirmationWindowSize(confirmationWindowSize)
          .setAllowDirectConnectionsOnly(allowDirectConnectionsOnly)
          .setClusterNotificationInterval(clusterNotificationInterval)
-         .setClusterNotificationAttempts(clusterNotificationAttempts);
+         .setClusterNotificationAttempts(clusterNotificationAttempts)
+         .setLoadReportPeriod(loadReportPeriod)
+         .setLoadSmoothingFactor(loadSmoothingFactor)
+         .setLoadStaleTimeout(loadStaleTimeout);
 
       if (discoveryGroupName == null)
       {
@@ -1768,6 +1812,12 @@ public final class FileConfigurationParser extends XMLConfigurationUtil
                                                  "use-duplicate-detection",
                                                  HornetQDefaultConfiguration.isDefaultBridgeDuplicateDetection());
 
+      int batchSize = getInteger(brNode, "batch-size", HornetQDefaultConfiguration.getDefaultBridgeBatchSize(),
+                                 Validators.MINUS_ONE_OR_GT_ZERO);
+
+      long batchDelay = getLong(brNode, "batch-delay", HornetQDefaultConfiguration.getDefaultBridgeBatchDelay(),
+                                Validators.GT_ZERO);
+
       String user = getString(brNode,
                               "user",
                               HornetQDefaultConfiguration.getDefaultClusterUser(),
@@ -1843,6 +1893,8 @@ public final class FileConfigurationParser extends XMLConfigurationUtil
          .setReconnectAttemptsOnSameNode(reconnectAttemptsSameNode)
          .setUseDuplicateDetection(useDuplicateDetection)
          .setConfirmationWindowSize(confirmationWindowSize)
+         .setBatchSize(batchSize)
+         .setBatchDelay(batchDelay)
          .setHA(ha)
          .setUser(user)
          .setPassword(password);
@@ -18,6 +18,9 @@ import javax.management.NotCompliantMBeanException;
 import javax.management.StandardMBean;
 
 import org.hornetq.core.persistence.StorageManager;
+import org.hornetq.utils.LatencyHistogram;
+import org.hornetq.utils.json.JSONException;
+import org.hornetq.utils.json.JSONObject;
 
 /**
  * A AbstractControl
@@ -51,6 +54,17 @@ public abstract class AbstractControl extends StandardMBean
 
    // Protected -----------------------------------------------------
 
+   protected static JSONObject toJSON(final LatencyHistogram histogram) throws JSONException
+   {
+      JSONObject json = new JSONObject();
+      json.put("count", histogram.getCount());
+      json.put("mean", histogram.getMean());
+      json.put("p50", histogram.getValueAtPercentile(50));
+      json.put("p99", histogram.getValueAtPercentile(99));
+      json.put("max", histogram.getMax());
+      return json;
+   }
+
    protected void clearIO()
    {
       // the storage manager could be null on the backup on certain components
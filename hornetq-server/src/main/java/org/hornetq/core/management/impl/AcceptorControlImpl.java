@@ -12,6 +12,7 @@
  */
 package org.hornetq.core.management.impl;
 
+import java.util.Collections;
 import java.util.Map;
 
 import javax.management.MBeanOperationInfo;
@@ -19,6 +20,7 @@ import javax.management.MBeanOperationInfo;
 import org.hornetq.api.core.TransportConfiguration;
 import org.hornetq.api.core.management.AcceptorControl;
 import org.hornetq.core.persistence.StorageManager;
+import org.hornetq.core.remoting.impl.netty.NettyAcceptor;
 import org.hornetq.spi.core.remoting.Acceptor;
 
 /**
@@ -93,6 +95,24 @@ public class AcceptorControlImpl extends AbstractControl implements AcceptorCont
       }
    }
 
+   public Map<String, Object> getConnectionCountPerEventLoop()
+   {
+      clearIO();
+      try
+      {
+         if (acceptor instanceof NettyAcceptor)
+         {
+            return ((NettyAcceptor) acceptor).getConnectionCountPerEventLoop();
+         }
+
+         return Collections.emptyMap();
+      }
+      finally
+      {
+         blockOnIO();
+      }
+   }
+
    public boolean isStarted()
    {
       clearIO();
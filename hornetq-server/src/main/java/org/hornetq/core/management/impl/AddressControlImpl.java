@@ -28,7 +28,9 @@ import org.hornetq.core.postoffice.PostOffice;
 import org.hornetq.core.postoffice.QueueBinding;
 import org.hornetq.core.security.CheckType;
 import org.hornetq.core.security.Role;
+import org.hornetq.core.server.Queue;
 import org.hornetq.core.settings.HierarchicalRepository;
+import org.hornetq.utils.LatencyHistogram;
 import org.hornetq.utils.json.JSONArray;
 import org.hornetq.utils.json.JSONObject;
 
@@ -230,6 +232,34 @@ public class AddressControlImpl extends AbstractControl implements AddressContro
    }
 
 
+   public String getLatenciesAsJSON() throws Exception
+   {
+      clearIO();
+      try
+      {
+         LatencyHistogram deliveryLatencies = new LatencyHistogram();
+         LatencyHistogram acknowledgeLatencies = new LatencyHistogram();
+         Bindings bindings = postOffice.getBindingsForAddress(address);
+         for (Binding binding : bindings.getBindings())
+         {
+            if (binding instanceof QueueBinding)
+            {
+               Queue queue = ((QueueBinding) binding).getQueue();
+               deliveryLatencies.add(queue.getDeliveryLatencies());
+               acknowledgeLatencies.add(queue.getAcknowledgeLatencies());
+            }
+         }
+         JSONObject latencies = new JSONObject();
+         latencies.put("delivery", toJSON(deliveryLatencies));
+         latencies.put("acknowledge", toJSON(acknowledgeLatencies));
+         return latencies.toString();
+      }
+      finally
+      {
+         blockOnIO();
+      }
+   }
+
    public boolean isPaging() throws Exception
    {
       clearIO();
@@ -221,6 +221,84 @@ public class BridgeControlImpl extends AbstractControl implements BridgeControl
       }
    }
 
+   public int getBatchSize()
+   {
+      clearIO();
+      try
+      {
+         return configuration.getBatchSize();
+      }
+      finally
+      {
+         blockOnIO();
+      }
+   }
+
+   public long getBatchDelay()
+   {
+      clearIO();
+      try
+      {
+         return configuration.getBatchDelay();
+      }
+      finally
+      {
+         blockOnIO();
+      }
+   }
+
+   public long getMessagesForwarded()
+   {
+      clearIO();
+      try
+      {
+         return bridge.getMessagesForwarded();
+      }
+      finally
+      {
+         blockOnIO();
+      }
+   }
+
+   public int getMessagesPendingAcknowledgement()
+   {
+      clearIO();
+      try
+      {
+         return bridge.getMessagesPendingAcknowledgement();
+      }
+      finally
+      {
+         blockOnIO();
+      }
+   }
+
+   public double getForwardRate()
+   {
+      clearIO();
+      try
+      {
+         return bridge.getForwardRate();
+      }
+      finally
+      {
+         blockOnIO();
+      }
+   }
+
+   public long getForwardingLag()
+   {
+      clearIO();
+      try
+      {
+         return bridge.getForwardingLag();
+      }
+      finally
+      {
+         blockOnIO();
+      }
+   }
+
    public void start() throws Exception
    {
       clearIO();
@@ -56,7 +56,9 @@ import org.hornetq.core.postoffice.Binding;
 import org.hornetq.core.postoffice.DuplicateIDCache;
 import org.hornetq.core.postoffice.PostOffice;
 import org.hornetq.core.postoffice.impl.LocalQueueBinding;
+import org.hornetq.core.protocol.core.CoreRemotingConnection;
 import org.hornetq.core.remoting.server.RemotingService;
+import org.hornetq.core.replication.ReplicationManager;
 import org.hornetq.core.security.CheckType;
 import org.hornetq.core.security.Role;
 import org.hornetq.core.server.Consumer;
@@ -72,6 +74,9 @@ import org.hornetq.core.server.cluster.ha.LiveOnlyPolicy;
 import org.hornetq.core.server.cluster.ha.ScaleDownPolicy;
 import org.hornetq.core.server.cluster.ha.SharedStoreSlavePolicy;
 import org.hornetq.core.server.group.GroupingHandler;
+import org.hornetq.core.server.impl.Activation;
+import org.hornetq.core.server.impl.LiveOnlyActivation;
+import org.hornetq.core.server.impl.ScaleDownHandler;
 import org.hornetq.core.settings.impl.AddressFullMessagePolicy;
 import org.hornetq.core.settings.impl.AddressSettings;
 import org.hornetq.core.settings.impl.SlowConsumerPolicy;
@@ -197,6 +202,56 @@ public class HornetQServerControlImpl extends AbstractControl implements HornetQ
       }
    }
 
+   public long getReplicationSyncBytesDone()
+   {
+      checkStarted();
+
+      ReplicationManager replicationManager = server.getReplicationManager();
+      return replicationManager == null ? 0 : replicationManager.getSyncBytesDone();
+   }
+
+   public long getReplicationSyncBytesRemaining()
+   {
+      checkStarted();
+
+      ReplicationManager replicationManager = server.getReplicationManager();
+      return replicationManager == null ? 0 : replicationManager.getSyncBytesRemaining();
+   }
+
+   public long getReplicationSyncEstimatedTimeRemaining()
+   {
+      checkStarted();
+
+      ReplicationManager replicationManager = server.getReplicationManager();
+      return replicationManager == null ? 0 : replicationManager.getSyncEstimatedTimeRemaining();
+   }
+
+   // the scale-down attributes are not checking the server is started as it scales down while stopping
+
+   public long getScaleDownMessagesDone()
+   {
+      ScaleDownHandler scaleDownHandler = getScaleDownHandler();
+      return scaleDownHandler == null ? 0 : scaleDownHandler.getMessagesDone();
+   }
+
+   public long getScaleDownMessagesRemaining()
+   {
+      ScaleDownHandler scaleDownHandler = getScaleDownHandler();
+      return scaleDownHandler == null ? 0 : scaleDownHandler.getMessagesRemaining();
+   }
+
+   public double getScaleDownMessagesPerSecond()
+   {
+      ScaleDownHandler scaleDownHandler = getScaleDownHandler();
+      return scaleDownHandler == null ? 0 : scaleDownHandler.getMessagesPerSecond();
+   }
+
+   private ScaleDownHandler getScaleDownHandler()
+   {
+      Activation activation = server.getActivation();
+      return activation instanceof LiveOnlyActivation ? ((LiveOnlyActivation) activation).getScaleDownHandler() : null;
+   }
+
    public String getBindingsDirectory()
    {
       checkStarted();
@@ -1142,6 +1197,39 @@ public class HornetQServerControlImpl extends AbstractControl implements HornetQ
       }
    }
 
+   public String listXATransactionTimesAsJSON() throws Exception
+   {
+      checkStarted();
+
+      clearIO();
+      try
+      {
+         JSONObject times = new JSONObject();
+         times.put("prepare", toJSON(resourceManager.getPrepareTimes()));
+         times.put("commit", toJSON(resourceManager.getCommitTimes()));
+         return times.toString();
+      }
+      finally
+      {
+         blockOnIO();
+      }
+   }
+
+   public String listStoreLatenciesAsJSON() throws Exception
+   {
+      checkStarted();
+
+      clearIO();
+      try
+      {
+         return toJSON(storageManager.getStoreLatencies()).toString();
+      }
+      finally
+      {
+         blockOnIO();
+      }
+   }
+
    public synchronized boolean commitPreparedTransaction(final String transactionAsBase64) throws Exception
    {
       checkStarted();
@@ -1390,6 +1478,34 @@ public class HornetQServerControlImpl extends AbstractControl implements HornetQ
       }
    }
 
+   public String listResendCacheSizesAsJSON() throws Exception
+   {
+      checkStarted();
+
+      clearIO();
+      try
+      {
+         JSONArray array = new JSONArray();
+         for (RemotingConnection connection : remotingService.getConnections())
+         {
+            if (connection instanceof CoreRemotingConnection)
+            {
+               CoreRemotingConnection coreConnection = (CoreRemotingConnection) connection;
+               JSONObject obj = new JSONObject();
+               obj.put("connectionID", connection.getID().toString());
+               obj.put("packets", coreConnection.getResendCacheSize());
+               obj.put("bytes", coreConnection.getResendCacheSizeInBytes());
+               array.put(obj);
+            }
+         }
+         return array.toString();
+      }
+      finally
+      {
+         blockOnIO();
+      }
+   }
+
    public String[] listSessions(final String connectionID)
    {
       checkStarted();
@@ -2118,6 +2234,27 @@ public class HornetQServerControlImpl extends AbstractControl implements HornetQ
       return configuration.getTransactionTimeoutScanPeriod();
    }
 
+   public long getXATransactionsCommitted()
+   {
+      checkStarted();
+
+      return resourceManager.getCommittedTransactionCount();
+   }
+
+   public long getXATransactionsRolledBack()
+   {
+      checkStarted();
+
+      return resourceManager.getRolledBackTransactionCount();
+   }
+
+   public long getXATransactionsTimedOut()
+   {
+      checkStarted();
+
+      return resourceManager.getTimedOutTransactionCount();
+   }
+
    public boolean isPersistDeliveryCountBeforeDelivery()
    {
       return configuration.isPersistDeliveryCountBeforeDelivery();
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.core.management.impl;
+
+import javax.management.MBeanOperationInfo;
+
+import org.hornetq.api.core.management.JournalControl;
+import org.hornetq.core.journal.JournalMetrics;
+import org.hornetq.core.journal.impl.JournalImpl;
+import org.hornetq.core.persistence.StorageManager;
+
+/**
+ * A JournalControl
+ * <p>
+ * The metrics are only read, no I/O is done on behalf of the callers.
+ */
+public class JournalControlImpl extends AbstractControl implements JournalControl
+{
+
+   // Attributes ----------------------------------------------------
+
+   private final String name;
+
+   private final JournalImpl journal;
+
+   private final JournalMetrics metrics;
+
+   // Constructors --------------------------------------------------
+
+   public JournalControlImpl(final String name,
+                             final JournalImpl journal,
+                             final StorageManager storageManager) throws Exception
+   {
+      super(JournalControl.class, storageManager);
+      this.name = name;
+      this.journal = journal;
+      this.metrics = journal.getFileFactory().getMetrics();
+   }
+
+   // JournalControl implementation ---------------------------------
+
+   public String getName()
+   {
+      return name;
+   }
+
+   public String getDirectory()
+   {
+      return journal.getFileFactory().getDirectory();
+   }
+
+   public long getRecordsAppended()
+   {
+      return metrics.getRecordsAppended();
+   }
+
+   public long getBytesAppended()
+   {
+      return metrics.getBytesAppended();
+   }
+
+   public double getRecordsAppendedPerSecond()
+   {
+      return metrics.getRecordsAppendedPerSecond();
+   }
+
+   public double getBytesAppendedPerSecond()
+   {
+      return metrics.getBytesAppendedPerSecond();
+   }
+
+   public double getAverageFlushSize()
+   {
+      return metrics.getFlushedBytes().getMean();
+   }
+
+   public long getFlushSizeP99()
+   {
+      return metrics.getFlushedBytes().getValueAtPercentile(99);
+   }
+
+   public double getAverageFlushRecords()
+   {
+      return metrics.getFlushedRecords().getMean();
+   }
+
+   public long getFlushRecordsP99()
+   {
+      return metrics.getFlushedRecords().getValueAtPercentile(99);
+   }
+
+   public String getSyncTimesAsJSON() throws Exception
+   {
+      return toJSON(metrics.getSyncTimes()).toString();
+   }
+
+   public long getAppendLockWaitTime()
+   {
+      return metrics.getAppendLockWaitTime();
+   }
+
+   public String getAppendLockWaitsAsJSON() throws Exception
+   {
+      return toJSON(metrics.getAppendLockWaits()).toString();
+   }
+
+   public String getCompactionTimesAsJSON() throws Exception
+   {
+      return toJSON(metrics.getCompactionTimes()).toString();
+   }
+
+   public String getCompactionStallsAsJSON() throws Exception
+   {
+      return toJSON(metrics.getCompactionStalls()).toString();
+   }
+
+   public int getDataFilesCount()
+   {
+      return journal.getDataFilesCount();
+   }
+
+   public int getFreeFilesCount()
+   {
+      return journal.getFreeFilesCount();
+   }
+
+   public int getOpenedFilesCount()
+   {
+      return journal.getOpenedFilesCount();
+   }
+
+   public void resetMetrics()
+   {
+      metrics.reset();
+   }
+
+   @Override
+   protected MBeanOperationInfo[] fillMBeanOperationInfo()
+   {
+      return MBeanInfoHelper.getMBeanOperationsInfo(JournalControl.class);
+   }
+}
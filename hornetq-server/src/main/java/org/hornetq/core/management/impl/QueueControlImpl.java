@@ -484,27 +484,7 @@ public class QueueControlImpl extends AbstractControl implements QueueControl
       clearIO();
       try
       {
-         Filter filter = FilterImpl.createFilter(filterStr);
-         List<Map<String, Object>> messages = new ArrayList<Map<String, Object>>();
-         queue.flushExecutor();
-         LinkedListIterator<MessageReference> iterator = queue.totalIterator();
-         try
-         {
-            while (iterator.hasNext())
-            {
-               MessageReference ref = iterator.next();
-               if (filter == null || filter.match(ref.getMessage()))
-               {
-                  Message message = ref.getMessage();
-                  messages.add(message.toMap());
-               }
-            }
-            return messages.toArray(new Map[messages.size()]);
-         }
-         finally
-         {
-            iterator.close();
-         }
+         return listMessages(FilterImpl.createFilter(filterStr), 0, Integer.MAX_VALUE);
       }
       catch (HornetQException e)
       {
@@ -531,6 +511,85 @@ public class QueueControlImpl extends AbstractControl implements QueueControl
       }
    }
 
+   public Map<String, Object>[] listMessages(final String filterStr, final int offset, final int limit) throws Exception
+   {
+      if (offset < 0)
+      {
+         throw new IllegalArgumentException("offset must be positive or zero: " + offset);
+      }
+      if (limit <= 0)
+      {
+         throw new IllegalArgumentException("limit must be positive: " + limit);
+      }
+
+      checkStarted();
+
+      clearIO();
+      try
+      {
+         return listMessages(FilterImpl.createFilter(filterStr), offset, limit);
+      }
+      catch (HornetQException e)
+      {
+         throw new IllegalStateException(e.getMessage());
+      }
+      finally
+      {
+         blockOnIO();
+      }
+   }
+
+   public String listMessagesAsJSON(final String filter, final int offset, final int limit) throws Exception
+   {
+      checkStarted();
+
+      clearIO();
+      try
+      {
+         return QueueControlImpl.toJSON(listMessages(filter, offset, limit));
+      }
+      finally
+      {
+         blockOnIO();
+      }
+   }
+
+   /**
+    * Browses the queue up to the last message of the page: the skipped messages are only matched and
+    * the iteration stops as soon as the page is full.
+    */
+   private Map<String, Object>[] listMessages(final Filter filter, final int offset, final int limit)
+   {
+      List<Map<String, Object>> messages = new ArrayList<Map<String, Object>>();
+      queue.flushExecutor();
+      LinkedListIterator<MessageReference> iterator = queue.totalIterator();
+      try
+      {
+         int skipped = 0;
+         while (messages.size() < limit && iterator.hasNext())
+         {
+            MessageReference ref = iterator.next();
+            if (filter == null || filter.match(ref.getMessage()))
+            {
+               if (skipped < offset)
+               {
+                  skipped++;
+               }
+               else
+               {
+                  Message message = ref.getMessage();
+                  messages.add(message.toMap());
+               }
+            }
+         }
+         return messages.toArray(new Map[messages.size()]);
+      }
+      finally
+      {
+         iterator.close();
+      }
+   }
+
    public String getFirstMessageAsJSON() throws Exception
    {
       checkStarted();
@@ -581,7 +640,7 @@ public class QueueControlImpl extends AbstractControl implements QueueControl
             LinkedListIterator<MessageReference> iterator = queue.totalIterator();
             try
             {
-               int count = 0;
+               long count = 0;
                while (iterator.hasNext())
                {
                   MessageReference ref = iterator.next();
@@ -1034,6 +1093,39 @@ public class QueueControlImpl extends AbstractControl implements QueueControl
 
    }
 
+   public String getLatenciesAsJSON() throws Exception
+   {
+      checkStarted();
+
+      clearIO();
+      try
+      {
+         JSONObject latencies = new JSONObject();
+         latencies.put("delivery", toJSON(queue.getDeliveryLatencies()));
+         latencies.put("acknowledge", toJSON(queue.getAcknowledgeLatencies()));
+         return latencies.toString();
+      }
+      finally
+      {
+         blockOnIO();
+      }
+   }
+
+   public void resetLatencies() throws Exception
+   {
+      checkStarted();
+
+      clearIO();
+      try
+      {
+         queue.resetLatencies();
+      }
+      finally
+      {
+         blockOnIO();
+      }
+   }
+
    // Package protected ---------------------------------------------
 
    // Protected -----------------------------------------------------
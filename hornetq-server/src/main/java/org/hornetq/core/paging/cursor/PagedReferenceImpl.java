@@ -39,6 +39,8 @@ public class PagedReferenceImpl implements PagedReference
 
    private int persistedCount;
 
+   private long enqueueTime;
+
    private int messageEstimate;
 
    private Long consumerId;
@@ -151,6 +153,18 @@ public class PagedReferenceImpl implements PagedReference
       deliveryTime = scheduledDeliveryTime;
    }
 
+   @Override
+   public long getEnqueueTime()
+   {
+      return enqueueTime;
+   }
+
+   @Override
+   public void setEnqueueTime(final long enqueueTime)
+   {
+      this.enqueueTime = enqueueTime;
+   }
+
    @Override
    public int getDeliveryCount()
    {
@@ -49,7 +49,7 @@ public class PagingStoreFactoryNIO implements PagingStoreFactory
 
    // Constants -----------------------------------------------------
 
-   private static final String ADDRESS_FILE = "address.txt";
+   public static final String ADDRESS_FILE = "address.txt";
 
    // Attributes ----------------------------------------------------
 
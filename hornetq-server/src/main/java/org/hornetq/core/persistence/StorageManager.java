@@ -47,6 +47,7 @@ import org.hornetq.core.server.impl.JournalLoader;
 import org.hornetq.core.transaction.ResourceManager;
 import org.hornetq.core.transaction.Transaction;
 import org.hornetq.utils.IDGenerator;
+import org.hornetq.utils.LatencyHistogram;
 
 /**
  * A StorageManager
@@ -81,6 +82,12 @@ public interface StorageManager extends IDGenerator, HornetQComponent
 
    OperationContext newSingleThreadContext();
 
+   /**
+    * @return the times (in microseconds) taken by the storage to complete the operations lined up
+    * on the contexts of this storage manager
+    */
+   LatencyHistogram getStoreLatencies();
+
    /**
     * Set the context back to the thread
     */
@@ -180,6 +187,11 @@ public interface StorageManager extends IDGenerator, HornetQComponent
 
    void storeDuplicateID(SimpleString address, byte[] duplID, long recordID) throws Exception;
 
+   /**
+    * Appends a duplicate ID to an existing duplicate ID record, so several IDs can share a record.
+    */
+   void updateDuplicateID(SimpleString address, byte[] duplID, long recordID) throws Exception;
+
    void deleteDuplicateID(long recordID) throws Exception;
 
    void storeMessageTransactional(long txID, ServerMessage message) throws Exception;
@@ -292,6 +304,8 @@ public interface StorageManager extends IDGenerator, HornetQComponent
    // grouping related operations
    void addGrouping(GroupBinding groupBinding) throws Exception;
 
+   void addGrouping(long tx, GroupBinding groupBinding) throws Exception;
+
    void deleteGrouping(long tx, GroupBinding groupBinding) throws Exception;
 
    void storeAddressSetting(PersistedAddressSetting addressSetting) throws Exception;
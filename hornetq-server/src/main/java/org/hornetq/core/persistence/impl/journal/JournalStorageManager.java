@@ -17,7 +17,6 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.nio.ByteBuffer;
 import java.security.AccessController;
-import java.security.DigestInputStream;
 import java.security.InvalidParameterException;
 import java.security.MessageDigest;
 import java.security.PrivilegedAction;
@@ -25,20 +24,22 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.hornetq.api.core.HornetQBuffer;
@@ -50,6 +51,7 @@ import org.hornetq.api.core.Message;
 import org.hornetq.api.core.Pair;
 import org.hornetq.api.core.SimpleString;
 import org.hornetq.core.config.Configuration;
+import org.hornetq.core.config.HAPolicyConfiguration;
 import org.hornetq.core.filter.Filter;
 import org.hornetq.core.journal.EncodingSupport;
 import org.hornetq.core.journal.IOAsyncTask;
@@ -111,6 +113,7 @@ import org.hornetq.utils.ByteUtil;
 import org.hornetq.utils.DataConstants;
 import org.hornetq.utils.ExecutorFactory;
 import org.hornetq.utils.HornetQThreadFactory;
+import org.hornetq.utils.LatencyHistogram;
 import org.hornetq.utils.XidCodecSupport;
 
 import static org.hornetq.core.persistence.impl.journal.JournalRecordIds.ACKNOWLEDGE_CURSOR;
@@ -190,6 +193,8 @@ public class JournalStorageManager implements StorageManager
     */
    private final ExecutorFactory executorFactory;
 
+   private final LatencyHistogram storeLatencies = new LatencyHistogram();
+
    private final Executor executor;
 
    private ExecutorService singleThreadExecutor;
@@ -210,6 +215,12 @@ public class JournalStorageManager implements StorageManager
 
    private final String largeMessagesDirectory;
 
+   // whether the bodies of the new large messages are appended to the segment files
+   private final boolean largeMessagesSegmented;
+
+   // the segment files, also read when the bodies of existing large messages were stored there
+   private final LargeMessageBlobStore largeMessageBlobStore;
+
    private boolean journalLoaded = false;
 
    // Persisted core configuration
@@ -317,6 +328,13 @@ public class JournalStorageManager implements StorageManager
 
       largeMessagesFactory = new NIOSequentialFileFactory(largeMessagesDirectory, false, criticalErrorListener);
 
+      largeMessagesSegmented = config.getLargeMessagesSegmentSize() > 0 && isLargeMessagesSegmentsSupported(config);
+
+      largeMessageBlobStore = new LargeMessageBlobStore(new File(largeMessagesDirectory),
+                                                        config.getLargeMessagesSegmentSize(),
+                                                        config.getLargeMessagesCompactPercentage(),
+                                                        executorFactory.getExecutor());
+
       perfBlastPages = config.getJournalPerfBlastPages();
 
       if (config.getPageMaxConcurrentIO() != 1)
@@ -379,6 +397,9 @@ public class JournalStorageManager implements StorageManager
       originalMessageJournal.scheduleCompactAndBlock(-1);
       originalBindingsJournal.scheduleCompactAndBlock(-1);
 
+      // The backup tells which files it kept from its previous run, so only what it is missing is sent
+      replicationManager.requestBackupFileDigests();
+
       JournalFile[] messageFiles = null;
       JournalFile[] bindingsFiles = null;
 
@@ -436,10 +457,14 @@ public class JournalStorageManager implements StorageManager
 
          // it will send a list of IDs that we are allocating
          replicator.sendLargeMessageIdListMessage(pendingLargeMessages);
-         sendJournalFile(messageFiles, JournalContent.MESSAGES);
-         sendJournalFile(bindingsFiles, JournalContent.BINDINGS);
-         sendLargeMessageFiles(pendingLargeMessages);
-         sendPagesToBackup(pageFilesToSync, pagingManager);
+
+         final ConcurrentLinkedQueue<Callable<Void>> filesToSync = new ConcurrentLinkedQueue<Callable<Void>>();
+         long bytesToSync = sendJournalFile(filesToSync, messageFiles, JournalContent.MESSAGES);
+         bytesToSync += sendJournalFile(filesToSync, bindingsFiles, JournalContent.BINDINGS);
+         bytesToSync += sendLargeMessageFiles(filesToSync, pendingLargeMessages);
+         bytesToSync += sendPagesToBackup(filesToSync, pageFilesToSync, pagingManager);
+         replicator.startSynchronizationProgress(bytesToSync);
+         sendFilesToBackup(filesToSync, replicator.getSyncStreams());
 
          storageManagerLock.writeLock().lock();
          try
@@ -470,22 +495,37 @@ public class JournalStorageManager implements StorageManager
    }
 
    public static String md5(File file)
+   {
+      return md5(file, Long.MAX_VALUE);
+   }
+
+   /**
+    * @return the MD5 digest of the first {@code length} bytes of the file, or of the whole file if
+    * it is shorter
+    */
+   public static String md5(File file, long length)
    {
       try
       {
-         byte[] buffer = new byte[1 << 4];
+         byte[] buffer = new byte[1 << 16];
          MessageDigest md = MessageDigest.getInstance("MD5");
 
          FileInputStream is = new FileInputStream(file);
-         DigestInputStream is2 = new DigestInputStream(is, md);
-         while (is2.read(buffer) > 0)
+         try
+         {
+            long remaining = length;
+            int read;
+            while (remaining > 0 && (read = is.read(buffer, 0, (int) Math.min(buffer.length, remaining))) > 0)
+            {
+               md.update(buffer, 0, read);
+               remaining -= read;
+            }
+         }
+         finally
          {
-            continue;
+            is.close();
          }
-         byte[] digest = md.digest();
-         is.close();
-         is2.close();
-         return Base64.encodeBytes(digest);
+         return Base64.encodeBytes(md.digest());
       }
       catch (Exception e)
       {
@@ -550,19 +590,90 @@ public class JournalStorageManager implements StorageManager
       largeMessagesToDelete.clear();
    }
 
+   /**
+    * Sends the files to the backup using several streams, each stream sending the files it takes
+    * one after the other. The files are independent so their packets can be interleaved.
+    *
+    * @param filesToSync tasks sending one file, or the pages of one store
+    * @param streams     number of files sent concurrently
+    */
+   private void sendFilesToBackup(final ConcurrentLinkedQueue<Callable<Void>> filesToSync, final int streams) throws Exception
+   {
+      final CountDownLatch streamsDone = new CountDownLatch(streams);
+      final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+      for (int i = 0; i < streams; i++)
+      {
+         executorFactory.getExecutor().execute(new Runnable()
+         {
+            public void run()
+            {
+               try
+               {
+                  Callable<Void> file;
+                  while (started && failure.get() == null && (file = filesToSync.poll()) != null)
+                  {
+                     file.call();
+                  }
+               }
+               catch (Throwable e)
+               {
+                  failure.compareAndSet(null, e);
+               }
+               finally
+               {
+                  streamsDone.countDown();
+               }
+            }
+         });
+      }
+      // a stream may be blocked sending a file, so the wait ends as soon as the storage manager is stopped
+      while (!streamsDone.await(100, TimeUnit.MILLISECONDS))
+      {
+         if (!started)
+         {
+            throw new HornetQIllegalStateException("stopped while synchronizing the backup");
+         }
+      }
+      Throwable e = failure.get();
+      if (e instanceof Exception)
+      {
+         throw (Exception) e;
+      }
+      if (e instanceof Error)
+      {
+         throw (Error) e;
+      }
+      if (e != null)
+      {
+         throw new HornetQInternalErrorException(e.getMessage(), e);
+      }
+   }
+
    /**
     * @param pageFilesToSync
+    * @return estimate of the number of bytes to send
     * @throws Exception
     */
-   private void sendPagesToBackup(Map<SimpleString, Collection<Integer>> pageFilesToSync, PagingManager manager) throws Exception
+   private long sendPagesToBackup(final ConcurrentLinkedQueue<Callable<Void>> filesToSync,
+                                  final Map<SimpleString, Collection<Integer>> pageFilesToSync,
+                                  final PagingManager manager) throws Exception
    {
-      for (Entry<SimpleString, Collection<Integer>> entry : pageFilesToSync.entrySet())
+      long bytes = 0;
+      for (final Entry<SimpleString, Collection<Integer>> entry : pageFilesToSync.entrySet())
       {
-         if (!started)
-            return;
-         PagingStore store = manager.getPageStore(entry.getKey());
-         store.sendPages(replicator, entry.getValue());
+         final PagingStore store = manager.getPageStore(entry.getKey());
+         // the pages are sent holding the lock of the store so they are sent by a single stream
+         filesToSync.add(new Callable<Void>()
+         {
+            public Void call() throws Exception
+            {
+               store.sendPages(replicator, entry.getValue());
+               return null;
+            }
+         });
+         bytes += entry.getValue().size() * store.getPageSizeBytes();
       }
+      return bytes;
    }
 
    /**
@@ -582,20 +693,30 @@ public class JournalStorageManager implements StorageManager
       return info;
    }
 
-   private void sendLargeMessageFiles(final Map<Long, Pair<String, Long>> pendingLargeMessages) throws Exception
+   private long sendLargeMessageFiles(final ConcurrentLinkedQueue<Callable<Void>> filesToSync,
+                                      final Map<Long, Pair<String, Long>> pendingLargeMessages)
    {
-      Iterator<Entry<Long, Pair<String, Long>>> iter = pendingLargeMessages.entrySet().iterator();
-      while (started && iter.hasNext())
+      long bytes = 0;
+      for (Map.Entry<Long, Pair<String, Long>> entry : pendingLargeMessages.entrySet())
       {
-         Map.Entry<Long, Pair<String, Long>> entry = iter.next();
-         String fileName = entry.getValue().getA();
+         final String fileName = entry.getValue().getA();
          final long id = entry.getKey();
-         long size = entry.getValue().getB();
-         SequentialFile seqFile = largeMessagesFactory.createSequentialFile(fileName, 1);
-         if (!seqFile.exists())
-            continue;
-         replicator.syncLargeMessageFile(seqFile, size, id);
+         final long size = entry.getValue().getB();
+         filesToSync.add(new Callable<Void>()
+         {
+            public Void call() throws Exception
+            {
+               SequentialFile seqFile = largeMessagesFactory.createSequentialFile(fileName, 1);
+               if (seqFile.exists())
+               {
+                  replicator.syncLargeMessageFile(seqFile, size, id);
+               }
+               return null;
+            }
+         });
+         bytes += size;
       }
+      return bytes;
    }
 
    private long getLargeMessageIdFromFilename(String filename)
@@ -637,16 +758,27 @@ public class JournalStorageManager implements StorageManager
    }
 
    /**
-    * Send an entire journal file to a replicating backup server.
+    * Send entire journal files to a replicating backup server.
+    *
+    * @return the number of bytes to send
     */
-   private void sendJournalFile(JournalFile[] journalFiles, JournalContent type) throws Exception
+   private long sendJournalFile(final ConcurrentLinkedQueue<Callable<Void>> filesToSync, final JournalFile[] journalFiles,
+                                final JournalContent type)
    {
-      for (JournalFile jf : journalFiles)
+      long bytes = 0;
+      for (final JournalFile jf : journalFiles)
       {
-         if (!started)
-            return;
-         replicator.syncJournalFile(jf, type);
+         filesToSync.add(new Callable<Void>()
+         {
+            public Void call() throws Exception
+            {
+               replicator.syncJournalFile(jf, type);
+               return null;
+            }
+         });
+         bytes += jf.getFile().getJavaFile().length();
       }
+      return bytes;
    }
 
    private JournalFile[] prepareJournalForCopy(Journal journal, JournalContent contentType, String nodeID,
@@ -743,7 +875,7 @@ public class JournalStorageManager implements StorageManager
 
    public OperationContext getContext()
    {
-      return OperationContextImpl.getContext(executorFactory);
+      return OperationContextImpl.getContext(executorFactory, storeLatencies);
    }
 
    public void setContext(final OperationContext context)
@@ -763,7 +895,12 @@ public class JournalStorageManager implements StorageManager
 
    public OperationContext newContext(final Executor executor1)
    {
-      return new OperationContextImpl(executor1);
+      return new OperationContextImpl(executor1, storeLatencies);
+   }
+
+   public LatencyHistogram getStoreLatencies()
+   {
+      return storeLatencies;
    }
 
    public void afterCompleteOperations(final IOAsyncTask run)
@@ -807,6 +944,34 @@ public class JournalStorageManager implements StorageManager
       }
    }
 
+   // This should be accessed from this package only
+   void addBytesToLargeMessageBlob(final long messageId, final boolean durable, final byte[] bytes) throws Exception
+   {
+      readLock();
+      try
+      {
+         getLargeMessageBlobStore().append(messageId, durable, bytes);
+      }
+      finally
+      {
+         readUnLock();
+      }
+   }
+
+   // This should be accessed from this package only
+   void linkLargeMessageBlob(final long messageId, final long newMessageId, final boolean durable) throws Exception
+   {
+      readLock();
+      try
+      {
+         getLargeMessageBlobStore().link(messageId, newMessageId, durable);
+      }
+      finally
+      {
+         readUnLock();
+      }
+   }
+
    public LargeServerMessage createLargeMessage(final long id, final MessageInternal message) throws Exception
    {
       readLock();
@@ -1039,6 +1204,25 @@ public class JournalStorageManager implements StorageManager
       }
    }
 
+   public void updateDuplicateID(final SimpleString address, final byte[] duplID, final long recordID) throws Exception
+   {
+      readLock();
+      try
+      {
+         DuplicateIDEncoding encoding = new DuplicateIDEncoding(address, duplID);
+
+         messageJournal.appendUpdateRecord(recordID,
+                                           JournalRecordIds.DUPLICATE_ID,
+                                           encoding,
+                                           syncNonTransactional,
+                                           getContext(syncNonTransactional));
+      }
+      finally
+      {
+         readUnLock();
+      }
+   }
+
    public void deleteDuplicateID(final long recordID) throws Exception
    {
       readLock();
@@ -1985,6 +2169,23 @@ public class JournalStorageManager implements StorageManager
       }
    }
 
+   public void addGrouping(final long tx, final GroupBinding groupBinding) throws Exception
+   {
+      GroupingEncoding groupingEncoding = new GroupingEncoding(groupBinding.getId(),
+                                                               groupBinding.getGroupId(),
+                                                               groupBinding.getClusterName());
+      readLock();
+      try
+      {
+         bindingsJournal.appendAddRecordTransactional(tx, groupBinding.getId(), JournalRecordIds.GROUP_RECORD,
+                                                      groupingEncoding);
+      }
+      finally
+      {
+         readUnLock();
+      }
+   }
+
    public void deleteGrouping(long tx, final GroupBinding groupBinding) throws Exception
    {
       readLock();
@@ -2229,6 +2430,8 @@ public class JournalStorageManager implements StorageManager
 
       cleanupIncompleteFiles();
 
+      largeMessageBlobStore.load();
+
       singleThreadExecutor = Executors.newSingleThreadExecutor(new HornetQThreadFactory("HornetQ-IO-SingleThread",
                                                                                         true,
                                                                                         getThisClassLoader()));
@@ -2282,6 +2485,7 @@ public class JournalStorageManager implements StorageManager
 
       latch.await(30, TimeUnit.SECONDS);
 
+      largeMessageBlobStore.stop();
 
       // We cache the variable as the replicator could be changed between here and the time we call stop
       // since sendLiveIsStoping my issue a close back from the channel
@@ -2400,21 +2604,8 @@ public class JournalStorageManager implements StorageManager
    // This should be accessed from this package only
    void deleteLargeMessageFile(final LargeServerMessage largeServerMessage) throws HornetQException
    {
-      if (largeServerMessage.getPendingRecordID() < 0)
-      {
-         try
-         {
-            // The delete file happens asynchronously
-            // And the client won't be waiting for the actual file to be deleted.
-            // We set a temporary record (short lived) on the journal
-            // to avoid a situation where the server is restarted and pending large message stays on forever
-            largeServerMessage.setPendingRecordID(storePendingLargeMessage(largeServerMessage.getMessageID()));
-         }
-         catch (Exception e)
-         {
-            throw new HornetQInternalErrorException(e.getMessage(), e);
-         }
-      }
+      storePendingLargeMessageDelete(largeServerMessage);
+
       final SequentialFile file = largeServerMessage.getFile();
       if (file == null)
       {
@@ -2450,6 +2641,16 @@ public class JournalStorageManager implements StorageManager
                readLock();
                try
                {
+                  if (replicator != null && replicator.isSynchronizing())
+                  {
+                     // the synchronization started after this delete was scheduled
+                     synchronized (largeMessagesToDelete)
+                     {
+                        largeMessagesToDelete.add(Long.valueOf(largeServerMessage.getMessageID()));
+                        confirmLargeMessage(largeServerMessage);
+                     }
+                     return;
+                  }
                   if (replicator != null)
                   {
                      replicator.largeMessageDelete(largeServerMessage.getMessageID());
@@ -2482,6 +2683,66 @@ public class JournalStorageManager implements StorageManager
       }
    }
 
+   // This should be accessed from this package only
+   void deleteLargeMessageBlob(final LargeServerMessage largeServerMessage) throws HornetQException
+   {
+      storePendingLargeMessageDelete(largeServerMessage);
+
+      Runnable deleteAction = new Runnable()
+      {
+         public void run()
+         {
+            try
+            {
+               readLock();
+               try
+               {
+                  getLargeMessageBlobStore().unlink(largeServerMessage.getMessageID());
+
+                  // The confirm could only be done after the body is released
+                  confirmLargeMessage(largeServerMessage);
+               }
+               finally
+               {
+                  readUnLock();
+               }
+            }
+            catch (Exception e)
+            {
+               HornetQServerLogger.LOGGER.journalErrorDeletingMessage(e, largeServerMessage.getMessageID());
+            }
+         }
+      };
+
+      if (executor == null)
+      {
+         deleteAction.run();
+      }
+      else
+      {
+         executor.execute(deleteAction);
+      }
+   }
+
+   /**
+    * @return whether the bodies of the new large messages are appended to the segment files
+    */
+   boolean isLargeMessagesSegmented()
+   {
+      return largeMessagesSegmented;
+   }
+
+   LargeMessageBlobStore getLargeMessageBlobStore() throws Exception
+   {
+      if (!started && !largeMessageBlobStore.isLoaded() && !largeMessageBlobStore.isStopped())
+      {
+         // the tools read the large messages without starting the storage
+         largeMessageBlobStore.load();
+      }
+
+      return largeMessageBlobStore;
+   }
+
    SequentialFile createFileForLargeMessage(final long messageID, final boolean durable)
    {
       if (durable)
@@ -2503,6 +2764,49 @@ public class JournalStorageManager implements StorageManager
 
    // Private ----------------------------------------------------------------------------------
 
+   private void storePendingLargeMessageDelete(final LargeServerMessage largeServerMessage) throws HornetQException
+   {
+      if (largeServerMessage.getPendingRecordID() < 0)
+      {
+         try
+         {
+            // The delete file happens asynchronously
+            // And the client won't be waiting for the actual file to be deleted.
+            // We set a temporary record (short lived) on the journal
+            // to avoid a situation where the server is restarted and pending large message stays on forever
+            largeServerMessage.setPendingRecordID(storePendingLargeMessage(largeServerMessage.getMessageID()));
+         }
+         catch (Exception e)
+         {
+            throw new HornetQInternalErrorException(e.getMessage(), e);
+         }
+      }
+   }
+
+   /**
+    * The segment files are not replicated, nor synchronized with a backup.
+    */
+   private static boolean isLargeMessagesSegmentsSupported(final Configuration config)
+   {
+      HAPolicyConfiguration haPolicy = config.getHAPolicyConfiguration();
+
+      if (haPolicy == null)
+      {
+         return true;
+      }
+
+      switch (haPolicy.getType())
+      {
+         case REPLICATED:
+         case REPLICA:
+         case COLOCATED:
+            HornetQServerLogger.LOGGER.largeMessagesSegmentsNotSupported(haPolicy.getType());
+            return false;
+         default:
+            return true;
+      }
+   }
+
    private void checkAndCreateDir(final String dir, final boolean create)
    {
       File f = new File(dir);
@@ -2685,7 +2989,7 @@ public class JournalStorageManager implements StorageManager
 
                   DuplicateIDCache cache = postOffice.getDuplicateIDCache(encoding.address);
 
-                  cache.load(tx, encoding.duplID);
+                  cache.load(tx, encoding.duplID, record.id);
 
                   break;
                }
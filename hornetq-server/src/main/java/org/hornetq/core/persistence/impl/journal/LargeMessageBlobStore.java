@@ -0,0 +1,980 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.core.persistence.impl.journal;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.hornetq.core.server.HornetQServerLogger;
+
+/**
+ * The bodies of the large messages, appended to shared segment files instead of a file per message.
+ * <p>
+ * A body (a blob) is stored as data records, one per chunk received, which can span several
+ * segments. The blob is shared by the messages copied from the one it was received with (by a divert,
+ * or when moved to an expiry or dead letter address), so a copy only records a new reference. The
+ * references of a blob are stored as a snapshot, the one with the highest sequence wins on load.
+ * <p>
+ * Once its last reference is gone, a blob is dead. A segment whose live data falls under the
+ * compact percentage is compacted: its live records are appended again to the current segment, and the
+ * file is deleted.
+ * <p>
+ * As with the file per message, the writes are not synced: a large message is only confirmed by the
+ * journal once all its body has been received.
+ */
+final class LargeMessageBlobStore
+{
+   static final String EXTENSION = "blob";
+
+   private static final int MAGIC = 0x48514C42;
+
+   private static final int VERSION = 1;
+
+   // magic (int), version (int), segment id (long)
+   private static final int HEADER_SIZE = 16;
+
+   private static final byte DATA = 1;
+
+   private static final byte REFS = 2;
+
+   // type (byte), blob id (long), position in the blob (long), length (int)
+   private static final int DATA_HEADER_SIZE = 21;
+
+   // type (byte), blob id (long), sequence (long), count (int)
+   private static final int REFS_HEADER_SIZE = 21;
+
+   // message id (long), durable (byte)
+   private static final int REF_SIZE = 9;
+
+   // the size of the segments when only the bodies stored before the segments were disabled are read
+   private static final int DEFAULT_SEGMENT_SIZE = 10 * 1024 * 1024;
+
+   private final File directory;
+
+   private final int segmentSize;
+
+   private final int compactPercentage;
+
+   private final Executor compactor;
+
+   private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+   // blob id -> blob, including the dead blobs still recorded in a segment
+   private final Map<Long, Blob> blobs = new HashMap<Long, Blob>();
+
+   // message id -> the blob holding its body
+   private final Map<Long, Blob> messages = new HashMap<Long, Blob>();
+
+   private final TreeMap<Long, Segment> segments = new TreeMap<Long, Segment>();
+
+   // the segment the records are appended to, created on the first write
+   private Segment current;
+
+   private long nextSegmentID = 1;
+
+   private boolean compactionPending;
+
+   private volatile boolean loaded;
+
+   private volatile boolean stopped;
+
+   LargeMessageBlobStore(final File directory,
+                         final int segmentSize,
+                         final int compactPercentage,
+                         final Executor compactor)
+   {
+      this.directory = directory;
+      this.segmentSize = segmentSize > 0 ? segmentSize : DEFAULT_SEGMENT_SIZE;
+      this.compactPercentage = compactPercentage;
+      this.compactor = compactor;
+   }
+
+   boolean isLoaded()
+   {
+      return loaded;
+   }
+
+   boolean isStopped()
+   {
+      return stopped;
+   }
+
+   /**
+    * Reads the segments, dropping the references of the non durable messages.
+    */
+   void load() throws IOException
+   {
+      lock.writeLock().lock();
+      try
+      {
+         if (loaded)
+         {
+            return;
+         }
+
+         stopped = false;
+
+         compactionPending = false;
+
+         File[] files = directory.listFiles(new FilenameFilter()
+         {
+            public boolean accept(final File dir, final String name)
+            {
+               return name.endsWith("." + EXTENSION);
+            }
+         });
+
+         TreeMap<Long, File> sorted = new TreeMap<Long, File>();
+
+         if (files != null)
+         {
+            for (File file : files)
+            {
+               try
+               {
+                  sorted.put(Long.parseLong(file.getName().substring(0, file.getName().length() - EXTENSION.length() - 1)),
+                             file);
+               }
+               catch (NumberFormatException e)
+               {
+                  // not a segment
+               }
+            }
+         }
+
+         for (Map.Entry<Long, File> entry : sorted.entrySet())
+         {
+            Segment segment = new Segment(entry.getKey(), entry.getValue(), new RandomAccessFile(entry.getValue(), "rw").getChannel());
+
+            segments.put(segment.id, segment);
+
+            loadSegment(segment);
+
+            nextSegmentID = segment.id + 1;
+         }
+
+         for (Blob blob : blobs.values())
+         {
+            Iterator<Boolean> durable = blob.refs.values().iterator();
+
+            while (durable.hasNext())
+            {
+               if (!durable.next())
+               {
+                  durable.remove();
+               }
+            }
+
+            if (blob.isLive())
+            {
+               for (Long messageID : blob.refs.keySet())
+               {
+                  messages.put(messageID, blob);
+               }
+
+               for (Extent extent : blob.extents.values())
+               {
+                  extent.segment.liveBytes += extent.recordSize();
+               }
+            }
+            else
+            {
+               blob.extents.clear();
+            }
+         }
+
+         loaded = true;
+
+         checkCompaction();
+      }
+      finally
+      {
+         lock.writeLock().unlock();
+      }
+   }
+
+   void stop()
+   {
+      lock.writeLock().lock();
+      try
+      {
+         stopped = true;
+
+         loaded = false;
+
+         for (Segment segment : segments.values())
+         {
+            try
+            {
+               if (segment == current)
+               {
+                  segment.channel.force(false);
+               }
+               segment.channel.close();
+            }
+            catch (IOException e)
+            {
+               HornetQServerLogger.LOGGER.warn(e.getMessage(), e);
+            }
+         }
+
+         segments.clear();
+         blobs.clear();
+         messages.clear();
+         current = null;
+      }
+      finally
+      {
+         lock.writeLock().unlock();
+      }
+   }
+
+   boolean contains(final long messageID)
+   {
+      lock.readLock().lock();
+      try
+      {
+         return messages.containsKey(messageID);
+      }
+      finally
+      {
+         lock.readLock().unlock();
+      }
+   }
+
+   /**
+    * @return the size of the body of the message, 0 if it has none
+    */
+   long size(final long messageID)
+   {
+      lock.readLock().lock();
+      try
+      {
+         Blob blob = messages.get(messageID);
+
+         return blob == null ? 0 : blob.size;
+      }
+      finally
+      {
+         lock.readLock().unlock();
+      }
+   }
+
+   /**
+    * Appends bytes to the body of the message, the first ones create its blob.
+    */
+   void append(final long messageID, final boolean durable, final byte[] bytes) throws IOException
+   {
+      lock.writeLock().lock();
+      try
+      {
+         checkStarted();
+
+         Blob blob = messages.get(messageID);
+
+         if (blob == null)
+         {
+            blob = new Blob(messageID);
+            blob.refs.put(messageID, durable);
+            blobs.put(blob.id, blob);
+            messages.put(messageID, blob);
+
+            writeRefs(blob);
+         }
+
+         writeData(blob, blob.size, ByteBuffer.wrap(bytes));
+
+         blob.size += bytes.length;
+      }
+      finally
+      {
+         lock.writeLock().unlock();
+      }
+   }
+
+   /**
+    * Shares the body of a message with a copy of it.
+    */
+   void link(final long messageID, final long newMessageID, final boolean durable) throws IOException
+   {
+      lock.writeLock().lock();
+      try
+      {
+         checkStarted();
+
+         Blob blob = messages.get(messageID);
+
+         if (blob == null)
+         {
+            // an empty body
+            return;
+         }
+
+         blob.refs.put(newMessageID, durable);
+         messages.put(newMessageID, blob);
+
+         writeRefs(blob);
+      }
+      finally
+      {
+         lock.writeLock().unlock();
+      }
+   }
+
+   /**
+    * Releases the body of the message, its blob is dead once no message uses it.
+    */
+   void unlink(final long messageID) throws IOException
+   {
+      lock.writeLock().lock();
+      try
+      {
+         checkStarted();
+
+         Blob blob = messages.remove(messageID);
+
+         if (blob == null)
+         {
+            return;
+         }
+
+         blob.refs.remove(messageID);
+
+         writeRefs(blob);
+
+         if (!blob.isLive())
+         {
+            for (Extent extent : blob.extents.values())
+            {
+               extent.segment.liveBytes -= extent.recordSize();
+            }
+
+            blob.extents.clear();
+
+            checkCompaction();
+         }
+      }
+      finally
+      {
+         lock.writeLock().unlock();
+      }
+   }
+
+   /**
+    * Reads the body of the message from the given position.
+    *
+    * @return the number of bytes read, or -1 if the position is at the end of the body
+    */
+   int read(final long messageID, final long position, final ByteBuffer buffer) throws IOException
+   {
+      lock.readLock().lock();
+      try
+      {
+         checkStarted();
+
+         Blob blob = messages.get(messageID);
+
+         if (blob == null || position >= blob.size)
+         {
+            return -1;
+         }
+
+         int read = 0;
+
+         long blobPosition = position;
+
+         while (buffer.hasRemaining() && blobPosition < blob.size)
+         {
+            Map.Entry<Long, Extent> entry = blob.extents.floorEntry(blobPosition);
+
+            if (entry == null || entry.getValue().position + entry.getValue().length <= blobPosition)
+            {
+               throw new IOException("The body of the large message " + messageID + " is missing the bytes at " +
+                                        blobPosition);
+            }
+
+            Extent extent = entry.getValue();
+
+            long offset = blobPosition - extent.position;
+
+            int length = (int) Math.min(buffer.remaining(), extent.length - offset);
+
+            ByteBuffer slice = buffer.duplicate();
+            slice.limit(slice.position() + length);
+
+            readFully(extent.segment, slice, extent.fileOffset + offset);
+
+            buffer.position(buffer.position() + length);
+
+            blobPosition += length;
+
+            read += length;
+         }
+
+         return read;
+      }
+      finally
+      {
+         lock.readLock().unlock();
+      }
+   }
+
+   // Private -------------------------------------------------------
+
+   private void checkStarted()
+   {
+      if (!loaded)
+      {
+         throw new IllegalStateException("The large message segments in " + directory + " are not loaded");
+      }
+   }
+
+   private void loadSegment(final Segment segment) throws IOException
+   {
+      long fileSize = segment.channel.size();
+
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+      if (fileSize < HEADER_SIZE || !readFully(segment.channel, header, 0) || header.getInt(0) != MAGIC ||
+         header.getInt(4) != VERSION)
+      {
+         // created right before a crash, it is deleted by the compaction
+         segment.size = HEADER_SIZE;
+         return;
+      }
+
+      ByteBuffer recordHeader = ByteBuffer.allocate(Math.max(DATA_HEADER_SIZE, REFS_HEADER_SIZE));
+
+      long position = HEADER_SIZE;
+
+      while (position < fileSize)
+      {
+         recordHeader.clear();
+
+         if (!readFully(segment.channel, recordHeader, position))
+         {
+            break;
+         }
+
+         byte type = recordHeader.get(0);
+         long blobID = recordHeader.getLong(1);
+
+         if (type == DATA)
+         {
+            long blobPosition = recordHeader.getLong(9);
+            int length = recordHeader.getInt(17);
+
+            if (length < 0 || position + DATA_HEADER_SIZE + length > fileSize)
+            {
+               break;
+            }
+
+            Blob blob = loadedBlob(blobID, segment);
+
+            // a relocated record overrides the one it was copied from
+            blob.extents.put(blobPosition, new Extent(segment, position + DATA_HEADER_SIZE, blobPosition, length));
+
+            blob.size = Math.max(blob.size, blobPosition + length);
+
+            position += DATA_HEADER_SIZE + length;
+         }
+         else if (type == REFS)
+         {
+            long sequence = recordHeader.getLong(9);
+            int count = recordHeader.getInt(17);
+
+            if (count < 0 || position + REFS_HEADER_SIZE + (long) count * REF_SIZE > fileSize)
+            {
+               break;
+            }
+
+            ByteBuffer refs = ByteBuffer.allocate(count * REF_SIZE);
+
+            if (!readFully(segment.channel, refs, position + REFS_HEADER_SIZE))
+            {
+               break;
+            }
+
+            Blob blob = loadedBlob(blobID, segment);
+
+            if (sequence >= blob.refsSequence)
+            {
+               blob.refs.clear();
+
+               for (int i = 0; i < count; i++)
+               {
+                  blob.refs.put(refs.getLong(i * REF_SIZE), refs.get(i * REF_SIZE + 8) != 0);
+               }
+
+               blob.refsSequence = sequence;
+               blob.refsSegment = segment;
+            }
+
+            position += REFS_HEADER_SIZE + count * REF_SIZE;
+         }
+         else
+         {
+            break;
+         }
+      }
+
+      if (position < fileSize)
+      {
+         HornetQServerLogger.LOGGER.largeMessageSegmentTruncated(segment.file.getName(), position);
+      }
+
+      segment.size = fileSize;
+   }
+
+   private Blob loadedBlob(final long blobID, final Segment segment)
+   {
+      Blob blob = blobs.get(blobID);
+
+      if (blob == null)
+      {
+         blob = new Blob(blobID);
+         blobs.put(blobID, blob);
+      }
+
+      blob.segments.add(segment);
+      segment.blobIDs.add(blobID);
+
+      return blob;
+   }
+
+   private void writeData(final Blob blob, final long blobPosition, final ByteBuffer bytes) throws IOException
+   {
+      int length = bytes.remaining();
+
+      Segment segment = reserve(DATA_HEADER_SIZE + length);
+
+      ByteBuffer header = ByteBuffer.allocate(DATA_HEADER_SIZE);
+      header.put(DATA).putLong(blob.id).putLong(blobPosition).putInt(length);
+      header.flip();
+
+      writeFully(segment, header, segment.size);
+      writeFully(segment, bytes, segment.size + DATA_HEADER_SIZE);
+
+      Extent extent = new Extent(segment, segment.size + DATA_HEADER_SIZE, blobPosition, length);
+
+      Extent previous = blob.extents.put(blobPosition, extent);
+
+      if (previous != null)
+      {
+         previous.segment.liveBytes -= previous.recordSize();
+      }
+
+      segment.size += extent.recordSize();
+      segment.liveBytes += extent.recordSize();
+
+      blob.segments.add(segment);
+      segment.blobIDs.add(blob.id);
+   }
+
+   private void writeRefs(final Blob blob) throws IOException
+   {
+      int size = REFS_HEADER_SIZE + blob.refs.size() * REF_SIZE;
+
+      Segment segment = reserve(size);
+
+      ByteBuffer record = ByteBuffer.allocate(size);
+      record.put(REFS).putLong(blob.id).putLong(++blob.refsSequence).putInt(blob.refs.size());
+
+      for (Map.Entry<Long, Boolean> ref : blob.refs.entrySet())
+      {
+         record.putLong(ref.getKey()).put(ref.getValue() ? (byte) 1 : (byte) 0);
+      }
+
+      record.flip();
+
+      writeFully(segment, record, segment.size);
+
+      segment.size += size;
+
+      blob.refsSegment = segment;
+      blob.segments.add(segment);
+      segment.blobIDs.add(blob.id);
+   }
+
+   /**
+    * @return the segment a record of the given size is appended to
+    */
+   private Segment reserve(final int recordSize) throws IOException
+   {
+      if (current != null && current.size > HEADER_SIZE && current.size + recordSize > segmentSize)
+      {
+         current.channel.force(false);
+
+         current = null;
+
+         // the previous segment may already be mostly dead
+         checkCompaction();
+      }
+
+      if (current == null)
+      {
+         long id = nextSegmentID++;
+
+         File file = new File(directory, id + "." + EXTENSION);
+
+         Segment segment = new Segment(id, file, new RandomAccessFile(file, "rw").getChannel());
+
+         ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+         header.putInt(MAGIC).putInt(VERSION).putLong(id);
+         header.flip();
+
+         writeFully(segment, header, 0);
+
+         segment.size = HEADER_SIZE;
+
+         segments.put(id, segment);
+
+         current = segment;
+      }
+
+      return current;
+   }
+
+   private boolean needsCompaction(final Segment segment)
+   {
+      return segment != current &&
+         (segment.liveBytes == 0 || segment.liveBytes * 100 < (segment.size - HEADER_SIZE) * compactPercentage);
+   }
+
+   private void checkCompaction()
+   {
+      if (compactionPending || stopped)
+      {
+         return;
+      }
+
+      for (Segment segment : segments.values())
+      {
+         if (needsCompaction(segment))
+         {
+            compactionPending = true;
+
+            compactor.execute(new Runnable()
+            {
+               public void run()
+               {
+                  compact();
+               }
+            });
+
+            return;
+         }
+      }
+   }
+
+   private void compact()
+   {
+      while (true)
+      {
+         Segment segment = null;
+
+         lock.writeLock().lock();
+         try
+         {
+            if (!stopped)
+            {
+               for (Segment candidate : segments.values())
+               {
+                  if (needsCompaction(candidate))
+                  {
+                     segment = candidate;
+                     break;
+                  }
+               }
+            }
+
+            if (segment == null)
+            {
+               compactionPending = false;
+               return;
+            }
+         }
+         finally
+         {
+            lock.writeLock().unlock();
+         }
+
+         try
+         {
+            compact(segment);
+         }
+         catch (Exception e)
+         {
+            HornetQServerLogger.LOGGER.errorCompactingLargeMessageSegment(e, segment.file.getName());
+
+            lock.writeLock().lock();
+            try
+            {
+               compactionPending = false;
+            }
+            finally
+            {
+               lock.writeLock().unlock();
+            }
+
+            return;
+         }
+      }
+   }
+
+   /**
+    * Appends the live records of the segment to the current one and deletes its file.
+    * <p>
+    * The lock is taken for each blob, so the writes are only held while a blob is relocated.
+    */
+   private void compact(final Segment segment) throws IOException
+   {
+      List<Long> blobIDs;
+
+      lock.readLock().lock();
+      try
+      {
+         blobIDs = new ArrayList<Long>(segment.blobIDs);
+      }
+      finally
+      {
+         lock.readLock().unlock();
+      }
+
+      for (Long blobID : blobIDs)
+      {
+         lock.writeLock().lock();
+         try
+         {
+            if (isGone(segment))
+            {
+               return;
+            }
+
+            Blob blob = blobs.get(blobID);
+
+            if (blob == null)
+            {
+               continue;
+            }
+
+            if (blob.isLive())
+            {
+               for (Extent extent : new ArrayList<Extent>(blob.extents.values()))
+               {
+                  if (extent.segment == segment)
+                  {
+                     ByteBuffer bytes = ByteBuffer.allocate(extent.length);
+
+                     readFully(segment, bytes, extent.fileOffset);
+
+                     bytes.flip();
+
+                     writeData(blob, extent.position, bytes);
+                  }
+               }
+
+               if (blob.refsSegment == segment)
+               {
+                  writeRefs(blob);
+               }
+            }
+            else if (blob.refsSegment == segment && blob.segments.size() > 1)
+            {
+               // the records left in the other segments must not come back to life on load
+               writeRefs(blob);
+            }
+
+            blob.segments.remove(segment);
+
+            if (!blob.isLive() && blob.segments.isEmpty())
+            {
+               blobs.remove(blobID);
+            }
+         }
+         finally
+         {
+            lock.writeLock().unlock();
+         }
+      }
+
+      lock.writeLock().lock();
+      try
+      {
+         if (isGone(segment))
+         {
+            return;
+         }
+
+         if (current != null)
+         {
+            // the relocated records must be on disk before the file is gone
+            current.channel.force(false);
+         }
+
+         segments.remove(segment.id);
+
+         segment.channel.close();
+
+         if (!segment.file.delete())
+         {
+            throw new IOException("Unable to delete " + segment.file);
+         }
+      }
+      finally
+      {
+         lock.writeLock().unlock();
+      }
+   }
+
+   /**
+    * @return whether the segment has been deleted, or the store stopped since it was chosen
+    */
+   private boolean isGone(final Segment segment)
+   {
+      return stopped || segments.get(segment.id) != segment;
+   }
+
+   private static void readFully(final Segment segment, final ByteBuffer buffer, final long position) throws IOException
+   {
+      if (!readFully(segment.channel, buffer, position))
+      {
+         throw new IOException("Unexpected end of " + segment.file + " at " + (position + buffer.position()));
+      }
+   }
+
+   private static boolean readFully(final FileChannel channel, final ByteBuffer buffer, final long position) throws IOException
+   {
+      long filePosition = position;
+
+      while (buffer.hasRemaining())
+      {
+         int read = channel.read(buffer, filePosition);
+
+         if (read < 0)
+         {
+            return false;
+         }
+
+         filePosition += read;
+      }
+
+      return true;
+   }
+
+   private static void writeFully(final Segment segment, final ByteBuffer buffer, final long position) throws IOException
+   {
+      long filePosition = position;
+
+      while (buffer.hasRemaining())
+      {
+         filePosition += segment.channel.write(buffer, filePosition);
+      }
+   }
+
+   // Inner classes -------------------------------------------------
+
+   private static final class Segment
+   {
+      final long id;
+
+      final File file;
+
+      final FileChannel channel;
+
+      long size;
+
+      // the size of the data records of the live blobs
+      long liveBytes;
+
+      // the blobs with a record in this segment
+      final Set<Long> blobIDs = new HashSet<Long>();
+
+      Segment(final long id, final File file, final FileChannel channel)
+      {
+         this.id = id;
+         this.file = file;
+         this.channel = channel;
+      }
+   }
+
+   private static final class Blob
+   {
+      final long id;
+
+      // position in the blob -> data record
+      final TreeMap<Long, Extent> extents = new TreeMap<Long, Extent>();
+
+      long size;
+
+      // message id -> durable
+      final Map<Long, Boolean> refs = new HashMap<Long, Boolean>();
+
+      long refsSequence;
+
+      // the segment holding the latest references
+      Segment refsSegment;
+
+      // the segments with a record of this blob
+      final Set<Segment> segments = new HashSet<Segment>();
+
+      Blob(final long id)
+      {
+         this.id = id;
+      }
+
+      boolean isLive()
+      {
+         return !refs.isEmpty();
+      }
+   }
+
+   private static final class Extent
+   {
+      final Segment segment;
+
+      // where the bytes start in the segment file
+      final long fileOffset;
+
+      final long position;
+
+      final int length;
+
+      Extent(final Segment segment, final long fileOffset, final long position, final int length)
+      {
+         this.segment = segment;
+         this.fileOffset = fileOffset;
+         this.position = position;
+         this.length = length;
+      }
+
+      long recordSize()
+      {
+         return DATA_HEADER_SIZE + length;
+      }
+   }
+}
@@ -51,10 +51,16 @@ public final class LargeServerMessageImpl extends ServerMessageImpl implements L
    // We should only use the NIO implementation on the Journal
    private SequentialFile file;
 
+   // set when the body is appended to the segment files of the storage manager, instead of its own file
+   private boolean inBlobStore;
+
    // set when a copyFrom is called
    // The actual copy is done when finishCopy is called
    private SequentialFile pendingCopy;
 
+   // the message whose body is shared when finishCopy is called
+   private long pendingBlobCopy = -1;
+
    private long bodySize = -1;
 
    private final AtomicInteger delayDeletionCount = new AtomicInteger(0);
@@ -109,12 +115,19 @@ public final class LargeServerMessageImpl extends ServerMessageImpl implements L
    {
       validateFile();
 
-      if (!file.isOpen())
+      if (inBlobStore)
       {
-         file.open();
+         storageManager.addBytesToLargeMessageBlob(getMessageID(), durable, bytes);
       }
+      else
+      {
+         if (!file.isOpen())
+         {
+            file.open();
+         }
 
-      storageManager.addBytesToLargeMessage(file, getMessageID(), bytes);
+         storageManager.addBytesToLargeMessage(file, getMessageID(), bytes);
+      }
 
       bodySize += bytes.length;
    }
@@ -158,6 +171,7 @@ public final class LargeServerMessageImpl extends ServerMessageImpl implements L
    public void decode(final HornetQBuffer buffer1)
    {
       file = null;
+      inBlobStore = false;
 
       super.decodeHeadersAndProperties(buffer1);
    }
@@ -241,7 +255,14 @@ public final class LargeServerMessageImpl extends ServerMessageImpl implements L
    {
       validateFile();
       releaseResources();
-      storageManager.deleteLargeMessageFile(this);
+      if (inBlobStore)
+      {
+         storageManager.deleteLargeMessageBlob(this);
+      }
+      else
+      {
+         storageManager.deleteLargeMessageFile(this);
+      }
    }
 
    // We cache this
@@ -295,12 +316,24 @@ public final class LargeServerMessageImpl extends ServerMessageImpl implements L
    @Override
    public synchronized ServerMessage copy()
    {
-      SequentialFile newfile = storageManager.createFileForLargeMessage(messageID, durable);
+      boolean blob;
 
-      ServerMessage newMessage = new LargeServerMessageImpl(this,
-                                                            properties,
-                                                            newfile,
-                                                            messageID);
+      try
+      {
+         blob = isInBlobStore();
+      }
+      catch (Exception e)
+      {
+         throw new RuntimeException(e.getMessage(), e);
+      }
+
+      SequentialFile newfile = blob ? null : storageManager.createFileForLargeMessage(messageID, durable);
+
+      LargeServerMessageImpl newMessage = new LargeServerMessageImpl(this,
+                                                                     properties,
+                                                                     newfile,
+                                                                     messageID);
+      newMessage.inBlobStore = blob;
       return newMessage;
    }
 
@@ -314,7 +347,14 @@ public final class LargeServerMessageImpl extends ServerMessageImpl implements L
    @Override
    public void finishCopy() throws Exception
    {
-      if (pendingCopy != null)
+      if (pendingBlobCopy >= 0)
+      {
+         this.pendingRecordID = storageManager.storePendingLargeMessage(this.messageID);
+         storageManager.linkLargeMessageBlob(pendingBlobCopy, this.messageID, durable);
+         pendingBlobCopy = -1;
+         bodySize = -1;
+      }
+      else if (pendingCopy != null)
       {
          SequentialFile copyTo = createFile();
          try
@@ -339,12 +379,25 @@ public final class LargeServerMessageImpl extends ServerMessageImpl implements L
 
    /**
     * The copy of the file itself will be done later by {@link LargeServerMessageImpl#finishCopy()}
+    * <p>
+    * When the body is in the segment files, the copy shares it.
     */
    @Override
    public synchronized ServerMessage copy(final long newID)
    {
       try
       {
+         if (isInBlobStore())
+         {
+            LargeServerMessageImpl newMessage = new LargeServerMessageImpl(this,
+                                                                           properties,
+                                                                           null,
+                                                                           newID);
+            newMessage.inBlobStore = true;
+            newMessage.pendingBlobCopy = messageID;
+            return newMessage;
+         }
+
          SequentialFile newfile = storageManager.createFileForLargeMessage(newID, durable);
 
          LargeServerMessageImpl newMessage = new LargeServerMessageImpl(this,
@@ -361,6 +414,9 @@ public final class LargeServerMessageImpl extends ServerMessageImpl implements L
       }
    }
 
+   /**
+    * @return the file of the body, or {@code null} if it is in the segment files of the storage manager
+    */
    public SequentialFile getFile() throws HornetQException
    {
       validateFile();
@@ -393,7 +449,7 @@ public final class LargeServerMessageImpl extends ServerMessageImpl implements L
    {
       try
       {
-         if (file == null)
+         if (file == null && !inBlobStore)
          {
             if (messageID <= 0)
             {
@@ -402,9 +458,22 @@ public final class LargeServerMessageImpl extends ServerMessageImpl implements L
 
             file = createFile();
 
-            openFile();
+            // the bodies stored in their own files before the segments were enabled are still read from them
+            if (storageManager.getLargeMessageBlobStore().contains(messageID) ||
+               storageManager.isLargeMessagesSegmented() && !file.exists())
+            {
+               file = null;
+
+               inBlobStore = true;
 
-            bodySize = file.size();
+               bodySize = storageManager.getLargeMessageBlobStore().size(messageID);
+            }
+            else
+            {
+               openFile();
+
+               bodySize = file.size();
+            }
          }
       }
       catch (Exception e)
@@ -414,6 +483,19 @@ public final class LargeServerMessageImpl extends ServerMessageImpl implements L
       }
    }
 
+   /**
+    * @return whether the body is in the segment files of the storage manager, without opening its file otherwise
+    */
+   private boolean isInBlobStore() throws Exception
+   {
+      if (!inBlobStore && file == null && storageManager.getLargeMessageBlobStore().contains(messageID))
+      {
+         validateFile();
+      }
+
+      return inBlobStore;
+   }
+
    /**
     *
     */
@@ -448,8 +530,17 @@ public final class LargeServerMessageImpl extends ServerMessageImpl implements L
    {
       private SequentialFile cFile;
 
+      // the position read in the segment files
+      private long position;
+
       public void open() throws HornetQException
       {
+         if (inBlobStore)
+         {
+            position = 0;
+            return;
+         }
+
          try
          {
             if (cFile != null && cFile.isOpen())
@@ -484,6 +575,18 @@ public final class LargeServerMessageImpl extends ServerMessageImpl implements L
       {
          try
          {
+            if (inBlobStore)
+            {
+               int read = storageManager.getLargeMessageBlobStore().read(messageID, position, bufferRead);
+
+               if (read > 0)
+               {
+                  position += read;
+               }
+
+               return read;
+            }
+
             return cFile.read(bufferRead);
          }
          catch (Exception e)
@@ -518,7 +621,7 @@ public final class LargeServerMessageImpl extends ServerMessageImpl implements L
          {
             try
             {
-               bodySize = file.size();
+               bodySize = inBlobStore ? storageManager.getLargeMessageBlobStore().size(messageID) : file.size();
             }
             catch (Exception e)
             {
@@ -26,6 +26,7 @@ import org.hornetq.core.journal.impl.SimpleWaitIOCallback;
 import org.hornetq.core.persistence.OperationContext;
 import org.hornetq.core.server.HornetQServerLogger;
 import org.hornetq.utils.ExecutorFactory;
+import org.hornetq.utils.LatencyHistogram;
 
 /**
  *
@@ -42,6 +43,8 @@ import org.hornetq.utils.ExecutorFactory;
  */
 public class OperationContextImpl implements OperationContext
 {
+   private static final int STORE_LINE_UP_TIMES = 64;
+
    private static final ThreadLocal<OperationContext> threadLocalContext = new ThreadLocal<OperationContext>();
 
    public static void clearContext()
@@ -55,6 +58,11 @@ public class OperationContextImpl implements OperationContext
    }
 
    public static OperationContext getContext(final ExecutorFactory executorFactory)
+   {
+      return getContext(executorFactory, null);
+   }
+
+   public static OperationContext getContext(final ExecutorFactory executorFactory, final LatencyHistogram storeLatencies)
    {
       OperationContext token = OperationContextImpl.threadLocalContext.get();
       if (token == null)
@@ -65,7 +73,7 @@ public class OperationContextImpl implements OperationContext
          }
          else
          {
-            token = new OperationContextImpl(executorFactory.getExecutor());
+            token = new OperationContextImpl(executorFactory.getExecutor(), storeLatencies);
             OperationContextImpl.threadLocalContext.set(token);
          }
       }
@@ -99,10 +107,25 @@ public class OperationContextImpl implements OperationContext
 
    private final AtomicInteger executorsPending = new AtomicInteger(0);
 
+   private final LatencyHistogram storeLatencies;
+
+   /**
+    * The times at which the last stores were lined up, indexed by their sequence. When more stores
+    * than this are pending the times are overwritten and the latencies recorded are shorter.
+    */
+   private final long[] storeLineUpTimes;
+
    public OperationContextImpl(final Executor executor)
+   {
+      this(executor, null);
+   }
+
+   public OperationContextImpl(final Executor executor, final LatencyHistogram storeLatencies)
    {
       super();
       this.executor = executor;
+      this.storeLatencies = storeLatencies;
+      this.storeLineUpTimes = storeLatencies == null ? null : new long[STORE_LINE_UP_TIMES];
    }
 
    public void pageSyncLineUp()
@@ -118,7 +141,12 @@ public class OperationContextImpl implements OperationContext
 
    public void storeLineUp()
    {
-      storeLineUp.incrementAndGet();
+      long lineUp = storeLineUp.incrementAndGet();
+
+      if (storeLineUpTimes != null)
+      {
+         storeLineUpTimes[(int) lineUp & STORE_LINE_UP_TIMES - 1] = System.nanoTime();
+      }
    }
 
    public void replicationLineUp()
@@ -187,6 +215,17 @@ public class OperationContextImpl implements OperationContext
    public synchronized void done()
    {
       stored++;
+
+      if (storeLineUpTimes != null)
+      {
+         long latency = System.nanoTime() - storeLineUpTimes[(int) stored & STORE_LINE_UP_TIMES - 1];
+
+         if (latency >= 0)
+         {
+            storeLatencies.record(latency / 1000);
+         }
+      }
+
       checkTasks();
    }
 
@@ -51,6 +51,7 @@ import org.hornetq.core.server.group.impl.GroupBinding;
 import org.hornetq.core.server.impl.JournalLoader;
 import org.hornetq.core.transaction.ResourceManager;
 import org.hornetq.core.transaction.Transaction;
+import org.hornetq.utils.LatencyHistogram;
 
 /**
  * A NullStorageManager
@@ -64,6 +65,8 @@ public class NullStorageManager implements StorageManager
 
    private volatile boolean started;
 
+   private final LatencyHistogram storeLatencies = new LatencyHistogram();
+
    private static final OperationContext dummyContext = new OperationContext()
    {
 
@@ -217,6 +220,11 @@ public class NullStorageManager implements StorageManager
    {
    }
 
+   @Override
+   public void updateDuplicateID(final SimpleString address, final byte[] duplID, final long recordID) throws Exception
+   {
+   }
+
    @Override
    public void storeDuplicateIDTransactional(final long txID, final SimpleString address, final byte[] duplID,
                                              final long recordID) throws Exception
@@ -349,6 +357,11 @@ public class NullStorageManager implements StorageManager
    {
    }
 
+   @Override
+   public void addGrouping(final long tx, final GroupBinding groupBinding) throws Exception
+   {
+   }
+
    @Override
    public void deleteGrouping(final long tx, final GroupBinding groupBinding) throws Exception
    {
@@ -383,6 +396,12 @@ public class NullStorageManager implements StorageManager
       return NullStorageManager.dummyContext;
    }
 
+   @Override
+   public LatencyHistogram getStoreLatencies()
+   {
+      return storeLatencies;
+   }
+
    @Override
    public OperationContext newSingleThreadContext()
    {
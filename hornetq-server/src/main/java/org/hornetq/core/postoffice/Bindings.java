@@ -36,6 +36,16 @@ public interface Bindings extends UnproposalListener
 
    void setRouteWhenNoConsumers(boolean takePriorityIntoAccount);
 
+   /**
+    * When load aware, messages are load balanced proportionally to the advertised {@link QueueLoad}
+    * of the bindings instead of round-robin.
+    *
+    * @param loadReportPeriod how often (in ms) the queue loads are updated, the weights computed from
+    *                         them are cached for that long
+    * @param loadStaleTimeout how long (in ms) a queue load is used after its last update
+    */
+   void setLoadAwareRouting(boolean loadAware, long loadReportPeriod, long loadStaleTimeout);
+
    boolean redistribute(ServerMessage message, Queue originatingQueue, RoutingContext context) throws Exception;
 
    void route(ServerMessage message, RoutingContext context) throws Exception;
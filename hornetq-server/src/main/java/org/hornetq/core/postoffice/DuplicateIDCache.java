@@ -36,7 +36,7 @@ public interface DuplicateIDCache
 
    void load(List<Pair<byte[], Long>> theIds) throws Exception;
 
-   void load(final Transaction tx, final byte[] duplID);
+   void load(final Transaction tx, final byte[] duplID, final long recordID);
 
    void clear() throws Exception;
 
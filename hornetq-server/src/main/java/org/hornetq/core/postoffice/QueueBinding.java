@@ -28,4 +28,9 @@ public interface QueueBinding extends Binding
    int consumerCount();
 
    Queue getQueue();
+
+   /**
+    * @return the load of the queue, as used for load-aware load balancing in a cluster
+    */
+   QueueLoad getLoad();
 }
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.core.postoffice;
+
+/**
+ * The smoothed load of a queue as used for load-aware load balancing in a cluster.
+ * <p>
+ * The load is updated periodically, either from the local queue counters through {@link #sample(long, long, double, long)}
+ * or from the load advertised by another node through {@link #update(long, double, double, long)}. Both the
+ * message count and the consume rate are smoothed with an exponentially weighted moving average.
+ * <p>
+ * The load balancing weight is computed on each update so the routing threads only read volatile fields:
+ * a queue draining quickly with a small backlog gets a higher weight than a queue with slow consumers
+ * and a large backlog.
+ */
+public final class QueueLoad
+{
+   // a queue advertising no consumption still gets a weight depending on its backlog
+   private static final double MIN_CONSUME_RATE = 1;
+
+   private double messageCount;
+
+   private double consumeRate;
+
+   private long lastAcknowledged;
+
+   private long lastSampleTime;
+
+   private volatile double weight;
+
+   private volatile long lastUpdate;
+
+   /**
+    * Samples the local queue counters, the consume rate being computed from the acknowledgements
+    * since the previous sample.
+    *
+    * @return the consume rate since the previous sample in messages per second, -1 on the first sample
+    */
+   public synchronized double sample(final long messageCount,
+                                     final long messagesAcknowledged,
+                                     final double smoothingFactor,
+                                     final long now)
+   {
+      final long elapsed = now - lastSampleTime;
+
+      final boolean first = lastSampleTime == 0;
+
+      final long acknowledged = messagesAcknowledged - lastAcknowledged;
+
+      lastAcknowledged = messagesAcknowledged;
+
+      lastSampleTime = now;
+
+      if (first || elapsed <= 0)
+      {
+         return -1;
+      }
+
+      final double rate = Math.max(0, acknowledged) * 1000d / elapsed;
+
+      update(messageCount, rate, smoothingFactor, now);
+
+      return rate;
+   }
+
+   /**
+    * @param consumeRate     in messages per second
+    * @param smoothingFactor the weight of this update, between 0 (exclusive) and 1
+    */
+   public synchronized void update(final long messageCount,
+                                   final double consumeRate,
+                                   final double smoothingFactor,
+                                   final long now)
+   {
+      if (lastUpdate == 0)
+      {
+         this.messageCount = messageCount;
+         this.consumeRate = consumeRate;
+      }
+      else
+      {
+         final double alpha = Math.min(1, smoothingFactor);
+         this.messageCount += alpha * (messageCount - this.messageCount);
+         this.consumeRate += alpha * (consumeRate - this.consumeRate);
+      }
+
+      final double rate = Math.max(MIN_CONSUME_RATE, this.consumeRate);
+
+      weight = rate / (1 + this.messageCount / rate);
+
+      lastUpdate = now;
+   }
+
+   /**
+    * @return the load balancing weight, or -1 if the load is unknown or was last updated more than
+    * {@code staleTimeout} milliseconds ago
+    */
+   public double getWeight(final long now, final long staleTimeout)
+   {
+      final long updated = lastUpdate;
+
+      if (updated == 0 || now - updated > staleTimeout)
+      {
+         return -1;
+      }
+
+      return weight;
+   }
+
+   public synchronized double getMessageCount()
+   {
+      return messageCount;
+   }
+
+   public synchronized double getConsumeRate()
+   {
+      return consumeRate;
+   }
+
+   @Override
+   public synchronized String toString()
+   {
+      return "QueueLoad [messageCount=" + messageCount + ", consumeRate=" + consumeRate + ", weight=" + weight + "]";
+   }
+}
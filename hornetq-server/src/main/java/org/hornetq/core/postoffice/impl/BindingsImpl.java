@@ -22,6 +22,8 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.hornetq.api.core.Message;
 import org.hornetq.api.core.SimpleString;
@@ -30,6 +32,7 @@ import org.hornetq.core.message.impl.MessageImpl;
 import org.hornetq.core.paging.PagingStore;
 import org.hornetq.core.postoffice.Binding;
 import org.hornetq.core.postoffice.Bindings;
+import org.hornetq.core.postoffice.QueueBinding;
 import org.hornetq.core.server.HornetQServerLogger;
 import org.hornetq.core.server.Queue;
 import org.hornetq.core.server.RoutingContext;
@@ -63,6 +66,17 @@ public final class BindingsImpl implements Bindings
 
    private volatile boolean routeWhenNoConsumers;
 
+   private volatile boolean loadAware;
+
+   private volatile long loadReportPeriod;
+
+   private volatile long loadStaleTimeout;
+
+   private final Map<SimpleString, LoadWeights> routingNameWeights = new ConcurrentHashMap<SimpleString, LoadWeights>();
+
+   // incremented whenever a routed binding is added or removed, so the cached load weights are recomputed
+   private final AtomicInteger bindingsVersion = new AtomicInteger();
+
    private final GroupingHandler groupingHandler;
 
    private final PagingStore pageStore;
@@ -81,6 +95,14 @@ public final class BindingsImpl implements Bindings
       this.routeWhenNoConsumers = routeWhenNoConsumers;
    }
 
+   public void setLoadAwareRouting(final boolean loadAware, final long loadReportPeriod, final long loadStaleTimeout)
+   {
+      this.loadReportPeriod = loadReportPeriod;
+      this.loadStaleTimeout = loadStaleTimeout;
+      this.loadAware = loadAware;
+      routingNameWeights.clear();
+   }
+
    public Collection<Binding> getBindings()
    {
       return bindingsMap.values();
@@ -123,6 +145,8 @@ public final class BindingsImpl implements Bindings
          }
 
          bindings.add(binding);
+
+         bindingsVersion.incrementAndGet();
       }
 
       bindingsMap.put(binding.getID(), binding);
@@ -150,9 +174,13 @@ public final class BindingsImpl implements Bindings
          {
             bindings.remove(binding);
 
+            bindingsVersion.incrementAndGet();
+
             if (bindings.isEmpty())
             {
                routingNameBindingMap.remove(routingName);
+
+               routingNameWeights.remove(routingName);
             }
          }
       }
@@ -370,6 +398,16 @@ public final class BindingsImpl implements Bindings
                                   final SimpleString routingName,
                                   final List<Binding> bindings)
    {
+      if (loadAware)
+      {
+         Binding binding = getNextWeightedBinding(message, routingName, bindings);
+
+         if (binding != null)
+         {
+            return binding;
+         }
+      }
+
       Integer ipos = routingNamePositions.get(routingName);
 
       int pos = ipos != null ? ipos : 0;
@@ -472,6 +510,158 @@ public final class BindingsImpl implements Bindings
       return theBinding;
    }
 
+   /**
+    * Picks one of the bindings accepting the message with a probability proportional to its {@link QueueBinding#getLoad()}
+    * weight, in a single pass over the cached {@link LoadWeights}.
+    *
+    * @return null if less than two bindings accept the message or none has a recent load, so the round-robin
+    * logic applies
+    */
+   private Binding getNextWeightedBinding(final ServerMessage message,
+                                          final SimpleString routingName,
+                                          final List<Binding> bindings)
+   {
+      if (bindings.size() < 2)
+      {
+         return null;
+      }
+
+      final LoadWeights loadWeights = getLoadWeights(routingName, bindings);
+
+      if (loadWeights.weights == null)
+      {
+         return null;
+      }
+
+      final ThreadLocalRandom random = ThreadLocalRandom.current();
+
+      Binding theBinding = null;
+
+      int numberOfCandidates = 0;
+
+      double totalWeight = 0;
+
+      for (int i = 0; i < loadWeights.bindings.length; i++)
+      {
+         Binding binding = loadWeights.bindings[i];
+
+         Filter filter = binding.getFilter();
+
+         if ((filter == null || filter.match(message)) &&
+            binding.isConnected() &&
+            (routeWhenNoConsumers || binding.isHighAcceptPriority(message)))
+         {
+            final double weight = loadWeights.weights[i];
+
+            totalWeight += weight;
+
+            numberOfCandidates++;
+
+            // each candidate replaces the previous pick with the probability of its share of the weight so far
+            if (random.nextDouble() * totalWeight <= weight)
+            {
+               theBinding = binding;
+            }
+         }
+      }
+
+      return numberOfCandidates < 2 ? null : theBinding;
+   }
+
+   private LoadWeights getLoadWeights(final SimpleString routingName, final List<Binding> bindings)
+   {
+      final long now = System.currentTimeMillis();
+
+      final int version = bindingsVersion.get();
+
+      LoadWeights loadWeights = routingNameWeights.get(routingName);
+
+      if (loadWeights == null || loadWeights.version != version || now >= loadWeights.expiry)
+      {
+         loadWeights = new LoadWeights(bindings, version, now, loadReportPeriod, loadStaleTimeout);
+
+         routingNameWeights.put(routingName, loadWeights);
+      }
+
+      return loadWeights;
+   }
+
+   /**
+    * The load balancing weights of the queue bindings sharing a routing name. The loads only change once per
+    * report period, so the weights are computed once per period instead of for each message. The bindings
+    * without a recent load get the average weight of the others, and weights is null if none has one.
+    */
+   private static final class LoadWeights
+   {
+      final int version;
+
+      final long expiry;
+
+      final Binding[] bindings;
+
+      final double[] weights;
+
+      LoadWeights(final List<Binding> allBindings,
+                  final int version,
+                  final long now,
+                  final long loadReportPeriod,
+                  final long loadStaleTimeout)
+      {
+         this.version = version;
+
+         this.expiry = now + loadReportPeriod;
+
+         List<Binding> queueBindings = new ArrayList<Binding>(allBindings.size());
+
+         for (Binding binding : allBindings)
+         {
+            if (binding instanceof QueueBinding)
+            {
+               queueBindings.add(binding);
+            }
+         }
+
+         bindings = queueBindings.toArray(new Binding[queueBindings.size()]);
+
+         final double[] theWeights = new double[bindings.length];
+
+         int numberOfFresh = 0;
+
+         double totalWeight = 0;
+
+         for (int i = 0; i < bindings.length; i++)
+         {
+            theWeights[i] = ((QueueBinding) bindings[i]).getLoad().getWeight(now, loadStaleTimeout);
+
+            if (theWeights[i] >= 0)
+            {
+               numberOfFresh++;
+
+               totalWeight += theWeights[i];
+            }
+         }
+
+         if (numberOfFresh == 0)
+         {
+            weights = null;
+
+            return;
+         }
+
+         final double staleWeight = totalWeight / numberOfFresh;
+
+         for (int i = 0; i < theWeights.length; i++)
+         {
+            if (theWeights[i] < 0)
+            {
+               theWeights[i] = staleWeight;
+            }
+         }
+
+         weights = theWeights;
+      }
+   }
+
    private void routeUsingStrictOrdering(final ServerMessage message,
                                          final RoutingContext context,
                                          final GroupingHandler groupingGroupingHandler,
@@ -13,9 +13,9 @@
 package org.hornetq.core.postoffice.impl;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.hornetq.api.core.Pair;
 import org.hornetq.api.core.SimpleString;
@@ -30,6 +30,12 @@ import org.hornetq.core.transaction.TransactionOperationAbstract;
  * A DuplicateIDCacheImpl
  *
  * A fixed size rotating cache of last X duplicate ids.
+ * <p>
+ * The ids are held out of the heap by a {@link DuplicateIDTable}.
+ * <p>
+ * When persisted, the ids are written in segments: the first id of a segment is stored as a new
+ * journal record and the following ones are appended to it as updates, up to {@link #SEGMENT_SIZE}
+ * ids. A record is deleted once all its ids have left the cache.
  *
  * @author <a href="mailto:tim.fox@jboss.com">Tim Fox</a>
  *
@@ -37,18 +43,26 @@ import org.hornetq.core.transaction.TransactionOperationAbstract;
  */
 public class DuplicateIDCacheImpl implements DuplicateIDCache
 {
-   // ByteHolder, position
-   private final Map<ByteArrayHolder, Integer> cache = new ConcurrentHashMap<ByteArrayHolder, Integer>();
+   /**
+    * The maximum number of ids sharing a journal record.
+    */
+   public static final int SEGMENT_SIZE = 32;
+
+   // stored at the start of a segment opened by a transaction, as a transaction can't add to a
+   // record it doesn't own
+   private static final byte[] SEGMENT_HEADER = new byte[0];
 
    private final SimpleString address;
 
-   // Note - deliberately typed as ArrayList since we want to ensure fast indexed
-   // based array access
-   private final ArrayList<Pair<ByteArrayHolder, Long>> ids;
+   private final DuplicateIDTable ids;
+
+   private final int segmentSize;
 
-   private int pos;
+   // recordID -> segment, for the records holding persisted ids
+   private final Map<Long, Segment> segments = new HashMap<Long, Segment>();
 
-   private final int cacheSize;
+   // the segment new ids are appended to
+   private Segment openSegment;
 
    private final StorageManager storageManager;
 
@@ -61,91 +75,92 @@ public class DuplicateIDCacheImpl implements DuplicateIDCache
    {
       this.address = address;
 
-      cacheSize = size;
+      ids = new DuplicateIDTable(size);
 
-      ids = new ArrayList<Pair<ByteArrayHolder, Long>>(size);
+      segmentSize = Math.max(1, Math.min(SEGMENT_SIZE, size));
 
       this.storageManager = storageManager;
 
       this.persist = persist;
    }
 
-   public void load(final List<Pair<byte[], Long>> theIds) throws Exception
+   public synchronized void load(final List<Pair<byte[], Long>> theIds) throws Exception
    {
-      int count = 0;
-
-      long txID = -1;
+      List<Pair<byte[], Long>> loaded = new ArrayList<Pair<byte[], Long>>(theIds.size());
 
       for (Pair<byte[], Long> id : theIds)
       {
-         if (count < cacheSize)
-         {
-            ByteArrayHolder bah = new ByteArrayHolder(id.getA());
+         // registered even if it only holds a segment header, so it can be deleted
+         getSegment(id.getB());
 
-            Pair<ByteArrayHolder, Long> pair = new Pair<ByteArrayHolder, Long>(bah, id.getB());
-
-            cache.put(bah, ids.size());
-
-            ids.add(pair);
-         }
-         else
+         if (id.getA().length > 0)
          {
-            // cache size has been reduced in config - delete the extra records
-            if (txID == -1)
-            {
-               txID = storageManager.generateID();
-            }
-
-            storageManager.deleteDuplicateIDTransactional(txID, id.getB());
+            loaded.add(id);
          }
-
-         count++;
       }
 
-      if (txID != -1)
-      {
-         storageManager.commit(txID);
-      }
+      long txID = -1;
 
-      pos = ids.size();
+      int excess = loaded.size() - ids.getMaxSize();
 
-      if (pos == cacheSize)
+      if (excess <= 0 || isEvictedPrefix(loaded, excess))
       {
-         pos = 0;
+         // the ring drops the ids evicted before the restart again
+         for (Pair<byte[], Long> id : loaded)
+         {
+            segments.get(id.getB()).refs++;
+
+            addToCacheInMemory(id.getA(), id.getB());
+         }
       }
+      else
+      {
+         // cache size has been reduced in config - the ids kept are stored again so the records of
+         // the extra ones can be deleted
+         txID = storageManager.generateID();
 
-   }
+         for (Pair<byte[], Long> id : loaded.subList(0, ids.getMaxSize()))
+         {
+            long recordID = storageManager.generateID();
 
+            storageManager.storeDuplicateIDTransactional(txID, address, id.getA(), recordID);
 
-   public void deleteFromCache(byte[] duplicateID) throws Exception
-   {
-      ByteArrayHolder bah = new ByteArrayHolder(duplicateID);
+            getSegment(recordID).refs++;
 
-      Integer posUsed = cache.remove(bah);
+            addToCacheInMemory(id.getA(), recordID);
+         }
+      }
 
-      if (posUsed != null)
+      // delete the records left without ids
+      for (Segment segment : new ArrayList<Segment>(segments.values()))
       {
-         Pair<ByteArrayHolder, Long> id;
-
-         synchronized (this)
+         if (segment.refs == 0)
          {
-            id = ids.get(posUsed.intValue());
-
-            if (id.getA().equals(bah))
+            if (txID == -1)
             {
-               id.setA(null);
-               storageManager.deleteDuplicateID(id.getB());
-               id.setB(null);
+               txID = storageManager.generateID();
             }
+
+            storageManager.deleteDuplicateIDTransactional(txID, segment.recordID);
+
+            segments.remove(segment.recordID);
          }
       }
 
+      if (txID != -1)
+      {
+         storageManager.commit(txID);
+      }
    }
 
+   public synchronized void deleteFromCache(byte[] duplicateID) throws Exception
+   {
+      release(ids.remove(duplicateID));
+   }
 
-   public boolean contains(final byte[] duplID)
+   public synchronized boolean contains(final byte[] duplID)
    {
-      return cache.get(new ByteArrayHolder(duplID)) != null;
+      return ids.contains(duplID);
    }
 
    public synchronized void addToCache(final byte[] duplID, final Transaction tx) throws Exception
@@ -156,8 +171,7 @@ public class DuplicateIDCacheImpl implements DuplicateIDCache
       {
          if (persist)
          {
-            recordID = storageManager.generateID();
-            storageManager.storeDuplicateID(address, duplID, recordID);
+            recordID = storeID(duplID, null);
          }
 
          addToCacheInMemory(duplID, recordID);
@@ -166,8 +180,7 @@ public class DuplicateIDCacheImpl implements DuplicateIDCache
       {
          if (persist)
          {
-            recordID = storageManager.generateID();
-            storageManager.storeDuplicateIDTransactional(tx.getID(), address, duplID, recordID);
+            recordID = storeID(duplID, tx);
 
             tx.setContainsPersistent();
          }
@@ -178,98 +191,170 @@ public class DuplicateIDCacheImpl implements DuplicateIDCache
       }
    }
 
-   public void load(final Transaction tx, final byte[] duplID)
+   public synchronized void load(final Transaction tx, final byte[] duplID, final long recordID)
    {
-      tx.addOperation(new AddDuplicateIDOperation(duplID, tx.getID()));
+      Segment segment = getSegment(recordID);
+
+      if (duplID.length > 0)
+      {
+         segment.refs++;
+
+         tx.addOperation(new AddDuplicateIDOperation(duplID, recordID));
+      }
    }
 
-   private synchronized void addToCacheInMemory(final byte[] duplID, final long recordID)
+   public synchronized void clear() throws Exception
    {
-      ByteArrayHolder holder = new ByteArrayHolder(duplID);
+      if (!segments.isEmpty())
+      {
+         long tx = storageManager.generateID();
+         for (Long recordID : segments.keySet())
+         {
+            storageManager.deleteDuplicateIDTransactional(tx, recordID);
+         }
+         storageManager.commit(tx);
+      }
 
-      cache.put(holder, pos);
+      segments.clear();
+      openSegment = null;
+      ids.clear();
+   }
 
-      Pair<ByteArrayHolder, Long> id;
+   @Override
+   public synchronized List<Pair<byte[], Long>> getMap()
+   {
+      return ids.entries();
+   }
 
-      if (pos < ids.size())
+   /**
+    * Stores the id in the open segment, opening a new one if needed.
+    * <p>
+    * The id is counted in the segment until it leaves the cache, or until the transaction is rolled
+    * back.
+    */
+   private long storeID(final byte[] duplID, final Transaction tx) throws Exception
+   {
+      if (openSegment != null && openSegment.size == segmentSize)
       {
-         // Need fast array style access here -hence ArrayList typing
-         id = ids.get(pos);
+         Segment full = openSegment;
+         openSegment = null;
+         // the ids still in the cache keep the record
+         release(full.recordID);
+      }
 
-         // The id here might be null if it was explicit deleted
-         if (id.getA() != null)
-         {
-            cache.remove(id.getA());
+      if (openSegment == null)
+      {
+         long recordID = storageManager.generateID();
 
-            // Record already exists - we delete the old one and add the new one
-            // Note we can't use update since journal update doesn't let older records get
-            // reclaimed
+         Segment segment = getSegment(recordID);
+         // held while the segment is open
+         segment.refs++;
 
-            if (id.getB() != null)
-            {
-               try
-               {
-                  storageManager.deleteDuplicateID(id.getB());
-               }
-               catch (Exception e)
-               {
-                  HornetQServerLogger.LOGGER.errorDeletingDuplicateCache(e);
-               }
-            }
+         if (tx == null)
+         {
+            storageManager.storeDuplicateID(address, duplID, recordID);
+         }
+         else
+         {
+            storageManager.storeDuplicateID(address, SEGMENT_HEADER, recordID);
+            storageManager.updateDuplicateIDTransactional(tx.getID(), address, duplID, recordID);
          }
 
-         id.setA(holder);
-
-         // The recordID could be negative if the duplicateCache is configured to not persist,
-         // -1 would mean null on this case
-         id.setB(recordID >= 0 ? recordID : null);
-
-         holder.pos = pos;
+         openSegment = segment;
+      }
+      else if (tx == null)
+      {
+         storageManager.updateDuplicateID(address, duplID, openSegment.recordID);
       }
       else
       {
-         id = new Pair<ByteArrayHolder, Long>(holder, recordID >= 0 ? recordID : null);
+         storageManager.updateDuplicateIDTransactional(tx.getID(), address, duplID, openSegment.recordID);
+      }
 
-         ids.add(id);
+      openSegment.size++;
+      openSegment.refs++;
 
-         holder.pos = pos;
+      return openSegment.recordID;
+   }
+
+   private synchronized void addToCacheInMemory(final byte[] duplID, final long recordID)
+   {
+      // The recordID could be negative if the duplicateCache is configured to not persist
+      release(ids.add(duplID, recordID));
+   }
+
+   /**
+    * Releases an id of the record, deleting it when it's no longer used.
+    */
+   private void release(final long recordID)
+   {
+      if (recordID < 0)
+      {
+         // not persisted, or DuplicateIDTable.NO_RECORD
+         return;
       }
 
-      if (pos++ == cacheSize - 1)
+      Segment segment = segments.get(recordID);
+
+      if (segment != null && --segment.refs == 0)
       {
-         pos = 0;
+         segments.remove(recordID);
+
+         // Note we can't use update to reuse the record since journal update doesn't let older
+         // records get reclaimed
+         try
+         {
+            storageManager.deleteDuplicateID(recordID);
+         }
+         catch (Exception e)
+         {
+            HornetQServerLogger.LOGGER.errorDeletingDuplicateCache(e);
+         }
       }
    }
 
-   public void clear() throws Exception
+   /**
+    * The oldest record may still hold ids evicted from the cache, as a record is only deleted once
+    * all its ids are gone. Any other excess means the cache size has been reduced in config.
+    */
+   private boolean isEvictedPrefix(final List<Pair<byte[], Long>> loaded, final int excess)
    {
-      synchronized (this)
+      if (excess >= segmentSize)
+      {
+         return false;
+      }
+
+      long oldest = loaded.get(0).getB();
+
+      int size = 0;
+
+      for (int i = 0; i < loaded.size(); i++)
       {
-         if (ids.size() > 0)
+         if (loaded.get(i).getB() == oldest)
          {
-            long tx = storageManager.generateID();
-            for (Pair<ByteArrayHolder, Long> id : ids)
-            {
-               storageManager.deleteDuplicateIDTransactional(tx, id.getB());
-            }
-            storageManager.commit(tx);
+            size++;
+         }
+         else if (i < excess)
+         {
+            return false;
          }
-
-         ids.clear();
-         cache.clear();
-         pos = 0;
       }
+
+      return size <= segmentSize;
    }
 
-   @Override
-   public List<Pair<byte[], Long>> getMap()
+   private Segment getSegment(final long recordID)
    {
-      List<Pair<byte[], Long>> list = new ArrayList<>();
-      for (Pair<ByteArrayHolder, Long> id : ids)
+      Segment segment = segments.get(recordID);
+
+      if (segment == null)
       {
-         list.add(new Pair<>(id.getA().bytes, id.getB()));
+         segment = new Segment(recordID);
+
+         segments.put(recordID, segment);
       }
-      return list;
+
+      return segment;
    }
 
    private final class AddDuplicateIDOperation extends TransactionOperationAbstract
@@ -303,65 +388,43 @@ public class DuplicateIDCacheImpl implements DuplicateIDCache
       }
 
       @Override
-      public List<MessageReference> getRelatedMessageReferences()
+      public void afterRollback(final Transaction tx)
       {
-         return null;
-      }
-   }
-
-   private static final class ByteArrayHolder
-   {
-      ByteArrayHolder(final byte[] bytes)
-      {
-         this.bytes = bytes;
-      }
-
-      final byte[] bytes;
-
-      int hash;
-
-      int pos;
-
-      @Override
-      public boolean equals(final Object other)
-      {
-         if (other instanceof ByteArrayHolder)
+         if (!done)
          {
-            ByteArrayHolder s = (ByteArrayHolder) other;
-
-            if (bytes.length != s.bytes.length)
+            synchronized (DuplicateIDCacheImpl.this)
             {
-               return false;
+               release(recordID);
             }
 
-            for (int i = 0; i < bytes.length; i++)
-            {
-               if (bytes[i] != s.bytes[i])
-               {
-                  return false;
-               }
-            }
-
-            return true;
-         }
-         else
-         {
-            return false;
+            done = true;
          }
       }
 
       @Override
-      public int hashCode()
+      public List<MessageReference> getRelatedMessageReferences()
       {
-         if (hash == 0)
-         {
-            for (byte b : bytes)
-            {
-               hash = 31 * hash + b;
-            }
-         }
+         return null;
+      }
+   }
+
+   /**
+    * A journal record holding ids.
+    */
+   private static final class Segment
+   {
+      final long recordID;
 
-         return hash;
+      // the ids stored in the record
+      int size;
+
+      // the ids of the record still in the cache or in a pending transaction, plus one while the
+      // segment is open
+      int refs;
+
+      Segment(final long recordID)
+      {
+         this.recordID = recordID;
       }
    }
 }
@@ -0,0 +1,385 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.core.postoffice.impl;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hornetq.api.core.Pair;
+
+/**
+ * The storage of a {@link DuplicateIDCacheImpl}: a fixed size rotating set of duplicate IDs kept out
+ * of the heap.
+ * <p>
+ * The IDs are kept in three direct buffers:
+ * <ul>
+ * <li>the ring, with a fixed width entry per ID (the hash of the ID, the journal record holding it
+ * and the location of its bytes), in the order the IDs were added.</li>
+ * <li>an open-addressing hash table (linear probing) of ring positions.</li>
+ * <li>the arena, holding the bytes of the IDs. As the IDs are dropped in the order they were added,
+ * it is used as a circular log.</li>
+ * </ul>
+ * This class is not thread safe.
+ */
+final class DuplicateIDTable
+{
+   /**
+    * Returned when no journal record is released by an operation.
+    */
+   static final long NO_RECORD = Long.MIN_VALUE;
+
+   // ring entry: hash (long), recordID (long), arena offset (int), length (int)
+   private static final int ENTRY_SIZE = 24;
+
+   private static final int HASH_OFFSET = 0;
+
+   private static final int RECORD_OFFSET = 8;
+
+   private static final int ARENA_OFFSET = 16;
+
+   private static final int LENGTH_OFFSET = 20;
+
+   // set on the length of an entry removed before the ring reached it
+   private static final int REMOVED = 0x80000000;
+
+   private static final int INITIAL_CAPACITY = 64;
+
+   private final int maxSize;
+
+   private ByteBuffer ring;
+
+   private int ringCapacity;
+
+   // next position to write in the ring
+   private int pos;
+
+   // number of ring entries in use, including the removed ones
+   private int count;
+
+   private ByteBuffer table;
+
+   private int tableMask;
+
+   private ByteBuffer arena;
+
+   private int arenaHead;
+
+   private int arenaUsed;
+
+   DuplicateIDTable(final int maxSize)
+   {
+      this.maxSize = Math.max(1, maxSize);
+      allocate();
+   }
+
+   int getMaxSize()
+   {
+      return maxSize;
+   }
+
+   boolean contains(final byte[] id)
+   {
+      return find(id, hash(id)) >= 0;
+   }
+
+   /**
+    * Adds the ID, dropping the oldest one if the table is full.
+    *
+    * @return the journal record of the dropped ID, or {@link #NO_RECORD}
+    */
+   long add(final byte[] id, final long recordID)
+   {
+      long released = NO_RECORD;
+
+      if (count == maxSize)
+      {
+         released = evict(pos);
+      }
+      else if (count == ringCapacity)
+      {
+         growRing();
+      }
+
+      if (arenaUsed + id.length > arena.capacity())
+      {
+         growArena(arenaUsed + id.length);
+      }
+
+      final long hash = hash(id);
+      final int entry = pos * ENTRY_SIZE;
+      ring.putLong(entry + HASH_OFFSET, hash);
+      ring.putLong(entry + RECORD_OFFSET, recordID);
+      ring.putInt(entry + ARENA_OFFSET, arenaHead);
+      ring.putInt(entry + LENGTH_OFFSET, id.length);
+      writeArena(id);
+
+      int slot = (int) hash & tableMask;
+      while (table.getInt(slot << 2) != 0)
+      {
+         slot = (slot + 1) & tableMask;
+      }
+      table.putInt(slot << 2, pos + 1);
+
+      if (count < maxSize)
+      {
+         count++;
+      }
+      if (++pos == maxSize)
+      {
+         pos = 0;
+      }
+
+      return released;
+   }
+
+   /**
+    * Removes the ID, its bytes are only released when the ring reaches its entry.
+    *
+    * @return the journal record of the removed ID, or {@link #NO_RECORD} if it was not found
+    */
+   long remove(final byte[] id)
+   {
+      final int slot = find(id, hash(id));
+      if (slot < 0)
+      {
+         return NO_RECORD;
+      }
+      final int entry = (table.getInt(slot << 2) - 1) * ENTRY_SIZE;
+      deleteSlot(slot);
+      ring.putInt(entry + LENGTH_OFFSET, ring.getInt(entry + LENGTH_OFFSET) | REMOVED);
+      return ring.getLong(entry + RECORD_OFFSET);
+   }
+
+   void clear()
+   {
+      allocate();
+   }
+
+   /**
+    * @return the IDs and their journal records, from the oldest to the newest
+    */
+   List<Pair<byte[], Long>> entries()
+   {
+      final List<Pair<byte[], Long>> entries = new ArrayList<Pair<byte[], Long>>(count);
+      final int oldest = count < maxSize ? 0 : pos;
+      for (int i = 0; i < count; i++)
+      {
+         final int entry = ((oldest + i) % maxSize) * ENTRY_SIZE;
+         final int length = ring.getInt(entry + LENGTH_OFFSET);
+         if ((length & REMOVED) == 0)
+         {
+            entries.add(new Pair<byte[], Long>(readArena(ring.getInt(entry + ARENA_OFFSET), length),
+                                               ring.getLong(entry + RECORD_OFFSET)));
+         }
+      }
+      return entries;
+   }
+
+   private void allocate()
+   {
+      ringCapacity = Math.min(INITIAL_CAPACITY, maxSize);
+      ring = ByteBuffer.allocateDirect(ringCapacity * ENTRY_SIZE);
+      table = ByteBuffer.allocateDirect(tableCapacity(ringCapacity) << 2);
+      tableMask = tableCapacity(ringCapacity) - 1;
+      // the arena is addressed with a mask so its capacity is kept a power of two
+      arena = ByteBuffer.allocateDirect(tableCapacity(ringCapacity) * 16);
+      pos = 0;
+      count = 0;
+      arenaHead = 0;
+      arenaUsed = 0;
+   }
+
+   /**
+    * Drops the entry at the given ring position.
+    */
+   private long evict(final int position)
+   {
+      final int entry = position * ENTRY_SIZE;
+      final int length = ring.getInt(entry + LENGTH_OFFSET);
+      arenaUsed -= length & ~REMOVED;
+      if ((length & REMOVED) != 0)
+      {
+         return NO_RECORD;
+      }
+
+      int slot = (int) ring.getLong(entry + HASH_OFFSET) & tableMask;
+      while (table.getInt(slot << 2) != position + 1)
+      {
+         slot = (slot + 1) & tableMask;
+      }
+      deleteSlot(slot);
+      return ring.getLong(entry + RECORD_OFFSET);
+   }
+
+   /**
+    * @return the table slot of the ID, or -1
+    */
+   private int find(final byte[] id, final long hash)
+   {
+      int slot = (int) hash & tableMask;
+      int value;
+      while ((value = table.getInt(slot << 2)) != 0)
+      {
+         final int entry = (value - 1) * ENTRY_SIZE;
+         if (ring.getLong(entry + HASH_OFFSET) == hash && ring.getInt(entry + LENGTH_OFFSET) == id.length &&
+            arenaEquals(ring.getInt(entry + ARENA_OFFSET), id))
+         {
+            return slot;
+         }
+         slot = (slot + 1) & tableMask;
+      }
+      return -1;
+   }
+
+   /**
+    * Empties a table slot, moving back the entries of the same probe sequence so no tombstone is
+    * needed.
+    */
+   private void deleteSlot(int slot)
+   {
+      int next = slot;
+      while (true)
+      {
+         next = (next + 1) & tableMask;
+         final int value = table.getInt(next << 2);
+         if (value == 0)
+         {
+            break;
+         }
+         final int home = (int) ring.getLong((value - 1) * ENTRY_SIZE + HASH_OFFSET) & tableMask;
+         // the entry can move to the free slot unless its home is cyclically in (slot, next]
+         final boolean stays = slot <= next ? slot < home && home <= next : slot < home || home <= next;
+         if (!stays)
+         {
+            table.putInt(slot << 2, value);
+            slot = next;
+         }
+      }
+      table.putInt(slot << 2, 0);
+   }
+
+   private void growRing()
+   {
+      final int capacity = Math.min(ringCapacity * 2, maxSize);
+      final ByteBuffer newRing = ByteBuffer.allocateDirect(capacity * ENTRY_SIZE);
+      ring.clear();
+      newRing.put(ring);
+      ring = newRing;
+      ringCapacity = capacity;
+
+      // the ring is not full yet, so its entries are from 0 to count - 1
+      final int tableCapacity = tableCapacity(capacity);
+      table = ByteBuffer.allocateDirect(tableCapacity << 2);
+      tableMask = tableCapacity - 1;
+      for (int i = 0; i < count; i++)
+      {
+         final int entry = i * ENTRY_SIZE;
+         if ((ring.getInt(entry + LENGTH_OFFSET) & REMOVED) == 0)
+         {
+            int slot = (int) ring.getLong(entry + HASH_OFFSET) & tableMask;
+            while (table.getInt(slot << 2) != 0)
+            {
+               slot = (slot + 1) & tableMask;
+            }
+            table.putInt(slot << 2, i + 1);
+         }
+      }
+   }
+
+   private void growArena(final int required)
+   {
+      int capacity = arena.capacity();
+      while (capacity < required)
+      {
+         capacity *= 2;
+      }
+      final ByteBuffer newArena = ByteBuffer.allocateDirect(capacity);
+      final int oldest = count < maxSize ? 0 : pos;
+      int head = 0;
+      for (int i = 0; i < count; i++)
+      {
+         final int entry = ((oldest + i) % maxSize) * ENTRY_SIZE;
+         final int length = ring.getInt(entry + LENGTH_OFFSET) & ~REMOVED;
+         final int offset = ring.getInt(entry + ARENA_OFFSET);
+         for (int j = 0; j < length; j++)
+         {
+            newArena.put(head + j, arena.get((offset + j) & (arena.capacity() - 1)));
+         }
+         ring.putInt(entry + ARENA_OFFSET, head);
+         head += length;
+      }
+      arena = newArena;
+      arenaHead = head & (capacity - 1);
+   }
+
+   private void writeArena(final byte[] id)
+   {
+      final int mask = arena.capacity() - 1;
+      for (int i = 0; i < id.length; i++)
+      {
+         arena.put((arenaHead + i) & mask, id[i]);
+      }
+      arenaHead = (arenaHead + id.length) & mask;
+      arenaUsed += id.length;
+   }
+
+   private byte[] readArena(final int offset, final int length)
+   {
+      final int mask = arena.capacity() - 1;
+      final byte[] id = new byte[length];
+      for (int i = 0; i < length; i++)
+      {
+         id[i] = arena.get((offset + i) & mask);
+      }
+      return id;
+   }
+
+   private boolean arenaEquals(final int offset, final byte[] id)
+   {
+      final int mask = arena.capacity() - 1;
+      for (int i = 0; i < id.length; i++)
+      {
+         if (arena.get((offset + i) & mask) != id[i])
+         {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * @return a power of two keeping the load factor of the table under 0.5
+    */
+   private static int tableCapacity(final int entries)
+   {
+      return Integer.highestOneBit(Math.max(entries, 2) * 2 - 1) << 1;
+   }
+
+   static long hash(final byte[] id)
+   {
+      // FNV-1a followed by the finalizer of MurmurHash3 to spread the low bits used by the table
+      long hash = 0xcbf29ce484222325L;
+      for (byte b : id)
+      {
+         hash ^= b;
+         hash *= 0x100000001b3L;
+      }
+      hash ^= hash >>> 33;
+      hash *= 0xff51afd7ed558ccdL;
+      hash ^= hash >>> 33;
+      hash *= 0xc4ceb9fe1a85ec53L;
+      hash ^= hash >>> 33;
+      return hash;
+   }
+}
@@ -16,6 +16,7 @@ import org.hornetq.api.core.SimpleString;
 import org.hornetq.core.filter.Filter;
 import org.hornetq.core.postoffice.BindingType;
 import org.hornetq.core.postoffice.QueueBinding;
+import org.hornetq.core.postoffice.QueueLoad;
 import org.hornetq.core.server.Bindable;
 import org.hornetq.core.server.Queue;
 import org.hornetq.core.server.RoutingContext;
@@ -37,6 +38,8 @@ public class LocalQueueBinding implements QueueBinding
 
    private final SimpleString clusterName;
 
+   private final QueueLoad load = new QueueLoad();
+
    public LocalQueueBinding(final SimpleString address, final Queue queue, final SimpleString nodeID)
    {
       this.address = address;
@@ -133,6 +136,11 @@ public class LocalQueueBinding implements QueueBinding
       return queue.getConsumerCount();
    }
 
+   public QueueLoad getLoad()
+   {
+      return load;
+   }
+
    public BindingType getType()
    {
       return BindingType.LOCAL_QUEUE;
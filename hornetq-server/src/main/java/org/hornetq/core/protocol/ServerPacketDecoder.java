@@ -51,6 +51,8 @@ import org.hornetq.core.protocol.core.impl.wireformat.QuorumVoteReplyMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationLiveIsStoppingMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationAddMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationAddTXMessage;
+import org.hornetq.core.protocol.core.impl.wireformat.ReplicationBatchMessage;
+import org.hornetq.core.protocol.core.impl.wireformat.ReplicationBatchResponseMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationCommitMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationDeleteMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationDeleteTXMessage;
@@ -62,6 +64,8 @@ import org.hornetq.core.protocol.core.impl.wireformat.ReplicationPageWriteMessag
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationPrepareMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationResponseMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationStartSyncMessage;
+import org.hornetq.core.protocol.core.impl.wireformat.ReplicationSyncDigestMessage;
+import org.hornetq.core.protocol.core.impl.wireformat.ReplicationSyncDigestResponseMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationSyncFileMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.ScaleDownAnnounceMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionSendLargeMessage;
@@ -222,6 +226,26 @@ public class ServerPacketDecoder extends ClientPacketDecoder
             packet = new ScaleDownAnnounceMessage();
             break;
          }
+         case PacketImpl.REPLICATION_BATCH:
+         {
+            packet = new ReplicationBatchMessage();
+            break;
+         }
+         case PacketImpl.REPLICATION_BATCH_RESPONSE:
+         {
+            packet = new ReplicationBatchResponseMessage();
+            break;
+         }
+         case PacketImpl.REPLICATION_SYNC_DIGEST:
+         {
+            packet = new ReplicationSyncDigestMessage();
+            break;
+         }
+         case PacketImpl.REPLICATION_SYNC_DIGEST_RESPONSE:
+         {
+            packet = new ReplicationSyncDigestResponseMessage();
+            break;
+         }
          default:
          {
             packet = super.decode(packetType);
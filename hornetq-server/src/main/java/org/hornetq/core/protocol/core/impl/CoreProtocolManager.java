@@ -19,6 +19,8 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
 
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelConfig;
 import io.netty.channel.ChannelPipeline;
 import org.hornetq.api.core.HornetQBuffer;
 import org.hornetq.api.core.Interceptor;
@@ -43,6 +45,7 @@ import org.hornetq.core.protocol.core.impl.wireformat.SubscribeClusterTopologyUp
 import org.hornetq.core.protocol.core.impl.wireformat.SubscribeClusterTopologyUpdatesMessageV2;
 import org.hornetq.core.remoting.CloseListener;
 import org.hornetq.core.remoting.impl.netty.HornetQFrameDecoder2;
+import org.hornetq.core.remoting.impl.netty.PartialPooledByteBufAllocator;
 import org.hornetq.core.remoting.impl.netty.NettyServerConnection;
 import org.hornetq.core.server.HornetQServer;
 import org.hornetq.core.server.HornetQServerLogger;
@@ -149,6 +152,15 @@ class CoreProtocolManager implements ProtocolManager
    public void addChannelHandlers(ChannelPipeline pipeline)
    {
       pipeline.addLast("hornetq-decoder", new HornetQFrameDecoder2());
+
+      // the frame decoder copies the frames out and releases every buffer read from the socket,
+      // so these can come from the pool
+      ChannelConfig config = pipeline.channel().config();
+      ByteBufAllocator allocator = config.getAllocator();
+      if (allocator instanceof PartialPooledByteBufAllocator)
+      {
+         config.setAllocator(((PartialPooledByteBufAllocator) allocator).withPooledIO());
+      }
    }
 
    @Override
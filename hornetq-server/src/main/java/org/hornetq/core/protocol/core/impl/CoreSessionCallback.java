@@ -12,6 +12,10 @@
  */
 package org.hornetq.core.protocol.core.impl;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
 import org.hornetq.api.core.SimpleString;
 import org.hornetq.core.protocol.core.Channel;
 import org.hornetq.core.protocol.core.Packet;
@@ -68,6 +72,25 @@ public final class CoreSessionCallback implements SessionCallback
       return packet.getPacketSize();
    }
 
+   public int sendLargeMessageContinuation(ServerConsumer consumer,
+                                           FileChannel file,
+                                           long position,
+                                           int length,
+                                           boolean continues) throws Exception
+   {
+      if (!channel.supportsFileRegions())
+      {
+         // e.g. an outgoing interceptor, the packet has to hold the body
+         return sendLargeMessageContinuation(consumer, read(file, position, length), continues, false);
+      }
+
+      SessionReceiveContinuationMessage packet = new SessionReceiveContinuationMessage(consumer.getID(), null, continues, false);
+
+      channel.send(packet, file, position, length);
+
+      return packet.getPacketSize();
+   }
+
    public int sendMessage(ServerMessage message, ServerConsumer consumer, int deliveryCount)
    {
       Packet packet = new SessionReceiveMessage(consumer.getID(), message, deliveryCount);
@@ -133,4 +156,26 @@ public final class CoreSessionCallback implements SessionCallback
       // as the flow control is done by hornetq
       return true;
    }
-}
\ No newline at end of file
+
+   private static byte[] read(final FileChannel file, final long position, final int length) throws IOException
+   {
+      try
+      {
+         ByteBuffer buffer = ByteBuffer.allocate(length);
+
+         while (buffer.hasRemaining())
+         {
+            if (file.read(buffer, position + buffer.position()) < 0)
+            {
+               throw new IOException("Unexpected end of file at " + (position + buffer.position()));
+            }
+         }
+
+         return buffer.array();
+      }
+      finally
+      {
+         file.close();
+      }
+   }
+}
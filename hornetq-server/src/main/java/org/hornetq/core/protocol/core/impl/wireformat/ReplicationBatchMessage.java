@@ -0,0 +1,111 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.core.protocol.core.impl.wireformat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.api.core.HornetQBuffers;
+import org.hornetq.core.protocol.ServerPacketDecoder;
+import org.hornetq.core.protocol.core.Packet;
+import org.hornetq.core.protocol.core.impl.PacketImpl;
+
+/**
+ * Several replication packets sent to the backup together, which answers them with a single
+ * {@link ReplicationBatchResponseMessage}.
+ * <p>
+ * The packets are encoded as soon as they are added, since the records they refer to may change
+ * before the batch is sent.
+ */
+public final class ReplicationBatchMessage extends PacketImpl
+{
+   private static final int INITIAL_BUFFER_SIZE = 4096;
+
+   private HornetQBuffer encodedPackets;
+
+   private int count;
+
+   private List<Packet> packets;
+
+   public ReplicationBatchMessage()
+   {
+      super(PacketImpl.REPLICATION_BATCH);
+   }
+
+   /**
+    * Encodes the packet at the end of this batch.
+    */
+   public void addPacket(final PacketImpl packet)
+   {
+      if (encodedPackets == null)
+      {
+         encodedPackets = HornetQBuffers.dynamicBuffer(INITIAL_BUFFER_SIZE);
+      }
+
+      // the same layout as a standalone packet without its length, so ServerPacketDecoder can decode it
+      encodedPackets.writeByte(packet.getType());
+      encodedPackets.writeLong(packet.getChannelID());
+      packet.encodeRest(encodedPackets);
+
+      count++;
+   }
+
+   public int getCount()
+   {
+      return count;
+   }
+
+   /**
+    * @return the size of the packets added so far
+    */
+   public int getEncodedSize()
+   {
+      return encodedPackets == null ? 0 : encodedPackets.writerIndex();
+   }
+
+   /**
+    * @return the packets of a decoded batch
+    */
+   public List<Packet> getPackets()
+   {
+      return packets;
+   }
+
+   @Override
+   public void encodeRest(final HornetQBuffer buffer)
+   {
+      buffer.writeInt(count);
+      if (encodedPackets != null)
+      {
+         buffer.writeBytes(encodedPackets, 0, encodedPackets.writerIndex());
+      }
+   }
+
+   @Override
+   public void decodeRest(final HornetQBuffer buffer)
+   {
+      count = buffer.readInt();
+      packets = new ArrayList<Packet>(count);
+      for (int i = 0; i < count; i++)
+      {
+         packets.add(ServerPacketDecoder.INSTANCE.decode(buffer));
+      }
+   }
+
+   @Override
+   public String toString()
+   {
+      return getParentString() + ", count=" + count + "]";
+   }
+}
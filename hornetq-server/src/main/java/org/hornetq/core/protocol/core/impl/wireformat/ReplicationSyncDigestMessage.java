@@ -0,0 +1,260 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.core.protocol.core.impl.wireformat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.core.persistence.impl.journal.JournalStorageManager.JournalContent;
+import org.hornetq.core.protocol.core.impl.PacketImpl;
+import org.hornetq.core.protocol.core.impl.wireformat.ReplicationSyncFileMessage.FileType;
+
+/**
+ * Used by the live server to avoid sending the data a backup already holds during the initial
+ * synchronization.
+ * <p>
+ * This message is sent in two forms:
+ * <ol>
+ * <li>a request for the digests of the files the backup kept from its previous run, answered with a
+ * {@link ReplicationSyncDigestResponseMessage}.</li>
+ * <li>a notice that the backup must take the first bytes of a file from its previous data, the rest
+ * of the file being sent with {@link ReplicationSyncFileMessage}s as usual.</li>
+ * </ol>
+ */
+public final class ReplicationSyncDigestMessage extends PacketImpl
+{
+   private boolean reuse;
+
+   private List<FileDigest> files;
+
+   public ReplicationSyncDigestMessage()
+   {
+      super(REPLICATION_SYNC_DIGEST);
+      files = Collections.emptyList();
+   }
+
+   /**
+    * @param reused the file and the number of bytes the backup must take from its previous data
+    */
+   public ReplicationSyncDigestMessage(final FileDigest reused)
+   {
+      this();
+      reuse = true;
+      files = Collections.singletonList(reused);
+   }
+
+   public boolean isReuse()
+   {
+      return reuse;
+   }
+
+   public List<FileDigest> getFiles()
+   {
+      return files;
+   }
+
+   @Override
+   public void encodeRest(final HornetQBuffer buffer)
+   {
+      buffer.writeBoolean(reuse);
+      FileDigest.encodeList(buffer, files);
+   }
+
+   @Override
+   public void decodeRest(final HornetQBuffer buffer)
+   {
+      reuse = buffer.readBoolean();
+      files = FileDigest.decodeList(buffer);
+   }
+
+   @Override
+   public String toString()
+   {
+      return getParentString() + ", reuse=" + reuse + ", files=" + files + "]";
+   }
+
+   /**
+    * A file taking part in the synchronization, identified the same way as by
+    * {@link ReplicationSyncFileMessage}, with the length and the MD5 digest of its content.
+    * <p>
+    * Only the identity of the file is used by {@link #equals(Object)} so a digest can be looked up
+    * from the file it refers to.
+    */
+   public static final class FileDigest
+   {
+      private final FileType fileType;
+
+      private final JournalContent journalContent;
+
+      private final SimpleString pageStore;
+
+      private final long id;
+
+      private final long length;
+
+      private final String md5;
+
+      public FileDigest(final JournalContent journalContent,
+                        final SimpleString pageStore,
+                        final long id,
+                        final long length,
+                        final String md5)
+      {
+         if (journalContent != null)
+         {
+            this.fileType = FileType.JOURNAL;
+         }
+         else if (pageStore != null)
+         {
+            this.fileType = FileType.PAGE;
+         }
+         else
+         {
+            this.fileType = FileType.LARGE_MESSAGE;
+         }
+         this.journalContent = journalContent;
+         this.pageStore = pageStore;
+         this.id = id;
+         this.length = length;
+         this.md5 = md5;
+      }
+
+      /**
+       * @return the key used to look up the digest of the given file
+       */
+      public static FileDigest of(final JournalContent journalContent, final SimpleString pageStore, final long id)
+      {
+         return new FileDigest(journalContent, pageStore, id, -1, null);
+      }
+
+      public FileType getFileType()
+      {
+         return fileType;
+      }
+
+      public JournalContent getJournalContent()
+      {
+         return journalContent;
+      }
+
+      public SimpleString getPageStore()
+      {
+         return pageStore;
+      }
+
+      public long getId()
+      {
+         return id;
+      }
+
+      public long getLength()
+      {
+         return length;
+      }
+
+      public String getMd5()
+      {
+         return md5;
+      }
+
+      static void encodeList(final HornetQBuffer buffer, final List<FileDigest> files)
+      {
+         buffer.writeInt(files.size());
+         for (FileDigest file : files)
+         {
+            buffer.writeByte(file.fileType.getCode());
+            switch (file.fileType)
+            {
+               case JOURNAL:
+                  buffer.writeByte(file.journalContent.typeByte);
+                  break;
+               case PAGE:
+                  buffer.writeSimpleString(file.pageStore);
+                  break;
+               default:
+                  // no-op
+            }
+            buffer.writeLong(file.id);
+            buffer.writeLong(file.length);
+            buffer.writeNullableString(file.md5);
+         }
+      }
+
+      static List<FileDigest> decodeList(final HornetQBuffer buffer)
+      {
+         final int size = buffer.readInt();
+         final List<FileDigest> files = new ArrayList<FileDigest>(size);
+         for (int i = 0; i < size; i++)
+         {
+            JournalContent journalContent = null;
+            SimpleString pageStore = null;
+            switch (FileType.getFileType(buffer.readByte()))
+            {
+               case JOURNAL:
+                  journalContent = JournalContent.getType(buffer.readByte());
+                  break;
+               case PAGE:
+                  pageStore = buffer.readSimpleString();
+                  break;
+               default:
+                  // no-op
+            }
+            final long id = buffer.readLong();
+            final long length = buffer.readLong();
+            final String md5 = buffer.readNullableString();
+            files.add(new FileDigest(journalContent, pageStore, id, length, md5));
+         }
+         return files;
+      }
+
+      @Override
+      public int hashCode()
+      {
+         final int prime = 31;
+         int result = fileType.hashCode();
+         result = prime * result + ((journalContent == null) ? 0 : journalContent.hashCode());
+         result = prime * result + ((pageStore == null) ? 0 : pageStore.hashCode());
+         result = prime * result + (int) (id ^ (id >>> 32));
+         return result;
+      }
+
+      @Override
+      public boolean equals(final Object obj)
+      {
+         if (this == obj)
+         {
+            return true;
+         }
+         if (!(obj instanceof FileDigest))
+         {
+            return false;
+         }
+         FileDigest other = (FileDigest) obj;
+         if (fileType != other.fileType || journalContent != other.journalContent || id != other.id)
+         {
+            return false;
+         }
+         return pageStore == null ? other.pageStore == null : pageStore.equals(other.pageStore);
+      }
+
+      @Override
+      public String toString()
+      {
+         return "FileDigest(" + fileType + (journalContent != null ? ", " + journalContent : "") +
+            (pageStore != null ? ", " + pageStore : "") + ", id=" + id + ", length=" + length + ")";
+      }
+   }
+}
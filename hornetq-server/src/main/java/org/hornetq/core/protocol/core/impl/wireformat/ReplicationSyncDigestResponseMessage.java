@@ -0,0 +1,64 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.core.protocol.core.impl.wireformat;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.core.protocol.core.impl.PacketImpl;
+import org.hornetq.core.protocol.core.impl.wireformat.ReplicationSyncDigestMessage.FileDigest;
+
+/**
+ * The digests of the files a backup kept from its previous run, sent in answer to a
+ * {@link ReplicationSyncDigestMessage} request.
+ */
+public final class ReplicationSyncDigestResponseMessage extends PacketImpl
+{
+   private List<FileDigest> files;
+
+   public ReplicationSyncDigestResponseMessage()
+   {
+      super(REPLICATION_SYNC_DIGEST_RESPONSE);
+      files = Collections.emptyList();
+   }
+
+   public ReplicationSyncDigestResponseMessage(final List<FileDigest> files)
+   {
+      this();
+      this.files = files;
+   }
+
+   public List<FileDigest> getFiles()
+   {
+      return files;
+   }
+
+   @Override
+   public void encodeRest(final HornetQBuffer buffer)
+   {
+      FileDigest.encodeList(buffer, files);
+   }
+
+   @Override
+   public void decodeRest(final HornetQBuffer buffer)
+   {
+      files = FileDigest.decodeList(buffer);
+   }
+
+   @Override
+   public String toString()
+   {
+      return getParentString() + ", files=" + files.size() + "]";
+   }
+}
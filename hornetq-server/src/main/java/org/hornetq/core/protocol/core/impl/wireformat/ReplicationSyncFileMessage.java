@@ -55,6 +55,11 @@ public final class ReplicationSyncFileMessage extends PacketImpl
          this.code = (byte)code;
       }
 
+      public byte getCode()
+      {
+         return code;
+      }
+
       /**
        * @param readByte
        * @return {@link FileType} corresponding to the byte code.
@@ -12,6 +12,7 @@
  */
 package org.hornetq.core.remoting.impl.invm;
 
+import java.nio.channels.FileChannel;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
@@ -157,6 +158,20 @@ public class InVMConnection implements Connection
       write(buffer, false, false, null);
    }
 
+   public boolean isFileRegionCapable()
+   {
+      return false;
+   }
+
+   public void write(final HornetQBuffer header,
+                     final FileChannel file,
+                     final long position,
+                     final long count,
+                     final HornetQBuffer trailer)
+   {
+      throw new UnsupportedOperationException("An in-vm connection doesn't transfer files");
+   }
+
    public void write(final HornetQBuffer buffer, final boolean flush, final boolean batch)
    {
       write(buffer, flush, batch, null);
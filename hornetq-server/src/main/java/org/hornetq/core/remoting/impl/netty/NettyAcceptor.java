@@ -20,7 +20,9 @@ import java.net.SocketAddress;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -37,6 +39,10 @@ import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
 import io.netty.channel.group.ChannelGroup;
 import io.netty.channel.group.ChannelGroupFuture;
 import io.netty.channel.group.DefaultChannelGroup;
@@ -45,8 +51,12 @@ import io.netty.channel.local.LocalEventLoopGroup;
 import io.netty.channel.local.LocalServerChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.compression.JdkZlibDecoder;
+import io.netty.handler.codec.compression.JdkZlibEncoder;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.util.ResourceLeakDetector;
+import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.GenericFutureListener;
 import io.netty.util.concurrent.GlobalEventExecutor;
 
@@ -89,8 +99,12 @@ public class NettyAcceptor implements Acceptor
 
    static
    {
-      // Disable resource leak detection for performance reasons by default
-      ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.DISABLED);
+      // Disable resource leak detection for performance reasons by default, unless it is asked for
+      // with -Dio.netty.leakDetectionLevel as the test suite does
+      if (System.getProperty("io.netty.leakDetectionLevel") == null)
+      {
+         ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.DISABLED);
+      }
    }
 
    private final String name;
@@ -98,7 +112,7 @@ public class NettyAcceptor implements Acceptor
    private final ClusterConnection clusterConnection;
 
    private Class<? extends ServerChannel> channelClazz;
-   private EventLoopGroup eventLoopGroup;
+   private volatile EventLoopGroup eventLoopGroup;
 
    private volatile ChannelGroup serverChannelGroup;
 
@@ -148,6 +162,15 @@ public class NettyAcceptor implements Acceptor
 
    private final int nioRemotingThreads;
 
+   private final boolean useEpoll;
+
+   private final boolean epollReusePort;
+
+   private final boolean epollTcpCork;
+
+   // number of server channels bound per host, more than one only with SO_REUSEPORT
+   private int serverChannelsPerHost = 1;
+
    private final ConcurrentMap<Object, NettyServerConnection> connections = new ConcurrentHashMap<Object, NettyServerConnection>();
 
    private final Map<String, Object> configuration;
@@ -164,8 +187,14 @@ public class NettyAcceptor implements Acceptor
 
    private final long batchDelay;
 
+   private final boolean coalesceWrites;
+
+   private final boolean compression;
+
    private final boolean directDeliver;
 
+   private final boolean zeroCopyLargeMessages;
+
    private final boolean httpUpgradeEnabled;
 
    public NettyAcceptor(final String name,
@@ -199,6 +228,15 @@ public class NettyAcceptor implements Acceptor
       useInvm = ConfigurationHelper.getBooleanProperty(TransportConstants.USE_INVM_PROP_NAME,
                                                        TransportConstants.DEFAULT_USE_INVM,
                                                        configuration);
+      useEpoll = ConfigurationHelper.getBooleanProperty(TransportConstants.USE_EPOLL_PROP_NAME,
+                                                        TransportConstants.DEFAULT_USE_EPOLL,
+                                                        configuration);
+      epollReusePort = ConfigurationHelper.getBooleanProperty(TransportConstants.EPOLL_REUSE_PORT_PROP_NAME,
+                                                              TransportConstants.DEFAULT_EPOLL_REUSE_PORT,
+                                                              configuration);
+      epollTcpCork = ConfigurationHelper.getBooleanProperty(TransportConstants.EPOLL_TCP_CORK_PROP_NAME,
+                                                            TransportConstants.DEFAULT_EPOLL_TCP_CORK,
+                                                            configuration);
 
       this.protocolHandler = new ProtocolHandler(protocolMap, this, configuration, scheduledThreadPool);
 
@@ -279,10 +317,22 @@ public class NettyAcceptor implements Acceptor
                                                        TransportConstants.DEFAULT_BATCH_DELAY,
                                                        configuration);
 
+      coalesceWrites = ConfigurationHelper.getBooleanProperty(TransportConstants.COALESCE_WRITES_PROP_NAME,
+                                                              TransportConstants.DEFAULT_COALESCE_WRITES,
+                                                              configuration);
+
+      compression = ConfigurationHelper.getBooleanProperty(TransportConstants.COMPRESSION_PROP_NAME,
+                                                           TransportConstants.DEFAULT_COMPRESSION,
+                                                           configuration);
+
       directDeliver = ConfigurationHelper.getBooleanProperty(TransportConstants.DIRECT_DELIVER,
                                                              TransportConstants.DEFAULT_DIRECT_DELIVER,
                                                              configuration);
 
+      zeroCopyLargeMessages = ConfigurationHelper.getBooleanProperty(TransportConstants.ZERO_COPY_LARGE_MESSAGES_PROP_NAME,
+                                                                     TransportConstants.DEFAULT_ZERO_COPY_LARGE_MESSAGES,
+                                                                     configuration);
+
       httpUpgradeEnabled = ConfigurationHelper.getBooleanProperty(TransportConstants.HTTP_UPGRADE_ENABLED_PROP_NAME,
                                                                   TransportConstants.DEFAULT_HTTP_UPGRADE_ENABLED,
                                                                   configuration);
@@ -296,6 +346,10 @@ public class NettyAcceptor implements Acceptor
          return;
       }
 
+      boolean epoll = false;
+
+      serverChannelsPerHost = 1;
+
       if (useInvm)
       {
          channelClazz = LocalServerChannel.class;
@@ -315,8 +369,25 @@ public class NettyAcceptor implements Acceptor
          {
             threadsToUse = this.nioRemotingThreads;
          }
-         channelClazz = NioServerSocketChannel.class;
-         eventLoopGroup = new NioEventLoopGroup(threadsToUse, new HornetQThreadFactory("hornetq-netty-threads", true, getThisClassLoader()));
+
+         epoll = EpollSupport.useEpoll(useEpoll);
+
+         if (epoll)
+         {
+            channelClazz = EpollServerSocketChannel.class;
+            eventLoopGroup = new EpollEventLoopGroup(threadsToUse, new HornetQThreadFactory("hornetq-netty-threads", true, getThisClassLoader()));
+
+            if (epollReusePort)
+            {
+               // one listening socket per core, the kernel will balance the accepts between them
+               serverChannelsPerHost = Math.min(threadsToUse, Runtime.getRuntime().availableProcessors());
+            }
+         }
+         else
+         {
+            channelClazz = NioServerSocketChannel.class;
+            eventLoopGroup = new NioEventLoopGroup(threadsToUse, new HornetQThreadFactory("hornetq-netty-threads", true, getThisClassLoader()));
+         }
       }
 
       bootstrap = new ServerBootstrap();
@@ -415,6 +486,11 @@ public class NettyAcceptor implements Acceptor
 
                pipeline.addLast("ssl", handler);
             }
+            if (compression)
+            {
+               pipeline.addLast(new JdkZlibEncoder());
+               pipeline.addLast(new JdkZlibDecoder());
+            }
             pipeline.addLast(protocolHandler.getProtocolDecoder());
          }
       };
@@ -437,7 +513,26 @@ public class NettyAcceptor implements Acceptor
       bootstrap.option(ChannelOption.SO_REUSEADDR, true);
       bootstrap.childOption(ChannelOption.SO_REUSEADDR, true);
       bootstrap.childOption(ChannelOption.SO_KEEPALIVE, true);
-      bootstrap.childOption(ChannelOption.ALLOCATOR, PartialPooledByteBufAllocator.INSTANCE);
+      if (epoll)
+      {
+         // epoll reads straight into the memory of direct buffers, the core protocol switches them to pooled ones
+         bootstrap.childOption(ChannelOption.ALLOCATOR, PartialPooledByteBufAllocator.DIRECT_IO_INSTANCE);
+      }
+      else
+      {
+         bootstrap.childOption(ChannelOption.ALLOCATOR, PartialPooledByteBufAllocator.INSTANCE);
+      }
+      if (epoll)
+      {
+         if (epollReusePort)
+         {
+            bootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+         }
+         if (epollTcpCork)
+         {
+            bootstrap.childOption(EpollChannelOption.TCP_CORK, true);
+         }
+      }
       channelGroup = new DefaultChannelGroup("hornetq-accepted-channels", GlobalEventExecutor.INSTANCE);
 
       serverChannelGroup = new DefaultChannelGroup("hornetq-acceptor-channels", GlobalEventExecutor.INSTANCE);
@@ -464,7 +559,8 @@ public class NettyAcceptor implements Acceptor
             notificationService.sendNotification(notification);
          }
 
-         if (batchDelay > 0)
+         // coalesced writes are flushed by the event loops, no need for the timer
+         if (batchDelay > 0 && !coalesceWrites)
          {
             flusher = new BatchFlusher();
 
@@ -503,11 +599,56 @@ public class NettyAcceptor implements Acceptor
          {
             address = new InetSocketAddress(h, port);
          }
-         Channel serverChannel = bootstrap.bind(address).syncUninterruptibly().channel();
-         serverChannelGroup.add(serverChannel);
+         for (int i = 0; i < serverChannelsPerHost; i++)
+         {
+            Channel serverChannel = bootstrap.bind(address).syncUninterruptibly().channel();
+            serverChannelGroup.add(serverChannel);
+         }
       }
    }
 
+   /**
+    * @return the number of connections served by each event loop of this acceptor, in the event loop group order.
+    * Empty if the acceptor is not started.
+    */
+   public Map<String, Object> getConnectionCountPerEventLoop()
+   {
+      Map<String, Object> counts = new LinkedHashMap<String, Object>();
+
+      EventLoopGroup group = eventLoopGroup;
+
+      if (group == null)
+      {
+         return counts;
+      }
+
+      Map<EventExecutor, int[]> perLoop = new IdentityHashMap<EventExecutor, int[]>();
+
+      for (EventExecutor executor : group)
+      {
+         perLoop.put(executor, new int[1]);
+      }
+
+      for (NettyServerConnection connection : connections.values())
+      {
+         int[] count = perLoop.get(connection.getChannel().eventLoop());
+
+         if (count != null)
+         {
+            count[0]++;
+         }
+      }
+
+      int index = 0;
+
+      for (EventExecutor executor : group)
+      {
+         counts.put("event-loop-" + index++, perLoop.get(executor)[0]);
+      }
+
+      return counts;
+   }
+
    public Map<String, Object> getConfiguration()
    {
       return this.configuration;
@@ -679,7 +820,11 @@ public class NettyAcceptor implements Acceptor
          super.channelActive(ctx);
          Listener connectionListener = new Listener();
 
-         NettyServerConnection nc = new NettyServerConnection(configuration, ctx.channel(), connectionListener, !httpEnabled && batchDelay > 0, directDeliver);
+         // file regions are written as they are, they can't go through the SSL, zlib or HTTP handlers
+         boolean fileRegions = zeroCopyLargeMessages && !sslEnabled && !compression && !httpEnabled &&
+            (ctx.channel() instanceof NioSocketChannel || ctx.channel() instanceof EpollSocketChannel);
+
+         NettyServerConnection nc = new NettyServerConnection(configuration, ctx.channel(), connectionListener, !httpEnabled && (batchDelay > 0 || coalesceWrites), directDeliver, coalesceWrites, fileRegions);
 
          connectionListener.connectionCreated(NettyAcceptor.this, nc, protocol);
 
@@ -29,6 +29,16 @@ public class NettyServerConnection extends NettyConnection
       super(configuration, channel, listener, batchingEnabled, directDeliver);
    }
 
+   public NettyServerConnection(Map<String, Object> configuration, Channel channel, ConnectionLifeCycleListener listener, boolean batchingEnabled, boolean directDeliver, boolean coalesceWrites)
+   {
+      super(configuration, channel, listener, batchingEnabled, directDeliver, coalesceWrites);
+   }
+
+   public NettyServerConnection(Map<String, Object> configuration, Channel channel, ConnectionLifeCycleListener listener, boolean batchingEnabled, boolean directDeliver, boolean coalesceWrites, boolean fileRegions)
+   {
+      super(configuration, channel, listener, batchingEnabled, directDeliver, coalesceWrites, fileRegions);
+   }
+
    @Override
    public HornetQBuffer createBuffer(int size)
    {
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.core.replication;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.core.paging.impl.PagingStoreFactoryNIO;
+import org.hornetq.core.persistence.impl.journal.JournalStorageManager;
+import org.hornetq.core.persistence.impl.journal.JournalStorageManager.JournalContent;
+import org.hornetq.core.protocol.core.impl.wireformat.ReplicationSyncDigestMessage.FileDigest;
+
+/**
+ * The files a backup moved away before starting to replicate, as candidates for the synchronization
+ * with the live server.
+ * <p>
+ * The files are identified the same way as by the synchronization itself: journal files by their file
+ * ID, pages by their address and page number and large messages by their message ID. The live server
+ * compares their digests with its own files and only sends what the backup is missing.
+ */
+final class PreviousReplicaFiles
+{
+   // the extensions used by JournalStorageManager
+   private static final String BINDINGS_EXTENSION = ".bindings";
+
+   private static final String MESSAGES_EXTENSION = ".hq";
+
+   private static final String PAGE_EXTENSION = ".page";
+
+   private static final String LARGE_MESSAGE_EXTENSION = ".msg";
+
+   private final File bindingsDirectory;
+
+   private final File journalDirectory;
+
+   private final File pagingDirectory;
+
+   private final File largeMessagesDirectory;
+
+   private final Map<FileDigest, File> files = new HashMap<FileDigest, File>();
+
+   PreviousReplicaFiles(final File bindingsDirectory,
+                        final File journalDirectory,
+                        final File pagingDirectory,
+                        final File largeMessagesDirectory)
+   {
+      this.bindingsDirectory = bindingsDirectory;
+      this.journalDirectory = journalDirectory;
+      this.pagingDirectory = pagingDirectory;
+      this.largeMessagesDirectory = largeMessagesDirectory;
+   }
+
+   /**
+    * Lists the files and computes their digests, which requires reading all of them.
+    */
+   synchronized List<FileDigest> computeDigests() throws IOException
+   {
+      files.clear();
+
+      final List<FileDigest> digests = new ArrayList<FileDigest>();
+
+      addJournalFiles(digests, JournalContent.BINDINGS, bindingsDirectory, BINDINGS_EXTENSION);
+      addJournalFiles(digests, JournalContent.MESSAGES, journalDirectory, MESSAGES_EXTENSION);
+
+      final File[] storeDirectories = pagingDirectory.listFiles();
+      if (storeDirectories != null)
+      {
+         for (File storeDirectory : storeDirectories)
+         {
+            final SimpleString address = readAddress(storeDirectory);
+            if (address == null)
+            {
+               continue;
+            }
+            for (File file : listFiles(storeDirectory, PAGE_EXTENSION))
+            {
+               final Long id = parseId(file.getName(), 0);
+               if (id != null)
+               {
+                  addFile(digests, FileDigest.of(null, address, id), file);
+               }
+            }
+         }
+      }
+
+      for (File file : listFiles(largeMessagesDirectory, LARGE_MESSAGE_EXTENSION))
+      {
+         final Long id = parseId(file.getName(), 0);
+         if (id != null)
+         {
+            addFile(digests, FileDigest.of(null, null, id), file);
+         }
+      }
+
+      return digests;
+   }
+
+   /**
+    * @return the file matching the given digest, or {@code null}
+    */
+   synchronized File getFile(final FileDigest digest)
+   {
+      return files.get(digest);
+   }
+
+   private void addJournalFiles(final List<FileDigest> digests,
+                                final JournalContent content,
+                                final File directory,
+                                final String extension)
+   {
+      for (File file : listFiles(directory, extension))
+      {
+         // <prefix>-<fileID>.<extension>
+         final Long id = parseId(file.getName(), file.getName().lastIndexOf('-') + 1);
+         if (id != null)
+         {
+            addFile(digests, FileDigest.of(content, null, id), file);
+         }
+      }
+   }
+
+   private void addFile(final List<FileDigest> digests, final FileDigest key, final File file)
+   {
+      final long length = file.length();
+      if (length == 0)
+      {
+         return;
+      }
+      digests.add(new FileDigest(key.getJournalContent(), key.getPageStore(), key.getId(), length,
+                                 JournalStorageManager.md5(file)));
+      files.put(key, file);
+   }
+
+   private static List<File> listFiles(final File directory, final String extension)
+   {
+      final List<File> result = new ArrayList<File>();
+      final File[] list = directory.listFiles();
+      if (list != null)
+      {
+         for (File file : list)
+         {
+            if (file.isFile() && file.getName().endsWith(extension))
+            {
+               result.add(file);
+            }
+         }
+      }
+      return result;
+   }
+
+   private static Long parseId(final String fileName, final int start)
+   {
+      try
+      {
+         return Long.valueOf(fileName.substring(start, fileName.indexOf('.')));
+      }
+      catch (RuntimeException e)
+      {
+         return null;
+      }
+   }
+
+   private static SimpleString readAddress(final File storeDirectory) throws IOException
+   {
+      final File addressFile = new File(storeDirectory, PagingStoreFactoryNIO.ADDRESS_FILE);
+
+      if (!addressFile.isFile())
+      {
+         return null;
+      }
+
+      final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(addressFile)));
+      try
+      {
+         final String address = reader.readLine();
+         return address == null ? null : new SimpleString(address);
+      }
+      finally
+      {
+         reader.close();
+      }
+   }
+}
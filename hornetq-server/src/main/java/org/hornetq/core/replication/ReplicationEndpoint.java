@@ -13,12 +13,15 @@
 package org.hornetq.core.replication;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
@@ -53,6 +56,8 @@ import org.hornetq.core.protocol.core.impl.wireformat.BackupReplicationStartFail
 import org.hornetq.core.protocol.core.impl.wireformat.HornetQExceptionMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationAddMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationAddTXMessage;
+import org.hornetq.core.protocol.core.impl.wireformat.ReplicationBatchMessage;
+import org.hornetq.core.protocol.core.impl.wireformat.ReplicationBatchResponseMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationCommitMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationDeleteMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationDeleteTXMessage;
@@ -66,7 +71,11 @@ import org.hornetq.core.protocol.core.impl.wireformat.ReplicationPrepareMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationResponseMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationStartSyncMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationStartSyncMessage.SyncDataType;
+import org.hornetq.core.protocol.core.impl.wireformat.ReplicationSyncDigestMessage;
+import org.hornetq.core.protocol.core.impl.wireformat.ReplicationSyncDigestMessage.FileDigest;
+import org.hornetq.core.protocol.core.impl.wireformat.ReplicationSyncDigestResponseMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationSyncFileMessage;
+import org.hornetq.core.protocol.core.impl.wireformat.ReplicationSyncFileMessage.FileType;
 import org.hornetq.core.replication.ReplicationManager.ADD_OPERATION_TYPE;
 import org.hornetq.core.server.HornetQComponent;
 import org.hornetq.core.server.HornetQMessageBundle;
@@ -125,6 +134,8 @@ public final class ReplicationEndpoint implements ChannelHandler, HornetQCompone
 
    private Executor executor;
 
+   private volatile PreviousReplicaFiles previousFiles;
+
    // Constructors --------------------------------------------------
    public ReplicationEndpoint(final HornetQServerImpl server, IOCriticalErrorListener criticalErrorListener,
                               boolean wantedFailBack, SharedNothingBackupActivation activation)
@@ -159,8 +170,19 @@ public final class ReplicationEndpoint implements ChannelHandler, HornetQCompone
    @Override
    public void handlePacket(final Packet packet)
    {
+      if (packet.getType() == PacketImpl.REPLICATION_BATCH)
+      {
+         handleBatch((ReplicationBatchMessage) packet);
+         return;
+      }
+
+      if (packet.getType() == PacketImpl.REPLICATION_SYNC_DIGEST && !((ReplicationSyncDigestMessage) packet).isReuse())
+      {
+         handleSyncDigestRequest();
+         return;
+      }
+
       PacketImpl response = new ReplicationResponseMessage();
-      final byte type = packet.getType();
 
       try
       {
@@ -169,70 +191,7 @@ public final class ReplicationEndpoint implements ChannelHandler, HornetQCompone
             return;
          }
 
-         if (type == PacketImpl.REPLICATION_APPEND)
-         {
-            handleAppendAddRecord((ReplicationAddMessage) packet);
-         }
-         else if (type == PacketImpl.REPLICATION_APPEND_TX)
-         {
-            handleAppendAddTXRecord((ReplicationAddTXMessage) packet);
-         }
-         else if (type == PacketImpl.REPLICATION_DELETE)
-         {
-            handleAppendDelete((ReplicationDeleteMessage) packet);
-         }
-         else if (type == PacketImpl.REPLICATION_DELETE_TX)
-         {
-            handleAppendDeleteTX((ReplicationDeleteTXMessage) packet);
-         }
-         else if (type == PacketImpl.REPLICATION_PREPARE)
-         {
-            handlePrepare((ReplicationPrepareMessage) packet);
-         }
-         else if (type == PacketImpl.REPLICATION_COMMIT_ROLLBACK)
-         {
-            handleCommitRollback((ReplicationCommitMessage) packet);
-         }
-         else if (type == PacketImpl.REPLICATION_PAGE_WRITE)
-         {
-            handlePageWrite((ReplicationPageWriteMessage) packet);
-         }
-         else if (type == PacketImpl.REPLICATION_PAGE_EVENT)
-         {
-            handlePageEvent((ReplicationPageEventMessage) packet);
-         }
-         else if (type == PacketImpl.REPLICATION_LARGE_MESSAGE_BEGIN)
-         {
-            handleLargeMessageBegin((ReplicationLargeMessageBeginMessage) packet);
-         }
-         else if (type == PacketImpl.REPLICATION_LARGE_MESSAGE_WRITE)
-         {
-            handleLargeMessageWrite((ReplicationLargeMessageWriteMessage) packet);
-         }
-         else if (type == PacketImpl.REPLICATION_LARGE_MESSAGE_END)
-         {
-            handleLargeMessageEnd((ReplicationLargeMessageEndMessage) packet);
-         }
-         else if (type == PacketImpl.REPLICATION_START_FINISH_SYNC)
-         {
-            handleStartReplicationSynchronization((ReplicationStartSyncMessage) packet);
-         }
-         else if (type == PacketImpl.REPLICATION_SYNC_FILE)
-         {
-            handleReplicationSynchronization((ReplicationSyncFileMessage) packet);
-         }
-         else if (type == PacketImpl.REPLICATION_SCHEDULED_FAILOVER)
-         {
-            handleLiveStopping((ReplicationLiveIsStoppingMessage) packet);
-         }
-         else if (type == PacketImpl.BACKUP_REGISTRATION_FAILED)
-         {
-            handleFatalError((BackupReplicationStartFailedMessage) packet);
-         }
-         else
-         {
-            HornetQServerLogger.LOGGER.invalidPacketForReplication(packet);
-         }
+         handleReplicationPacket(packet);
       }
       catch (HornetQException e)
       {
@@ -248,6 +207,128 @@ public final class ReplicationEndpoint implements ChannelHandler, HornetQCompone
       channel.send(response);
    }
 
+   /**
+    * Applies the packets of the batch in order and answers them all at once. The packets following
+    * a failed one are not applied: the ones applied before it are answered and the others are
+    * answered by the exception, as a single packet would be.
+    */
+   private void handleBatch(final ReplicationBatchMessage batch)
+   {
+      if (!started)
+      {
+         return;
+      }
+
+      int applied = 0;
+
+      PacketImpl failure = null;
+
+      for (Packet packet : batch.getPackets())
+      {
+         try
+         {
+            handleReplicationPacket(packet);
+         }
+         catch (HornetQException e)
+         {
+            HornetQServerLogger.LOGGER.errorHandlingReplicationPacket(e, packet);
+            failure = new HornetQExceptionMessage(e);
+            break;
+         }
+         catch (Exception e)
+         {
+            HornetQServerLogger.LOGGER.errorHandlingReplicationPacket(e, packet);
+            failure = new HornetQExceptionMessage(HornetQMessageBundle.BUNDLE.replicationUnhandledError(e));
+            break;
+         }
+         applied++;
+      }
+
+      if (applied > 0)
+      {
+         channel.send(new ReplicationBatchResponseMessage(applied));
+      }
+
+      if (failure != null)
+      {
+         channel.send(failure);
+      }
+   }
+
+   private void handleReplicationPacket(final Packet packet) throws Exception
+   {
+      final byte type = packet.getType();
+
+      if (type == PacketImpl.REPLICATION_APPEND)
+      {
+         handleAppendAddRecord((ReplicationAddMessage) packet);
+      }
+      else if (type == PacketImpl.REPLICATION_APPEND_TX)
+      {
+         handleAppendAddTXRecord((ReplicationAddTXMessage) packet);
+      }
+      else if (type == PacketImpl.REPLICATION_DELETE)
+      {
+         handleAppendDelete((ReplicationDeleteMessage) packet);
+      }
+      else if (type == PacketImpl.REPLICATION_DELETE_TX)
+      {
+         handleAppendDeleteTX((ReplicationDeleteTXMessage) packet);
+      }
+      else if (type == PacketImpl.REPLICATION_PREPARE)
+      {
+         handlePrepare((ReplicationPrepareMessage) packet);
+      }
+      else if (type == PacketImpl.REPLICATION_COMMIT_ROLLBACK)
+      {
+         handleCommitRollback((ReplicationCommitMessage) packet);
+      }
+      else if (type == PacketImpl.REPLICATION_PAGE_WRITE)
+      {
+         handlePageWrite((ReplicationPageWriteMessage) packet);
+      }
+      else if (type == PacketImpl.REPLICATION_PAGE_EVENT)
+      {
+         handlePageEvent((ReplicationPageEventMessage) packet);
+      }
+      else if (type == PacketImpl.REPLICATION_LARGE_MESSAGE_BEGIN)
+      {
+         handleLargeMessageBegin((ReplicationLargeMessageBeginMessage) packet);
+      }
+      else if (type == PacketImpl.REPLICATION_LARGE_MESSAGE_WRITE)
+      {
+         handleLargeMessageWrite((ReplicationLargeMessageWriteMessage) packet);
+      }
+      else if (type == PacketImpl.REPLICATION_LARGE_MESSAGE_END)
+      {
+         handleLargeMessageEnd((ReplicationLargeMessageEndMessage) packet);
+      }
+      else if (type == PacketImpl.REPLICATION_START_FINISH_SYNC)
+      {
+         handleStartReplicationSynchronization((ReplicationStartSyncMessage) packet);
+      }
+      else if (type == PacketImpl.REPLICATION_SYNC_FILE)
+      {
+         handleReplicationSynchronization((ReplicationSyncFileMessage) packet);
+      }
+      else if (type == PacketImpl.REPLICATION_SYNC_DIGEST)
+      {
+         handleSyncReuse((ReplicationSyncDigestMessage) packet);
+      }
+      else if (type == PacketImpl.REPLICATION_SCHEDULED_FAILOVER)
+      {
+         handleLiveStopping((ReplicationLiveIsStoppingMessage) packet);
+      }
+      else if (type == PacketImpl.BACKUP_REGISTRATION_FAILED)
+      {
+         handleFatalError((BackupReplicationStartFailedMessage) packet);
+      }
+      else
+      {
+         HornetQServerLogger.LOGGER.invalidPacketForReplication(packet);
+      }
+   }
+
    /**
     * @param packet
     */
@@ -453,22 +534,26 @@ public final class ReplicationEndpoint implements ChannelHandler, HornetQCompone
 
    private void finishSynchronization(String liveID) throws Exception
    {
-      for (JournalContent jc : EnumSet.allOf(JournalContent.class))
+      // large message deletes are done by the executor and must not see the journals restarting
+      synchronized (this)
       {
-         Journal journal = journalsHolder.remove(jc);
-         journal.synchronizationLock();
-         try
-         {
-            // files should be already in place.
-            filesReservedForSync.remove(jc);
-            registerJournal(jc.typeByte, journal);
-            journal.stop();
-            journal.start();
-            journal.loadSyncOnly(JournalState.SYNCING_UP_TO_DATE);
-         }
-         finally
+         for (JournalContent jc : EnumSet.allOf(JournalContent.class))
          {
-            journal.synchronizationUnlock();
+            Journal journal = journalsHolder.remove(jc);
+            journal.synchronizationLock();
+            try
+            {
+               // files should be already in place.
+               filesReservedForSync.remove(jc);
+               registerJournal(jc.typeByte, journal);
+               journal.stop();
+               journal.start();
+               journal.loadSyncOnly(JournalState.SYNCING_UP_TO_DATE);
+            }
+            finally
+            {
+               journal.synchronizationUnlock();
+            }
          }
       }
       ByteBuffer buffer = ByteBuffer.allocate(4 * 1024);
@@ -497,10 +582,24 @@ public final class ReplicationEndpoint implements ChannelHandler, HornetQCompone
     */
    private synchronized void handleReplicationSynchronization(ReplicationSyncFileMessage msg) throws Exception
    {
-      Long id = Long.valueOf(msg.getId());
       byte[] data = msg.getData();
+      synchronizeFile(msg.getFileType(), msg.getJournalContent(), msg.getPageStore(), msg.getId(),
+                      data == null ? null : ByteBuffer.wrap(data));
+   }
+
+   /**
+    * Writes synchronization data to the given file.
+    *
+    * @param data the data to append, or {@code null} to close the file
+    */
+   private synchronized void synchronizeFile(final FileType fileType,
+                                             final JournalContent journalContent,
+                                             final SimpleString pageStore,
+                                             final long id,
+                                             final ByteBuffer data) throws Exception
+   {
       SequentialFile channel1;
-      switch (msg.getFileType())
+      switch (fileType)
       {
          case LARGE_MESSAGE:
          {
@@ -516,24 +615,24 @@ public final class ReplicationEndpoint implements ChannelHandler, HornetQCompone
          }
          case PAGE:
          {
-            Page page = getPage(msg.getPageStore(), (int) msg.getId());
+            Page page = getPage(pageStore, (int) id);
             channel1 = page.getFile();
             break;
          }
          case JOURNAL:
          {
-            JournalSyncFile journalSyncFile = filesReservedForSync.get(msg.getJournalContent()).get(id);
+            JournalSyncFile journalSyncFile = filesReservedForSync.get(journalContent).get(id);
             FileChannel channel2 = journalSyncFile.getChannel();
             if (data == null)
             {
                channel2.close();
                return;
             }
-            channel2.write(ByteBuffer.wrap(data));
+            channel2.write(data);
             return;
          }
          default:
-            throw HornetQMessageBundle.BUNDLE.replicationUnhandledFileType(msg.getFileType());
+            throw HornetQMessageBundle.BUNDLE.replicationUnhandledFileType(fileType);
       }
 
       if (data == null)
@@ -546,7 +645,82 @@ public final class ReplicationEndpoint implements ChannelHandler, HornetQCompone
       {
          channel1.open(1, false);
       }
-      channel1.writeDirect(ByteBuffer.wrap(data), true);
+      channel1.writeDirect(data, true);
+   }
+
+   /**
+    * Computes the digests of the files kept from the previous run and sends them to the live server.
+    * <p>
+    * This reads all the previous data so it is done by the executor, the live server waiting for the
+    * answer before synchronizing any file.
+    */
+   private void handleSyncDigestRequest()
+   {
+      executor.execute(new Runnable()
+      {
+         @Override
+         public void run()
+         {
+            List<FileDigest> digests = Collections.emptyList();
+            if (previousFiles != null)
+            {
+               try
+               {
+                  digests = previousFiles.computeDigests();
+               }
+               catch (Exception e)
+               {
+                  HornetQServerLogger.LOGGER.errorComputingReplicaDigests(e);
+               }
+            }
+            Channel currentChannel = channel;
+            if (currentChannel != null)
+            {
+               currentChannel.send(new ReplicationSyncDigestResponseMessage(digests));
+            }
+         }
+      });
+   }
+
+   /**
+    * Copies the first bytes of a file from the previous data, the live server sending the rest of it.
+    */
+   private synchronized void handleSyncReuse(final ReplicationSyncDigestMessage packet) throws Exception
+   {
+      for (FileDigest reused : packet.getFiles())
+      {
+         final File file = previousFiles == null ? null : previousFiles.getFile(reused);
+         if (file == null)
+         {
+            throw HornetQMessageBundle.BUNDLE.replicationPreviousDataMissing(reused);
+         }
+
+         final FileInputStream fis = new FileInputStream(file);
+         try
+         {
+            final FileChannel channel = fis.getChannel();
+            final ByteBuffer buffer = ByteBuffer.allocate(1 << 17);
+            long remaining = reused.getLength();
+            while (remaining > 0)
+            {
+               buffer.clear();
+               buffer.limit((int) Math.min(buffer.capacity(), remaining));
+               final int read = channel.read(buffer);
+               if (read <= 0)
+               {
+                  throw HornetQMessageBundle.BUNDLE.replicationPreviousDataMissing(reused);
+               }
+               buffer.flip();
+               synchronizeFile(reused.getFileType(), reused.getJournalContent(), reused.getPageStore(),
+                               reused.getId(), buffer);
+               remaining -= read;
+            }
+         }
+         finally
+         {
+            fis.close();
+         }
+      }
    }
 
    /**
@@ -624,13 +798,16 @@ public final class ReplicationEndpoint implements ChannelHandler, HornetQCompone
             @Override
             public void run()
             {
-               try
-               {
-                  message.deleteFile();
-               }
-               catch (Exception e)
+               synchronized (ReplicationEndpoint.this)
                {
-                  HornetQServerLogger.LOGGER.errorDeletingLargeMessage(e, packet.getMessageId());
+                  try
+                  {
+                     message.deleteFile();
+                  }
+                  catch (Exception e)
+                  {
+                     HornetQServerLogger.LOGGER.errorDeletingLargeMessage(e, packet.getMessageId());
+                  }
                }
             }
          });
@@ -944,6 +1121,19 @@ public final class ReplicationEndpoint implements ChannelHandler, HornetQCompone
       this.backupQuorum = backupQuorum;
    }
 
+   /**
+    * Sets the suffix of the data directories this backup moved away before starting, so the
+    * synchronization only transfers the files, or the parts of files, missing from that data.
+    */
+   public synchronized void setPreviousDataSuffix(final int suffix)
+   {
+      Configuration config = server.getConfiguration();
+      previousFiles = new PreviousReplicaFiles(new File(new File(config.getBindingsDirectory()).getPath() + suffix),
+                                               new File(new File(config.getJournalDirectory()).getPath() + suffix),
+                                               new File(new File(config.getPagingDirectory()).getPath() + suffix),
+                                               new File(new File(config.getLargeMessagesDirectory()).getPath() + suffix));
+   }
+
    /**
     * @param executor2
     */
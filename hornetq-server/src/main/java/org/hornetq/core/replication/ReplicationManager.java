@@ -12,19 +12,29 @@
  */
 package org.hornetq.core.replication;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.hornetq.api.config.HornetQDefaultConfiguration;
 import org.hornetq.api.core.HornetQBuffer;
 import org.hornetq.api.core.HornetQException;
 import org.hornetq.api.core.HornetQExceptionType;
+import org.hornetq.api.core.HornetQInterruptedException;
 import org.hornetq.api.core.Pair;
 import org.hornetq.api.core.SimpleString;
 import org.hornetq.api.core.client.SessionFailureListener;
@@ -33,6 +43,7 @@ import org.hornetq.core.journal.SequentialFile;
 import org.hornetq.core.journal.impl.JournalFile;
 import org.hornetq.core.paging.PagedMessage;
 import org.hornetq.core.persistence.OperationContext;
+import org.hornetq.core.persistence.impl.journal.JournalStorageManager;
 import org.hornetq.core.persistence.impl.journal.JournalStorageManager.JournalContent;
 import org.hornetq.core.persistence.impl.journal.OperationContextImpl;
 import org.hornetq.core.protocol.core.Channel;
@@ -41,8 +52,11 @@ import org.hornetq.core.protocol.core.CoreRemotingConnection;
 import org.hornetq.core.protocol.core.Packet;
 import org.hornetq.core.protocol.core.impl.ChannelImpl.CHANNEL_ID;
 import org.hornetq.core.protocol.core.impl.PacketImpl;
+import org.hornetq.core.protocol.core.impl.wireformat.HornetQExceptionMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationAddMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationAddTXMessage;
+import org.hornetq.core.protocol.core.impl.wireformat.ReplicationBatchMessage;
+import org.hornetq.core.protocol.core.impl.wireformat.ReplicationBatchResponseMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationCommitMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationDeleteMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationDeleteTXMessage;
@@ -55,11 +69,16 @@ import org.hornetq.core.protocol.core.impl.wireformat.ReplicationPageEventMessag
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationPageWriteMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationPrepareMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationStartSyncMessage;
+import org.hornetq.core.protocol.core.impl.wireformat.ReplicationSyncDigestMessage;
+import org.hornetq.core.protocol.core.impl.wireformat.ReplicationSyncDigestMessage.FileDigest;
+import org.hornetq.core.protocol.core.impl.wireformat.ReplicationSyncDigestResponseMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationSyncFileMessage;
 import org.hornetq.core.server.HornetQComponent;
 import org.hornetq.core.server.HornetQServerLogger;
 import org.hornetq.spi.core.protocol.RemotingConnection;
 import org.hornetq.utils.ExecutorFactory;
+import org.hornetq.utils.TokenBucketLimiter;
+import org.hornetq.utils.TokenBucketLimiterImpl;
 import org.omg.CORBA.portable.ResponseHandler;
 
 /**
@@ -100,6 +119,12 @@ public final class ReplicationManager implements HornetQComponent
       }
    }
 
+   // a batch is sent as soon as it reaches this size
+   private static final int MAX_BATCH_SIZE = 64 * 1024;
+
+   // the unit of the synchronization bandwidth limiter
+   private static final int SYNC_LIMITER_UNIT = 1024;
+
    private final ResponseHandler responseHandler = new ResponseHandler();
 
    private final Channel replicatingChannel;
@@ -112,6 +137,12 @@ public final class ReplicationManager implements HornetQComponent
 
    private final Queue<OperationContext> pendingTokens = new ConcurrentLinkedQueue<OperationContext>();
 
+   /**
+    * The number of pendingTokens answered by each response the backup still owes, in order: 1 for a
+    * single packet and the count of its packets for a batch.
+    */
+   private final Queue<Integer> pendingResponses = new ConcurrentLinkedQueue<Integer>();
+
    private final ExecutorFactory executorFactory;
 
    private SessionFailureListener failureListener;
@@ -120,16 +151,98 @@ public final class ReplicationManager implements HornetQComponent
 
    private volatile boolean inSync = true;
 
+   /**
+    * Journal and paging operations are coalesced into a {@link ReplicationBatchMessage} sent by the
+    * flush executor, so the operations issued while the previous batch is being sent share a packet
+    * and a response. Guarded by the replicationLock.
+    */
+   private ReplicationBatchMessage batch;
+
+   private final Executor flushExecutor;
+
+   /**
+    * The files the backup kept from its previous run, by file. Only the parts of files missing from
+    * these are sent by the initial synchronization.
+    */
+   private volatile Map<FileDigest, FileDigest> backupFiles = Collections.emptyMap();
+
+   /**
+    * Where the answer to the pending digest request goes, a late answer is dropped along with it.
+    */
+   private volatile BlockingQueue<Map<FileDigest, FileDigest>> backupFilesAnswer;
+
+   private final AtomicLong syncBytesSent = new AtomicLong();
+
+   private final AtomicLong syncBytesReused = new AtomicLong();
+
+   private volatile long syncBytesTotal;
+
+   private volatile long syncStartTime;
+
+   private int syncStreams = 1;
+
+   private long callTimeout = HornetQDefaultConfiguration.getDefaultClusterCallTimeout();
+
+   /**
+    * Shared by all the synchronization streams, {@code null} if the bandwidth is not capped.
+    */
+   private TokenBucketLimiter syncLimiter;
+
+   private final Runnable flushTask = new Runnable()
+   {
+      public void run()
+      {
+         synchronized (replicationLock)
+         {
+            flushBatch();
+         }
+      }
+   };
+
    /**
     * @param remotingConnection
     */
    public ReplicationManager(CoreRemotingConnection remotingConnection, final ExecutorFactory executorFactory)
    {
       this.executorFactory = executorFactory;
+      this.flushExecutor = executorFactory.getExecutor();
       this.replicatingChannel = remotingConnection.getChannel(CHANNEL_ID.REPLICATION.id, -1);
       this.remotingConnection = remotingConnection;
    }
 
+   /**
+    * @param syncStreams        number of files sent concurrently during the initial synchronization
+    * @param maxBytesPerSecond  cap of the synchronization bandwidth, {@code -1} for no cap
+    */
+   public void setSynchronizationLimits(final int syncStreams, final long maxBytesPerSecond)
+   {
+      this.syncStreams = Math.max(1, syncStreams);
+      if (maxBytesPerSecond > 0)
+      {
+         syncLimiter = new TokenBucketLimiterImpl((int) Math.min(Integer.MAX_VALUE,
+                                                                 Math.max(1, maxBytesPerSecond / SYNC_LIMITER_UNIT)),
+                                                  false);
+      }
+      else
+      {
+         syncLimiter = null;
+      }
+   }
+
+   public int getSyncStreams()
+   {
+      return syncStreams;
+   }
+
+   /**
+    * @param callTimeout how long to wait for the backup to answer, as the replication connection is
+    *                    server side it has no call timeout of its own
+    */
+   public void setCallTimeout(final long callTimeout)
+   {
+      this.callTimeout = callTimeout;
+   }
+
    public void appendUpdateRecord(final byte journalID, final ADD_OPERATION_TYPE operation, final long id,
                                   final byte recordType,
                                   final EncodingSupport record) throws Exception
@@ -289,6 +402,7 @@ public final class ReplicationManager implements HornetQComponent
       synchronized (replicationLock)
       {
          enabled = false;
+         batch = null;
          if (replicatingChannel != null)
          {
             replicatingChannel.close();
@@ -327,6 +441,7 @@ public final class ReplicationManager implements HornetQComponent
                HornetQServerLogger.LOGGER.errorCompletingCallbackOnReplicationManager(e);
             }
          }
+         pendingResponses.clear();
       }
    }
 
@@ -372,7 +487,17 @@ public final class ReplicationManager implements HornetQComponent
          if (enabled)
          {
             pendingTokens.add(repliToken);
-            replicatingChannel.send(packet);
+            if (isBatchable(packet))
+            {
+               addToBatch((PacketImpl) packet);
+            }
+            else
+            {
+               // keep the order of the operations
+               flushBatch();
+               pendingResponses.add(1);
+               replicatingChannel.send(packet);
+            }
          }
          else
          {
@@ -391,6 +516,59 @@ public final class ReplicationManager implements HornetQComponent
       return repliToken;
    }
 
+   private static boolean isBatchable(final Packet packet)
+   {
+      switch (packet.getType())
+      {
+         case PacketImpl.REPLICATION_APPEND:
+         case PacketImpl.REPLICATION_APPEND_TX:
+         case PacketImpl.REPLICATION_DELETE:
+         case PacketImpl.REPLICATION_DELETE_TX:
+         case PacketImpl.REPLICATION_PREPARE:
+         case PacketImpl.REPLICATION_COMMIT_ROLLBACK:
+         case PacketImpl.REPLICATION_PAGE_WRITE:
+         case PacketImpl.REPLICATION_PAGE_EVENT:
+         case PacketImpl.REPLICATION_LARGE_MESSAGE_BEGIN:
+         case PacketImpl.REPLICATION_LARGE_MESSAGE_END:
+            return true;
+         default:
+            return false;
+      }
+   }
+
+   // must hold the replicationLock
+   private void addToBatch(final PacketImpl packet)
+   {
+      if (batch == null)
+      {
+         batch = new ReplicationBatchMessage();
+         flushExecutor.execute(flushTask);
+      }
+
+      batch.addPacket(packet);
+
+      if (batch.getEncodedSize() >= MAX_BATCH_SIZE)
+      {
+         flushBatch();
+      }
+   }
+
+   // must hold the replicationLock
+   private void flushBatch()
+   {
+      final ReplicationBatchMessage toSend = batch;
+
+      if (toSend == null || !enabled)
+      {
+         return;
+      }
+
+      batch = null;
+
+      pendingResponses.add(toSend.getCount());
+      replicatingChannel.send(toSend);
+   }
+
    /**
     * @throws IllegalStateException By default, all replicated packets generate a replicated
     *                               response. If your packets are triggering this exception, it may be because the
@@ -408,6 +586,31 @@ public final class ReplicationManager implements HornetQComponent
       ctx.replicationDone();
    }
 
+   private void replicated(final int count)
+   {
+      for (int i = 0; i < count; i++)
+      {
+         replicated();
+      }
+   }
+
+   private void replicationFailed(final int count, final HornetQException e)
+   {
+      HornetQServerLogger.LOGGER.replicationFailedOnBackup(e, count);
+
+      for (int i = 0; i < count; i++)
+      {
+         OperationContext ctx = pendingTokens.poll();
+
+         if (ctx == null)
+         {
+            throw new IllegalStateException("Missing replication token on the queue.");
+         }
+
+         ctx.onError(e.getType().getCode(), e.getMessage());
+      }
+   }
+
    // Inner classes -------------------------------------------------
 
    private final class ReplicatedSessionFailureListener implements SessionFailureListener
@@ -448,14 +651,60 @@ public final class ReplicationManager implements HornetQComponent
 
    private final class ResponseHandler implements ChannelHandler
    {
+      /**
+       * The packets of the first pending response already answered, a batch failing on the backup
+       * is answered in two parts: the packets applied before the failure, then the exception.
+       */
+      private int answered;
+
       public void handlePacket(final Packet packet)
       {
          if (packet.getType() == PacketImpl.REPLICATION_RESPONSE)
          {
+            answered(1);
             replicated();
          }
+         else if (packet.getType() == PacketImpl.REPLICATION_BATCH_RESPONSE)
+         {
+            int count = ((ReplicationBatchResponseMessage) packet).getCount();
+            answered(count);
+            replicated(count);
+         }
+         else if (packet.getType() == PacketImpl.EXCEPTION)
+         {
+            // the failed packet and the ones following it in its batch
+            Integer expected = pendingResponses.poll();
+            int failed = expected == null ? 0 : expected - answered;
+            answered = 0;
+            replicationFailed(failed, ((HornetQExceptionMessage) packet).getException());
+         }
+         else if (packet.getType() == PacketImpl.REPLICATION_SYNC_DIGEST_RESPONSE)
+         {
+            Map<FileDigest, FileDigest> files = new HashMap<FileDigest, FileDigest>();
+            for (FileDigest file : ((ReplicationSyncDigestResponseMessage) packet).getFiles())
+            {
+               files.put(file, file);
+            }
+            BlockingQueue<Map<FileDigest, FileDigest>> answer = backupFilesAnswer;
+            if (answer != null)
+            {
+               answer.offer(files);
+            }
+         }
       }
 
+      private void answered(final int count)
+      {
+         answered += count;
+
+         Integer expected = pendingResponses.peek();
+
+         if (expected != null && answered >= expected)
+         {
+            pendingResponses.poll();
+            answered = 0;
+         }
+      }
    }
 
    private static final class NullEncoding implements EncodingSupport
@@ -542,6 +791,16 @@ public final class ReplicationManager implements HornetQComponent
             final FileChannel channel = fis.getChannel();
             try
             {
+               final long reused = getReusablePrefix(FileDigest.of(content, pageStore, id), file.getJavaFile(),
+                                                     maxBytesToSend);
+               if (reused > 0)
+               {
+                  sendReplicatePacket(new ReplicationSyncDigestMessage(new FileDigest(content, pageStore, id, reused, null)));
+                  channel.position(reused);
+                  maxBytesToSend -= reused;
+                  syncBytesReused.addAndGet(reused);
+               }
+
                // We can afford having a single buffer here for this entire loop
                // because sendReplicatePacket will encode the packet as a NettyBuffer
                // through HornetQBuffer class leaving this buffer free to be reused on the next copy
@@ -566,6 +825,12 @@ public final class ReplicationManager implements HornetQComponent
                   }
                   buffer.rewind();
 
+                  if (toSend > 0)
+                  {
+                     limitSyncBandwidth(toSend);
+                     syncBytesSent.addAndGet(toSend);
+                  }
+
                   // sending -1 or 0 bytes will close the file at the backup
                   sendReplicatePacket(new ReplicationSyncFileMessage(content, pageStore, id, toSend, buffer));
                   if (bytesRead == -1 || bytesRead == 0 || maxBytesToSend == 0)
@@ -589,6 +854,174 @@ public final class ReplicationManager implements HornetQComponent
       }
    }
 
+   private void limitSyncBandwidth(final int bytes)
+   {
+      final TokenBucketLimiter limiter = syncLimiter;
+      if (limiter == null)
+      {
+         return;
+      }
+      // the limiter is not thread-safe, and the cap is shared by all the streams
+      synchronized (limiter)
+      {
+         for (int i = 0; i < bytes; i += SYNC_LIMITER_UNIT)
+         {
+            limiter.limit();
+         }
+      }
+   }
+
+   /**
+    * Starts measuring the progress of the initial synchronization.
+    *
+    * @param totalBytes estimate of the number of bytes of file content to synchronize
+    */
+   public void startSynchronizationProgress(final long totalBytes)
+   {
+      syncBytesSent.set(0);
+      syncBytesReused.set(0);
+      syncBytesTotal = totalBytes;
+      syncStartTime = System.currentTimeMillis();
+   }
+
+   /**
+    * @return the number of bytes of file content sent by the initial synchronization
+    */
+   public long getSyncBytesSent()
+   {
+      return syncBytesSent.get();
+   }
+
+   /**
+    * @return the number of bytes of file content the backup took from its previous data during the
+    * initial synchronization
+    */
+   public long getSyncBytesReused()
+   {
+      return syncBytesReused.get();
+   }
+
+   /**
+    * @return the number of bytes of file content sent or reused by the initial synchronization
+    */
+   public long getSyncBytesDone()
+   {
+      return syncBytesSent.get() + syncBytesReused.get();
+   }
+
+   /**
+    * @return estimate of the number of bytes of file content left to synchronize, {@code 0} once the
+    * backup is synchronized
+    */
+   public long getSyncBytesRemaining()
+   {
+      if (!inSync || !enabled)
+      {
+         return 0;
+      }
+      return Math.max(0, syncBytesTotal - getSyncBytesDone());
+   }
+
+   /**
+    * @return estimate of the time (in milliseconds) left before the backup is synchronized, {@code 0}
+    * once it is and {@code -1} if nothing was sent yet
+    */
+   public long getSyncEstimatedTimeRemaining()
+   {
+      final long remaining = getSyncBytesRemaining();
+      if (remaining == 0)
+      {
+         return 0;
+      }
+      final long sent = syncBytesSent.get();
+      final long elapsed = System.currentTimeMillis() - syncStartTime;
+      if (sent == 0 || syncStartTime == 0)
+      {
+         return -1;
+      }
+      return (long) (remaining * ((double) elapsed / sent));
+   }
+
+   /**
+    * @return the number of bytes at the start of the file the backup already holds
+    */
+   private long getReusablePrefix(final FileDigest key, final File file, final long maxBytesToSend)
+   {
+      final FileDigest backupFile = backupFiles.get(key);
+
+      if (backupFile == null || backupFile.getLength() > Math.min(file.length(), maxBytesToSend))
+      {
+         return 0;
+      }
+
+      if (!backupFile.getMd5().equals(JournalStorageManager.md5(file, backupFile.getLength())))
+      {
+         return 0;
+      }
+
+      return backupFile.getLength();
+   }
+
+   /**
+    * Asks the backup for the digests of the files it kept from its previous run, so the files, or
+    * the parts of files, it already holds are not sent again by the synchronization.
+    * <p>
+    * Computing the digests requires the backup to read all its previous data. This waits for it for
+    * at most the call timeout, then every file is sent in full.
+    */
+   public void requestBackupFileDigests() throws HornetQException
+   {
+      final BlockingQueue<Map<FileDigest, FileDigest>> answer = new ArrayBlockingQueue<Map<FileDigest, FileDigest>>(1);
+
+      backupFiles = Collections.emptyMap();
+
+      synchronized (replicationLock)
+      {
+         if (!enabled)
+         {
+            return;
+         }
+         backupFilesAnswer = answer;
+         flushBatch();
+         replicatingChannel.send(new ReplicationSyncDigestMessage());
+      }
+
+      final long timeout = callTimeout;
+
+      final long deadline = System.currentTimeMillis() + timeout;
+
+      Map<FileDigest, FileDigest> files = null;
+
+      try
+      {
+         long toWait = timeout;
+
+         while (files == null && enabled && toWait > 0)
+         {
+            files = answer.poll(Math.min(toWait, 1000), TimeUnit.MILLISECONDS);
+
+            toWait = deadline - System.currentTimeMillis();
+         }
+      }
+      catch (InterruptedException e)
+      {
+         throw new HornetQInterruptedException(e);
+      }
+      finally
+      {
+         backupFilesAnswer = null;
+      }
+
+      if (files != null)
+      {
+         backupFiles = files;
+      }
+      else if (enabled)
+      {
+         HornetQServerLogger.LOGGER.replicationDigestsTimedOut(timeout);
+      }
+   }
+
    /**
     * Reserve the following fileIDs in the backup server.
     *
@@ -617,6 +1050,8 @@ public final class ReplicationManager implements HornetQComponent
       {
          sendReplicatePacket(new ReplicationStartSyncMessage(nodeID));
          inSync = false;
+         backupFiles = Collections.emptyMap();
+         HornetQServerLogger.LOGGER.replicationSyncBytes(syncBytesSent.get(), syncBytesReused.get());
       }
    }
 
@@ -368,4 +368,7 @@ public interface HornetQMessageBundle
 
    @Message(id = 119109, value = "unsupported HA Policy Configuration {0}", format = Message.Format.MESSAGE_FORMAT)
    HornetQIllegalStateException unsupportedHAPolicyConfiguration(Object o);
+
+   @Message(id = 119110, value = "The previous data of the backup does not hold {0}", format = Message.Format.MESSAGE_FORMAT)
+   HornetQIllegalStateException replicationPreviousDataMissing(Object file);
 }
@@ -292,6 +292,11 @@ public interface HornetQServerLogger extends BasicLogger
    @Message(id = 221050, value = "Activating Shared Store Slave", format = Message.Format.MESSAGE_FORMAT)
    void activatingSharedStoreSlave();
 
+   @LogMessage(level = Logger.Level.INFO)
+   @Message(id = 221051, value = "Replication: backup synchronized, {0} bytes sent and {1} bytes reused from the data of the backup",
+            format = Message.Format.MESSAGE_FORMAT)
+   void replicationSyncBytes(long sent, long reused);
+
    @LogMessage(level = Logger.Level.WARN)
    @Message(id = 222000, value = "HornetQServer is being finalized and has not been stopped. Please remember to stop the server before letting it go out of scope",
             format = Message.Format.MESSAGE_FORMAT)
@@ -1112,6 +1117,46 @@ public interface HornetQServerLogger extends BasicLogger
          format = Message.Format.MESSAGE_FORMAT)
    void disallowedProtocol(String protocol);
 
+   @LogMessage(level = Logger.Level.WARN)
+   @Message(id = 222191, value = "Failed to advertise queue loads on cluster connection {0}", format = Message.Format.MESSAGE_FORMAT)
+   void errorSendingQueueLoads(@Cause Throwable e, SimpleString clusterConnection);
+
+   @LogMessage(level = Logger.Level.WARN)
+   @Message(id = 222192, value = "Could not read the previous data of the backup, all the files will be synchronized", format = Message.Format.MESSAGE_FORMAT)
+   void errorComputingReplicaDigests(@Cause Throwable e);
+
+   @LogMessage(level = Logger.Level.WARN)
+   @Message(id = 222193, value = "Unable to store {0} group bindings, they will not survive a restart", format = Message.Format.MESSAGE_FORMAT)
+   void unableToStoreGroupBindings(@Cause Exception e, int bindings);
+
+   @LogMessage(level = Logger.Level.WARN)
+   @Message(id = 222194, value = "<large-messages-segment-size> is not supported with the {0} HA policy, each large message will be stored in its own file", format = Message.Format.MESSAGE_FORMAT)
+   void largeMessagesSegmentsNotSupported(Object haPolicy);
+
+   @LogMessage(level = Logger.Level.WARN)
+   @Message(id = 222195, value = "Error compacting large message segment {0}", format = Message.Format.MESSAGE_FORMAT)
+   void errorCompactingLargeMessageSegment(@Cause Exception e, String segment);
+
+   @LogMessage(level = Logger.Level.WARN)
+   @Message(id = 222196, value = "Large message segment {0} is truncated at {1}, the records after it are ignored", format = Message.Format.MESSAGE_FORMAT)
+   void largeMessageSegmentTruncated(String segment, long position);
+
+   @LogMessage(level = Logger.Level.WARN)
+   @Message(id = 222197, value = "The backup failed to replicate {0} operation(s)", format = Message.Format.MESSAGE_FORMAT)
+   void replicationFailedOnBackup(@Cause Exception e, int operations);
+
+   @LogMessage(level = Logger.Level.WARN)
+   @Message(id = 222198, value = "The backup did not send the digests of its files within {0} milliseconds, they are all synchronized in full", format = Message.Format.MESSAGE_FORMAT)
+   void replicationDigestsTimedOut(long timeout);
+
+   @LogMessage(level = Logger.Level.WARN)
+   @Message(id = 222199, value = "Bridge {0} has a batch-delay of {1}, it must be greater than zero when batch-size is set. It will not be deployed.", format = Message.Format.MESSAGE_FORMAT)
+   void bridgeInvalidBatchDelay(String name, long batchDelay);
+
+   @LogMessage(level = Logger.Level.WARN)
+   @Message(id = 222200, value = "Timed out after {0} milliseconds waiting for the group binding {1} to {2} to be stored, it will not survive a restart until it is", format = Message.Format.MESSAGE_FORMAT)
+   void groupBindingNotStoredInTime(long timeout, SimpleString groupId, SimpleString clusterName);
+
    @LogMessage(level = Logger.Level.ERROR)
    @Message(id = 224000, value = "Failure in initialisation", format = Message.Format.MESSAGE_FORMAT)
    void initializationError(@Cause Throwable e);
@@ -47,6 +47,14 @@ public interface MessageReference
 
    void setScheduledDeliveryTime(long scheduledDeliveryTime);
 
+   /**
+    * @return the {@link System#nanoTime()} at which the reference was added to its queue, or zero if
+    * it's not known
+    */
+   long getEnqueueTime();
+
+   void setEnqueueTime(long enqueueTime);
+
    int getDeliveryCount();
 
    void setDeliveryCount(int deliveryCount);
@@ -21,6 +21,7 @@ import org.hornetq.api.core.SimpleString;
 import org.hornetq.core.filter.Filter;
 import org.hornetq.core.paging.cursor.PageSubscription;
 import org.hornetq.core.transaction.Transaction;
+import org.hornetq.utils.LatencyHistogram;
 import org.hornetq.utils.LinkedListIterator;
 import org.hornetq.utils.ReferenceCounter;
 
@@ -121,6 +122,18 @@ public interface Queue extends Bindable
 
    long getMessagesAcknowledged();
 
+   /**
+    * @return the times (in microseconds) between the references being added to this queue and
+    * being delivered to a consumer
+    */
+   LatencyHistogram getDeliveryLatencies();
+
+   /**
+    * @return the times (in microseconds) between the references being added to this queue and
+    * being acknowledged by a consumer
+    */
+   LatencyHistogram getAcknowledgeLatencies();
+
    MessageReference removeReferenceWithID(long id) throws Exception;
 
    MessageReference getReference(long id);
@@ -131,6 +144,14 @@ public interface Queue extends Bindable
 
    boolean deleteReference(long messageID) throws Exception;
 
+   /**
+    * Deletes the references to the messages of the given references in a single transaction, the iteration
+    * stopping as soon as all of them were found. The paged references that are not in memory are
+    * acknowledged on their page position instead.
+    * @return the number of references deleted
+    */
+   int deleteReferences(Collection<MessageReference> refs) throws Exception;
+
    int deleteMatchingReferences(Filter filter) throws Exception;
 
    int deleteMatchingReferences(int flushLImit, Filter filter) throws Exception;
@@ -222,6 +243,8 @@ public interface Queue extends Bindable
 
    void resetMessagesAcknowledged();
 
+   void resetLatencies();
+
    void incrementMesssagesAdded();
 
    List<MessageReference> cancelScheduledMessages();
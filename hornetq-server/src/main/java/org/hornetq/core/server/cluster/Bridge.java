@@ -54,4 +54,25 @@ public interface Bridge extends Consumer, HornetQComponent
    void disconnect();
 
    boolean isConnected();
+
+   /**
+    * @return the number of messages confirmed by the target since this bridge was created
+    */
+   long getMessagesForwarded();
+
+   /**
+    * @return the number of messages sent to the target which are not acknowledged on the queue yet
+    */
+   int getMessagesPendingAcknowledgement();
+
+   /**
+    * @return the number of messages per second confirmed by the target over the last sampling second
+    */
+   double getForwardRate();
+
+   /**
+    * @return how long in milliseconds the bridge has been waiting for the target to confirm a message,
+    * 0 if no message is pending
+    */
+   long getForwardingLag();
 }
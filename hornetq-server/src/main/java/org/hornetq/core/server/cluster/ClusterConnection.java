@@ -53,6 +53,8 @@ public interface ClusterConnection extends HornetQComponent, ClusterTopologyList
 
    TransportConfiguration getConnector();
 
+   long getCallTimeout();
+
    Topology getTopology();
 
    void flushExecutor();
@@ -75,4 +77,10 @@ public interface ClusterConnection extends HornetQComponent, ClusterTopologyList
    void removeRecord(String targetNodeID);
 
    void disconnectRecord(String targetNodeID);
+
+   /**
+    * @return {@code true} if this cluster connection advertises queue loads and the address is one of
+    * its addresses
+    */
+   boolean isLoadReported(SimpleString address);
 }
@@ -19,6 +19,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Executor;
@@ -44,6 +45,8 @@ import org.hornetq.core.protocol.core.CoreRemotingConnection;
 import org.hornetq.core.protocol.core.Packet;
 import org.hornetq.core.protocol.core.impl.PacketImpl;
 import org.hornetq.core.protocol.core.impl.wireformat.HornetQExceptionMessage;
+import org.hornetq.core.remoting.impl.netty.NettyConnectorFactory;
+import org.hornetq.core.remoting.impl.netty.TransportConstants;
 import org.hornetq.core.server.HornetQComponent;
 import org.hornetq.core.server.HornetQMessageBundle;
 import org.hornetq.core.server.HornetQServer;
@@ -137,7 +140,8 @@ public final class ClusterManager implements HornetQComponent
    private volatile State state = State.STOPPED;
 
    // the cluster connections which links this node to other cluster nodes
-   private final Map<String, ClusterConnection> clusterConnections = new HashMap<String, ClusterConnection>();
+   // kept in deployment order, see isLoadReporter
+   private final Map<String, ClusterConnection> clusterConnections = new LinkedHashMap<String, ClusterConnection>();
 
    private final Set<ServerLocatorInternal> clusterLocators = new ConcurrentHashSet<ServerLocatorInternal>();
 
@@ -424,6 +428,23 @@ public final class ClusterManager implements HornetQComponent
 
 
 
+   /**
+    * The load of a local queue is sampled and advertised by a single cluster connection: the first one
+    * deployed whose address matches the queue address and that reports loads.
+    */
+   public synchronized boolean isLoadReporter(final ClusterConnection clusterConnection, final SimpleString address)
+   {
+      for (ClusterConnection conn : clusterConnections.values())
+      {
+         if (conn.isLoadReported(address))
+         {
+            return conn == clusterConnection;
+         }
+      }
+
+      return false;
+   }
+
    public void removeClusterLocator(final ServerLocatorInternal serverLocator)
    {
       this.clusterLocators.remove(serverLocator);
@@ -450,6 +471,13 @@ public final class ClusterManager implements HornetQComponent
          HornetQServerLogger.LOGGER.bridgeNoForwardAddress(config.getName());
       }
 
+      if (config.getBatchSize() > 0 && config.getBatchDelay() <= 0)
+      {
+         HornetQServerLogger.LOGGER.bridgeInvalidBatchDelay(config.getName(), config.getBatchDelay());
+
+         return;
+      }
+
       if (bridges.containsKey(config.getName()))
       {
          HornetQServerLogger.LOGGER.bridgeAlreadyDeployed(config.getName());
@@ -503,6 +531,11 @@ public final class ClusterManager implements HornetQComponent
             return;
          }
 
+         if (config.getBatchSize() > 0)
+         {
+            tcConfigs = coalesceWrites(tcConfigs);
+         }
+
          if (config.isHA())
          {
             serverLocator = (ServerLocatorInternal) HornetQClient.createServerLocatorWithHA(tcConfigs);
@@ -565,7 +598,9 @@ public final class ClusterManager implements HornetQComponent
                                      config.isUseDuplicateDetection(),
                                      config.getUser(),
                                      config.getPassword(),
-                                     server.getStorageManager());
+                                     server.getStorageManager(),
+                                     config.getBatchSize(),
+                                     config.getBatchDelay());
 
       bridges.put(config.getName(), bridge);
 
@@ -575,6 +610,34 @@ public final class ClusterManager implements HornetQComponent
 
    }
 
+   /**
+    * A batched bridge sends without blocking, so its Netty connectors coalesce the sends into as few
+    * frames as possible unless they are explicitly configured otherwise.
+    */
+   private static TransportConfiguration[] coalesceWrites(final TransportConfiguration[] tcConfigs)
+   {
+      TransportConfiguration[] result = new TransportConfiguration[tcConfigs.length];
+
+      for (int i = 0; i < tcConfigs.length; i++)
+      {
+         TransportConfiguration tc = tcConfigs[i];
+
+         if (NettyConnectorFactory.class.getName().equals(tc.getFactoryClassName()) &&
+            !tc.getParams().containsKey(TransportConstants.COALESCE_WRITES_PROP_NAME))
+         {
+            Map<String, Object> params = new HashMap<String, Object>(tc.getParams());
+
+            params.put(TransportConstants.COALESCE_WRITES_PROP_NAME, true);
+
+            tc = new TransportConfiguration(tc.getFactoryClassName(), params, tc.getName());
+         }
+
+         result[i] = tc;
+      }
+
+      return result;
+   }
+
    public static class IncomingInterceptorLookingForExceptionMessage implements Interceptor
    {
       private final ClusterManager manager;
@@ -745,7 +808,10 @@ public final class ClusterManager implements HornetQComponent
                                                        server.getConfiguration().getClusterPassword(),
                                                        config.isAllowDirectConnectionsOnly(),
                                                        config.getClusterNotificationInterval(),
-                                                       config.getClusterNotificationAttempts());
+                                                       config.getClusterNotificationAttempts(),
+                                                       config.getLoadReportPeriod(),
+                                                       config.getLoadSmoothingFactor(),
+                                                       config.getLoadStaleTimeout());
 
          clusterController.addClusterConnection(clusterConnection.getName(), dg, config);
       }
@@ -787,7 +853,10 @@ public final class ClusterManager implements HornetQComponent
                                                        server.getConfiguration().getClusterPassword(),
                                                        config.isAllowDirectConnectionsOnly(),
                                                        config.getClusterNotificationInterval(),
-                                                       config.getClusterNotificationAttempts());
+                                                       config.getClusterNotificationAttempts(),
+                                                       config.getLoadReportPeriod(),
+                                                       config.getLoadSmoothingFactor(),
+                                                       config.getLoadStaleTimeout());
 
 
          clusterController.addClusterConnection(clusterConnection.getName(), tcConfigs, config);
@@ -27,6 +27,10 @@ public class ReplicatedPolicy implements HAPolicy<LiveActivation>
 
    private String clusterName;
 
+   private int syncStreams = HornetQDefaultConfiguration.getDefaultReplicationSyncStreams();
+
+   private long syncMaxBytesPerSecond = HornetQDefaultConfiguration.getDefaultReplicationSyncMaxBytesPerSecond();
+
    /*
    * these are only set by the ReplicaPolicy after failover to decide if the live server can failback, these should not
    * be exposed in configuration.
@@ -101,6 +105,26 @@ public class ReplicatedPolicy implements HAPolicy<LiveActivation>
       this.clusterName = clusterName;
    }
 
+   public int getSyncStreams()
+   {
+      return syncStreams;
+   }
+
+   public void setSyncStreams(int syncStreams)
+   {
+      this.syncStreams = syncStreams;
+   }
+
+   public long getSyncMaxBytesPerSecond()
+   {
+      return syncMaxBytesPerSecond;
+   }
+
+   public void setSyncMaxBytesPerSecond(long syncMaxBytesPerSecond)
+   {
+      this.syncMaxBytesPerSecond = syncMaxBytesPerSecond;
+   }
+
    public ReplicaPolicy getReplicaPolicy()
    {
       return replicaPolicy;
@@ -12,6 +12,7 @@
  */
 package org.hornetq.core.server.cluster.ha;
 
+import org.hornetq.api.config.HornetQDefaultConfiguration;
 import org.hornetq.api.core.DiscoveryGroupConfiguration;
 import org.hornetq.api.core.HornetQException;
 import org.hornetq.api.core.TransportConfiguration;
@@ -39,6 +40,10 @@ public class ScaleDownPolicy
 
    private boolean enabled;
 
+   private int parallelism = HornetQDefaultConfiguration.getDefaultScaleDownParallelism();
+
+   private int batchSize = HornetQDefaultConfiguration.getDefaultScaleDownBatchSize();
+
    public ScaleDownPolicy()
    {
    }
@@ -110,11 +115,31 @@ public class ScaleDownPolicy
       this.enabled = enabled;
    }
 
+   public int getParallelism()
+   {
+      return parallelism;
+   }
+
+   public void setParallelism(int parallelism)
+   {
+      this.parallelism = parallelism;
+   }
+
+   public int getBatchSize()
+   {
+      return batchSize;
+   }
+
+   public void setBatchSize(int batchSize)
+   {
+      this.batchSize = batchSize;
+   }
+
    public static ServerLocatorInternal getScaleDownConnector(ScaleDownPolicy scaleDownPolicy, HornetQServer hornetQServer) throws HornetQException
    {
       if (!scaleDownPolicy.getConnectors().isEmpty())
       {
-         return (ServerLocatorInternal) HornetQClient.createServerLocatorWithHA(connectorNameListToArray(scaleDownPolicy.getConnectors(), hornetQServer));
+         return configureLocator((ServerLocatorInternal) HornetQClient.createServerLocatorWithHA(connectorNameListToArray(scaleDownPolicy.getConnectors(), hornetQServer)));
       }
       else if (scaleDownPolicy.getDiscoveryGroup() != null)
       {
@@ -124,7 +149,7 @@ public class ScaleDownPolicy
          {
             throw HornetQMessageBundle.BUNDLE.noDiscoveryGroupFound(dg);
          }
-         return  (ServerLocatorInternal) HornetQClient.createServerLocatorWithHA(dg);
+         return configureLocator((ServerLocatorInternal) HornetQClient.createServerLocatorWithHA(dg));
       }
       else
       {
@@ -133,13 +158,21 @@ public class ScaleDownPolicy
          {
             if (transportConfiguration.getFactoryClassName().equals(InVMConnectorFactory.class.getName()))
             {
-               return (ServerLocatorInternal) HornetQClient.createServerLocatorWithHA(transportConfiguration);
+               return configureLocator((ServerLocatorInternal) HornetQClient.createServerLocatorWithHA(transportConfiguration));
             }
          }
       }
       throw HornetQMessageBundle.BUNDLE.noConfigurationFoundForScaleDown();
    }
 
+   private static ServerLocatorInternal configureLocator(final ServerLocatorInternal locator)
+   {
+      // scale down sends every batch inside a transaction, so a failed send marks it rollback only and
+      // surfaces on commit or prepare; there is no need to wait for each durable send to be persisted
+      locator.setBlockOnDurableSend(false);
+      return locator;
+   }
+
    private static TransportConfiguration[] connectorNameListToArray(final List<String> connectorNames, HornetQServer hornetQServer)
    {
       TransportConfiguration[] tcConfigs = (TransportConfiguration[]) Array.newInstance(TransportConfiguration.class,
@@ -21,6 +21,7 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.hornetq.api.core.HornetQException;
 import org.hornetq.api.core.HornetQExceptionType;
@@ -52,6 +53,8 @@ import org.hornetq.core.server.cluster.Transformer;
 import org.hornetq.core.server.impl.QueueImpl;
 import org.hornetq.core.server.management.Notification;
 import org.hornetq.core.server.management.NotificationService;
+import org.hornetq.core.transaction.Transaction;
+import org.hornetq.core.transaction.impl.TransactionImpl;
 import org.hornetq.spi.core.protocol.RemotingConnection;
 import org.hornetq.utils.FutureLatch;
 import org.hornetq.utils.ReusableLatch;
@@ -120,6 +123,39 @@ public class BridgeImpl implements Bridge, SessionFailureListener, SendAcknowled
 
    private final long maxRetryInterval;
 
+   private final StorageManager storageManager;
+
+   /**
+    * Confirmed references are acknowledged together once their size reaches batchSize bytes, or after batchDelay
+    * milliseconds. -1 acknowledges each reference as soon as it is confirmed.
+    */
+   private final int batchSize;
+
+   private final long batchDelay;
+
+   // confirmed by the target but not acknowledged yet, guarded by itself
+   private final List<MessageReference> confirmedRefs = new ArrayList<MessageReference>();
+
+   private int confirmedSize;
+
+   private ScheduledFuture<?> batchFlusherFuture;
+
+   private final AtomicLong messagesForwarded = new AtomicLong();
+
+   // last time a reference was confirmed or started pending on an idle bridge
+   private volatile long lastProgressTime;
+
+   private static final long RATE_SAMPLE_PERIOD = 1000;
+
+   private ScheduledFuture<?> rateSamplerFuture;
+
+   // only touched by the RateSampler
+   private long rateSampleTime;
+
+   private long rateSampleCount;
+
+   private volatile double forwardRate;
+
    /**
     * Used when there's a scheduled reconnection
     */
@@ -169,7 +205,9 @@ public class BridgeImpl implements Bridge, SessionFailureListener, SendAcknowled
                      final boolean useDuplicateDetection,
                      final String user,
                      final String password,
-                     final StorageManager storageManager)
+                     final StorageManager storageManager,
+                     final int batchSize,
+                     final long batchDelay)
    {
 
       this.reconnectAttempts = reconnectAttempts;
@@ -207,6 +245,12 @@ public class BridgeImpl implements Bridge, SessionFailureListener, SendAcknowled
       this.user = user;
 
       this.password = password;
+
+      this.storageManager = storageManager;
+
+      this.batchSize = batchSize;
+
+      this.batchDelay = batchDelay;
    }
 
    public static final byte[] getDuplicateBytes(final UUID nodeUUID, final long messageID)
@@ -256,6 +300,24 @@ public class BridgeImpl implements Bridge, SessionFailureListener, SendAcknowled
 
       stopping = false;
 
+      if (batchSize > 0 && batchFlusherFuture == null)
+      {
+         batchFlusherFuture = scheduledExecutor.scheduleWithFixedDelay(new BatchFlusher(),
+                                                                       batchDelay,
+                                                                       batchDelay,
+                                                                       TimeUnit.MILLISECONDS);
+      }
+
+      if (rateSamplerFuture == null)
+      {
+         rateSampleTime = System.currentTimeMillis();
+         rateSampleCount = messagesForwarded.get();
+         rateSamplerFuture = scheduledExecutor.scheduleWithFixedDelay(new RateSampler(),
+                                                                      RATE_SAMPLE_PERIOD,
+                                                                      RATE_SAMPLE_PERIOD,
+                                                                      TimeUnit.MILLISECONDS);
+      }
+
       activate();
 
       if (notificationService != null)
@@ -489,12 +551,23 @@ public class BridgeImpl implements Bridge, SessionFailureListener, SendAcknowled
 
             if (ref != null)
             {
-               if (isTrace)
+               lastProgressTime = System.currentTimeMillis();
+
+               messagesForwarded.incrementAndGet();
+
+               if (batchSize > 0)
+               {
+                  addToBatch(ref);
+               }
+               else
                {
-                  HornetQServerLogger.LOGGER.trace(this + " Acking " + ref + " on queue " + ref.getQueue());
+                  if (isTrace)
+                  {
+                     HornetQServerLogger.LOGGER.trace(this + " Acking " + ref + " on queue " + ref.getQueue());
+                  }
+                  ref.getQueue().acknowledge(ref);
+                  pendingAcks.countDown();
                }
-               ref.getQueue().acknowledge(ref);
-               pendingAcks.countDown();
             }
          }
          catch (Exception e)
@@ -504,6 +577,122 @@ public class BridgeImpl implements Bridge, SessionFailureListener, SendAcknowled
       }
    }
 
+   private void addToBatch(final MessageReference ref) throws Exception
+   {
+      final List<MessageReference> batch;
+
+      synchronized (confirmedRefs)
+      {
+         confirmedRefs.add(ref);
+
+         confirmedSize += ref.getMessage().getEncodeSize();
+
+         if (confirmedSize < batchSize)
+         {
+            return;
+         }
+
+         batch = takeBatch();
+      }
+
+      acknowledgeBatch(batch);
+   }
+
+   /**
+    * Acknowledges the references confirmed by the target so far.
+    */
+   private void flushBatch()
+   {
+      final List<MessageReference> batch;
+
+      synchronized (confirmedRefs)
+      {
+         if (confirmedRefs.isEmpty())
+         {
+            return;
+         }
+
+         batch = takeBatch();
+      }
+
+      try
+      {
+         acknowledgeBatch(batch);
+      }
+      catch (Exception e)
+      {
+         HornetQServerLogger.LOGGER.bridgeFailedToAck(e);
+      }
+   }
+
+   // must hold the confirmedRefs lock
+   private List<MessageReference> takeBatch()
+   {
+      final List<MessageReference> batch = new ArrayList<MessageReference>(confirmedRefs);
+
+      confirmedRefs.clear();
+
+      confirmedSize = 0;
+
+      return batch;
+   }
+
+   private void acknowledgeBatch(final List<MessageReference> batch) throws Exception
+   {
+      if (isTrace)
+      {
+         HornetQServerLogger.LOGGER.trace(this + " Acking a batch of " + batch.size() + " references");
+      }
+
+      Transaction tx = new TransactionImpl(storageManager);
+
+      try
+      {
+         for (MessageReference ref : batch)
+         {
+            ref.getQueue().acknowledge(tx, ref);
+         }
+
+         tx.commit();
+      }
+      catch (Exception e)
+      {
+         // the references go back to their queue, the target will drop the duplicates
+         tx.rollback();
+
+         throw e;
+      }
+      finally
+      {
+         pendingAcks.countDown(batch.size());
+      }
+   }
+
+   public long getMessagesForwarded()
+   {
+      return messagesForwarded.get();
+   }
+
+   public int getMessagesPendingAcknowledgement()
+   {
+      return pendingAcks.getCount();
+   }
+
+   public double getForwardRate()
+   {
+      return forwardRate;
+   }
+
+   public long getForwardingLag()
+   {
+      if (refs.isEmpty())
+      {
+         return 0;
+      }
+
+      return Math.max(0, System.currentTimeMillis() - lastProgressTime);
+   }
+
    protected boolean isPlainCoreBridge()
    {
       return true;
@@ -571,6 +760,11 @@ public class BridgeImpl implements Bridge, SessionFailureListener, SendAcknowled
 
          ref.handled();
 
+         if (refs.isEmpty())
+         {
+            lastProgressTime = System.currentTimeMillis();
+         }
+
          refs.add(ref);
 
          final ServerMessage message = beforeForward(ref.getMessage());
@@ -828,6 +1022,9 @@ public class BridgeImpl implements Bridge, SessionFailureListener, SendAcknowled
          }
       }
 
+      // the confirmed references must not be sent again
+      flushBatch();
+
       cancelRefs();
       if (queue != null)
       {
@@ -1171,8 +1368,23 @@ public class BridgeImpl implements Bridge, SessionFailureListener, SendAcknowled
 
                active = false;
 
+               if (batchFlusherFuture != null)
+               {
+                  batchFlusherFuture.cancel(false);
+                  batchFlusherFuture = null;
+               }
+
+               if (rateSamplerFuture != null)
+               {
+                  rateSamplerFuture.cancel(false);
+                  rateSamplerFuture = null;
+               }
+
+               forwardRate = 0;
             }
 
+            flushBatch();
+
 
             internalCancelReferences();
 
@@ -1217,6 +1429,33 @@ public class BridgeImpl implements Bridge, SessionFailureListener, SendAcknowled
       }
    }
 
+   private class BatchFlusher implements Runnable
+   {
+      public void run()
+      {
+         flushBatch();
+      }
+   }
+
+   private class RateSampler implements Runnable
+   {
+      public void run()
+      {
+         final long now = System.currentTimeMillis();
+
+         final long forwarded = messagesForwarded.get();
+
+         if (now > rateSampleTime)
+         {
+            forwardRate = (forwarded - rateSampleCount) * 1000d / (now - rateSampleTime);
+         }
+
+         rateSampleTime = now;
+
+         rateSampleCount = forwarded;
+      }
+   }
+
    private class PauseRunnable implements Runnable
    {
       public void run()
@@ -1237,6 +1476,8 @@ public class BridgeImpl implements Bridge, SessionFailureListener, SendAcknowled
                active = false;
             }
 
+            flushBatch();
+
             internalCancelReferences();
 
             HornetQServerLogger.LOGGER.bridgePaused(name);
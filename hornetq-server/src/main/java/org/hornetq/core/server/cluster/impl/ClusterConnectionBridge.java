@@ -120,7 +120,9 @@ public class ClusterConnectionBridge extends BridgeImpl
             useDuplicateDetection,
             user,
             password,
-            storageManager);
+            storageManager,
+            -1,
+            0);
 
       this.discoveryLocator = discoveryLocator;
 
@@ -265,6 +267,8 @@ public class ClusterConnectionBridge extends BridgeImpl
                                                    CoreNotificationType.PROPOSAL_RESPONSE +
                                                    "','" +
                                                    CoreNotificationType.UNPROPOSAL +
+                                                   "','" +
+                                                   CoreNotificationType.QUEUE_LOAD +
                                                    "') AND " +
                                                    ManagementHelper.HDR_DISTANCE +
                                                    "<" +
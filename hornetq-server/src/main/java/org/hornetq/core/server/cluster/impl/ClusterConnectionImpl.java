@@ -23,6 +23,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.hornetq.api.core.DiscoveryGroupConfiguration;
@@ -42,8 +43,10 @@ import org.hornetq.core.client.impl.ServerLocatorInternal;
 import org.hornetq.core.client.impl.Topology;
 import org.hornetq.core.client.impl.TopologyMemberImpl;
 import org.hornetq.core.postoffice.Binding;
+import org.hornetq.core.postoffice.BindingType;
 import org.hornetq.core.postoffice.Bindings;
 import org.hornetq.core.postoffice.PostOffice;
+import org.hornetq.core.postoffice.impl.LocalQueueBinding;
 import org.hornetq.core.postoffice.impl.PostOfficeImpl;
 import org.hornetq.core.server.HornetQMessageBundle;
 import org.hornetq.core.server.HornetQServer;
@@ -163,6 +166,14 @@ public final class ClusterConnectionImpl implements ClusterConnection, AfterConn
 
    private final int clusterNotificationAttempts;
 
+   private final long loadReportPeriod;
+
+   private final double loadSmoothingFactor;
+
+   private final long loadStaleTimeout;
+
+   private ScheduledFuture<?> loadReporterFuture;
+
    public ClusterConnectionImpl(final ClusterManager manager,
                                 final TransportConfiguration[] staticTranspConfigs,
                                 final TransportConfiguration connector,
@@ -192,7 +203,10 @@ public final class ClusterConnectionImpl implements ClusterConnection, AfterConn
                                 final String clusterPassword,
                                 final boolean allowDirectConnectionsOnly,
                                 final long clusterNotificationInterval,
-                                final int clusterNotificationAttempts) throws Exception
+                                final int clusterNotificationAttempts,
+                                final long loadReportPeriod,
+                                final double loadSmoothingFactor,
+                                final long loadStaleTimeout) throws Exception
    {
       this.nodeManager = nodeManager;
 
@@ -228,6 +242,12 @@ public final class ClusterConnectionImpl implements ClusterConnection, AfterConn
 
       this.clusterNotificationAttempts = clusterNotificationAttempts;
 
+      this.loadReportPeriod = loadReportPeriod;
+
+      this.loadSmoothingFactor = loadSmoothingFactor;
+
+      this.loadStaleTimeout = loadStaleTimeout;
+
       this.executor = executorFactory.getExecutor();
 
       this.topology.setExecutor(executor);
@@ -299,7 +319,10 @@ public final class ClusterConnectionImpl implements ClusterConnection, AfterConn
                                 final String clusterPassword,
                                 final boolean allowDirectConnectionsOnly,
                                 final long clusterNotificationInterval,
-                                final int clusterNotificationAttempts) throws Exception
+                                final int clusterNotificationAttempts,
+                                final long loadReportPeriod,
+                                final double loadSmoothingFactor,
+                                final long loadStaleTimeout) throws Exception
    {
       this.nodeManager = nodeManager;
 
@@ -341,6 +364,12 @@ public final class ClusterConnectionImpl implements ClusterConnection, AfterConn
 
       this.clusterNotificationAttempts = clusterNotificationAttempts;
 
+      this.loadReportPeriod = loadReportPeriod;
+
+      this.loadSmoothingFactor = loadSmoothingFactor;
+
+      this.loadStaleTimeout = loadStaleTimeout;
+
       this.executor = executorFactory.getExecutor();
 
       this.topology.setExecutor(executor);
@@ -404,6 +433,15 @@ public final class ClusterConnectionImpl implements ClusterConnection, AfterConn
          HornetQServerLogger.LOGGER.debug(this + "::stopping ClusterConnection");
       }
 
+      synchronized (this)
+      {
+         if (loadReporterFuture != null)
+         {
+            loadReporterFuture.cancel(false);
+            loadReporterFuture = null;
+         }
+      }
+
       if (serverLocator != null)
       {
          serverLocator.removeClusterTopologyListener(this);
@@ -607,6 +645,11 @@ public final class ClusterConnectionImpl implements ClusterConnection, AfterConn
       liveNotifier.updateAsLive();
       liveNotifier.schedule();
 
+      if (loadReportPeriod > 0 && loadReporterFuture == null)
+      {
+         loadReporterFuture = scheduledExecutor.scheduleWithFixedDelay(new LoadReporter(), loadReportPeriod, loadReportPeriod, TimeUnit.MILLISECONDS);
+      }
+
       serverLocator = clusterConnector.createServerLocator();
 
       if (serverLocator != null)
@@ -673,6 +716,11 @@ public final class ClusterConnectionImpl implements ClusterConnection, AfterConn
       return connector;
    }
 
+   public long getCallTimeout()
+   {
+      return callTimeout;
+   }
+
    // ClusterTopologyListener implementation ------------------------------------------------------------------
 
    public void nodeDown(final long eventUID, final String nodeID)
@@ -1174,6 +1222,11 @@ public final class ClusterConnectionImpl implements ClusterConnection, AfterConn
                doUnProposalReceived(message);
                break;
             }
+            case QUEUE_LOAD:
+            {
+               doQueueLoadReceived(message);
+               break;
+            }
             default:
             {
                throw HornetQMessageBundle.BUNDLE.invalidType(ntype);
@@ -1392,6 +1445,8 @@ public final class ClusterConnectionImpl implements ClusterConnection, AfterConn
 
          theBindings.setRouteWhenNoConsumers(routeWhenNoConsumers);
 
+         theBindings.setLoadAwareRouting(loadReportPeriod > 0, loadReportPeriod, loadStaleTimeout);
+
       }
 
       private void doBindingRemoved(final ClientMessage message) throws Exception
@@ -1505,6 +1560,60 @@ public final class ClusterConnectionImpl implements ClusterConnection, AfterConn
          managementService.sendNotification(notification);
       }
 
+      private synchronized void doQueueLoadReceived(final ClientMessage message) throws Exception
+      {
+         if (isTrace)
+         {
+            HornetQServerLogger.LOGGER.trace(ClusterConnectionImpl.this + " Queue load " + message);
+         }
+         if (!message.containsProperty(ManagementHelper.HDR_DISTANCE))
+         {
+            throw new IllegalStateException("distance is null");
+         }
+
+         if (!message.containsProperty(ManagementHelper.HDR_CLUSTER_NAME))
+         {
+            throw new IllegalStateException("clusterName is null");
+         }
+
+         Integer distance = message.getIntProperty(ManagementHelper.HDR_DISTANCE);
+
+         SimpleString clusterName = message.getSimpleStringProperty(ManagementHelper.HDR_CLUSTER_NAME);
+
+         long messageCount = message.getLongProperty(ManagementHelper.HDR_MESSAGE_COUNT);
+
+         double consumeRate = message.getDoubleProperty(ManagementHelper.HDR_CONSUME_RATE);
+
+         RemoteQueueBinding binding = bindings.get(clusterName);
+
+         if (binding == null)
+         {
+            // the load of a queue isn't worth failing for, the binding may have just been removed
+            return;
+         }
+
+         binding.getLoad().update(messageCount, consumeRate, loadSmoothingFactor, System.currentTimeMillis());
+
+         // Need to propagate the queue load
+         TypedProperties props = new TypedProperties();
+
+         props.putSimpleStringProperty(ManagementHelper.HDR_ADDRESS, binding.getAddress());
+
+         props.putSimpleStringProperty(ManagementHelper.HDR_CLUSTER_NAME, clusterName);
+
+         props.putSimpleStringProperty(ManagementHelper.HDR_ROUTING_NAME, binding.getRoutingName());
+
+         props.putIntProperty(ManagementHelper.HDR_DISTANCE, distance + 1);
+
+         props.putLongProperty(ManagementHelper.HDR_MESSAGE_COUNT, messageCount);
+
+         props.putDoubleProperty(ManagementHelper.HDR_CONSUME_RATE, consumeRate);
+
+         Notification notification = new Notification(null, CoreNotificationType.QUEUE_LOAD, props);
+
+         managementService.sendNotification(notification);
+      }
+
       private synchronized void doConsumerClosed(final ClientMessage message) throws Exception
       {
          if (HornetQServerLogger.LOGGER.isTraceEnabled())
@@ -1694,6 +1803,110 @@ public final class ClusterConnectionImpl implements ClusterConnection, AfterConn
       }
    }
 
+   public boolean isLoadReported(final SimpleString queueAddress)
+   {
+      return loadReportPeriod > 0 && matchesAddress(address.toString(), queueAddress.toString());
+   }
+
+   /**
+    * Matches an address against a cluster connection address, a comma separated list of address
+    * prefixes where those starting with {@code !} are excluded. This is the same matching as the
+    * notification selector of {@link ClusterConnectionBridge#createSelectorFromAddress(String)}, so the
+    * loads are reported for the queues whose bindings are propagated.
+    */
+   public static boolean matchesAddress(final String clusterAddress, final String queueAddress)
+   {
+      boolean included = false;
+
+      boolean hasIncludes = false;
+
+      for (String part : clusterAddress.split(","))
+      {
+         if (part.startsWith("!"))
+         {
+            if (queueAddress.startsWith(part.substring(1)))
+            {
+               return false;
+            }
+         }
+         else
+         {
+            hasIncludes = true;
+
+            included |= queueAddress.startsWith(part);
+         }
+      }
+
+      return included || !hasIncludes;
+   }
+
+   /**
+    * Samples the local queues bound to the cluster connection address and advertises their load to
+    * the other nodes, through the same notifications as the bindings and consumers. A queue matching
+    * several cluster connections is only sampled by the one the {@link ClusterManager#isLoadReporter}
+    * picks, so its acknowledgement counter is read once per period.
+    */
+   private final class LoadReporter implements Runnable
+   {
+      public void run()
+      {
+         if (!started || stopping || records.isEmpty())
+         {
+            return;
+         }
+
+         try
+         {
+            final long now = System.currentTimeMillis();
+
+            for (Binding binding : postOffice.getAllBindings().values())
+            {
+               if (binding.getType() != BindingType.LOCAL_QUEUE ||
+                  !manager.isLoadReporter(ClusterConnectionImpl.this, binding.getAddress()))
+               {
+                  continue;
+               }
+
+               LocalQueueBinding queueBinding = (LocalQueueBinding) binding;
+
+               Queue theQueue = queueBinding.getQueue();
+
+               long messageCount = theQueue.getMessageCount();
+
+               double consumeRate = queueBinding.getLoad().sample(messageCount,
+                                                                  theQueue.getMessagesAcknowledged(),
+                                                                  loadSmoothingFactor,
+                                                                  now);
+
+               if (consumeRate < 0)
+               {
+                  continue;
+               }
+
+               TypedProperties props = new TypedProperties();
+
+               props.putSimpleStringProperty(ManagementHelper.HDR_ADDRESS, binding.getAddress());
+
+               props.putSimpleStringProperty(ManagementHelper.HDR_CLUSTER_NAME, binding.getClusterName());
+
+               props.putSimpleStringProperty(ManagementHelper.HDR_ROUTING_NAME, binding.getRoutingName());
+
+               props.putIntProperty(ManagementHelper.HDR_DISTANCE, binding.getDistance());
+
+               props.putLongProperty(ManagementHelper.HDR_MESSAGE_COUNT, messageCount);
+
+               props.putDoubleProperty(ManagementHelper.HDR_CONSUME_RATE, consumeRate);
+
+               managementService.sendNotification(new Notification(null, CoreNotificationType.QUEUE_LOAD, props));
+            }
+         }
+         catch (Exception e)
+         {
+            HornetQServerLogger.LOGGER.errorSendingQueueLoads(e, name);
+         }
+      }
+   }
+
    private final class LiveNotifier implements Runnable
    {
       int notificationsSent = 0;
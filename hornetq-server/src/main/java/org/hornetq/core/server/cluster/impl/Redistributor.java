@@ -15,6 +15,8 @@ package org.hornetq.core.server.cluster.impl;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.hornetq.api.core.Message;
 import org.hornetq.api.core.Pair;
@@ -35,6 +37,11 @@ import org.hornetq.utils.ReusableLatch;
 
 /**
  * A Redistributor
+ * <p/>
+ * Moves the messages of a queue without local consumers to other nodes of the cluster. Up to
+ * batchSize messages are moved in a single transaction, which is committed when it is full or at the
+ * end of the current delivery run. The next batches are moved while the storage completes the
+ * previous ones, up to {@link #MAX_PENDING_BATCHES}.
  *
  * @author <a href="mailto:tim.fox@jboss.com">Tim Fox</a>
  *         <p/>
@@ -42,30 +49,84 @@ import org.hornetq.utils.ReusableLatch;
  */
 public class Redistributor implements Consumer
 {
+   // committed batches the storage has not completed yet before the redistributor waits
+   private static final int MAX_PENDING_BATCHES = 2;
+
    private boolean active;
 
+   /**
+    * Whether the redistributor stopped itself, until {@link #resume()} is called
+    */
+   private boolean paused;
+
    private final StorageManager storageManager;
 
    private final PostOffice postOffice;
 
    private final Executor executor;
 
+   private final ScheduledExecutorService scheduledExecutor;
+
    private final int batchSize;
 
+   private final int maxRate;
+
    private final Queue queue;
 
-   private int count;
+   /**
+    * The transaction moving the current batch, {@code null} if no message was moved since the last
+    * commit.
+    */
+   private Transaction batchTx;
+
+   private int batchCount;
+
+   private int pendingBatches;
+
+   private boolean largeMessageInProgress;
+
+   private long rateWindowStart;
+
+   private int rateWindowCount;
 
    // a Flush executor here is happening inside another executor.
    // what may cause issues under load. Say you are running out of executors for cases where you don't need to wait at all.
    // So, instead of using a future we will use a plain ReusableLatch here
    private ReusableLatch pendingRuns = new ReusableLatch();
 
+   private final Runnable commitRunner = new Runnable()
+   {
+      public void run()
+      {
+         Transaction tx;
+         synchronized (Redistributor.this)
+         {
+            tx = takeBatch();
+         }
+         // committing acknowledges the messages on the queue, which must not be locked after the redistributor
+         commit(tx);
+      }
+   };
+
    public Redistributor(final Queue queue,
                         final StorageManager storageManager,
                         final PostOffice postOffice,
                         final Executor executor,
                         final int batchSize)
+   {
+      this(queue, storageManager, postOffice, executor, null, batchSize, -1);
+   }
+
+   /**
+    * @param maxRate maximum number of messages moved per second, -1 for no limit
+    */
+   public Redistributor(final Queue queue,
+                        final StorageManager storageManager,
+                        final PostOffice postOffice,
+                        final Executor executor,
+                        final ScheduledExecutorService scheduledExecutor,
+                        final int batchSize,
+                        final int maxRate)
    {
       this.queue = queue;
 
@@ -75,7 +136,11 @@ public class Redistributor implements Consumer
 
       this.executor = executor;
 
+      this.scheduledExecutor = scheduledExecutor;
+
       this.batchSize = batchSize;
+
+      this.maxRate = scheduledExecutor == null ? -1 : maxRate;
    }
 
    public Filter getFilter()
@@ -108,6 +173,10 @@ public class Redistributor implements Consumer
    {
       active = false;
 
+      paused = false;
+
+      commit(takeBatch());
+
       boolean ok = flushExecutor();
 
       if (!ok)
@@ -118,6 +187,8 @@ public class Redistributor implements Consumer
 
    public synchronized void close()
    {
+      commit(takeBatch());
+
       boolean ok = flushExecutor();
 
       if (!ok)
@@ -126,6 +197,8 @@ public class Redistributor implements Consumer
       }
 
       active = false;
+
+      paused = false;
    }
 
    private boolean flushExecutor()
@@ -154,64 +227,135 @@ public class Redistributor implements Consumer
          return HandleStatus.NO_MATCH;
       }
 
-      final Transaction tx = new TransactionImpl(storageManager);
+      if (largeMessageInProgress || pendingBatches >= MAX_PENDING_BATCHES)
+      {
+         // resumed once the large message is copied or a batch is completed
+         pause();
+         return HandleStatus.BUSY;
+      }
 
-      final Pair<RoutingContext, ServerMessage> routingInfo = postOffice.redistribute(reference.getMessage(), queue, tx);
+      if (reference.getMessage().isLargeMessage())
+      {
+         // the rate is acquired before copying the file of the message
+         if (!acquireRate())
+         {
+            return HandleStatus.BUSY;
+         }
+
+         // keep the order of the messages
+         commit(takeBatch());
+
+         return handleLargeMessage(reference);
+      }
+
+      // the rate is acquired before routing the message, as routing already copies it
+      if (!acquireRate())
+      {
+         return HandleStatus.BUSY;
+      }
+
+      if (batchTx == null)
+      {
+         batchTx = new TransactionImpl(storageManager);
+
+         // commits whatever was moved by the current delivery run
+         executor.execute(commitRunner);
+      }
+
+      final Pair<RoutingContext, ServerMessage> routingInfo = postOffice.redistribute(reference.getMessage(), queue, batchTx);
 
       if (routingInfo == null)
       {
+         releaseRate();
+
          return HandleStatus.BUSY;
       }
 
-      if (!reference.getMessage().isLargeMessage())
+      routingInfo.getB().finishCopy();
+
+      postOffice.processRoute(routingInfo.getB(), routingInfo.getA(), false);
+
+      reference.handled();
+
+      queue.acknowledge(batchTx, reference);
+
+      if (++batchCount >= batchSize)
       {
-         routingInfo.getB().finishCopy();
+         commit(takeBatch());
+
+         // We continue the next batch on a different thread, so as not to keep the delivery thread busy for a very
+         // long time in the case there are many messages in the queue
+         pause();
+
+         executor.execute(new Prompter());
+      }
+
+      return HandleStatus.HANDLED;
+   }
+
+   private HandleStatus handleLargeMessage(final MessageReference reference) throws Exception
+   {
+      final Transaction tx = new TransactionImpl(storageManager);
+
+      final Pair<RoutingContext, ServerMessage> routingInfo = postOffice.redistribute(reference.getMessage(), queue, tx);
 
-         postOffice.processRoute(routingInfo.getB(), routingInfo.getA(), false);
+      if (routingInfo == null)
+      {
+         releaseRate();
 
-         ackRedistribution(reference, tx);
+         return HandleStatus.BUSY;
       }
-      else
+
+      largeMessageInProgress = true;
+
+      pause();
+
+      executor.execute(new Runnable()
       {
-         active = false;
-         executor.execute(new Runnable()
+         public void run()
          {
-            public void run()
+            try
             {
-               try
-               {
-                  routingInfo.getB().finishCopy();
+               routingInfo.getB().finishCopy();
+
+               postOffice.processRoute(routingInfo.getB(), routingInfo.getA(), false);
 
-                  postOffice.processRoute(routingInfo.getB(), routingInfo.getA(), false);
+               reference.handled();
 
-                  ackRedistribution(reference, tx);
+               queue.acknowledge(tx, reference);
 
-                  synchronized (Redistributor.this)
-                  {
-                     active = true;
+               synchronized (Redistributor.this)
+               {
+                  pendingBatches++;
+               }
 
-                     count++;
+               commit(tx);
+            }
+            catch (Exception e)
+            {
+               HornetQServerLogger.LOGGER.warn(e.getMessage(), e);
 
-                     queue.deliverAsync();
-                  }
+               try
+               {
+                  tx.rollback();
                }
-               catch (Exception e)
+               catch (Exception e2)
                {
-                  try
-                  {
-                     tx.rollback();
-                  }
-                  catch (Exception e2)
-                  {
-                     // Nothing much we can do now
-
-                     // TODO log
-                     HornetQServerLogger.LOGGER.warn(e2.getMessage(), e2);
-                  }
+                  // Nothing much we can do now
+                  HornetQServerLogger.LOGGER.warn(e2.getMessage(), e2);
                }
             }
-         });
-      }
+            finally
+            {
+               synchronized (Redistributor.this)
+               {
+                  largeMessageInProgress = false;
+
+                  resume();
+               }
+            }
+         }
+      });
 
       return HandleStatus.HANDLED;
    }
@@ -241,14 +385,59 @@ public class Redistributor implements Consumer
       });
    }
 
+   /**
+    * Must hold the lock.
+    *
+    * @return the transaction of the current batch, counted as pending, or {@code null} if it is empty
+    */
+   private Transaction takeBatch()
+   {
+      final Transaction tx = batchTx;
+
+      batchTx = null;
+
+      if (batchCount == 0)
+      {
+         return null;
+      }
+
+      batchCount = 0;
+
+      pendingBatches++;
+
+      return tx;
+   }
 
-   private void ackRedistribution(final MessageReference reference, final Transaction tx) throws Exception
+   private void commit(final Transaction tx)
    {
-      reference.handled();
+      if (tx == null)
+      {
+         return;
+      }
+
+      try
+      {
+         tx.commit();
+      }
+      catch (Exception e)
+      {
+         HornetQServerLogger.LOGGER.warn(e.getMessage(), e);
+
+         // cancels the references of the batch back to the queue
+         try
+         {
+            tx.rollback();
+         }
+         catch (Exception e2)
+         {
+            // Nothing much we can do now
+            HornetQServerLogger.LOGGER.warn(e2.getMessage(), e2);
+         }
 
-      queue.acknowledge(tx, reference);
+         batchDone();
 
-      tx.commit();
+         return;
+      }
 
       storageManager.afterCompleteOperations(new IOAsyncTask()
       {
@@ -256,32 +445,87 @@ public class Redistributor implements Consumer
          public void onError(final int errorCode, final String errorMessage)
          {
             HornetQServerLogger.LOGGER.ioErrorRedistributing(errorCode, errorMessage);
+
+            batchDone();
          }
 
          public void done()
          {
-            execPrompter();
+            batchDone();
          }
       });
    }
 
-   private void execPrompter()
+   private synchronized void batchDone()
+   {
+      pendingBatches--;
+
+      resume();
+   }
+
+   /**
+    * Must hold the lock.
+    *
+    * @return whether a message may be moved now, or the redistributor is paused until it may
+    */
+   private boolean acquireRate()
    {
-      count++;
+      if (maxRate <= 0)
+      {
+         return true;
+      }
 
-      // We use >= as the large message redistribution will set count to max_int
-      // so we are use the prompter will get called
-      if (count >= batchSize)
+      final long now = System.currentTimeMillis();
+
+      if (now - rateWindowStart >= 1000)
       {
-         // We continue the next batch on a different thread, so as not to keep the delivery thread busy for a very
-         // long time in the case there are many messages in the queue
-         active = false;
+         rateWindowStart = now;
 
-         executor.execute(new Prompter());
+         rateWindowCount = 0;
+      }
+
+      if (rateWindowCount < maxRate)
+      {
+         rateWindowCount++;
 
-         count = 0;
+         return true;
       }
 
+      pause();
+
+      scheduledExecutor.schedule(new Prompter(), rateWindowStart + 1000 - now, TimeUnit.MILLISECONDS);
+
+      return false;
+   }
+
+   // must hold the lock, gives back the rate acquired for a message which was not moved
+   private void releaseRate()
+   {
+      if (maxRate > 0 && rateWindowCount > 0)
+      {
+         rateWindowCount--;
+      }
+   }
+
+   // must hold the lock
+   private void pause()
+   {
+      active = false;
+
+      paused = true;
+   }
+
+   // must hold the lock
+   private void resume()
+   {
+      if (paused)
+      {
+         paused = false;
+
+         active = true;
+
+         queue.deliverAsync();
+      }
    }
 
    private class Prompter implements Runnable
@@ -290,9 +534,7 @@ public class Redistributor implements Consumer
       {
          synchronized (Redistributor.this)
          {
-            active = true;
-
-            queue.deliverAsync();
+            resume();
          }
       }
    }
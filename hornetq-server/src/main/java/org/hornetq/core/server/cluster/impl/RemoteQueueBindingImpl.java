@@ -13,6 +13,7 @@
 package org.hornetq.core.server.cluster.impl;
 
 import java.nio.ByteBuffer;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -24,6 +25,7 @@ import org.hornetq.core.filter.Filter;
 import org.hornetq.core.filter.impl.FilterImpl;
 import org.hornetq.core.message.impl.MessageImpl;
 import org.hornetq.core.postoffice.BindingType;
+import org.hornetq.core.postoffice.QueueLoad;
 import org.hornetq.core.server.Bindable;
 import org.hornetq.core.server.HornetQServerLogger;
 import org.hornetq.core.server.Queue;
@@ -54,11 +56,8 @@ public class RemoteQueueBindingImpl implements RemoteQueueBinding
 
    private final Filter queueFilter;
 
-   private final Set<Filter> filters = new HashSet<Filter>();
-
-   private final Map<SimpleString, Integer> filterCounts = new HashMap<SimpleString, Integer>();
-
-   private int consumerCount;
+   // replaced on every change of the remote consumers so routing reads it without locking
+   private volatile ConsumerFilters consumerFilters = ConsumerFilters.EMPTY;
 
    private final SimpleString idsHeaderName;
 
@@ -68,6 +67,8 @@ public class RemoteQueueBindingImpl implements RemoteQueueBinding
 
    private boolean connected = true;
 
+   private final QueueLoad load = new QueueLoad();
+
    public RemoteQueueBindingImpl(final long id,
                                  final SimpleString address,
                                  final SimpleString uniqueName,
@@ -117,6 +118,11 @@ public class RemoteQueueBindingImpl implements RemoteQueueBinding
       return storeAndForwardQueue;
    }
 
+   public QueueLoad getLoad()
+   {
+      return load;
+   }
+
    public SimpleString getRoutingName()
    {
       return routingName;
@@ -152,25 +158,25 @@ public class RemoteQueueBindingImpl implements RemoteQueueBinding
       return distance;
    }
 
-   public synchronized boolean isHighAcceptPriority(final ServerMessage message)
+   public boolean isHighAcceptPriority(final ServerMessage message)
    {
-      if (consumerCount == 0)
+      ConsumerFilters current = consumerFilters;
+
+      if (current.consumerCount == 0)
       {
          return false;
       }
 
-      if (filters.isEmpty())
+      if (current.unfilteredCount > 0 || current.matchers.length == 0)
       {
          return true;
       }
-      else
+
+      for (Filter filter : current.matchers)
       {
-         for (Filter filter : filters)
+         if (filter.match(message))
          {
-            if (filter.match(message))
-            {
-               return true;
-            }
+            return true;
          }
       }
 
@@ -214,30 +220,54 @@ public class RemoteQueueBindingImpl implements RemoteQueueBinding
 
    public synchronized void addConsumer(final SimpleString filterString) throws Exception
    {
+      ConsumerFilters current = consumerFilters;
+
+      Map<SimpleString, Integer> filterCounts = current.filterCounts;
+
+      Map<SimpleString, Filter> filters = current.filters;
+
+      int unfilteredCount = current.unfilteredCount;
+
       if (filterString != null)
       {
          // There can actually be many consumers on the same queue with the same filter, so we need to maintain a ref
          // count
 
+         filterCounts = new HashMap<SimpleString, Integer>(filterCounts);
+
          Integer i = filterCounts.get(filterString);
 
          if (i == null)
          {
             filterCounts.put(filterString, 1);
 
-            filters.add(FilterImpl.createFilter(filterString));
+            filters = new HashMap<SimpleString, Filter>(filters);
+
+            filters.put(filterString, FilterImpl.createFilter(filterString));
          }
          else
          {
             filterCounts.put(filterString, i + 1);
          }
       }
+      else
+      {
+         unfilteredCount++;
+      }
 
-      consumerCount++;
+      consumerFilters = new ConsumerFilters(current.consumerCount + 1, unfilteredCount, filterCounts, filters);
    }
 
    public synchronized void removeConsumer(final SimpleString filterString) throws Exception
    {
+      ConsumerFilters current = consumerFilters;
+
+      Map<SimpleString, Integer> filterCounts = current.filterCounts;
+
+      Map<SimpleString, Filter> filters = current.filters;
+
+      int unfilteredCount = current.unfilteredCount;
+
       if (filterString != null)
       {
          Integer i = filterCounts.get(filterString);
@@ -246,11 +276,15 @@ public class RemoteQueueBindingImpl implements RemoteQueueBinding
          {
             int ii = i - 1;
 
+            filterCounts = new HashMap<SimpleString, Integer>(filterCounts);
+
             if (ii == 0)
             {
                filterCounts.remove(filterString);
 
-               filters.remove(FilterImpl.createFilter(filterString));
+               filters = new HashMap<SimpleString, Filter>(filters);
+
+               filters.remove(filterString);
             }
             else
             {
@@ -258,21 +292,23 @@ public class RemoteQueueBindingImpl implements RemoteQueueBinding
             }
          }
       }
+      else if (unfilteredCount > 0)
+      {
+         unfilteredCount--;
+      }
 
-      consumerCount--;
+      consumerFilters = new ConsumerFilters(current.consumerCount - 1, unfilteredCount, filterCounts, filters);
    }
 
    @Override
-   public void reset()
+   public synchronized void reset()
    {
-      consumerCount = 0;
-      filterCounts.clear();
-      filters.clear();
+      consumerFilters = ConsumerFilters.EMPTY;
    }
 
-   public synchronized int consumerCount()
+   public int consumerCount()
    {
-      return consumerCount;
+      return consumerFilters.consumerCount;
    }
 
    @Override
@@ -282,11 +318,11 @@ public class RemoteQueueBindingImpl implements RemoteQueueBinding
             (connected ? "connected" : "disconnected")
             + ")[address=" + address +
              ", consumerCount=" +
-             consumerCount +
+             consumerFilters.consumerCount +
              ", distance=" +
              distance +
              ", filters=" +
-             filters +
+             getFilters() +
              ", id=" +
              id +
              ", idsHeaderName=" +
@@ -334,7 +370,7 @@ public class RemoteQueueBindingImpl implements RemoteQueueBinding
 
    public Set<Filter> getFilters()
    {
-      return filters;
+      return new HashSet<Filter>(consumerFilters.filters.values());
    }
 
    public void close() throws Exception
@@ -380,4 +416,39 @@ public class RemoteQueueBindingImpl implements RemoteQueueBinding
    {
       return  remoteQueueID;
    }
+
+   /**
+    * The remote consumers of the binding. Never modified once created.
+    */
+   private static final class ConsumerFilters
+   {
+      static final ConsumerFilters EMPTY = new ConsumerFilters(0,
+                                                               0,
+                                                               Collections.<SimpleString, Integer>emptyMap(),
+                                                               Collections.<SimpleString, Filter>emptyMap());
+
+      final int consumerCount;
+
+      // the consumers without filter, any message is accepted while there is one
+      final int unfilteredCount;
+
+      final Map<SimpleString, Integer> filterCounts;
+
+      // the filters are only compiled once per filter string
+      final Map<SimpleString, Filter> filters;
+
+      final Filter[] matchers;
+
+      ConsumerFilters(final int consumerCount,
+                      final int unfilteredCount,
+                      final Map<SimpleString, Integer> filterCounts,
+                      final Map<SimpleString, Filter> filters)
+      {
+         this.consumerCount = consumerCount;
+         this.unfilteredCount = unfilteredCount;
+         this.filterCounts = filterCounts;
+         this.filters = filters;
+         this.matchers = filters.values().toArray(new Filter[filters.size()]);
+      }
+   }
 }
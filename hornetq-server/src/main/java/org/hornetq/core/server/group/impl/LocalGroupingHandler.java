@@ -18,6 +18,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -25,6 +26,7 @@ import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
+import org.hornetq.api.core.Pair;
 import org.hornetq.api.core.SimpleString;
 import org.hornetq.api.core.management.CoreNotificationType;
 import org.hornetq.api.core.management.ManagementHelper;
@@ -75,6 +77,20 @@ public final class LocalGroupingHandler extends GroupHandlingAbstract
 
    private ScheduledFuture reaperFuture;
 
+   // the new bindings waiting to be stored, with what to do once stored
+   private final List<Pair<GroupBinding, Runnable>> pendingBindings = new ArrayList<Pair<GroupBinding, Runnable>>();
+
+   // guarded by pendingBindings
+   private boolean storing;
+
+   private final Runnable bindingsStorer = new Runnable()
+   {
+      public void run()
+      {
+         storePendingBindings(false);
+      }
+   };
+
    private long reaperPeriod;
 
    public LocalGroupingHandler(final ExecutorFactory executorFactory,
@@ -103,65 +119,194 @@ public final class LocalGroupingHandler extends GroupHandlingAbstract
 
    public Response propose(final Proposal proposal) throws Exception
    {
-      OperationContext originalCtx = storageManager.getContext();
+      return propose(proposal, false);
+   }
 
+   /**
+    * @param remote when {@code true}, a new binding is answered with {@link #sendProposalResponse}
+    *               once it's stored and {@code null} is returned, so the cluster connection isn't
+    *               held while storing it
+    */
+   private Response propose(final Proposal proposal, final boolean remote) throws Exception
+   {
+      if (proposal.getClusterName() == null)
+      {
+         GroupBinding original = map.get(proposal.getGroupId());
+         if (original != null)
+         {
+            original.use();
+            return new Response(proposal.getGroupId(), original.getClusterName());
+         }
+         else
+         {
+            return null;
+         }
+      }
+
+      GroupBinding groupBinding = null;
+      lock.lock();
       try
       {
-         // the waitCompletion cannot be done inside an ordered executor or we would starve when the thread pool is full
-         storageManager.setContext(storageManager.newSingleThreadContext());
+         groupBinding = map.get(proposal.getGroupId());
+         if (groupBinding != null)
+         {
+            groupBinding.use();
+            // Returning with an alternate cluster name, as it's been already grouped
+            return new Response(groupBinding.getGroupId(), proposal.getClusterName(), groupBinding.getClusterName());
+         }
+         else
+         {
+            groupBinding = new GroupBinding(proposal.getGroupId(), proposal.getClusterName());
+            groupBinding.setId(storageManager.generateID());
+            List<GroupBinding> newList = new ArrayList<GroupBinding>();
+            List<GroupBinding> oldList = groupMap.putIfAbsent(groupBinding.getClusterName(), newList);
+            if (oldList != null)
+            {
+               newList = oldList;
+            }
+            newList.add(groupBinding);
+            map.put(groupBinding.getGroupId(), groupBinding);
+         }
+      }
+      finally
+      {
+         lock.unlock();
+      }
+
+      // Storing the record outside of any locks
+      final Response response = new Response(groupBinding.getGroupId(), groupBinding.getClusterName());
 
-         if (proposal.getClusterName() == null)
+      if (remote)
+      {
+         store(groupBinding, new Runnable()
          {
-            GroupBinding original = map.get(proposal.getGroupId());
-            if (original != null)
+            public void run()
             {
-               original.use();
-               return new Response(proposal.getGroupId(), original.getClusterName());
+               try
+               {
+                  sendProposalResponse(response, 0);
+               }
+               catch (Exception e)
+               {
+                  HornetQServerLogger.LOGGER.errorHandlingMessage(e);
+               }
             }
-            else
+         }, false);
+      }
+      else
+      {
+         final CountDownLatch stored = new CountDownLatch(1);
+
+         if (!store(groupBinding, new Runnable()
+         {
+            public void run()
             {
-               return null;
+               stored.countDown();
+            }
+         }, true))
+         {
+            // another thread is storing the bindings, ours will be in its next batch
+            if (!stored.await(timeout, TimeUnit.MILLISECONDS))
+            {
+               HornetQServerLogger.LOGGER.groupBindingNotStoredInTime(timeout, groupBinding.getGroupId(), groupBinding.getClusterName());
             }
          }
+      }
 
-         boolean addRecord = false;
+      return remote ? null : response;
+   }
 
-         GroupBinding groupBinding = null;
-         lock.lock();
-         try
+   /**
+    * Stores a new binding, the bindings arriving while a batch is stored are stored together in the
+    * next one so they share a single sync of the journal.
+    *
+    * @param onStored called once the binding is stored
+    * @param inline   whether the calling thread stores a batch if none is being stored, instead of
+    *                 the executor. It only stores that one batch and leaves the bindings arriving
+    *                 meanwhile to the executor
+    * @return {@code true} if the binding has been stored by the calling thread
+    */
+   private boolean store(final GroupBinding groupBinding, final Runnable onStored, final boolean inline)
+   {
+      synchronized (pendingBindings)
+      {
+         pendingBindings.add(new Pair<GroupBinding, Runnable>(groupBinding, onStored));
+         if (storing)
+         {
+            return false;
+         }
+         storing = true;
+      }
+
+      if (inline)
+      {
+         storePendingBindings(true);
+         return true;
+      }
+      else
+      {
+         executor.execute(bindingsStorer);
+         return false;
+      }
+   }
+
+   /**
+    * @param once whether only a single batch is stored, the bindings pending after it are then
+    *             stored by the executor
+    */
+   private void storePendingBindings(final boolean once)
+   {
+      OperationContext originalCtx = storageManager.getContext();
+
+      try
+      {
+         // the waitCompletion cannot be done inside an ordered executor or we would starve when the thread pool is full
+         storageManager.setContext(storageManager.newSingleThreadContext());
+
+         boolean stored = false;
+
+         while (true)
          {
-            groupBinding = map.get(proposal.getGroupId());
-            if (groupBinding != null)
+            List<Pair<GroupBinding, Runnable>> batch;
+            synchronized (pendingBindings)
             {
-               groupBinding.use();
-               // Returning with an alternate cluster name, as it's been already grouped
-               return new Response(groupBinding.getGroupId(), proposal.getClusterName(), groupBinding.getClusterName());
+               if (pendingBindings.isEmpty())
+               {
+                  storing = false;
+                  return;
+               }
+               if (once && stored)
+               {
+                  // still storing, so no other thread starts a batch before the executor does
+                  executor.execute(bindingsStorer);
+                  return;
+               }
+               batch = new ArrayList<Pair<GroupBinding, Runnable>>(pendingBindings);
+               pendingBindings.clear();
             }
-            else
+
+            try
             {
-               addRecord = true;
-               groupBinding = new GroupBinding(proposal.getGroupId(), proposal.getClusterName());
-               groupBinding.setId(storageManager.generateID());
-               List<GroupBinding> newList = new ArrayList<GroupBinding>();
-               List<GroupBinding> oldList = groupMap.putIfAbsent(groupBinding.getClusterName(), newList);
-               if (oldList != null)
+               long txID = storageManager.generateID();
+               for (Pair<GroupBinding, Runnable> pending : batch)
                {
-                  newList = oldList;
+                  storageManager.addGrouping(txID, pending.getA());
                }
-               newList.add(groupBinding);
-               map.put(groupBinding.getGroupId(), groupBinding);
+               storageManager.commitBindings(txID);
             }
+            catch (Exception e)
+            {
+               // the bindings are still used, they would only be lost on a restart
+               HornetQServerLogger.LOGGER.unableToStoreGroupBindings(e, batch.size());
+            }
+
+            for (Pair<GroupBinding, Runnable> pending : batch)
+            {
+               pending.getB().run();
+            }
+
+            stored = true;
          }
-         finally
-         {
-            lock.unlock();
-         }
-         // Storing the record outside of any locks
-         if (addRecord)
-         {
-            storageManager.addGrouping(groupBinding);
-         }
-         return new Response(groupBinding.getGroupId(), groupBinding.getClusterName());
       }
       finally
       {
@@ -201,7 +346,7 @@ public final class LocalGroupingHandler extends GroupHandlingAbstract
    public Response receive(final Proposal proposal, final int distance) throws Exception
    {
       HornetQServerLogger.LOGGER.trace("received proposal " + proposal);
-      return propose(proposal);
+      return propose(proposal, true);
    }
 
    public void addGroupBinding(final GroupBinding groupBinding)
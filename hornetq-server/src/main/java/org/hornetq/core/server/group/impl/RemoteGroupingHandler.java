@@ -30,7 +30,6 @@ import org.hornetq.core.server.HornetQMessageBundle;
 import org.hornetq.core.server.HornetQServerLogger;
 import org.hornetq.core.server.management.ManagementService;
 import org.hornetq.core.server.management.Notification;
-import org.hornetq.utils.ConcurrentHashSet;
 import org.hornetq.utils.ExecutorFactory;
 import org.hornetq.utils.TypedProperties;
 
@@ -58,7 +57,8 @@ public final class RemoteGroupingHandler extends GroupHandlingAbstract
 
    private final ConcurrentMap<SimpleString, List<SimpleString>> groupMap = new ConcurrentHashMap<SimpleString, List<SimpleString>>();
 
-   private final ConcurrentHashSet<Notification> pendingNotifications = new ConcurrentHashSet();
+   // groupID -> the proposal waiting for a response
+   private final Map<SimpleString, Notification> pendingNotifications = new ConcurrentHashMap<SimpleString, Notification>();
 
    private boolean started = false;
 
@@ -118,7 +118,7 @@ public final class RemoteGroupingHandler extends GroupHandlingAbstract
       {
          lock.lock();
 
-         for (Notification notification : pendingNotifications)
+         for (Notification notification : pendingNotifications.values())
          {
             managementService.sendNotification(notification);
          }
@@ -144,17 +144,30 @@ public final class RemoteGroupingHandler extends GroupHandlingAbstract
          throw HornetQMessageBundle.BUNDLE.groupWhileStopping();
       }
 
-      Notification notification = null;
+      boolean sent = false;
       try
       {
 
          lock.lock();
 
-         notification = createProposalNotification(proposal.getGroupId(), proposal.getClusterName());
+         // the proposal may have been answered while waiting for the lock
+         response = responses.get(proposal.getGroupId());
+         if (response != null)
+         {
+            return response;
+         }
+
+         // the threads proposing the same group share a single round trip
+         if (!pendingNotifications.containsKey(proposal.getGroupId()))
+         {
+            Notification notification = createProposalNotification(proposal.getGroupId(), proposal.getClusterName());
 
-         pendingNotifications.add(notification);
+            pendingNotifications.put(proposal.getGroupId(), notification);
 
-         managementService.sendNotification(notification);
+            sent = true;
+
+            managementService.sendNotification(notification);
+         }
 
 
          long timeLimit = System.currentTimeMillis() + timeout;
@@ -175,9 +188,9 @@ public final class RemoteGroupingHandler extends GroupHandlingAbstract
       }
       finally
       {
-         if (notification != null)
+         if (sent)
          {
-            pendingNotifications.remove(notification);
+            pendingNotifications.remove(proposal.getGroupId());
          }
          lock.unlock();
       }
@@ -195,14 +208,16 @@ public final class RemoteGroupingHandler extends GroupHandlingAbstract
    }
 
 
+   /**
+    * The responses are leases on the groups, renewed on the node of the local handler once half of
+    * the group timeout has elapsed so the group doesn't expire there while still in use here.
+    */
    private void checkTimeout(Response response)
    {
       if (response != null)
       {
-         if (groupTimeout > 0 && ((response.getTimeUsed() + groupTimeout) < System.currentTimeMillis()))
+         if (groupTimeout > 0 && ((response.getTimeUsed() + groupTimeout / 2) < System.currentTimeMillis()))
          {
-            // We just touch the group on the local server at the half of the timeout
-            // to avoid the group from expiring
             response.use();
             try
             {
@@ -29,6 +29,7 @@ import org.hornetq.core.server.NodeManager;
 import org.hornetq.core.server.QueueFactory;
 import org.hornetq.core.server.cluster.ClusterController;
 import org.hornetq.core.server.cluster.HornetQServerSideProtocolManagerFactory;
+import org.hornetq.core.server.cluster.ha.ScaleDownPolicy;
 import org.hornetq.core.server.group.GroupingHandler;
 import org.hornetq.core.server.management.ManagementService;
 import org.hornetq.core.transaction.ResourceManager;
@@ -45,6 +46,7 @@ public class BackupRecoveryJournalLoader extends PostOfficeJournalLoader
    private HornetQServer parentServer;
    private ServerLocator locator;
    private final ClusterController clusterController;
+   private final ScaleDownPolicy scaleDownPolicy;
 
    public BackupRecoveryJournalLoader(PostOffice postOffice,
                                       PagingManager pagingManager,
@@ -56,13 +58,15 @@ public class BackupRecoveryJournalLoader extends PostOfficeJournalLoader
                                       Configuration configuration,
                                       HornetQServer parentServer,
                                       ServerLocatorInternal locator,
-                                      ClusterController clusterController)
+                                      ClusterController clusterController,
+                                      ScaleDownPolicy scaleDownPolicy)
    {
 
       super(postOffice, pagingManager, storageManager, queueFactory, nodeManager, managementService, groupingHandler, configuration);
       this.parentServer = parentServer;
       this.locator = locator;
       this.clusterController = clusterController;
+      this.scaleDownPolicy = scaleDownPolicy;
    }
 
    @Override
@@ -86,7 +90,8 @@ public class BackupRecoveryJournalLoader extends PostOfficeJournalLoader
    @Override
    public void postLoad(Journal messageJournal, ResourceManager resourceManager, Map<SimpleString, List<Pair<byte[], Long>>> duplicateIDMap) throws Exception
    {
-      ScaleDownHandler scaleDownHandler = new ScaleDownHandler(pagingManager, postOffice, nodeManager, clusterController);
+      ScaleDownHandler scaleDownHandler = new ScaleDownHandler(pagingManager, postOffice, nodeManager, clusterController,
+                                                               scaleDownPolicy.getParallelism(), scaleDownPolicy.getBatchSize());
       locator.setProtocolManagerFactory(HornetQServerSideProtocolManagerFactory.getInstance());
 
       try (ClientSessionFactory sessionFactory = locator.createSessionFactory())
@@ -33,6 +33,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
@@ -58,9 +59,11 @@ import org.hornetq.core.deployers.impl.SecurityDeployer;
 import org.hornetq.core.filter.Filter;
 import org.hornetq.core.filter.impl.FilterImpl;
 import org.hornetq.core.journal.IOCriticalErrorListener;
+import org.hornetq.core.journal.Journal;
 import org.hornetq.core.journal.JournalLoadInformation;
 import org.hornetq.core.journal.SequentialFile;
 import org.hornetq.core.journal.impl.AIOSequentialFileFactory;
+import org.hornetq.core.journal.impl.JournalImpl;
 import org.hornetq.core.journal.impl.SyncSpeedTest;
 import org.hornetq.core.management.impl.HornetQServerControlImpl;
 import org.hornetq.core.paging.PagingManager;
@@ -205,6 +208,8 @@ public class HornetQServerImpl implements HornetQServer
 
    private volatile ScheduledExecutorService scheduledPool;
 
+   private ScheduledFuture<?> journalRateSamplerFuture;
+
    private volatile ExecutorFactory executorFactory;
 
    private final HierarchicalRepository<Set<Role>> securityRepository;
@@ -669,6 +674,15 @@ public class HornetQServerImpl implements HornetQServer
 
       stopComponent(backupManager);
       activation.preStorageClose();
+
+      synchronized (this)
+      {
+         if (journalRateSamplerFuture != null)
+         {
+            journalRateSamplerFuture.cancel(false);
+            journalRateSamplerFuture = null;
+         }
+      }
       stopComponent(pagingManager);
 
       if (storageManager != null)
@@ -1778,6 +1792,10 @@ public class HornetQServerImpl implements HornetQServer
          }, 0, dumpInfoInterval, TimeUnit.MILLISECONDS);
       }
 
+      journalRateSamplerFuture = scheduledPool.scheduleAtFixedRate(new JournalRateSampler(storageManager.getMessageJournal(),
+                                                                                          storageManager.getBindingsJournal()),
+                                                                   1, 1, TimeUnit.SECONDS);
+
       // Deploy the rest of the stuff
 
       // Deploy any predefined queues
@@ -2184,6 +2202,32 @@ public class HornetQServerImpl implements HornetQServer
       }
    }
 
+   /**
+    * Samples the append rates of the journals once a second, so that they don't depend on how
+    * often (or by how many clients) they're read.
+    */
+   private static final class JournalRateSampler implements Runnable
+   {
+      private final Journal[] journals;
+
+      JournalRateSampler(final Journal... journals)
+      {
+         this.journals = journals;
+      }
+
+      public void run()
+      {
+         for (Journal journal : journals)
+         {
+            // there's no journal when persistence is disabled
+            if (journal instanceof JournalImpl)
+            {
+               ((JournalImpl) journal).getFileFactory().getMetrics().sampleRates();
+            }
+         }
+      }
+   }
+
 
    /**
     * This seems duplicate code all over the place, but for security reasons we can't let something like this to be open in a
@@ -2265,8 +2309,11 @@ public class HornetQServerImpl implements HornetQServer
     * <p/>
     * Use case is a server, upon restarting, finding a former backup running in its place. It will
     * move any older data away and log a warning about it.
+    *
+    * @return the suffix appended to the directories the data was moved to, or -1 if there was no
+    * data to move
     */
-   void moveServerData()
+   int moveServerData()
    {
       String[] dataDirs =
          new String[]{configuration.getBindingsDirectory(),
@@ -2303,7 +2350,7 @@ public class HornetQServerImpl implements HornetQServer
          }
       }
       if (allEmpty)
-         return;
+         return -1;
 
       for (String dir0 : dataDirs)
       {
@@ -2341,5 +2388,6 @@ public class HornetQServerImpl implements HornetQServer
             }
          }
       }
+      return lowestSuffixForMovedData;
    }
 }
@@ -98,8 +98,12 @@ public class LastValueQueue extends QueueImpl
                HornetQServerLogger.LOGGER.errorAckingOldReference(e);
             }
 
+            ref.setEnqueueTime(System.nanoTime());
+
             hr.setReference(ref);
 
+            refExpirationChanged(hr);
+
          }
          else
          {
@@ -259,6 +263,16 @@ public class LastValueQueue extends QueueImpl
          ref.setScheduledDeliveryTime(scheduledDeliveryTime);
       }
 
+      public long getEnqueueTime()
+      {
+         return ref.getEnqueueTime();
+      }
+
+      public void setEnqueueTime(final long enqueueTime)
+      {
+         ref.setEnqueueTime(enqueueTime);
+      }
+
       public void setPersistedCount(int count)
       {
          ref.setPersistedCount(count);
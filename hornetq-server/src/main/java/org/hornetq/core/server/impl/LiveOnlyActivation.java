@@ -44,6 +44,8 @@ public class LiveOnlyActivation extends Activation
 
    private ClientSessionFactoryInternal scaleDownClientSessionFactory;
 
+   private volatile ScaleDownHandler scaleDownHandler;
+
    public LiveOnlyActivation(HornetQServerImpl server, LiveOnlyPolicy liveOnlyPolicy)
    {
       this.hornetQServer = server;
@@ -178,12 +180,24 @@ public class LiveOnlyActivation extends Activation
    }
 
 
+   /**
+    * @return the handler of the current, or the last, scale-down of this server, {@code null} if it
+    * never scaled down
+    */
+   public ScaleDownHandler getScaleDownHandler()
+   {
+      return scaleDownHandler;
+   }
+
    public long scaleDown() throws Exception
    {
-      ScaleDownHandler scaleDownHandler = new ScaleDownHandler(hornetQServer.getPagingManager(),
+      ScaleDownPolicy scaleDownPolicy = liveOnlyPolicy.getScaleDownPolicy();
+      scaleDownHandler = new ScaleDownHandler(hornetQServer.getPagingManager(),
             hornetQServer.getPostOffice(),
             hornetQServer.getNodeManager(),
-            hornetQServer.getClusterManager().getClusterController());
+            hornetQServer.getClusterManager().getClusterController(),
+            scaleDownPolicy.getParallelism(),
+            scaleDownPolicy.getBatchSize());
       ConcurrentMap<SimpleString, DuplicateIDCache> duplicateIDCaches = ((PostOfficeImpl) hornetQServer.getPostOffice()).getDuplicateIDCaches();
       Map<SimpleString, List<Pair<byte[], Long>>> duplicateIDMap = new HashMap<>();
       for (SimpleString address : duplicateIDCaches.keySet())
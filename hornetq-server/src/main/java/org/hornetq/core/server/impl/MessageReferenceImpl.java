@@ -32,6 +32,8 @@ public class MessageReferenceImpl implements MessageReference
 
    private volatile long scheduledDeliveryTime;
 
+   private long enqueueTime;
+
    private final ServerMessage message;
 
    private final Queue queue;
@@ -148,6 +150,16 @@ public class MessageReferenceImpl implements MessageReference
       this.scheduledDeliveryTime = scheduledDeliveryTime;
    }
 
+   public long getEnqueueTime()
+   {
+      return enqueueTime;
+   }
+
+   public void setEnqueueTime(final long enqueueTime)
+   {
+      this.enqueueTime = enqueueTime;
+   }
+
    public ServerMessage getMessage()
    {
       return message;
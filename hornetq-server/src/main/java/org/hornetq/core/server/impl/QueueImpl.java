@@ -17,8 +17,10 @@ import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -35,6 +37,7 @@ import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.hornetq.api.core.Message;
 import org.hornetq.api.core.Pair;
@@ -78,11 +81,13 @@ import org.hornetq.core.transaction.impl.TransactionImpl;
 import org.hornetq.spi.core.protocol.RemotingConnection;
 import org.hornetq.utils.ConcurrentHashSet;
 import org.hornetq.utils.FutureLatch;
+import org.hornetq.utils.LatencyHistogram;
 import org.hornetq.utils.LinkedListIterator;
 import org.hornetq.utils.PriorityLinkedList;
 import org.hornetq.utils.PriorityLinkedListImpl;
 import org.hornetq.utils.ReferenceCounter;
 import org.hornetq.utils.ReusableLatch;
+import org.hornetq.utils.TimerWheel;
 import org.hornetq.utils.TypedProperties;
 
 /**
@@ -99,12 +104,14 @@ public class QueueImpl implements Queue
 {
    private static final boolean isTrace = HornetQServerLogger.LOGGER.isTraceEnabled();
 
-   public static final int REDISTRIBUTOR_BATCH_SIZE = 100;
+   public static final int REDISTRIBUTOR_BATCH_SIZE = AddressSettings.DEFAULT_REDISTRIBUTION_BATCH_SIZE;
 
    public static final int NUM_PRIORITIES = 10;
 
    public static final int MAX_DELIVERIES_IN_LOOP = 1000;
 
+   public static final int EXPIRY_BATCH_SIZE = 1000;
+
    public static final int CHECK_QUEUE_SIZE_PERIOD = 100;
 
    /**
@@ -145,6 +152,12 @@ public class QueueImpl implements Queue
    // This is where messages are stored
    private final PriorityLinkedList<MessageReference> messageReferences = new PriorityLinkedListImpl<MessageReference>(QueueImpl.NUM_PRIORITIES);
 
+   // The references on messageReferences which have an expiration, indexed by their expiration time,
+   // so the expiry scanner only looks at the ones which are due
+   private final TimerWheel<ExpiryEntry> expiryIndex = new TimerWheel<ExpiryEntry>(System.currentTimeMillis());
+
+   private final Map<MessageReference, ExpiryEntry> expiryEntries = new IdentityHashMap<MessageReference, ExpiryEntry>();
+
    // The quantity of pagedReferences on messageReferences priority list
    private final AtomicInteger pagedReferences = new AtomicInteger(0);
 
@@ -217,6 +230,11 @@ public class QueueImpl implements Queue
 
    private final ReusableLatch deliveriesInTransit = new ReusableLatch(0);
 
+   // The histograms are only allocated once the queue delivers a message, as most queues of a large server are idle
+   private final AtomicReference<LatencyHistogram> deliveryLatencies = new AtomicReference<LatencyHistogram>();
+
+   private final AtomicReference<LatencyHistogram> acknowledgeLatencies = new AtomicReference<LatencyHistogram>();
+
    private AtomicLong queueRateCheckTime = new AtomicLong(System.currentTimeMillis());
 
    private AtomicLong messagesAddedSnapshot = new AtomicLong(0);
@@ -559,6 +577,8 @@ public class QueueImpl implements Queue
          return;
       }
 
+      ref.setEnqueueTime(System.nanoTime());
+
       synchronized (directDeliveryGuard)
       {
          // The checkDirect flag is periodically set to true, if the delivery is specified as direct then this causes the
@@ -1238,6 +1258,30 @@ public class QueueImpl implements Queue
       return messagesAcknowledged;
    }
 
+   public LatencyHistogram getDeliveryLatencies()
+   {
+      return getLatencies(deliveryLatencies);
+   }
+
+   public LatencyHistogram getAcknowledgeLatencies()
+   {
+      return getLatencies(acknowledgeLatencies);
+   }
+
+   private static LatencyHistogram getLatencies(final AtomicReference<LatencyHistogram> latencies)
+   {
+      LatencyHistogram histogram = latencies.get();
+
+      if (histogram == null)
+      {
+         latencies.compareAndSet(null, new LatencyHistogram());
+
+         histogram = latencies.get();
+      }
+
+      return histogram;
+   }
+
    public int deleteAllReferences() throws Exception
    {
       return deleteAllReferences(DEFAULT_FLUSH_LIMIT);
@@ -1306,6 +1350,7 @@ public class QueueImpl implements Queue
             {
                messageAction.actMessage(tx, ref);
                iter.remove();
+               removeExpiry(ref);
                txCount++;
                count++;
             }
@@ -1433,6 +1478,60 @@ public class QueueImpl implements Queue
       }
    }
 
+   public synchronized int deleteReferences(final Collection<MessageReference> refs) throws Exception
+   {
+      Map<Long, MessageReference> remaining = new HashMap<Long, MessageReference>();
+      for (MessageReference ref : refs)
+      {
+         remaining.put(ref.getMessage().getMessageID(), ref);
+      }
+
+      int deleted = 0;
+
+      Transaction tx = new TransactionImpl(storageManager);
+
+      LinkedListIterator<MessageReference> iter = iterator();
+      try
+      {
+         while (!remaining.isEmpty() && iter.hasNext())
+         {
+            MessageReference ref = iter.next();
+            if (remaining.remove(ref.getMessage().getMessageID()) != null)
+            {
+               incDelivering();
+               acknowledge(tx, ref);
+               iter.remove();
+               refRemoved(ref);
+               deleted++;
+            }
+         }
+
+         for (MessageReference ref : remaining.values())
+         {
+            // Look in scheduled deliveries
+            if (scheduledDeliveryHandler.removeReferenceWithID(ref.getMessage().getMessageID()) != null)
+            {
+               deleted++;
+            }
+            // a paged reference that was not depaged yet, its page position is acked so it won't be depaged anymore
+            else if (ref.isPaged())
+            {
+               incDelivering();
+               acknowledge(tx, ref);
+               deleted++;
+            }
+         }
+
+         tx.commit();
+
+         return deleted;
+      }
+      finally
+      {
+         iter.close();
+      }
+   }
+
    public void deleteQueue() throws Exception
    {
       deleteQueue(false);
@@ -1582,59 +1681,117 @@ public class QueueImpl implements Queue
 
       public void run()
       {
-         synchronized (QueueImpl.this)
+         try
          {
-            if (queueDestroyed)
-            {
-               return;
-            }
+            final long now = System.currentTimeMillis();
 
-            LinkedListIterator<MessageReference> iter = iterator();
+            boolean expired = false;
 
-            try
+            List<ExpiryEntry> due = new ArrayList<ExpiryEntry>(EXPIRY_BATCH_SIZE);
+
+            // The due references are expired in batches, releasing the queue between them
+            // so the deliveries don't wait for the whole scan
+            while (true)
             {
-               boolean expired = false;
-               boolean hasElements = false;
-               while (postOffice.isStarted() && iter.hasNext())
+               synchronized (QueueImpl.this)
                {
-                  hasElements = true;
-                  MessageReference ref = iter.next();
-                  try
+                  if (queueDestroyed || !postOffice.isStarted())
                   {
-                     if (ref.getMessage().isExpired())
-                     {
-                        incDelivering();
-                        expired = true;
-                        expire(ref);
-                        iter.remove();
-                        refRemoved(ref);
-                     }
+                     return;
                   }
-                  catch (Exception e)
+
+                  expiryIndex.advance(now);
+
+                  expiryIndex.drainDue(due, EXPIRY_BATCH_SIZE);
+
+                  for (ExpiryEntry entry : due)
                   {
-                     HornetQServerLogger.LOGGER.errorExpiringReferencesOnQueue(e, ref);
+                     expired |= expireEntry(entry);
                   }
 
-               }
+                  if (due.size() < EXPIRY_BATCH_SIZE)
+                  {
+                     // If empty we need to schedule depaging to make sure we would depage expired messages as well
+                     if ((messageReferences.isEmpty() || expired) && pageIterator != null && pageIterator.hasNext())
+                     {
+                        scheduleDepage(true);
+                     }
 
-               // If empty we need to schedule depaging to make sure we would depage expired messages as well
-               if ((!hasElements || expired) && pageIterator != null && pageIterator.hasNext())
-               {
-                  scheduleDepage(true);
+                     return;
+                  }
+
+                  due.clear();
                }
             }
-            finally
+         }
+         finally
+         {
+            scannerRunning.decrementAndGet();
+         }
+      }
+
+      // must be called while holding the lock on the queue
+      private boolean expireEntry(final ExpiryEntry entry)
+      {
+         MessageReference ref = entry.ref;
+
+         if (expiryEntries.get(ref) != entry)
+         {
+            // the reference was removed or indexed again
+            return false;
+         }
+
+         try
+         {
+            if (!ref.getMessage().isExpired())
             {
-               try
+               // the message of a last value queue was replaced by one with another expiration
+               expiryEntries.remove(ref);
+               if (ref.getMessage().getExpiration() > 0)
                {
-                  iter.close();
+                  indexExpiry(ref, entry.node, entry.priority);
                }
-               catch (Throwable ignored)
+               return false;
+            }
+
+            incDelivering();
+            expire(ref);
+            removeFromMessageReferences(entry);
+            refRemoved(ref);
+            return true;
+         }
+         catch (Exception e)
+         {
+            HornetQServerLogger.LOGGER.errorExpiringReferencesOnQueue(e, ref);
+            return false;
+         }
+      }
+
+      private void removeFromMessageReferences(final ExpiryEntry entry)
+      {
+         if (entry.node != null)
+         {
+            messageReferences.remove(entry.node, entry.priority);
+            return;
+         }
+
+         LinkedListIterator<MessageReference> iter = messageReferences.iterator();
+
+         try
+         {
+            while (iter.hasNext())
+            {
+               if (iter.next() == entry.ref)
                {
+                  iter.remove();
+                  return;
                }
-               scannerRunning.decrementAndGet();
             }
          }
+         finally
+         {
+            iter.close();
+         }
       }
    }
 
@@ -1932,7 +2089,8 @@ public class QueueImpl implements Queue
    private synchronized void internalAddTail(final MessageReference ref)
    {
       refAdded(ref);
-      messageReferences.addTail(ref, ref.getMessage().getPriority());
+      int priority = ref.getMessage().getPriority();
+      indexExpiry(ref, messageReferences.addTail(ref, priority), priority);
    }
 
    /**
@@ -1946,7 +2104,8 @@ public class QueueImpl implements Queue
    {
       queueMemorySize.addAndGet(ref.getMessageMemoryEstimate());
       refAdded(ref);
-      messageReferences.addHead(ref, ref.getMessage().getPriority());
+      int priority = ref.getMessage().getPriority();
+      indexExpiry(ref, messageReferences.addHead(ref, priority), priority);
    }
 
    private synchronized void doInternalPoll()
@@ -2227,6 +2386,7 @@ public class QueueImpl implements Queue
     */
    protected void refRemoved(MessageReference ref)
    {
+      removeExpiry(ref);
       queueMemorySize.addAndGet(-ref.getMessageMemoryEstimate());
       if (ref.isPaged())
       {
@@ -2245,6 +2405,65 @@ public class QueueImpl implements Queue
       }
    }
 
+   /**
+    * Indexes the expiration of a reference added to messageReferences.
+    *
+    * @param node the node of the reference on messageReferences, or null if it has to be looked up
+    */
+   private synchronized void indexExpiry(final MessageReference ref, final Object node, final int priority)
+   {
+      long expiration = ref.getMessage().getExpiration();
+
+      if (expiration > 0)
+      {
+         ExpiryEntry entry = new ExpiryEntry(ref, node, priority);
+
+         ExpiryEntry previous = expiryEntries.put(ref, entry);
+
+         if (previous != null)
+         {
+            expiryIndex.remove(previous);
+         }
+
+         expiryIndex.add(entry, expiration);
+      }
+   }
+
+   private synchronized void removeExpiry(final MessageReference ref)
+   {
+      if (!expiryEntries.isEmpty())
+      {
+         ExpiryEntry entry = expiryEntries.remove(ref);
+
+         if (entry != null)
+         {
+            expiryIndex.remove(entry);
+         }
+      }
+   }
+
+   /**
+    * To be called when the message of a reference on the queue is replaced, so it expires with the
+    * expiration of the new message.
+    */
+   protected synchronized void refExpirationChanged(final MessageReference ref)
+   {
+      ExpiryEntry entry = expiryEntries.get(ref);
+
+      if (entry != null)
+      {
+         expiryEntries.remove(ref);
+         expiryIndex.remove(entry);
+
+         indexExpiry(ref, entry.node, entry.priority);
+      }
+      else
+      {
+         // if the reference is still on intermediateMessageReferences it is indexed once it's added
+         indexExpiry(ref, null, ref.getMessage().getPriority());
+      }
+   }
+
    private void scheduleDepage(final boolean scheduleExpiry)
    {
       if (!depagePending)
@@ -2331,11 +2550,22 @@ public class QueueImpl implements Queue
       // create the redistributor only once if there are no local consumers
       if (consumerSet.isEmpty() && redistributor == null)
       {
+         int batchSize = QueueImpl.REDISTRIBUTOR_BATCH_SIZE;
+         int maxRate = AddressSettings.DEFAULT_REDISTRIBUTION_MAX_RATE;
+         if (addressSettingsRepository != null)
+         {
+            AddressSettings settings = addressSettingsRepository.getMatch(address.toString());
+            batchSize = settings.getRedistributionBatchSize();
+            maxRate = settings.getRedistributionMaxRate();
+         }
+
          redistributor = new Redistributor(this,
                                            storageManager,
                                            postOffice,
                                            executor,
-                                           QueueImpl.REDISTRIBUTOR_BATCH_SIZE);
+                                           scheduledExecutor,
+                                           batchSize,
+                                           maxRate);
 
          consumerList.add(new ConsumerHolder(redistributor));
 
@@ -2928,6 +3158,12 @@ public class QueueImpl implements Queue
       messagesAcknowledged = 0;
    }
 
+   public void resetLatencies()
+   {
+      deliveryLatencies.set(null);
+      acknowledgeLatencies.set(null);
+   }
+
    public float getRate()
    {
       float timeSlice = ((System.currentTimeMillis() - queueRateCheckTime.getAndSet(System.currentTimeMillis())) / 1000.0f);
@@ -3007,6 +3243,22 @@ public class QueueImpl implements Queue
       }
    }
 
+   private static final class ExpiryEntry extends TimerWheel.Entry
+   {
+      private final MessageReference ref;
+
+      private final Object node;
+
+      private final int priority;
+
+      ExpiryEntry(final MessageReference ref, final Object node, final int priority)
+      {
+         this.ref = ref;
+         this.node = node;
+         this.priority = priority;
+      }
+   }
+
    private final class DepageRunner implements Runnable
    {
       final boolean scheduleExpiry;
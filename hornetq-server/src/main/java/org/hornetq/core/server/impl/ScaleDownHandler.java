@@ -15,13 +15,28 @@ package org.hornetq.core.server.impl;
 import javax.transaction.xa.XAResource;
 import javax.transaction.xa.Xid;
 import java.nio.ByteBuffer;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hornetq.api.config.HornetQDefaultConfiguration;
 import org.hornetq.api.core.Message;
 import org.hornetq.api.core.Pair;
 import org.hornetq.api.core.SimpleString;
@@ -36,6 +51,7 @@ import org.hornetq.core.client.impl.ClientSessionFactoryInternal;
 import org.hornetq.core.message.impl.MessageImpl;
 import org.hornetq.core.paging.PagingManager;
 import org.hornetq.core.paging.PagingStore;
+import org.hornetq.core.paging.cursor.PageCursorProvider;
 import org.hornetq.core.paging.cursor.PageSubscription;
 import org.hornetq.core.paging.cursor.PagedReference;
 import org.hornetq.core.postoffice.Binding;
@@ -52,6 +68,7 @@ import org.hornetq.core.server.cluster.ClusterController;
 import org.hornetq.core.transaction.ResourceManager;
 import org.hornetq.core.transaction.Transaction;
 import org.hornetq.core.transaction.TransactionOperation;
+import org.hornetq.utils.HornetQThreadFactory;
 import org.hornetq.utils.LinkedListIterator;
 
 public class ScaleDownHandler
@@ -60,14 +77,38 @@ public class ScaleDownHandler
    final PostOffice postOffice;
    private NodeManager nodeManager;
    private final ClusterController clusterController;
-   private String targetNodeId;
+   private final int parallelism;
+   private final int batchSize;
+   private volatile String targetNodeId;
+   private final Map<String, Long> queueIDs = new ConcurrentHashMap<>();
+
+   // the progress of the messages scale-down
+   private final AtomicLong referencesDone = new AtomicLong(0);
+   private volatile long referencesTotal;
+   private volatile long startTime;
+   private volatile long endTime;
+   private final AtomicInteger maxPagedMessagesInFlight = new AtomicInteger(0);
 
    public ScaleDownHandler(PagingManager pagingManager, PostOffice postOffice, NodeManager nodeManager, ClusterController clusterController)
+   {
+      this(pagingManager, postOffice, nodeManager, clusterController,
+           HornetQDefaultConfiguration.getDefaultScaleDownParallelism(),
+           HornetQDefaultConfiguration.getDefaultScaleDownBatchSize());
+   }
+
+   /**
+    * @param parallelism the number of addresses scaled down concurrently, each with its own session
+    * @param batchSize   the number of messages sent to the target server in a single transaction
+    */
+   public ScaleDownHandler(PagingManager pagingManager, PostOffice postOffice, NodeManager nodeManager, ClusterController clusterController,
+                           int parallelism, int batchSize)
    {
       this.pagingManager = pagingManager;
       this.postOffice = postOffice;
       this.nodeManager = nodeManager;
       this.clusterController = clusterController;
+      this.parallelism = parallelism;
+      this.batchSize = batchSize;
    }
 
    public long scaleDown(ClientSessionFactory sessionFactory,
@@ -81,228 +122,469 @@ public class ScaleDownHandler
       clusterControl.authorize();
       long num = scaleDownMessages(sessionFactory, targetNodeId);
       HornetQServerLogger.LOGGER.info("Scaled down " + num + " messages total.");
+      HornetQServerLogger.LOGGER.debug("Scaled down at " + getMessagesPerSecond() + " messages per second");
       scaleDownTransactions(sessionFactory, resourceManager);
       scaleDownDuplicateIDs(duplicateIDMap, sessionFactory, managementAddress);
       clusterControl.announceScaleDown(new SimpleString(this.targetNodeId), nodeManager.getNodeId());
       return num;
    }
 
-   private long scaleDownMessages(ClientSessionFactory sessionFactory, SimpleString nodeId) throws Exception
+   private long scaleDownMessages(final ClientSessionFactory sessionFactory, SimpleString nodeId) throws Exception
    {
-      long messageCount = 0;
       targetNodeId = nodeId != null ? nodeId.toString() : getTargetNodeId(sessionFactory);
 
-      ClientSession session = sessionFactory.createSession(false, true, true);
-      Map<String, Long> queueIDs = new HashMap<>();
-      ClientProducer producer = session.createProducer();
-
-      List<SimpleString> addresses = new ArrayList<>();
+      // the queues of different addresses have nothing in common so the addresses are scaled down in parallel
+      Set<SimpleString> addresses = new LinkedHashSet<>();
+      long references = 0;
       for (Map.Entry<SimpleString, Binding> entry : postOffice.getAllBindings().entrySet())
       {
          if (entry.getValue() instanceof LocalQueueBinding)
          {
-            SimpleString address = entry.getValue().getAddress();
+            addresses.add(entry.getValue().getAddress());
+            references += ((LocalQueueBinding) entry.getValue()).getQueue().getMessageCount();
+         }
+      }
+
+      referencesDone.set(0);
+      maxPagedMessagesInFlight.set(0);
+      referencesTotal = references;
+      endTime = 0;
+      startTime = System.currentTimeMillis();
 
-            // There is a special case involving store-and-forward queues used for clustering.
-            // If this queue is supposed to forward messages to the server that I'm scaling down to I need to handle these messages differently.
-            boolean storeAndForward = false;
-            if (address.toString().startsWith("sf."))
+      final ConcurrentLinkedQueue<SimpleString> pendingAddresses = new ConcurrentLinkedQueue<>(addresses);
+      final int workers = Math.min(parallelism, addresses.size());
+      List<Callable<Long>> tasks = new ArrayList<>(workers);
+      for (int i = 0; i < workers; i++)
+      {
+         tasks.add(new Callable<Long>()
+         {
+            @Override
+            public Long call() throws Exception
             {
-               // these get special treatment later
-               storeAndForward = true;
+               return scaleDownAddresses(sessionFactory, pendingAddresses);
             }
+         });
+      }
 
-            // this means we haven't inspected this address before
-            if (!addresses.contains(address))
+      long messageCount = 0;
+      if (workers > 0)
+      {
+         ExecutorService executor = Executors.newFixedThreadPool(workers,
+                                                                 new HornetQThreadFactory("hornetq-scale-down-threads",
+                                                                                          true,
+                                                                                          getThisClassLoader()));
+         try
+         {
+            for (Future<Long> future : executor.invokeAll(tasks))
             {
-               addresses.add(address);
-
-               PagingStore store = pagingManager.getPageStore(address);
-
-               // compile a list of all the relevant queues and queue iterators for this address
-               List<Queue> queues = new ArrayList<>();
-               Map<SimpleString, LinkedListIterator<MessageReference>> queueIterators = new HashMap<>();
-               for (Binding binding : postOffice.getBindingsForAddress(address).getBindings())
+               try
+               {
+                  messageCount += future.get();
+               }
+               catch (ExecutionException e)
                {
-                  if (binding instanceof LocalQueueBinding)
+                  if (e.getCause() instanceof Exception)
                   {
-                     Queue queue = ((LocalQueueBinding) binding).getQueue();
-                     //remove the scheduled messages and reset on the actual message ready for sending
-                     //we may set the time multiple times on a message but it will always be the same.
-                     //set the ref scheduled time to 0 so it is in the queue ready for resending
-                     List<MessageReference> messageReferences = queue.cancelScheduledMessages();
-                     for (MessageReference ref : messageReferences)
-                     {
-                        ref.getMessage().putLongProperty(MessageImpl.HDR_SCHEDULED_DELIVERY_TIME, ref.getScheduledDeliveryTime());
-                        ref.setScheduledDeliveryTime(0);
-                     }
-                     queue.addHead(messageReferences);
-                     queues.add(queue);
-                     queueIterators.put(queue.getName(), queue.totalIterator());
+                     throw (Exception) e.getCause();
                   }
+                  throw e;
                }
+            }
+         }
+         finally
+         {
+            executor.shutdownNow();
+         }
+      }
 
-               // sort into descending order - order is based on the number of references in the queue
-               Collections.sort(queues, new OrderQueueByNumberOfReferencesComparator());
+      endTime = System.currentTimeMillis();
+
+      return messageCount;
+   }
 
-               // loop through every queue on this address
-               List<SimpleString> checkedQueues = new ArrayList<>();
-               for (Queue bigLoopQueue : queues)
+   /**
+    * Scales down the given addresses one at a time until there are none left, the other workers
+    * taking their addresses from the same queue.
+    */
+   private long scaleDownAddresses(ClientSessionFactory sessionFactory, ConcurrentLinkedQueue<SimpleString> pendingAddresses) throws Exception
+   {
+      long messageCount = 0;
+
+      // the messages are sent in transactions, which must not include the management requests
+      ClientSession session = sessionFactory.createSession(false, false, false);
+      ClientSession queueCreateSession = sessionFactory.createSession(false, true, true);
+      try
+      {
+         ClientProducer producer = session.createProducer();
+
+         SimpleString address;
+         while ((address = pendingAddresses.poll()) != null)
+         {
+            messageCount += scaleDownAddress(session, producer, queueCreateSession, address);
+         }
+
+         producer.close();
+      }
+      finally
+      {
+         queueCreateSession.close();
+         session.close();
+      }
+
+      return messageCount;
+   }
+
+   private long scaleDownAddress(ClientSession session, ClientProducer producer, ClientSession queueCreateSession, SimpleString address) throws Exception
+   {
+      long messageCount = 0;
+
+      // There is a special case involving store-and-forward queues used for clustering.
+      // If this queue is supposed to forward messages to the server that I'm scaling down to I need to handle these messages differently.
+      boolean storeAndForward = false;
+      if (address.toString().startsWith("sf."))
+      {
+         // these get special treatment later
+         storeAndForward = true;
+      }
+
+      PagingStore store = pagingManager.getPageStore(address);
+
+      // compile a list of all the relevant queues and queue iterators for this address
+      List<Queue> queues = new ArrayList<>();
+      Map<SimpleString, LinkedListIterator<MessageReference>> queueIterators = new HashMap<>();
+      for (Binding binding : postOffice.getBindingsForAddress(address).getBindings())
+      {
+         if (binding instanceof LocalQueueBinding)
+         {
+            Queue queue = ((LocalQueueBinding) binding).getQueue();
+            //remove the scheduled messages and reset on the actual message ready for sending
+            //we may set the time multiple times on a message but it will always be the same.
+            //set the ref scheduled time to 0 so it is in the queue ready for resending
+            List<MessageReference> messageReferences = queue.cancelScheduledMessages();
+            for (MessageReference ref : messageReferences)
+            {
+               ref.getMessage().putLongProperty(MessageImpl.HDR_SCHEDULED_DELIVERY_TIME, ref.getScheduledDeliveryTime());
+               ref.setScheduledDeliveryTime(0);
+            }
+            queue.addHead(messageReferences);
+            queues.add(queue);
+            queueIterators.put(queue.getName(), queue.totalIterator());
+         }
+      }
+
+      // sort into descending order - order is based on the number of references in the queue
+      Collections.sort(queues, new OrderQueueByNumberOfReferencesComparator());
+
+      // the references are only deleted once the transaction sending their messages is committed
+      Map<Queue, List<MessageReference>> sentReferences = new HashMap<>();
+      int batchCount = 0;
+
+      // a paged message may be depaged while it is waiting for its batch to be committed, the queue
+      // iterators would then return it a second time. Once the batch is committed its page positions
+      // are acked, so only the messages of the current batch are remembered
+      Map<Queue, Set<Long>> sentPagedMessages = new HashMap<>();
+
+      // loop through every queue on this address
+      List<SimpleString> checkedQueues = new ArrayList<>();
+      for (Queue bigLoopQueue : queues)
+      {
+         checkedQueues.add(bigLoopQueue.getName());
+
+         LinkedListIterator<MessageReference> bigLoopMessageIterator = bigLoopQueue.totalIterator();
+         try
+         {
+            // loop through every message of this queue
+            while (bigLoopMessageIterator.hasNext())
+            {
+               MessageReference bigLoopRef = bigLoopMessageIterator.next();
+               if (bigLoopRef.isPaged() && isSent(sentPagedMessages, bigLoopQueue, bigLoopRef.getMessage().getMessageID()))
                {
-                  checkedQueues.add(bigLoopQueue.getName());
+                  continue;
+               }
+               Message message = bigLoopRef.getMessage().copy();
 
-                  LinkedListIterator<MessageReference> bigLoopMessageIterator = bigLoopQueue.totalIterator();
-                  try
+               if (storeAndForward)
+               {
+                  if (address.toString().endsWith(targetNodeId))
                   {
-                     // loop through every message of this queue
-                     while (bigLoopMessageIterator.hasNext())
-                     {
-                        MessageReference bigLoopRef = bigLoopMessageIterator.next();
-                        Message message = bigLoopRef.getMessage().copy();
+                     /* Here we are taking messages out of a store-and-forward queue and sending them to the corresponding
+                      * address on the scale-down target server.  However, we have to take the existing _HQ_ROUTE_TOsf.*
+                      * property and put its value into the _HQ_ROUTE_TO property so the message is routed properly.
+                      */
 
-                        if (storeAndForward)
+                     byte[] oldRouteToIDs = null;
+
+                     List<SimpleString> propertiesToRemove = new ArrayList<>();
+                     message.removeProperty(MessageImpl.HDR_ROUTE_TO_IDS);
+                     for (SimpleString propName : message.getPropertyNames())
+                     {
+                        if (propName.startsWith(MessageImpl.HDR_ROUTE_TO_IDS))
                         {
-                           if (address.toString().endsWith(targetNodeId))
-                           {
-                              /* Here we are taking messages out of a store-and-forward queue and sending them to the corresponding
-                               * address on the scale-down target server.  However, we have to take the existing _HQ_ROUTE_TOsf.*
-                               * property and put its value into the _HQ_ROUTE_TO property so the message is routed properly.
-                               */
-
-                              byte[] oldRouteToIDs = null;
-
-                              List<SimpleString> propertiesToRemove = new ArrayList<>();
-                              message.removeProperty(MessageImpl.HDR_ROUTE_TO_IDS);
-                              for (SimpleString propName : message.getPropertyNames())
-                              {
-                                 if (propName.startsWith(MessageImpl.HDR_ROUTE_TO_IDS))
-                                 {
-                                    if (propName.toString().endsWith(targetNodeId))
-                                    {
-                                       oldRouteToIDs = message.getBytesProperty(propName);
-                                    }
-                                    propertiesToRemove.add(propName);
-                                 }
-                              }
-
-                              for (SimpleString propertyToRemove : propertiesToRemove)
-                              {
-                                 message.removeProperty(propertyToRemove);
-                              }
-
-                              message.putBytesProperty(MessageImpl.HDR_ROUTE_TO_IDS, oldRouteToIDs);
-                           }
-                           else
+                           if (propName.toString().endsWith(targetNodeId))
                            {
-                              /* Here we are taking messages out of a store-and-forward queue and sending them to the corresponding
-                               * store-and-forward address on the scale-down target server.  In this case we use a special property
-                               * for the queue ID so that the scale-down target server can route it appropriately.
-                               */
-                              byte[] oldRouteToIDs = null;
-
-                              List<SimpleString> propertiesToRemove = new ArrayList<>();
-                              message.removeProperty(MessageImpl.HDR_ROUTE_TO_IDS);
-                              for (SimpleString propName : message.getPropertyNames())
-                              {
-                                 if (propName.startsWith(MessageImpl.HDR_ROUTE_TO_IDS))
-                                 {
-                                    if (propName.toString().endsWith(address.toString().substring(address.toString().lastIndexOf("."))))
-                                    {
-                                       oldRouteToIDs = message.getBytesProperty(propName);
-                                    }
-                                    propertiesToRemove.add(propName);
-                                 }
-                              }
-
-                              for (SimpleString propertyToRemove : propertiesToRemove)
-                              {
-                                 message.removeProperty(propertyToRemove);
-                              }
-
-                              message.putBytesProperty(MessageImpl.HDR_SCALEDOWN_TO_IDS, oldRouteToIDs);
+                              oldRouteToIDs = message.getBytesProperty(propName);
                            }
-
-                           HornetQServerLogger.LOGGER.debug("Scaling down message " + message + " from " + address + " to " + message.getAddress() + " on node " + targetNodeId);
-                           producer.send(message.getAddress(), message);
-                           messageCount++;
-                           bigLoopQueue.deleteReference(message.getMessageID());
+                           propertiesToRemove.add(propName);
                         }
-                        else
-                        {
-                           List<Queue> queuesWithMessage = new ArrayList<>();
-                           queuesWithMessage.add(bigLoopQueue);
-                           long messageId = message.getMessageID();
+                     }
 
-                           getQueuesWithMessage(store, queues, queueIterators, checkedQueues, bigLoopQueue, queuesWithMessage, bigLoopRef, messageId);
+                     for (SimpleString propertyToRemove : propertiesToRemove)
+                     {
+                        message.removeProperty(propertyToRemove);
+                     }
 
-                           // get the ID for every queue that contains the message
-                           ByteBuffer buffer = ByteBuffer.allocate(queuesWithMessage.size() * 8);
-                           StringBuilder logMessage = new StringBuilder();
-                           logMessage.append("Scaling down message ").append(messageId).append(" to ");
-                           for (Queue queue : queuesWithMessage)
+                     message.putBytesProperty(MessageImpl.HDR_ROUTE_TO_IDS, oldRouteToIDs);
+                  }
+                  else
+                  {
+                     /* Here we are taking messages out of a store-and-forward queue and sending them to the corresponding
+                      * store-and-forward address on the scale-down target server.  In this case we use a special property
+                      * for the queue ID so that the scale-down target server can route it appropriately.
+                      */
+                     byte[] oldRouteToIDs = null;
+
+                     List<SimpleString> propertiesToRemove = new ArrayList<>();
+                     message.removeProperty(MessageImpl.HDR_ROUTE_TO_IDS);
+                     for (SimpleString propName : message.getPropertyNames())
+                     {
+                        if (propName.startsWith(MessageImpl.HDR_ROUTE_TO_IDS))
+                        {
+                           if (propName.toString().endsWith(address.toString().substring(address.toString().lastIndexOf("."))))
                            {
-                              long queueID;
-                              String queueName = queue.getName().toString();
-
-                              if (queueIDs.containsKey(queueName))
-                              {
-                                 queueID = queueIDs.get(queueName);
-                              }
-                              else
-                              {
-                                 queueID = createQueueIfNecessaryAndGetID(session, queue, address);
-                                 queueIDs.put(queueName, queueID);  // store it so we don't have to look it up every time
-                              }
-
-                              logMessage.append(queueName).append("(").append(queueID).append(")").append(", ");
-                              buffer.putLong(queueID);
+                              oldRouteToIDs = message.getBytesProperty(propName);
                            }
+                           propertiesToRemove.add(propName);
+                        }
+                     }
 
-                           logMessage.delete(logMessage.length() - 2, logMessage.length());  // trim off the trailing comma and space
-                           HornetQServerLogger.LOGGER.debug(logMessage.append(" on address ").append(address));
+                     for (SimpleString propertyToRemove : propertiesToRemove)
+                     {
+                        message.removeProperty(propertyToRemove);
+                     }
 
-                           message.putBytesProperty(MessageImpl.HDR_ROUTE_TO_IDS, buffer.array());
-                           //we need this incase we are sending back to the source server of the message, this basically
-                           //acts like the bridge and ignores dup detection
-                           if (message.containsProperty(MessageImpl.HDR_DUPLICATE_DETECTION_ID))
-                           {
-                              byte[] bytes = new byte[24];
+                     message.putBytesProperty(MessageImpl.HDR_SCALEDOWN_TO_IDS, oldRouteToIDs);
+                  }
 
-                              ByteBuffer bb = ByteBuffer.wrap(bytes);
-                              bb.put(nodeManager.getUUID().asBytes());
-                              bb.putLong(messageId);
+                  HornetQServerLogger.LOGGER.debug("Scaling down message " + message + " from " + address + " to " + message.getAddress() + " on node " + targetNodeId);
+                  producer.send(message.getAddress(), message);
+                  messageCount++;
+                  addSentReference(sentReferences, bigLoopQueue, bigLoopRef);
+                  if (bigLoopRef.isPaged())
+                  {
+                     addSentPagedMessage(sentPagedMessages, bigLoopQueue, message.getMessageID());
+                  }
+               }
+               else
+               {
+                  List<Queue> queuesWithMessage = new ArrayList<>();
+                  queuesWithMessage.add(bigLoopQueue);
+                  long messageId = message.getMessageID();
 
-                              message.putBytesProperty(MessageImpl.HDR_BRIDGE_DUPLICATE_ID, bb.array());
-                           }
+                  getQueuesWithMessage(store, queues, queueIterators, checkedQueues, bigLoopQueue, queuesWithMessage, bigLoopRef, messageId);
 
-                           producer.send(address, message);
-                           messageCount++;
+                  // get the ID for every queue that contains the message
+                  ByteBuffer buffer = ByteBuffer.allocate(queuesWithMessage.size() * 8);
+                  StringBuilder logMessage = new StringBuilder();
+                  logMessage.append("Scaling down message ").append(messageId).append(" to ");
+                  for (Queue queue : queuesWithMessage)
+                  {
+                     long queueID;
+                     String queueName = queue.getName().toString();
 
-                           // delete the reference from all queues which contain it
-                           bigLoopQueue.deleteReference(messageId);
-                           for (Queue queue : queuesWithMessage)
-                           {
-                              queue.deleteReference(messageId);
-                           }
-                        }
+                     if (queueIDs.containsKey(queueName))
+                     {
+                        queueID = queueIDs.get(queueName);
                      }
+                     else
+                     {
+                        queueID = createQueueIfNecessaryAndGetID(queueCreateSession, queue, address);
+                        queueIDs.put(queueName, queueID);  // store it so we don't have to look it up every time
+                     }
+
+                     logMessage.append(queueName).append("(").append(queueID).append(")").append(", ");
+                     buffer.putLong(queueID);
                   }
-                  finally
+
+                  logMessage.delete(logMessage.length() - 2, logMessage.length());  // trim off the trailing comma and space
+                  HornetQServerLogger.LOGGER.debug(logMessage.append(" on address ").append(address));
+
+                  message.putBytesProperty(MessageImpl.HDR_ROUTE_TO_IDS, buffer.array());
+                  //we need this incase we are sending back to the source server of the message, this basically
+                  //acts like the bridge and ignores dup detection
+                  if (message.containsProperty(MessageImpl.HDR_DUPLICATE_DETECTION_ID))
                   {
-                     bigLoopMessageIterator.close();
-                     queueIterators.get(bigLoopQueue.getName()).close();
+                     byte[] bytes = new byte[24];
+
+                     ByteBuffer bb = ByteBuffer.wrap(bytes);
+                     bb.put(nodeManager.getUUID().asBytes());
+                     bb.putLong(messageId);
+
+                     message.putBytesProperty(MessageImpl.HDR_BRIDGE_DUPLICATE_ID, bb.array());
+                  }
+
+                  producer.send(address, message);
+                  messageCount++;
+
+                  // delete the reference from all queues which contain it
+                  for (Queue queue : queuesWithMessage)
+                  {
+                     addSentReference(sentReferences, queue, getReference(store, queue, bigLoopQueue, bigLoopRef));
+                     if (bigLoopRef.isPaged())
+                     {
+                        addSentPagedMessage(sentPagedMessages, queue, messageId);
+                     }
                   }
                }
+
+               if (++batchCount == batchSize)
+               {
+                  commitBatch(session, sentReferences, sentPagedMessages);
+                  batchCount = 0;
+               }
             }
+
+            // the next queues must not see the messages sent for this one
+            commitBatch(session, sentReferences, sentPagedMessages);
+            batchCount = 0;
+         }
+         finally
+         {
+            bigLoopMessageIterator.close();
+            queueIterators.get(bigLoopQueue.getName()).close();
          }
       }
 
-      producer.close();
-      session.close();
-
       return messageCount;
    }
 
+   private static void addSentReference(Map<Queue, List<MessageReference>> sentReferences, Queue queue, MessageReference ref)
+   {
+      List<MessageReference> refs = sentReferences.get(queue);
+      if (refs == null)
+      {
+         refs = new ArrayList<>();
+         sentReferences.put(queue, refs);
+      }
+      refs.add(ref);
+   }
+
+   /**
+    * @return the reference of the big loop message on the given queue, a paged message not yet depaged having a
+    * reference on the page subscription of each queue
+    */
+   private static MessageReference getReference(PagingStore store, Queue queue, Queue bigLoopQueue, MessageReference bigLoopRef)
+   {
+      if (bigLoopRef.isPaged() && queue != bigLoopQueue)
+      {
+         PagedReference pagedRef = (PagedReference) bigLoopRef;
+         PageCursorProvider cursorProvider = store.getCursorProvider();
+         return cursorProvider.newReference(pagedRef.getPosition(), pagedRef.getPagedMessage(), cursorProvider.getSubscription(queue.getID()));
+      }
+      return bigLoopRef;
+   }
+
+   private static void addSentPagedMessage(Map<Queue, Set<Long>> sentMessages, Queue queue, long messageID)
+   {
+      Set<Long> messageIDs = sentMessages.get(queue);
+      if (messageIDs == null)
+      {
+         messageIDs = new HashSet<>();
+         sentMessages.put(queue, messageIDs);
+      }
+      messageIDs.add(messageID);
+   }
+
+   private static boolean isSent(Map<Queue, Set<Long>> sentMessages, Queue queue, long messageID)
+   {
+      Set<Long> messageIDs = sentMessages.get(queue);
+      return messageIDs != null && messageIDs.contains(messageID);
+   }
+
+   /**
+    * Commits the messages sent since the last batch on the target server then deletes their
+    * references here, with one transaction per queue.
+    */
+   private void commitBatch(ClientSession session, Map<Queue, List<MessageReference>> sentReferences, Map<Queue, Set<Long>> sentPagedMessages) throws Exception
+   {
+      if (sentReferences.isEmpty())
+      {
+         return;
+      }
+
+      session.commit();
+
+      for (Map.Entry<Queue, List<MessageReference>> entry : sentReferences.entrySet())
+      {
+         referencesDone.addAndGet(entry.getKey().deleteReferences(entry.getValue()));
+      }
+
+      sentReferences.clear();
+
+      // the deleted paged references are acked on their page subscriptions and won't be iterated again
+      int pagedMessagesInFlight = 0;
+      for (Set<Long> messageIDs : sentPagedMessages.values())
+      {
+         pagedMessagesInFlight += messageIDs.size();
+      }
+      updateMaxPagedMessagesInFlight(pagedMessagesInFlight);
+
+      sentPagedMessages.clear();
+   }
+
+   private void updateMaxPagedMessagesInFlight(int pagedMessagesInFlight)
+   {
+      int max = maxPagedMessagesInFlight.get();
+      while (pagedMessagesInFlight > max && !maxPagedMessagesInFlight.compareAndSet(max, pagedMessagesInFlight))
+      {
+         max = maxPagedMessagesInFlight.get();
+      }
+   }
+
+   /**
+    * @return the number of messages moved to the target server by the current, or the last,
+    * scale-down, a message being counted once for every queue holding it
+    */
+   public long getMessagesDone()
+   {
+      return referencesDone.get();
+   }
+
+   /**
+    * @return an estimate of the number of messages left to move by the current scale-down
+    */
+   public long getMessagesRemaining()
+   {
+      if (startTime == 0 || endTime != 0)
+      {
+         return 0;
+      }
+      return Math.max(0, referencesTotal - referencesDone.get());
+   }
+
+   /**
+    * @return the average number of messages moved per second by the current, or the last,
+    * scale-down
+    */
+   public double getMessagesPerSecond()
+   {
+      long elapsed = (endTime != 0 ? endTime : System.currentTimeMillis()) - startTime;
+      if (startTime == 0 || elapsed <= 0)
+      {
+         return 0;
+      }
+      return referencesDone.get() * 1000d / elapsed;
+   }
+
+   /**
+    * @return the largest number of paged messages remembered at once by an address of the current, or
+    * the last, scale-down while waiting for their batch to be committed, a message being counted once
+    * for every queue holding it
+    */
+   public int getMaxPagedMessagesInFlight()
+   {
+      return maxPagedMessagesInFlight.get();
+   }
+
    private String getTargetNodeId(ClientSessionFactory sessionFactory)
    {
       return sessionFactory.getServerLocator().getTopology().getMember(sessionFactory.getConnectorConfiguration()).getNodeId();
@@ -541,6 +823,17 @@ public class ScaleDownHandler
       return queueID;
    }
 
+   private static ClassLoader getThisClassLoader()
+   {
+      return AccessController.doPrivileged(new PrivilegedAction<ClassLoader>()
+      {
+         public ClassLoader run()
+         {
+            return ScaleDownHandler.class.getClassLoader();
+         }
+      });
+   }
+
    public static class OrderQueueByNumberOfReferencesComparator implements Comparator<Queue>
    {
       @Override
@@ -13,15 +13,14 @@
 package org.hornetq.core.server.impl;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeSet;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.hornetq.core.filter.Filter;
@@ -29,9 +28,14 @@ import org.hornetq.core.server.HornetQServerLogger;
 import org.hornetq.core.server.MessageReference;
 import org.hornetq.core.server.Queue;
 import org.hornetq.core.server.ScheduledDeliveryHandler;
+import org.hornetq.utils.TimerWheel;
 
 /**
  * Handles scheduling deliveries to a queue at the correct time.
+ * <p>
+ * The scheduled references are kept on a {@link TimerWheel}, so scheduling and removing a reference
+ * doesn't depend on how many are scheduled. A single task is pending on the scheduled executor at
+ * any time, for the earliest delivery, and it delivers all the references which are due at once.
  *
  * @author <a href="mailto:tim.fox@jboss.com">Tim Fox</a>
  * @author <a href="ataylor@redhat.com">Andy Taylor</a>
@@ -43,14 +47,22 @@ public class ScheduledDeliveryHandlerImpl implements ScheduledDeliveryHandler
 {
    private static final boolean trace = HornetQServerLogger.LOGGER.isTraceEnabled();
 
-   private final ScheduledExecutorService scheduledExecutor;
-
+   private static final Comparator<RefScheduled> COMPARATOR = new MessageReferenceComparator();
 
-   private final Map<Long, Runnable> runnables = new ConcurrentHashMap<>();
+   private final ScheduledExecutorService scheduledExecutor;
 
    // This contains RefSchedules which are delegates to the real references
    // just adding some information to keep it in order accordingly to the initial operations
-   private final TreeSet<RefScheduled> scheduledReferences = new TreeSet<>(new MessageReferenceComparator());
+   private final TimerWheel<RefScheduled> scheduledReferences = new TimerWheel<>(System.currentTimeMillis());
+
+   // The last RefScheduled added for each message ID, the others are linked from it
+   private final Map<Long, RefScheduled> referencesByID = new HashMap<>();
+
+   private long sequence;
+
+   private ScheduledDeliveryRunnable pendingRunnable;
+
+   private ScheduledFuture<?> pendingFuture;
 
    public ScheduledDeliveryHandlerImpl(final ScheduledExecutorService scheduledExecutor)
    {
@@ -68,9 +80,12 @@ public class ScheduledDeliveryHandlerImpl implements ScheduledDeliveryHandler
             HornetQServerLogger.LOGGER.trace("Scheduling delivery for " + ref + " to occur at " + deliveryTime);
          }
 
-         addInPlace(deliveryTime, ref, tail);
+         synchronized (scheduledReferences)
+         {
+            addInPlace(deliveryTime, ref, tail);
 
-         scheduleDelivery(deliveryTime);
+            scheduleDelivery(deliveryTime);
+         }
 
          return true;
       }
@@ -82,7 +97,13 @@ public class ScheduledDeliveryHandlerImpl implements ScheduledDeliveryHandler
    {
       synchronized (scheduledReferences)
       {
-         scheduledReferences.add(new RefScheduled(ref, tail));
+         RefScheduled scheduled = new RefScheduled(ref, tail, sequence++);
+
+         scheduledReferences.add(scheduled, deliveryTime);
+
+         Long id = ref.getMessage().getMessageID();
+
+         scheduled.previousWithSameID = referencesByID.put(id, scheduled);
       }
    }
 
@@ -96,36 +117,52 @@ public class ScheduledDeliveryHandlerImpl implements ScheduledDeliveryHandler
 
    public List<MessageReference> getScheduledReferences()
    {
-      List<MessageReference> refs = new LinkedList<MessageReference>();
+      List<RefScheduled> scheduled = new ArrayList<RefScheduled>();
 
       synchronized (scheduledReferences)
       {
-         for (RefScheduled ref : scheduledReferences)
-         {
-            refs.add(ref.getRef());
-         }
+         scheduledReferences.collect(scheduled);
+      }
+
+      Collections.sort(scheduled, COMPARATOR);
+
+      List<MessageReference> refs = new LinkedList<MessageReference>();
+
+      for (RefScheduled ref : scheduled)
+      {
+         refs.add(ref.getRef());
       }
       return refs;
    }
 
    public List<MessageReference> cancel(final Filter filter)
    {
-      List<MessageReference> refs = new ArrayList<MessageReference>();
+      List<RefScheduled> cancelled = new ArrayList<RefScheduled>();
 
       synchronized (scheduledReferences)
       {
-         Iterator<RefScheduled> iter = scheduledReferences.iterator();
+         List<RefScheduled> scheduled = new ArrayList<RefScheduled>(scheduledReferences.size());
+
+         scheduledReferences.collect(scheduled);
 
-         while (iter.hasNext())
+         for (RefScheduled ref : scheduled)
          {
-            MessageReference ref = iter.next().getRef();
-            if (filter == null || filter.match(ref.getMessage()))
+            if (filter == null || filter.match(ref.getRef().getMessage()))
             {
-               iter.remove();
-               refs.add(ref);
+               remove(ref);
+               cancelled.add(ref);
             }
          }
       }
+
+      Collections.sort(cancelled, COMPARATOR);
+
+      List<MessageReference> refs = new ArrayList<MessageReference>(cancelled.size());
+
+      for (RefScheduled ref : cancelled)
+      {
+         refs.add(ref.getRef());
+      }
       return refs;
    }
 
@@ -133,61 +170,90 @@ public class ScheduledDeliveryHandlerImpl implements ScheduledDeliveryHandler
    {
       synchronized (scheduledReferences)
       {
-         Iterator<RefScheduled> iter = scheduledReferences.iterator();
-         while (iter.hasNext())
+         RefScheduled ref = referencesByID.get(id);
+
+         if (ref == null)
          {
-            MessageReference ref = iter.next().getRef();
-            if (ref.getMessage().getMessageID() == id)
-            {
-               iter.remove();
-               return ref;
-            }
+            return null;
          }
-      }
 
-      return null;
+         remove(ref);
+
+         return ref.getRef();
+      }
    }
 
-   private void scheduleDelivery(final long deliveryTime)
+   // must be called while holding the lock on scheduledReferences
+   private void remove(final RefScheduled ref)
    {
-      final long now = System.currentTimeMillis();
+      scheduledReferences.remove(ref);
 
-      final long delay = deliveryTime - now;
+      Long id = ref.getRef().getMessage().getMessageID();
 
-      if (delay < 0)
+      RefScheduled last = referencesByID.get(id);
+
+      if (last == ref)
       {
-         if (ScheduledDeliveryHandlerImpl.trace)
+         if (ref.previousWithSameID == null)
+         {
+            referencesByID.remove(id);
+         }
+         else
          {
-            HornetQServerLogger.LOGGER.trace("calling another scheduler now as deliverTime " + deliveryTime + " < now=" + now);
+            referencesByID.put(id, ref.previousWithSameID);
          }
-         // if delay == 0 we will avoid races between adding the scheduler and finishing it
-         ScheduledDeliveryRunnable runnable = new ScheduledDeliveryRunnable(deliveryTime);
-         scheduledExecutor.schedule(runnable, 0, TimeUnit.MILLISECONDS);
       }
-      else if (!runnables.containsKey(deliveryTime))
+      else
       {
-         ScheduledDeliveryRunnable runnable = new ScheduledDeliveryRunnable(deliveryTime);
-
-         if (ScheduledDeliveryHandlerImpl.trace)
+         while (last != null && last.previousWithSameID != ref)
          {
-            HornetQServerLogger.LOGGER.trace("Setting up scheduler for " + deliveryTime + " with a delay of " + delay + " as now=" + now);
+            last = last.previousWithSameID;
          }
 
-         runnables.put(deliveryTime, runnable);
-         scheduledExecutor.schedule(runnable, delay, TimeUnit.MILLISECONDS);
+         if (last != null)
+         {
+            last.previousWithSameID = ref.previousWithSameID;
+         }
       }
-      else
+
+      ref.previousWithSameID = null;
+   }
+
+   // must be called while holding the lock on scheduledReferences
+   private void scheduleDelivery(final long deliveryTime)
+   {
+      if (pendingRunnable != null && pendingRunnable.deliveryTime <= deliveryTime)
       {
          if (ScheduledDeliveryHandlerImpl.trace)
          {
-            HornetQServerLogger.LOGGER.trace("Couldn't make another scheduler as " + deliveryTime + " is already set, now is " + now);
+            HornetQServerLogger.LOGGER.trace("Couldn't make another scheduler as " + pendingRunnable.deliveryTime +
+                                                " is already set before " + deliveryTime);
          }
+         return;
       }
+
+      if (pendingFuture != null)
+      {
+         pendingFuture.cancel(false);
+      }
+
+      final long now = System.currentTimeMillis();
+
+      // if delay <= 0 we will avoid races between adding the scheduler and finishing it
+      final long delay = Math.max(deliveryTime - now, 0);
+
+      if (ScheduledDeliveryHandlerImpl.trace)
+      {
+         HornetQServerLogger.LOGGER.trace("Setting up scheduler for " + deliveryTime + " with a delay of " + delay + " as now=" + now);
+      }
+
+      pendingRunnable = new ScheduledDeliveryRunnable(deliveryTime);
+      pendingFuture = scheduledExecutor.schedule(pendingRunnable, delay, TimeUnit.MILLISECONDS);
    }
 
    private class ScheduledDeliveryRunnable implements Runnable
    {
-      long deliveryTime;
+      final long deliveryTime;
 
       public ScheduledDeliveryRunnable(final long deliveryTime)
       {
@@ -196,70 +262,72 @@ public class ScheduledDeliveryHandlerImpl implements ScheduledDeliveryHandler
 
       public void run()
       {
-         HashMap<Queue, LinkedList<MessageReference>> refs = new HashMap<Queue, LinkedList<MessageReference>>();
-
-         runnables.remove(deliveryTime);
+         List<RefScheduled> due = new ArrayList<RefScheduled>();
 
+         // on some OSes (so far Windows only) the precision of the scheduled executor could eventually give
+         // an executor call earlier than it was supposed, so only the references due by now are delivered
+         // and the next scheduler is set up for the others
          final long now = System.currentTimeMillis();
 
-         if (now < deliveryTime)
-         {
-            // Ohhhh... blame it on the OS
-            // on some OSes (so far Windows only) the precision of the scheduled executor could eventually give
-            // an executor call earlier than it was supposed...
-            // for that reason we will schedule it again so no messages are lost!
-            // we can't just assume deliveryTime here as we could deliver earlier than what we are supposed to
-            // this is basically a hack to work around an OS or JDK bug!
-            if (trace)
-            {
-               HornetQServerLogger.LOGGER.trace("Scheduler is working around OS imprecisions on " +
-                                                 "timing and re-scheduling an executor. now=" + now +
-                                                 " and deliveryTime=" + deliveryTime);
-            }
-            ScheduledDeliveryHandlerImpl.this.scheduleDelivery(deliveryTime);
-         }
-
          if (ScheduledDeliveryHandlerImpl.trace)
          {
-            HornetQServerLogger.LOGGER.trace("Is it " + System.currentTimeMillis() + " now and we are running deliveryTime = " + deliveryTime);
+            HornetQServerLogger.LOGGER.trace("Is it " + now + " now and we are running deliveryTime = " + deliveryTime);
          }
 
          synchronized (scheduledReferences)
          {
+            if (pendingRunnable == this)
+            {
+               pendingRunnable = null;
+               pendingFuture = null;
+            }
+
+            scheduledReferences.advance(now);
+
+            scheduledReferences.drainDue(due, Integer.MAX_VALUE);
+
+            for (RefScheduled ref : due)
+            {
+               remove(ref);
+            }
+
+            long next = scheduledReferences.nextTick();
 
-            Iterator<RefScheduled> iter = scheduledReferences.iterator();
-            while (iter.hasNext())
+            if (next != Long.MAX_VALUE)
             {
-               MessageReference reference = iter.next().getRef();
-               if (reference.getScheduledDeliveryTime() > now)
-               {
-                  // We will delivery as long as there are messages to be delivered
-                  break;
-               }
+               scheduleDelivery(next);
+            }
+         }
 
-               iter.remove();
+         if (due.isEmpty())
+         {
+            return;
+         }
 
-               reference.setScheduledDeliveryTime(0);
+         Collections.sort(due, COMPARATOR);
 
-               LinkedList<MessageReference> references = refs.get(reference.getQueue());
+         HashMap<Queue, LinkedList<MessageReference>> refs = new HashMap<Queue, LinkedList<MessageReference>>();
+
+         for (RefScheduled scheduled : due)
+         {
+            MessageReference reference = scheduled.getRef();
 
-               if (references == null)
-               {
-                  references = new LinkedList<MessageReference>();
-                  refs.put(reference.getQueue(), references);
-               }
+            reference.setScheduledDeliveryTime(0);
 
-               if (ScheduledDeliveryHandlerImpl.trace)
-               {
-                  HornetQServerLogger.LOGGER.trace("sending message " + reference + " to delivery, deliveryTime =  " + deliveryTime);
-               }
+            LinkedList<MessageReference> references = refs.get(reference.getQueue());
 
-               references.addFirst(reference);
+            if (references == null)
+            {
+               references = new LinkedList<MessageReference>();
+               refs.put(reference.getQueue(), references);
             }
+
             if (ScheduledDeliveryHandlerImpl.trace)
             {
-               HornetQServerLogger.LOGGER.trace("Finished loop on deliveryTime = " + deliveryTime);
+               HornetQServerLogger.LOGGER.trace("sending message " + reference + " to delivery, deliveryTime =  " + deliveryTime);
             }
+
+            references.addFirst(reference);
          }
 
          for (Map.Entry<Queue, LinkedList<MessageReference>> entry : refs.entrySet())
@@ -280,17 +348,21 @@ public class ScheduledDeliveryHandlerImpl implements ScheduledDeliveryHandler
    }
 
 
-   // We need a treeset ordered, but we need to order tail operations as well.
+   // The wheel doesn't keep the references in order, but we need to order tail operations as well.
    // So, this will serve as a delegate to the object
-   class RefScheduled
+   static class RefScheduled extends TimerWheel.Entry
    {
       private final MessageReference ref;
       private final boolean tail;
+      private final long sequence;
 
-      RefScheduled(MessageReference ref, boolean tail)
+      private RefScheduled previousWithSameID;
+
+      RefScheduled(MessageReference ref, boolean tail, long sequence)
       {
          this.ref = ref;
          this.tail = tail;
+         this.sequence = sequence;
       }
 
       public MessageReference getRef()
@@ -309,7 +381,7 @@ public class ScheduledDeliveryHandlerImpl implements ScheduledDeliveryHandler
    {
       public int compare(RefScheduled ref1, RefScheduled ref2)
       {
-         long diff = ref1.getRef().getScheduledDeliveryTime() - ref2.getRef().getScheduledDeliveryTime();
+         long diff = ref1.getDeadline() - ref2.getDeadline();
 
          if (diff < 0L)
          {
@@ -320,32 +392,19 @@ public class ScheduledDeliveryHandlerImpl implements ScheduledDeliveryHandler
             return 1;
          }
 
-
-         // Even if ref1 and ref2 have the same delivery time, we only want to return 0 if they are identical
-         if (ref1 == ref2)
+         if (ref1.isTail() && !ref2.isTail())
          {
-            return 0;
+            return 1;
          }
-         else
+         else if (!ref1.isTail() && ref2.isTail())
          {
-
-            if (ref1.isTail() && !ref2.isTail())
-            {
-               return 1;
-            }
-            else if (!ref1.isTail() && ref2.isTail())
-            {
-               return -1;
-            }
-            if (!ref1.isTail() && !ref2.isTail())
-            {
-               return -1;
-            }
-            else
-            {
-               return 1;
-            }
+            return -1;
          }
+
+         // the heads added last go first, and the tails are kept in the order they were added
+         int order = ref1.sequence < ref2.sequence ? -1 : ref1.sequence == ref2.sequence ? 0 : 1;
+
+         return ref1.isTail() ? order : -order;
       }
    }
 
@@ -12,7 +12,10 @@
  */
 package org.hornetq.core.server.impl;
 
+import java.io.File;
+import java.io.RandomAccessFile;
 import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -772,6 +775,7 @@ public class ServerConsumerImpl implements ServerConsumer, ReadyListener
             }
 
             ref.getQueue().acknowledge(tx, ref);
+            recordAcknowledge(ref);
             acks++;
          }
          while (ref.getMessage().getMessageID() != messageID);
@@ -831,6 +835,7 @@ public class ServerConsumerImpl implements ServerConsumer, ReadyListener
       {
          ref.getQueue().acknowledge(tx, ref);
       }
+      recordAcknowledge(ref);
       acks++;
    }
 
@@ -978,6 +983,13 @@ public class ServerConsumerImpl implements ServerConsumer, ReadyListener
     */
    private void deliverStandardMessage(final MessageReference ref, final ServerMessage message)
    {
+      long enqueueTime = ref.getEnqueueTime();
+
+      if (enqueueTime != 0)
+      {
+         messageQueue.getDeliveryLatencies().record((System.nanoTime() - enqueueTime) / 1000);
+      }
+
       int packetSize = callback.sendMessage(message, ServerConsumerImpl.this, ref.getDeliveryCount());
 
       if (availableCredits != null)
@@ -994,6 +1006,16 @@ public class ServerConsumerImpl implements ServerConsumer, ReadyListener
       }
    }
 
+   private void recordAcknowledge(final MessageReference ref)
+   {
+      long enqueueTime = ref.getEnqueueTime();
+
+      if (enqueueTime != 0)
+      {
+         ref.getQueue().getAcknowledgeLatencies().record((System.nanoTime() - enqueueTime) / 1000);
+      }
+   }
+
    // Inner classes
    // ------------------------------------------------------------------------
 
@@ -1039,6 +1061,11 @@ public class ServerConsumerImpl implements ServerConsumer, ReadyListener
 
       private BodyEncoder context;
 
+      /**
+       * The file the body is sent from if the connection can transfer files, null otherwise
+       */
+      private File bodyFile;
+
       public LargeMessageDeliverer(final LargeServerMessage message, final MessageReference ref) throws Exception
       {
          largeMessage = message;
@@ -1077,6 +1104,12 @@ public class ServerConsumerImpl implements ServerConsumer, ReadyListener
 
                context.open();
 
+               if (largeMessage.getFile() != null &&
+                  session.getRemotingConnection().getTransportConnection().isFileRegionCapable())
+               {
+                  bodyFile = largeMessage.getFile().getJavaFile();
+               }
+
                sentInitialPacket = true;
 
                int packetSize = callback.sendLargeMessage(largeMessage,
@@ -1122,18 +1155,33 @@ public class ServerConsumerImpl implements ServerConsumer, ReadyListener
 
                localChunkLen = (int) Math.min(sizePendingLargeMessage - positionPendingLargeMessage, minLargeMessageSize);
 
-               HornetQBuffer bodyBuffer = HornetQBuffers.fixedBuffer(localChunkLen);
+               boolean continues = positionPendingLargeMessage + localChunkLen < sizePendingLargeMessage;
 
-               context.encode(bodyBuffer, localChunkLen);
+               int packetSize;
 
-               byte[] body = bodyBuffer.toByteBuffer().array();
+               if (bodyFile != null)
+               {
+                  // one file per chunk, it is closed once the chunk is written
+                  FileChannel file = new RandomAccessFile(bodyFile, "r").getChannel();
+
+                  packetSize = callback.sendLargeMessageContinuation(ServerConsumerImpl.this,
+                                                                     file,
+                                                                     positionPendingLargeMessage,
+                                                                     localChunkLen,
+                                                                     continues);
+               }
+               else
+               {
+                  HornetQBuffer bodyBuffer = HornetQBuffers.fixedBuffer(localChunkLen);
+
+                  context.encode(bodyBuffer, localChunkLen);
 
-               int packetSize = callback.sendLargeMessageContinuation(ServerConsumerImpl.this,
-                                                                      body,
-                                                                      positionPendingLargeMessage + localChunkLen < sizePendingLargeMessage,
-                                                                      false);
+                  byte[] body = bodyBuffer.toByteBuffer().array();
+
+                  packetSize = callback.sendLargeMessageContinuation(ServerConsumerImpl.this, body, continues, false);
+               }
 
-               int chunkLen = body.length;
+               int chunkLen = localChunkLen;
 
                if (availableCredits != null)
                {
@@ -1337,6 +1337,11 @@ public class ServerSessionImpl implements ServerSession, FailureListener
       if (tx != null)
       {
          tx.setTimeout(timeout);
+
+         if (tx.getXid() != null)
+         {
+            resourceManager.transactionTimeoutChanged(tx.getXid());
+         }
       }
    }
 
@@ -99,7 +99,12 @@ public final class SharedNothingBackupActivation extends Activation
          }
          // move all data away:
          hornetQServer.getNodeManager().stop();
-         hornetQServer.moveServerData();
+         final int movedDataSuffix = hornetQServer.moveServerData();
+         if (movedDataSuffix > 0)
+         {
+            // the files of the data moved away are reused by the synchronization when possible
+            replicationEndpoint.setPreviousDataSuffix(movedDataSuffix);
+         }
          hornetQServer.getNodeManager().start();
          synchronized (this)
          {
@@ -345,7 +350,8 @@ public final class SharedNothingBackupActivation extends Activation
                configuration,
                parentServer,
                ScaleDownPolicy.getScaleDownConnector(replicaPolicy.getScaleDownPolicy(), hornetQServer),
-               hornetQServer.getClusterManager().getClusterController());
+               hornetQServer.getClusterManager().getClusterController(),
+               replicaPolicy.getScaleDownPolicy());
       }
       else
       {
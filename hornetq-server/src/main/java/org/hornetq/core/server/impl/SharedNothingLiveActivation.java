@@ -168,6 +168,8 @@ public class SharedNothingLiveActivation extends LiveActivation
          rc.addCloseListener(listener);
          rc.addFailureListener(listener);
          replicationManager = new ReplicationManager(rc, hornetQServer.getExecutorFactory());
+         replicationManager.setSynchronizationLimits(replicatedPolicy.getSyncStreams(), replicatedPolicy.getSyncMaxBytesPerSecond());
+         replicationManager.setCallTimeout(clusterConnection.getCallTimeout());
          replicationManager.start();
          Thread t = new Thread(new Runnable()
          {
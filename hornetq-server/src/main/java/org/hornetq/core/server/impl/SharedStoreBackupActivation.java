@@ -200,7 +200,8 @@ public final class SharedStoreBackupActivation extends Activation
                configuration,
                parentServer,
                ScaleDownPolicy.getScaleDownConnector(sharedStoreSlavePolicy.getScaleDownPolicy(), hornetQServer),
-               hornetQServer.getClusterManager().getClusterController());
+               hornetQServer.getClusterManager().getClusterController(),
+               sharedStoreSlavePolicy.getScaleDownPolicy());
       }
       else
       {
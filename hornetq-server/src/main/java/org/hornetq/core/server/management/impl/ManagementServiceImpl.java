@@ -37,6 +37,7 @@ import org.hornetq.api.core.management.BridgeControl;
 import org.hornetq.api.core.management.BroadcastGroupControl;
 import org.hornetq.api.core.management.ClusterConnectionControl;
 import org.hornetq.api.core.management.DivertControl;
+import org.hornetq.api.core.management.JournalControl;
 import org.hornetq.api.core.management.ManagementHelper;
 import org.hornetq.api.core.management.ObjectNameBuilder;
 import org.hornetq.api.core.management.ResourceNames;
@@ -44,6 +45,8 @@ import org.hornetq.core.config.BridgeConfiguration;
 import org.hornetq.core.config.ClusterConnectionConfiguration;
 import org.hornetq.core.config.Configuration;
 import org.hornetq.core.config.DivertConfiguration;
+import org.hornetq.core.journal.Journal;
+import org.hornetq.core.journal.impl.JournalImpl;
 import org.hornetq.core.management.impl.AcceptorControlImpl;
 import org.hornetq.core.management.impl.AddressControlImpl;
 import org.hornetq.core.management.impl.BridgeControlImpl;
@@ -51,6 +54,7 @@ import org.hornetq.core.management.impl.BroadcastGroupControlImpl;
 import org.hornetq.core.management.impl.ClusterConnectionControlImpl;
 import org.hornetq.core.management.impl.DivertControlImpl;
 import org.hornetq.core.management.impl.HornetQServerControlImpl;
+import org.hornetq.core.management.impl.JournalControlImpl;
 import org.hornetq.core.management.impl.QueueControlImpl;
 import org.hornetq.core.messagecounter.MessageCounter;
 import org.hornetq.core.messagecounter.MessageCounterManager;
@@ -91,6 +95,10 @@ public class ManagementServiceImpl implements ManagementService
 
    private static final boolean isTrace = HornetQServerLogger.LOGGER.isTraceEnabled();
 
+   private static final String MESSAGES_JOURNAL = "messages";
+
+   private static final String BINDINGS_JOURNAL = "bindings";
+
    private final MBeanServer mbeanServer;
 
    private final boolean jmxManagementEnabled;
@@ -202,6 +210,9 @@ public class ManagementServiceImpl implements ManagementService
       registerInJMX(objectName, messagingServerControl);
       registerInRegistry(ResourceNames.CORE_SERVER, messagingServerControl);
 
+      registerJournal(MESSAGES_JOURNAL, storageManager1.getMessageJournal());
+      registerJournal(BINDINGS_JOURNAL, storageManager1.getBindingsJournal());
+
       return messagingServerControl;
    }
 
@@ -210,6 +221,27 @@ public class ManagementServiceImpl implements ManagementService
       ObjectName objectName = objectNameBuilder.getHornetQServerObjectName();
       unregisterFromJMX(objectName);
       unregisterFromRegistry(ResourceNames.CORE_SERVER);
+
+      unregisterJournal(MESSAGES_JOURNAL);
+      unregisterJournal(BINDINGS_JOURNAL);
+   }
+
+   private void registerJournal(final String name, final Journal journal) throws Exception
+   {
+      // there's no journal when persistence is disabled
+      if (journal instanceof JournalImpl)
+      {
+         ObjectName objectName = objectNameBuilder.getJournalObjectName(name);
+         JournalControl control = new JournalControlImpl(name, (JournalImpl) journal, storageManager);
+         registerInJMX(objectName, control);
+         registerInRegistry(ResourceNames.CORE_JOURNAL + name, control);
+      }
+   }
+
+   private void unregisterJournal(final String name) throws Exception
+   {
+      unregisterFromJMX(objectNameBuilder.getJournalObjectName(name));
+      unregisterFromRegistry(ResourceNames.CORE_JOURNAL + name);
    }
 
    public synchronized void registerAddress(final SimpleString address) throws Exception
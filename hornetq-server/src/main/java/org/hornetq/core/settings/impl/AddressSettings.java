@@ -54,6 +54,10 @@ public class AddressSettings implements Mergeable<AddressSettings>, Serializable
 
    public static final long DEFAULT_REDISTRIBUTION_DELAY = -1;
 
+   public static final int DEFAULT_REDISTRIBUTION_BATCH_SIZE = 100;
+
+   public static final int DEFAULT_REDISTRIBUTION_MAX_RATE = -1;
+
    public static final long DEFAULT_EXPIRY_DELAY = -1;
 
    public static final boolean DEFAULT_SEND_TO_DLA_ON_NO_ROUTE = false;
@@ -94,6 +98,10 @@ public class AddressSettings implements Mergeable<AddressSettings>, Serializable
 
    private Long redistributionDelay = null;
 
+   private Integer redistributionBatchSize = null;
+
+   private Integer redistributionMaxRate = null;
+
    private Boolean sendToDLAOnNoRoute = null;
 
    private Long slowConsumerThreshold = null;
@@ -119,6 +127,8 @@ public class AddressSettings implements Mergeable<AddressSettings>, Serializable
       this.expiryDelay = other.expiryDelay;
       this.lastValueQueue = other.lastValueQueue;
       this.redistributionDelay = other.redistributionDelay;
+      this.redistributionBatchSize = other.redistributionBatchSize;
+      this.redistributionMaxRate = other.redistributionMaxRate;
       this.sendToDLAOnNoRoute = other.sendToDLAOnNoRoute;
       this.slowConsumerThreshold = other.slowConsumerThreshold;
       this.slowConsumerCheckPeriod = other.slowConsumerCheckPeriod;
@@ -284,6 +294,32 @@ public class AddressSettings implements Mergeable<AddressSettings>, Serializable
       this.redistributionDelay = redistributionDelay;
    }
 
+   /**
+    * @return the maximum number of messages moved to another node in a single transaction
+    */
+   public int getRedistributionBatchSize()
+   {
+      return redistributionBatchSize != null ? redistributionBatchSize : AddressSettings.DEFAULT_REDISTRIBUTION_BATCH_SIZE;
+   }
+
+   public void setRedistributionBatchSize(final int redistributionBatchSize)
+   {
+      this.redistributionBatchSize = redistributionBatchSize;
+   }
+
+   /**
+    * @return the maximum number of messages per second moved to other nodes from a queue, -1 for no limit
+    */
+   public int getRedistributionMaxRate()
+   {
+      return redistributionMaxRate != null ? redistributionMaxRate : AddressSettings.DEFAULT_REDISTRIBUTION_MAX_RATE;
+   }
+
+   public void setRedistributionMaxRate(final int redistributionMaxRate)
+   {
+      this.redistributionMaxRate = redistributionMaxRate;
+   }
+
    public long getSlowConsumerThreshold()
    {
       return slowConsumerThreshold != null ? slowConsumerThreshold : AddressSettings.DEFAULT_SLOW_CONSUMER_THRESHOLD;
@@ -374,6 +410,14 @@ public class AddressSettings implements Mergeable<AddressSettings>, Serializable
       {
          redistributionDelay = merged.redistributionDelay;
       }
+      if (redistributionBatchSize == null)
+      {
+         redistributionBatchSize = merged.redistributionBatchSize;
+      }
+      if (redistributionMaxRate == null)
+      {
+         redistributionMaxRate = merged.redistributionMaxRate;
+      }
       if (sendToDLAOnNoRoute == null)
       {
          sendToDLAOnNoRoute = merged.sendToDLAOnNoRoute;
@@ -454,6 +498,14 @@ public class AddressSettings implements Mergeable<AddressSettings>, Serializable
       {
          slowConsumerPolicy = null;
       }
+
+      // settings persisted by previous versions end here
+      if (buffer.readable())
+      {
+         redistributionBatchSize = BufferHelper.readNullableInteger(buffer);
+
+         redistributionMaxRate = BufferHelper.readNullableInteger(buffer);
+      }
    }
 
    @Override
@@ -478,7 +530,9 @@ public class AddressSettings implements Mergeable<AddressSettings>, Serializable
          BufferHelper.sizeOfNullableBoolean(sendToDLAOnNoRoute) +
          BufferHelper.sizeOfNullableLong(slowConsumerCheckPeriod) +
          BufferHelper.sizeOfNullableLong(slowConsumerThreshold) +
-         BufferHelper.sizeOfNullableSimpleString(slowConsumerPolicy != null ? slowConsumerPolicy.toString() : null);
+         BufferHelper.sizeOfNullableSimpleString(slowConsumerPolicy != null ? slowConsumerPolicy.toString() : null) +
+         BufferHelper.sizeOfNullableInteger(redistributionBatchSize) +
+         BufferHelper.sizeOfNullableInteger(redistributionMaxRate);
    }
 
    @Override
@@ -522,6 +576,10 @@ public class AddressSettings implements Mergeable<AddressSettings>, Serializable
       BufferHelper.writeNullableLong(buffer, slowConsumerCheckPeriod);
 
       buffer.writeNullableSimpleString(slowConsumerPolicy != null ? new SimpleString(slowConsumerPolicy.toString()) : null);
+
+      BufferHelper.writeNullableInteger(buffer, redistributionBatchSize);
+
+      BufferHelper.writeNullableInteger(buffer, redistributionMaxRate);
    }
 
    /* (non-Javadoc)
@@ -548,6 +606,8 @@ public class AddressSettings implements Mergeable<AddressSettings>, Serializable
       result = prime * result + ((redeliveryMultiplier == null) ? 0 : redeliveryMultiplier.hashCode());
       result = prime * result + ((maxRedeliveryDelay == null) ? 0 : maxRedeliveryDelay.hashCode());
       result = prime * result + ((redistributionDelay == null) ? 0 : redistributionDelay.hashCode());
+      result = prime * result + ((redistributionBatchSize == null) ? 0 : redistributionBatchSize.hashCode());
+      result = prime * result + ((redistributionMaxRate == null) ? 0 : redistributionMaxRate.hashCode());
       result = prime * result + ((sendToDLAOnNoRoute == null) ? 0 : sendToDLAOnNoRoute.hashCode());
       result = prime * result + ((slowConsumerThreshold == null) ? 0 : slowConsumerThreshold.hashCode());
       result = prime * result + ((slowConsumerCheckPeriod == null) ? 0 : slowConsumerCheckPeriod.hashCode());
@@ -673,6 +733,20 @@ public class AddressSettings implements Mergeable<AddressSettings>, Serializable
       }
       else if (!redistributionDelay.equals(other.redistributionDelay))
          return false;
+      if (redistributionBatchSize == null)
+      {
+         if (other.redistributionBatchSize != null)
+            return false;
+      }
+      else if (!redistributionBatchSize.equals(other.redistributionBatchSize))
+         return false;
+      if (redistributionMaxRate == null)
+      {
+         if (other.redistributionMaxRate != null)
+            return false;
+      }
+      else if (!redistributionMaxRate.equals(other.redistributionMaxRate))
+         return false;
       if (sendToDLAOnNoRoute == null)
       {
          if (other.sendToDLAOnNoRoute != null)
@@ -739,6 +813,10 @@ public class AddressSettings implements Mergeable<AddressSettings>, Serializable
          maxRedeliveryDelay +
          ", redistributionDelay=" +
          redistributionDelay +
+         ", redistributionBatchSize=" +
+         redistributionBatchSize +
+         ", redistributionMaxRate=" +
+         redistributionMaxRate +
          ", sendToDLAOnNoRoute=" +
          sendToDLAOnNoRoute +
          ", slowConsumerThreshold=" +
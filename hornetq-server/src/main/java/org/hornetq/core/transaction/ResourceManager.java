@@ -18,6 +18,7 @@ import java.util.Map;
 import javax.transaction.xa.Xid;
 
 import org.hornetq.core.server.HornetQComponent;
+import org.hornetq.utils.LatencyHistogram;
 
 /**
  *
@@ -34,6 +35,11 @@ public interface ResourceManager extends HornetQComponent
 
    Transaction removeTransaction(Xid xid);
 
+   /**
+    * To be called when the timeout of a transaction of this resource manager has been changed.
+    */
+   void transactionTimeoutChanged(Xid xid);
+
    int getTimeoutSeconds();
 
    List<Xid> getPreparedTransactions();
@@ -48,4 +54,21 @@ public interface ResourceManager extends HornetQComponent
 
    List<Xid> getHeuristicRolledbackTransactions();
 
+   long getCommittedTransactionCount();
+
+   long getRolledBackTransactionCount();
+
+   long getTimedOutTransactionCount();
+
+   /**
+    * @return the times in microseconds from the start to the prepare of the transactions
+    */
+   LatencyHistogram getPrepareTimes();
+
+   /**
+    * @return the times in microseconds from the prepare (or the start for a one phase commit)
+    * to the commit of the transactions
+    */
+   LatencyHistogram getCommitTimes();
+
 }
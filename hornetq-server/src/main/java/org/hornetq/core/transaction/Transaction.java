@@ -73,5 +73,10 @@ public interface Transaction
 
    void setTimeout(int timeout);
 
+   /**
+    * @return the timeout of this transaction in seconds, -1 if it uses the default timeout of the resource manager
+    */
+   int getTimeout();
+
    RefsOperation createRefsOperation(Queue queue);
 }
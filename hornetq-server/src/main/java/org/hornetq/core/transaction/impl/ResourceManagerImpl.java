@@ -14,32 +14,52 @@ package org.hornetq.core.transaction.impl;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.transaction.xa.Xid;
 
 import org.hornetq.core.server.HornetQServerLogger;
 import org.hornetq.core.transaction.ResourceManager;
 import org.hornetq.core.transaction.Transaction;
+import org.hornetq.core.transaction.TransactionOperationAbstract;
+import org.hornetq.core.transaction.TransactionPropertyIndexes;
+import org.hornetq.utils.LatencyHistogram;
+import org.hornetq.utils.TimerWheel;
 
 /**
  * A ResourceManagerImpl
- *
+ * <p>
+ * The transactions are also kept by their timeout on timer wheels, sharded by Xid so the sessions
+ * starting and ending transactions don't all contend on the same lock. The timeout handler only
+ * looks at the transactions whose timeout has passed.
  *
  * @author <a href="mailto:tim.fox@jboss.com">Tim Fox</a>
  */
 public class ResourceManagerImpl implements ResourceManager
 {
-   private final ConcurrentMap<Xid, Transaction> transactions = new ConcurrentHashMap<Xid, Transaction>();
+   private static final int TIMEOUT_SHARDS = 16;
+
+   private final ConcurrentMap<Xid, TransactionEntry> transactions = new ConcurrentHashMap<Xid, TransactionEntry>();
+
+   private final TimeoutShard[] timeoutShards = new TimeoutShard[TIMEOUT_SHARDS];
+
+   private final AtomicLong committedTransactions = new AtomicLong();
+
+   private final AtomicLong rolledBackTransactions = new AtomicLong();
+
+   private final AtomicLong timedOutTransactions = new AtomicLong();
+
+   private final LatencyHistogram prepareTimes = new LatencyHistogram();
+
+   private final LatencyHistogram commitTimes = new LatencyHistogram();
 
    private final List<HeuristicCompletionHolder> heuristicCompletions = new ArrayList<HeuristicCompletionHolder>();
 
@@ -60,6 +80,11 @@ public class ResourceManagerImpl implements ResourceManager
       this.defaultTimeoutSeconds = defaultTimeoutSeconds;
       this.txTimeoutScanPeriod = txTimeoutScanPeriod;
       this.scheduledThreadPool = scheduledThreadPool;
+
+      for (int i = 0; i < TIMEOUT_SHARDS; i++)
+      {
+         timeoutShards[i] = new TimeoutShard();
+      }
    }
 
    // HornetQComponent implementation
@@ -106,17 +131,56 @@ public class ResourceManagerImpl implements ResourceManager
 
    public Transaction getTransaction(final Xid xid)
    {
-      return transactions.get(xid);
+      TransactionEntry entry = transactions.get(xid);
+
+      return entry == null ? null : entry.tx;
    }
 
    public boolean putTransaction(final Xid xid, final Transaction tx)
    {
-      return transactions.putIfAbsent(xid, tx) == null;
+      TransactionEntry entry = new TransactionEntry(xid, tx);
+
+      if (transactions.putIfAbsent(xid, entry) != null)
+      {
+         return false;
+      }
+
+      if (tx.getProperty(TransactionPropertyIndexes.XA_TIMING) == null)
+      {
+         XATiming timing = new XATiming(tx.getState() == Transaction.State.PREPARED);
+         tx.putProperty(TransactionPropertyIndexes.XA_TIMING, timing);
+         tx.addOperation(timing);
+      }
+
+      scheduleTimeout(entry);
+
+      return true;
    }
 
    public Transaction removeTransaction(final Xid xid)
    {
-      return transactions.remove(xid);
+      TransactionEntry entry = transactions.remove(xid);
+
+      if (entry == null)
+      {
+         return null;
+      }
+
+      cancelTimeout(entry);
+
+      return entry.tx;
+   }
+
+   public void transactionTimeoutChanged(final Xid xid)
+   {
+      TransactionEntry entry = transactions.get(xid);
+
+      if (entry != null)
+      {
+         cancelTimeout(entry);
+
+         scheduleTimeout(entry);
+      }
    }
 
    public int getTimeoutSeconds()
@@ -128,9 +192,9 @@ public class ResourceManagerImpl implements ResourceManager
    {
       List<Xid> xids = new ArrayList<Xid>();
 
-      for (Map.Entry<Xid, Transaction> entry : transactions.entrySet())
+      for (Map.Entry<Xid, TransactionEntry> entry : transactions.entrySet())
       {
-         if (entry.getValue().getState() == Transaction.State.PREPARED)
+         if (entry.getValue().tx.getState() == Transaction.State.PREPARED)
          {
             xids.add(entry.getKey());
          }
@@ -142,9 +206,9 @@ public class ResourceManagerImpl implements ResourceManager
    {
       Map<Xid, Long> xidsWithCreationTime = new HashMap<Xid, Long>();
 
-      for (Map.Entry<Xid, Transaction> entry : transactions.entrySet())
+      for (Map.Entry<Xid, TransactionEntry> entry : transactions.entrySet())
       {
-         xidsWithCreationTime.put(entry.getKey(), entry.getValue().getCreateTime());
+         xidsWithCreationTime.put(entry.getKey(), entry.getValue().tx.getCreateTime());
       }
       return xidsWithCreationTime;
    }
@@ -179,6 +243,74 @@ public class ResourceManagerImpl implements ResourceManager
       return -1;
    }
 
+   public long getCommittedTransactionCount()
+   {
+      return committedTransactions.get();
+   }
+
+   public long getRolledBackTransactionCount()
+   {
+      return rolledBackTransactions.get();
+   }
+
+   public long getTimedOutTransactionCount()
+   {
+      return timedOutTransactions.get();
+   }
+
+   public LatencyHistogram getPrepareTimes()
+   {
+      return prepareTimes;
+   }
+
+   public LatencyHistogram getCommitTimes()
+   {
+      return commitTimes;
+   }
+
+   private TimeoutShard shardOf(final Xid xid)
+   {
+      int hash = xid.hashCode();
+
+      return timeoutShards[(hash ^ hash >>> 16) & TIMEOUT_SHARDS - 1];
+   }
+
+   private void scheduleTimeout(final TransactionEntry entry)
+   {
+      Transaction tx = entry.tx;
+
+      // prepared transactions never time out
+      if (tx.getState() == Transaction.State.PREPARED)
+      {
+         return;
+      }
+
+      int timeoutSeconds = tx.getTimeout() == -1 ? defaultTimeoutSeconds : tx.getTimeout();
+
+      // hasTimedOut is true once the timeout has passed by at least a millisecond
+      long deadline = tx.getCreateTime() + timeoutSeconds * 1000L + 1;
+
+      TimeoutShard shard = shardOf(entry.xid);
+
+      synchronized (shard)
+      {
+         if (!entry.isScheduled())
+         {
+            shard.wheel.add(entry, deadline);
+         }
+      }
+   }
+
+   private void cancelTimeout(final TransactionEntry entry)
+   {
+      TimeoutShard shard = shardOf(entry.xid);
+
+      synchronized (shard)
+      {
+         shard.wheel.remove(entry);
+      }
+   }
+
    private List<Xid> getHeuristicCompletedTransactions(final boolean isCommit)
    {
       List<Xid> xids = new ArrayList<Xid>();
@@ -205,17 +337,44 @@ public class ResourceManagerImpl implements ResourceManager
             return;
          }
 
-         Set<Transaction> timedoutTransactions = new HashSet<Transaction>();
+         List<Transaction> timedoutTransactions = new ArrayList<Transaction>();
+
+         List<TransactionEntry> due = new ArrayList<TransactionEntry>();
 
          long now = System.currentTimeMillis();
 
-         for (Transaction tx : transactions.values())
+         for (TimeoutShard shard : timeoutShards)
          {
+            synchronized (shard)
+            {
+               shard.wheel.advance(now);
+               shard.wheel.drainDue(due, Integer.MAX_VALUE);
+            }
+         }
+
+         for (TransactionEntry entry : due)
+         {
+            Transaction tx = entry.tx;
+
+            if (transactions.get(entry.xid) != entry)
+            {
+               // it was removed while we were looking at it
+               continue;
+            }
+
             if (tx.hasTimedOut(now, defaultTimeoutSeconds))
             {
-               transactions.remove(tx.getXid());
-               HornetQServerLogger.LOGGER.unexpectedXid(tx.getXid());
-               timedoutTransactions.add(tx);
+               if (transactions.remove(entry.xid, entry))
+               {
+                  HornetQServerLogger.LOGGER.unexpectedXid(tx.getXid());
+                  timedOutTransactions.incrementAndGet();
+                  timedoutTransactions.add(tx);
+               }
+            }
+            else
+            {
+               // its timeout has changed, or it's prepared and it won't time out
+               scheduleTimeout(entry);
             }
          }
 
@@ -249,6 +408,69 @@ public class ResourceManagerImpl implements ResourceManager
 
    }
 
+   private static final class TransactionEntry extends TimerWheel.Entry
+   {
+      private final Xid xid;
+
+      private final Transaction tx;
+
+      TransactionEntry(final Xid xid, final Transaction tx)
+      {
+         this.xid = xid;
+         this.tx = tx;
+      }
+   }
+
+   private static final class TimeoutShard
+   {
+      private final TimerWheel<TransactionEntry> wheel = new TimerWheel<TransactionEntry>(System.currentTimeMillis());
+   }
+
+   /**
+    * Measures the times spent by an XA transaction before its prepare and its commit.
+    */
+   private final class XATiming extends TransactionOperationAbstract
+   {
+      private final long startTime = System.nanoTime();
+
+      private long prepareTime;
+
+      private final boolean recovered;
+
+      XATiming(final boolean recovered)
+      {
+         this.recovered = recovered;
+      }
+
+      @Override
+      public void afterPrepare(final Transaction tx)
+      {
+         prepareTime = System.nanoTime();
+
+         prepareTimes.record(TimeUnit.NANOSECONDS.toMicros(prepareTime - startTime));
+      }
+
+      @Override
+      public void afterCommit(final Transaction tx)
+      {
+         committedTransactions.incrementAndGet();
+
+         // the start and prepare times of the transactions prepared before a restart are not known
+         if (!recovered)
+         {
+            long since = prepareTime == 0 ? startTime : prepareTime;
+
+            commitTimes.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - since));
+         }
+      }
+
+      @Override
+      public void afterRollback(final Transaction tx)
+      {
+         rolledBackTransactions.incrementAndGet();
+      }
+   }
+
    private static final class HeuristicCompletionHolder
    {
       public final boolean isCommit;
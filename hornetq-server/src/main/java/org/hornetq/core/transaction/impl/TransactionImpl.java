@@ -139,6 +139,11 @@ public class TransactionImpl implements Transaction
       this.timeoutSeconds = timeout;
    }
 
+   public int getTimeout()
+   {
+      return timeoutSeconds;
+   }
+
    @Override
    public RefsOperation createRefsOperation(Queue queue)
    {
@@ -12,6 +12,8 @@
  */
 package org.hornetq.spi.core.protocol;
 
+import java.nio.channels.FileChannel;
+
 import org.hornetq.api.core.SimpleString;
 import org.hornetq.core.server.ServerConsumer;
 import org.hornetq.core.server.ServerMessage;
@@ -39,6 +41,17 @@ public interface SessionCallback
 
    int sendLargeMessageContinuation(ServerConsumer consumerID, byte[] body, boolean continues, boolean requiresResponse);
 
+   /**
+    * Sends a chunk of a large message body read from the file holding it, straight from the file if the
+    * connection can, see {@link org.hornetq.spi.core.remoting.Connection#isFileRegionCapable()}. The file is
+    * closed once the chunk is sent.
+    */
+   int sendLargeMessageContinuation(ServerConsumer consumerID,
+                                    FileChannel file,
+                                    long position,
+                                    int length,
+                                    boolean continues) throws Exception;
+
    void closed();
 
    void addReadyListener(ReadyListener listener);
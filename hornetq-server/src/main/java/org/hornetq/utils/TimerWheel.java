@@ -0,0 +1,428 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.utils;
+
+import java.util.Collection;
+
+/**
+ * A hierarchical timer wheel of entries with a deadline in milliseconds.
+ * <p>
+ * The first level has a slot per millisecond for the next 256 ms, the three levels above it have 64
+ * slots each, covering up to about 18 hours, and anything further away is kept in an overflow list.
+ * When the wheel goes past the end of a level the next slot of the level above is cascaded into the
+ * levels below it, so adding and removing an entry are O(1) and every entry is only moved a few
+ * times before it is due.
+ * <p>
+ * Entries that are due are moved to a due list by {@link #advance(long)}, and are taken from there
+ * by {@link #drainDue(Collection, int)} in the order they became due.
+ * <p>
+ * This class is not thread safe, its users are expected to synchronize its access.
+ */
+public final class TimerWheel<E extends TimerWheel.Entry>
+{
+   private static final int LEVELS = 4;
+
+   /**
+    * The bits of the deadline used for the slot index of each level.
+    */
+   private static final int[] SHIFTS = {0, 8, 14, 20};
+
+   private static final int[] MASKS = {0xFF, 0x3F, 0x3F, 0x3F};
+
+   private static final int[] OFFSETS = {0, 256, 320, 384};
+
+   private static final int OVERFLOW_SHIFT = 26;
+
+   private static final int OVERFLOW = 448;
+
+   private static final int DUE = 449;
+
+   private static final int OVERFLOW_COUNT = LEVELS;
+
+   private static final int DUE_COUNT = LEVELS + 1;
+
+   private final Entry[] lists = new Entry[DUE + 1];
+
+   private final int[] counts = new int[LEVELS + 2];
+
+   /**
+    * The due list is appended to, so that a limited drain takes the entries that have been due the longest.
+    */
+   private Entry dueTail;
+
+   /**
+    * The next tick to be expired, every entry with an earlier deadline is in the due list.
+    */
+   private long currentTick;
+
+   private int size;
+
+   public TimerWheel(final long now)
+   {
+      currentTick = now;
+   }
+
+   public int size()
+   {
+      return size;
+   }
+
+   public boolean hasDue()
+   {
+      return counts[DUE_COUNT] > 0;
+   }
+
+   public void add(final E element, final long deadline)
+   {
+      Entry entry = element;
+
+      if (entry.list >= 0)
+      {
+         throw new IllegalStateException(entry + " is already on the wheel");
+      }
+
+      entry.deadline = deadline;
+
+      place(entry);
+
+      size++;
+   }
+
+   public void remove(final E element)
+   {
+      Entry entry = element;
+
+      if (entry.list < 0)
+      {
+         return;
+      }
+
+      unlink(entry);
+
+      size--;
+   }
+
+   /**
+    * Moves every entry with a deadline up to {@code now} (inclusive) to the due list.
+    */
+   public void advance(final long now)
+   {
+      while (currentTick <= now)
+      {
+         if (size == counts[DUE_COUNT])
+         {
+            // nothing left on the wheel
+            currentTick = now + 1;
+            return;
+         }
+
+         int index = (int) (currentTick & MASKS[0]);
+
+         if (index == 0)
+         {
+            cascade();
+         }
+
+         expire(index);
+
+         currentTick++;
+
+         // the ticks up to the next boundary of the lowest level with entries can't expire or cascade anything
+         long next = currentTick;
+
+         for (int level = 0; level < LEVELS && counts[level] == 0; level++)
+         {
+            next = roundUp(currentTick, level + 1 < LEVELS ? SHIFTS[level + 1] : OVERFLOW_SHIFT);
+         }
+
+         currentTick = Math.min(next, now + 1);
+      }
+   }
+
+   /**
+    * Takes up to {@code max} entries from the due list.
+    *
+    * @return the number of entries taken
+    */
+   public int drainDue(final Collection<? super E> due, final int max)
+   {
+      int drained = 0;
+
+      while (drained < max && lists[DUE] != null)
+      {
+         Entry entry = lists[DUE];
+         unlink(entry);
+         size--;
+         due.add(cast(entry));
+         drained++;
+      }
+
+      return drained;
+   }
+
+   /**
+    * @return the time at which {@link #advance(long)} should be called next, which is never later than
+    * the earliest deadline on the wheel, or {@link Long#MAX_VALUE} if the wheel is empty
+    */
+   public long nextTick()
+   {
+      if (counts[DUE_COUNT] > 0)
+      {
+         return currentTick - 1;
+      }
+
+      long next = Long.MAX_VALUE;
+
+      for (int level = 0; level < LEVELS; level++)
+      {
+         if (counts[level] == 0)
+         {
+            continue;
+         }
+
+         int shift = SHIFTS[level];
+         long base = currentTick >> shift;
+
+         // the slots of a level are cascaded (or expired for the first level) on their boundaries
+         for (int i = 0; i <= MASKS[level] + 1; i++)
+         {
+            long tick = (base + i) << shift;
+
+            if (tick >= currentTick && lists[OFFSETS[level] + (int) ((base + i) & MASKS[level])] != null)
+            {
+               next = Math.min(next, tick);
+               break;
+            }
+         }
+      }
+
+      if (counts[OVERFLOW_COUNT] > 0)
+      {
+         next = Math.min(next, roundUp(currentTick, OVERFLOW_SHIFT));
+      }
+
+      return next;
+   }
+
+   /**
+    * Adds all the entries of the wheel, due or not, in no particular order.
+    */
+   public void collect(final Collection<? super E> entries)
+   {
+      for (Entry head : lists)
+      {
+         for (Entry entry = head; entry != null; entry = entry.next)
+         {
+            entries.add(cast(entry));
+         }
+      }
+   }
+
+   private void cascade()
+   {
+      for (int level = 1; level < LEVELS; level++)
+      {
+         int index = (int) ((currentTick >> SHIFTS[level]) & MASKS[level]);
+
+         relocate(OFFSETS[level] + index);
+
+         if (index != 0)
+         {
+            return;
+         }
+      }
+
+      relocate(OVERFLOW);
+   }
+
+   private void relocate(final int list)
+   {
+      Entry entry = lists[list];
+
+      lists[list] = null;
+
+      while (entry != null)
+      {
+         Entry next = entry.next;
+         counts[countOf(list)]--;
+         entry.prev = null;
+         entry.next = null;
+         entry.list = -1;
+         place(entry);
+         entry = next;
+      }
+   }
+
+   private void expire(final int index)
+   {
+      Entry entry = lists[index];
+
+      while (entry != null)
+      {
+         Entry next = entry.next;
+         unlink(entry);
+         link(entry, DUE);
+         entry = next;
+      }
+   }
+
+   private void place(final Entry entry)
+   {
+      long deadline = entry.deadline;
+      long idx = deadline - currentTick;
+
+      int list;
+
+      if (idx < 0)
+      {
+         list = DUE;
+      }
+      else if (idx < 1L << SHIFTS[1])
+      {
+         list = (int) (deadline & MASKS[0]);
+      }
+      else if (idx < 1L << SHIFTS[2])
+      {
+         list = OFFSETS[1] + (int) ((deadline >> SHIFTS[1]) & MASKS[1]);
+      }
+      else if (idx < 1L << SHIFTS[3])
+      {
+         list = OFFSETS[2] + (int) ((deadline >> SHIFTS[2]) & MASKS[2]);
+      }
+      else if (idx < 1L << OVERFLOW_SHIFT)
+      {
+         list = OFFSETS[3] + (int) ((deadline >> SHIFTS[3]) & MASKS[3]);
+      }
+      else
+      {
+         list = OVERFLOW;
+      }
+
+      link(entry, list);
+   }
+
+   private void link(final Entry entry, final int list)
+   {
+      if (list == DUE)
+      {
+         entry.prev = dueTail;
+         if (dueTail == null)
+         {
+            lists[DUE] = entry;
+         }
+         else
+         {
+            dueTail.next = entry;
+         }
+         dueTail = entry;
+      }
+      else
+      {
+         Entry head = lists[list];
+
+         entry.next = head;
+         if (head != null)
+         {
+            head.prev = entry;
+         }
+         lists[list] = entry;
+      }
+      entry.list = list;
+
+      counts[countOf(list)]++;
+   }
+
+   private void unlink(final Entry entry)
+   {
+      if (entry == dueTail)
+      {
+         dueTail = entry.prev;
+      }
+
+      if (entry.prev == null)
+      {
+         lists[entry.list] = entry.next;
+      }
+      else
+      {
+         entry.prev.next = entry.next;
+      }
+
+      if (entry.next != null)
+      {
+         entry.next.prev = entry.prev;
+      }
+
+      counts[countOf(entry.list)]--;
+
+      entry.prev = null;
+      entry.next = null;
+      entry.list = -1;
+   }
+
+   private static int countOf(final int list)
+   {
+      if (list == DUE)
+      {
+         return DUE_COUNT;
+      }
+      if (list == OVERFLOW)
+      {
+         return OVERFLOW_COUNT;
+      }
+      for (int level = LEVELS - 1; level > 0; level--)
+      {
+         if (list >= OFFSETS[level])
+         {
+            return level;
+         }
+      }
+      return 0;
+   }
+
+   private static long roundUp(final long tick, final int shift)
+   {
+      long unit = 1L << shift;
+      return (tick + unit - 1) & -unit;
+   }
+
+   @SuppressWarnings("unchecked")
+   private E cast(final Entry entry)
+   {
+      return (E) entry;
+   }
+
+   /**
+    * The links of an element on the wheel.
+    */
+   public static class Entry
+   {
+      private long deadline;
+
+      private Entry prev;
+
+      private Entry next;
+
+      private int list = -1;
+
+      public long getDeadline()
+      {
+         return deadline;
+      }
+
+      public boolean isScheduled()
+      {
+         return list >= 0;
+      }
+   }
+}
@@ -124,6 +124,10 @@ public class DefaultsFileConfigurationTest extends ConfigurationImplTest
 
       Assert.assertEquals(HornetQDefaultConfiguration.getDefaultLargeMessagesDir(), conf.getLargeMessagesDirectory());
 
+      Assert.assertEquals(HornetQDefaultConfiguration.getDefaultLargeMessagesSegmentSize(), conf.getLargeMessagesSegmentSize());
+
+      Assert.assertEquals(HornetQDefaultConfiguration.getDefaultLargeMessagesCompactPercentage(), conf.getLargeMessagesCompactPercentage());
+
       Assert.assertEquals(HornetQDefaultConfiguration.isDefaultWildcardRoutingEnabled(), conf.isWildcardRoutingEnabled());
 
       Assert.assertEquals(HornetQDefaultConfiguration.getDefaultTransactionTimeout(), conf.getTransactionTimeout());
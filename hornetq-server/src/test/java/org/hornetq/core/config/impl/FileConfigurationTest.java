@@ -89,6 +89,8 @@ public class FileConfigurationTest extends ConfigurationImplTest
       Assert.assertEquals(33, conf.getJournalCompactPercentage());
 
       Assert.assertEquals("largemessagesdir", conf.getLargeMessagesDirectory());
+      Assert.assertEquals(4194304, conf.getLargeMessagesSegmentSize());
+      Assert.assertEquals(40, conf.getLargeMessagesCompactPercentage());
       Assert.assertEquals(95, conf.getMemoryWarningThreshold());
 
       Assert.assertEquals(2, conf.getIncomingInterceptorClassNames().size());
@@ -215,6 +217,8 @@ public class FileConfigurationTest extends ConfigurationImplTest
             assertEquals("max retry interval", 10002, bc.getMaxRetryInterval());
             Assert.assertEquals(2, bc.getReconnectAttempts());
             Assert.assertEquals(true, bc.isUseDuplicateDetection());
+            Assert.assertEquals(65536, bc.getBatchSize());
+            Assert.assertEquals(50, bc.getBatchDelay());
             Assert.assertEquals("connector1", bc.getStaticConnectors().get(0));
             Assert.assertEquals(null, bc.getDiscoveryGroupName());
          }
@@ -239,6 +243,8 @@ public class FileConfigurationTest extends ConfigurationImplTest
       assertNotNull(lopc.getScaleDownConfiguration());
       assertEquals(lopc.getScaleDownConfiguration().getGroupName(), "boo!");
       assertEquals(lopc.getScaleDownConfiguration().getDiscoveryGroup(), "wahey");
+      assertEquals(lopc.getScaleDownConfiguration().getParallelism(), 3);
+      assertEquals(lopc.getScaleDownConfiguration().getBatchSize(), 50);
 
       for (ClusterConnectionConfiguration ccc : conf.getClusterConfigurations())
       {
@@ -258,6 +264,9 @@ public class FileConfigurationTest extends ConfigurationImplTest
             assertEquals("multiplier", 0.25, ccc.getRetryIntervalMultiplier(), 0.00001);
             assertEquals("max retry interval", 10000, ccc.getMaxRetryInterval());
             assertEquals(72, ccc.getReconnectAttempts());
+            assertEquals(1500, ccc.getLoadReportPeriod());
+            assertEquals(0.5, ccc.getLoadSmoothingFactor(), 0.00001);
+            assertEquals(4500, ccc.getLoadStaleTimeout());
             Assert.assertEquals("connector1", ccc.getStaticConnectors().get(0));
             Assert.assertEquals("connector2", ccc.getStaticConnectors().get(1));
             Assert.assertEquals(null, ccc.getDiscoveryGroupName());
@@ -840,6 +840,36 @@ public final class PriorityLinkedListTest extends Assert
       Assert.assertNull(list.poll());
    }
 
+   @Test
+   public void testRemoveNode()
+   {
+      list.addTail(a, 0);
+      Object nodeB = list.addTail(b, 3);
+      list.addTail(c, 3);
+      Object nodeD = list.addHead(d, 9);
+
+      LinkedListIterator<Wibble> iter = list.iterator();
+
+      assertTrue(iter.hasNext());
+      assertEquals(d, iter.next());
+
+      assertTrue(list.remove(nodeB, 3));
+      assertTrue(list.remove(nodeD, 9));
+      assertFalse(list.remove(nodeB, 3));
+
+      assertEquals(2, list.size());
+
+      assertTrue(iter.hasNext());
+      assertEquals(c, iter.next());
+      assertTrue(iter.hasNext());
+      assertEquals(a, iter.next());
+      assertFalse(iter.hasNext());
+
+      assertEquals(c, list.poll());
+      assertEquals(a, list.poll());
+      assertNull(list.poll());
+   }
+
    @Test
    public void testMixupIterator()
    {
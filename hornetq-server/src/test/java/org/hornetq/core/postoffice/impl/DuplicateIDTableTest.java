@@ -0,0 +1,310 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.core.postoffice.impl;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.hornetq.api.core.Pair;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks a {@link DuplicateIDTable} against a {@link HashSet} of the IDs it should hold.
+ */
+public class DuplicateIDTableTest extends Assert
+{
+   // the tables used here have at most 4096 slots, so IDs with the same low bits collide
+   private static final long SLOT_BITS = 0xFFF;
+
+   @Test
+   public void testRemoveCollidingIDs()
+   {
+      DuplicateIDTable table = new DuplicateIDTable(16);
+      Oracle oracle = new Oracle(16);
+
+      // the colliding IDs have the last slot as their home, so their probe sequence wraps around
+      List<byte[]> colliding = idsWithLowBits(SLOT_BITS, 5);
+      // and these are pushed further by the wrapped ones
+      List<byte[]> wrapped = idsWithLowBits(0, 3);
+
+      long record = 0;
+      for (int i = 0; i < 5; i++)
+      {
+         add(table, oracle, colliding.get(i), record++);
+         if (i < 3)
+         {
+            add(table, oracle, wrapped.get(i), record++);
+         }
+      }
+
+      // from the middle, the head and the tail of the probe sequences
+      remove(table, oracle, colliding.get(2));
+      oracle.check(table);
+
+      remove(table, oracle, colliding.get(0));
+      oracle.check(table);
+
+      remove(table, oracle, wrapped.get(0));
+      oracle.check(table);
+
+      remove(table, oracle, colliding.get(4));
+      oracle.check(table);
+
+      // removing an ID twice, or one never added, finds nothing
+      assertEquals(DuplicateIDTable.NO_RECORD, table.remove(colliding.get(2)));
+      assertEquals(DuplicateIDTable.NO_RECORD, table.remove(new byte[]{1, 2, 3}));
+
+      // the freed slots are reused
+      add(table, oracle, colliding.get(2), record++);
+      add(table, oracle, colliding.get(0), record);
+      oracle.check(table);
+   }
+
+   @Test
+   public void testArenaWrapAroundThenGrowWhileFull()
+   {
+      // 4 entries get an arena of 128 bytes
+      DuplicateIDTable table = new DuplicateIDTable(4);
+      Oracle oracle = new Oracle(4);
+
+      Random random = new Random(4);
+
+      long record = 0;
+
+      // fills the ring and then wraps the bytes of the next IDs around the end of the arena
+      for (int i = 0; i < 7; i++)
+      {
+         add(table, oracle, randomID(random, 30), record++);
+         oracle.check(table);
+      }
+
+      remove(table, oracle, oracle.ring.get(1).getA());
+
+      // the ring is full, the oldest ID is dropped and the arena grows with its IDs wrapped around
+      add(table, oracle, randomID(random, 100), record++);
+      oracle.check(table);
+
+      // and it can keep wrapping and growing afterwards
+      for (int i = 0; i < 20; i++)
+      {
+         add(table, oracle, randomID(random, 1 + random.nextInt(200)), record++);
+         oracle.check(table);
+      }
+   }
+
+   @Test
+   public void testEvictionOrder()
+   {
+      final int maxSize = 100;
+
+      DuplicateIDTable table = new DuplicateIDTable(maxSize);
+      Oracle oracle = new Oracle(maxSize);
+
+      Random random = new Random(100);
+
+      for (int i = 0; i < maxSize; i++)
+      {
+         assertEquals(DuplicateIDTable.NO_RECORD, add(table, oracle, randomID(random, 16), i));
+      }
+
+      // an ID removed before being dropped releases no record when it is
+      remove(table, oracle, oracle.ring.get(3).getA());
+
+      // the oldest are dropped first, with the records they were added with
+      for (int i = 0; i < maxSize; i++)
+      {
+         long expected = i == 3 ? DuplicateIDTable.NO_RECORD : i;
+
+         assertEquals(expected, add(table, oracle, randomID(random, 16), maxSize + i));
+      }
+
+      // and again once the ring has wrapped around
+      remove(table, oracle, oracle.ring.get(50).getA());
+
+      for (int i = 0; i < maxSize; i++)
+      {
+         long expected = i == 50 ? DuplicateIDTable.NO_RECORD : maxSize + i;
+
+         assertEquals(expected, add(table, oracle, randomID(random, 16), 2 * maxSize + i));
+      }
+
+      oracle.check(table);
+   }
+
+   @Test
+   public void testAgainstHashSet()
+   {
+      Random random = new Random(1234);
+
+      for (int maxSize : new int[]{1, 3, 8, 100, 1000})
+      {
+         DuplicateIDTable table = new DuplicateIDTable(maxSize);
+         Oracle oracle = new Oracle(maxSize);
+
+         // a small set of IDs so they're often added back and removed
+         List<byte[]> ids = new ArrayList<byte[]>();
+         for (int i = 0; i < maxSize * 3; i++)
+         {
+            ids.add(randomID(random, 1 + random.nextInt(40)));
+         }
+
+         long record = 0;
+
+         for (int i = 0; i < 20000; i++)
+         {
+            byte[] id = ids.get(random.nextInt(ids.size()));
+
+            if (random.nextInt(3) == 0)
+            {
+               remove(table, oracle, id);
+            }
+            else if (!oracle.ids.contains(ByteBuffer.wrap(id)))
+            {
+               add(table, oracle, id, record++);
+            }
+            else
+            {
+               assertTrue(table.contains(id));
+            }
+
+            if (i % 1000 == 0)
+            {
+               oracle.check(table);
+            }
+         }
+
+         oracle.check(table);
+
+         table.clear();
+         oracle = new Oracle(maxSize);
+         oracle.check(table);
+      }
+   }
+
+   private static long add(final DuplicateIDTable table, final Oracle oracle, final byte[] id, final long record)
+   {
+      long released = table.add(id, record);
+      assertEquals(oracle.add(id, record), released);
+      assertTrue(table.contains(id));
+      return released;
+   }
+
+   private static void remove(final DuplicateIDTable table, final Oracle oracle, final byte[] id)
+   {
+      assertEquals(oracle.remove(id), table.remove(id));
+      assertFalse(table.contains(id));
+   }
+
+   private static byte[] randomID(final Random random, final int length)
+   {
+      byte[] id = new byte[length];
+      random.nextBytes(id);
+      return id;
+   }
+
+   private static List<byte[]> idsWithLowBits(final long bits, final int count)
+   {
+      List<byte[]> ids = new ArrayList<byte[]>();
+      for (int i = 0; ids.size() < count; i++)
+      {
+         byte[] id = ByteBuffer.allocate(4).putInt(0, i).array();
+         if ((DuplicateIDTable.hash(id) & SLOT_BITS) == bits)
+         {
+            ids.add(id);
+         }
+      }
+      return ids;
+   }
+
+   /**
+    * The expected content of a table: the IDs it holds, and its ring with the records (or
+    * {@link DuplicateIDTable#NO_RECORD} once removed) from the oldest to the newest.
+    */
+   private static final class Oracle
+   {
+      final int maxSize;
+
+      final Set<ByteBuffer> ids = new HashSet<ByteBuffer>();
+
+      final LinkedList<Pair<byte[], Long>> ring = new LinkedList<Pair<byte[], Long>>();
+
+      Oracle(final int maxSize)
+      {
+         this.maxSize = maxSize;
+      }
+
+      long add(final byte[] id, final long record)
+      {
+         long released = DuplicateIDTable.NO_RECORD;
+         if (ring.size() == maxSize)
+         {
+            Pair<byte[], Long> oldest = ring.removeFirst();
+            if (oldest.getB() != DuplicateIDTable.NO_RECORD)
+            {
+               ids.remove(ByteBuffer.wrap(oldest.getA()));
+               released = oldest.getB();
+            }
+         }
+         ids.add(ByteBuffer.wrap(id));
+         ring.add(new Pair<byte[], Long>(id, record));
+         return released;
+      }
+
+      long remove(final byte[] id)
+      {
+         if (!ids.remove(ByteBuffer.wrap(id)))
+         {
+            return DuplicateIDTable.NO_RECORD;
+         }
+         for (Pair<byte[], Long> entry : ring)
+         {
+            if (entry.getB() != DuplicateIDTable.NO_RECORD && ByteBuffer.wrap(entry.getA()).equals(ByteBuffer.wrap(id)))
+            {
+               long record = entry.getB();
+               entry.setB(DuplicateIDTable.NO_RECORD);
+               return record;
+            }
+         }
+         throw new IllegalStateException();
+      }
+
+      void check(final DuplicateIDTable table)
+      {
+         List<Pair<byte[], Long>> entries = table.entries();
+
+         assertEquals(ids.size(), entries.size());
+
+         int i = 0;
+         for (Pair<byte[], Long> expected : ring)
+         {
+            if (expected.getB() != DuplicateIDTable.NO_RECORD)
+            {
+               Pair<byte[], Long> entry = entries.get(i++);
+               assertArrayEquals(expected.getA(), entry.getA());
+               assertEquals(expected.getB(), entry.getB());
+            }
+         }
+
+         for (ByteBuffer id : ids)
+         {
+            assertTrue(table.contains(id.array()));
+         }
+      }
+   }
+}
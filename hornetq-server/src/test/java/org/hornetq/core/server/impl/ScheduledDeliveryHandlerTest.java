@@ -45,6 +45,7 @@ import org.hornetq.core.server.RoutingContext;
 import org.hornetq.core.server.ServerMessage;
 import org.hornetq.core.transaction.Transaction;
 import org.hornetq.tests.util.RandomUtil;
+import org.hornetq.utils.LatencyHistogram;
 import org.hornetq.utils.LinkedListIterator;
 import org.hornetq.utils.ReferenceCounter;
 import org.hornetq.utils.TypedProperties;
@@ -208,6 +209,66 @@ public class ScheduledDeliveryHandlerTest extends Assert
       }
    }
 
+   @Test
+   public void testRemoveReferenceWithID() throws Exception
+   {
+      ScheduledDeliveryHandlerImpl handler = new ScheduledDeliveryHandlerImpl(null);
+
+      for (int i = 0; i < 1000; i++)
+      {
+         addMessage(handler, i, RandomUtil.randomPositiveLong(), RandomUtil.randomBoolean());
+      }
+
+      for (int i = 0; i < 1000; i += 2)
+      {
+         assertEquals(i, handler.removeReferenceWithID(i).getMessage().getMessageID());
+      }
+
+      assertNull(handler.removeReferenceWithID(0));
+
+      assertEquals(500, handler.getScheduledCount());
+
+      for (MessageReference ref : handler.getScheduledReferences())
+      {
+         assertEquals(1, ref.getMessage().getMessageID() % 2);
+      }
+
+      debugList(true, handler, 0);
+   }
+
+   @Test
+   public void testScheduleSpread() throws Exception
+   {
+      ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1);
+      try
+      {
+         final int NUMBER_OF_MESSAGES = 1000;
+
+         ScheduledDeliveryHandlerImpl handler = new ScheduledDeliveryHandlerImpl(scheduler);
+         FakeQueueForScheduleUnitTest fakeQueue = new FakeQueueForScheduleUnitTest(NUMBER_OF_MESSAGES);
+
+         long now = System.currentTimeMillis();
+
+         // spread over the first two levels of the wheel
+         for (int i = 0; i < NUMBER_OF_MESSAGES; i++)
+         {
+            checkAndSchedule(handler, i, now + i, true, fakeQueue);
+         }
+
+         // a far future delivery is left out
+         checkAndSchedule(handler, NUMBER_OF_MESSAGES, now + TimeUnit.DAYS.toMillis(2), true, fakeQueue);
+
+         assertTrue(fakeQueue.waitCompletion(10, TimeUnit.SECONDS));
+
+         assertEquals(1, handler.getScheduledCount());
+         assertEquals(NUMBER_OF_MESSAGES, handler.getScheduledReferences().get(0).getMessage().getMessageID());
+      }
+      finally
+      {
+         scheduler.shutdownNow();
+      }
+   }
+
    private void internalSchedule(ExecutorService executor, ScheduledThreadPoolExecutor scheduler) throws Exception
    {
       final int NUMBER_OF_MESSAGES = 200;
@@ -1232,6 +1293,18 @@ public class ScheduledDeliveryHandlerTest extends Assert
          return 0;
       }
 
+      @Override
+      public LatencyHistogram getDeliveryLatencies()
+      {
+         return null;
+      }
+
+      @Override
+      public LatencyHistogram getAcknowledgeLatencies()
+      {
+         return null;
+      }
+
       @Override
       public MessageReference removeReferenceWithID(long id) throws Exception
       {
@@ -1262,6 +1335,12 @@ public class ScheduledDeliveryHandlerTest extends Assert
          return false;
       }
 
+      @Override
+      public int deleteReferences(Collection<MessageReference> refs) throws Exception
+      {
+         return 0;
+      }
+
       @Override
       public int deleteMatchingReferences(Filter filter) throws Exception
       {
@@ -1472,6 +1551,12 @@ public class ScheduledDeliveryHandlerTest extends Assert
 
       }
 
+      @Override
+      public void resetLatencies()
+      {
+
+      }
+
       @Override
       public void incrementMesssagesAdded()
       {
@@ -0,0 +1,937 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tools;
+
+import javax.jms.BytesMessage;
+import javax.jms.Connection;
+import javax.jms.DeliveryMode;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.api.core.TransportConfiguration;
+import org.hornetq.api.core.client.ClientConsumer;
+import org.hornetq.api.core.client.ClientMessage;
+import org.hornetq.api.core.client.ClientProducer;
+import org.hornetq.api.core.client.ClientSession;
+import org.hornetq.api.core.client.ClientSessionFactory;
+import org.hornetq.api.core.client.HornetQClient;
+import org.hornetq.api.core.client.ServerLocator;
+import org.hornetq.api.jms.HornetQJMSClient;
+import org.hornetq.api.jms.JMSFactoryType;
+import org.hornetq.core.config.Configuration;
+import org.hornetq.core.config.impl.ConfigurationImpl;
+import org.hornetq.core.remoting.impl.invm.InVMAcceptorFactory;
+import org.hornetq.core.remoting.impl.invm.InVMConnectorFactory;
+import org.hornetq.core.remoting.impl.netty.NettyConnectorFactory;
+import org.hornetq.core.remoting.impl.netty.TransportConstants;
+import org.hornetq.core.server.HornetQServer;
+import org.hornetq.core.server.HornetQServers;
+import org.hornetq.jms.client.HornetQConnectionFactory;
+import org.hornetq.utils.LatencyHistogram;
+import org.hornetq.utils.json.JSONObject;
+
+/**
+ * A load generator which runs producers and consumers on a queue of an embedded or remote server
+ * and reports their throughput and latencies.
+ * <p>
+ * When the producers are throttled, the latencies are measured from the time each message was
+ * scheduled to be sent rather than from the time it was actually sent, so that a stall of the
+ * server is accounted for in the latencies of all the messages which should have been sent
+ * during the stall (i.e. the latencies are corrected for the coordinated omission).
+ * <p>
+ * The send times are carried by the messages as {@link System#nanoTime()} values, which are only
+ * comparable because the producers and the consumers run in the same VM. The messages also carry
+ * whether they were sent during the measurement window, so the messages sent during the warmup
+ * are received but neither counted nor recorded.
+ */
+public class LoadGenerator
+{
+   public static final String SENT_TIME_PROPERTY = "loadSentTime";
+
+   public static final String PRODUCER_PROPERTY = "loadProducer";
+
+   public static final String MEASURED_PROPERTY = "loadMeasured";
+
+   private static final long RECEIVE_TIMEOUT = 100;
+
+   private static final long DRAIN_TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+
+   private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+   private static final String[][] DEFAULTS = {
+      {"protocol", "core", "core or jms"},
+      {"embedded", "true", "whether to run the server in this VM"},
+      {"data-directory", new File(System.getProperty("java.io.tmpdir"), "hornetq-load-generator").getPath(),
+         "the data directory of the embedded server"},
+      {"host", "localhost", "the host of the remote server"},
+      {"port", "5445", "the port of the remote server"},
+      {"user", "", "the user to connect with"},
+      {"password", "", "the password to connect with"},
+      {"queue", "loadQueue", "the queue, created if it doesn't exist"},
+      {"producers", "1", "the number of producers"},
+      {"consumers", "1", "the number of consumers"},
+      {"message-size", "1024", "the size of the message bodies in bytes"},
+      {"durable", "false", "whether the messages and the queue are durable"},
+      {"transaction-batch", "0", "the number of messages sent or received per transaction, 0 for no transaction"},
+      {"selector", "", "the selector of the consumers, which can use the " + PRODUCER_PROPERTY + " property"},
+      {"rate", "0", "the messages sent per second by each producer, 0 for no limit"},
+      {"warmup", "2", "the seconds run before the measurements start"},
+      {"duration", "10", "the seconds during which the measurements are made"},
+      {"output", "", "the file the results are written to as JSON"}};
+
+   private final Map<String, String> parameters = new TreeMap<String, String>();
+
+   private final LatencyHistogram sendLatencies = new LatencyHistogram();
+
+   private final LatencyHistogram endToEndLatencies = new LatencyHistogram();
+
+   private final AtomicLong sent = new AtomicLong();
+
+   private final AtomicLong received = new AtomicLong();
+
+   private final AtomicLong receivedInWindow = new AtomicLong();
+
+   private final AtomicLong errors = new AtomicLong();
+
+   private volatile boolean producing;
+
+   private volatile boolean produced;
+
+   private volatile boolean consuming;
+
+   // the measurement window, in System.nanoTime() values
+   private long measureStart;
+
+   private long measureEnd;
+
+   private byte[] payload;
+
+   public LoadGenerator()
+   {
+      this(new Properties());
+   }
+
+   public LoadGenerator(final Properties properties)
+   {
+      setParameters(properties);
+   }
+
+   private void setParameters(final Properties properties)
+   {
+      for (String[] parameter : DEFAULTS)
+      {
+         parameters.put(parameter[0], properties.getProperty(parameter[0], parameter[1]));
+      }
+
+      for (String name : properties.stringPropertyNames())
+      {
+         if (!parameters.containsKey(name))
+         {
+            throw new IllegalArgumentException("Unknown parameter " + name);
+         }
+      }
+   }
+
+   public void process(final String[] arg) throws Exception
+   {
+      Properties properties = new Properties();
+
+      for (int i = 1; i < arg.length; i++)
+      {
+         int separator = arg[i].indexOf('=');
+
+         if (separator > 0)
+         {
+            properties.setProperty(arg[i].substring(0, separator), arg[i].substring(separator + 1));
+         }
+         else if (i == 1)
+         {
+            InputStream is = new FileInputStream(arg[i]);
+            try
+            {
+               properties.load(is);
+            }
+            finally
+            {
+               is.close();
+            }
+         }
+         else
+         {
+            printUsage();
+            System.exit(-1);
+         }
+      }
+
+      try
+      {
+         setParameters(properties);
+      }
+      catch (IllegalArgumentException e)
+      {
+         System.out.println(e.getMessage());
+         printUsage();
+         System.exit(-1);
+      }
+
+      run();
+   }
+
+   /**
+    * Runs the producers and consumers, prints a report and writes the results to the output file
+    * if there's one.
+    *
+    * @return the results
+    */
+   public JSONObject run() throws Exception
+   {
+      payload = new byte[getInt("message-size")];
+
+      HornetQServer server = null;
+
+      if (getBoolean("embedded"))
+      {
+         server = startServer();
+      }
+
+      try
+      {
+         ServerLocator locator = createLocator();
+         HornetQConnectionFactory connectionFactory = null;
+
+         try
+         {
+            createQueue(locator);
+
+            if (isJMS())
+            {
+               connectionFactory = HornetQJMSClient.createConnectionFactoryWithoutHA(JMSFactoryType.CF,
+                                                                                     createTransportConfiguration());
+            }
+
+            return run(locator, connectionFactory);
+         }
+         finally
+         {
+            if (connectionFactory != null)
+            {
+               connectionFactory.close();
+            }
+            locator.close();
+         }
+      }
+      finally
+      {
+         if (server != null)
+         {
+            server.stop();
+         }
+      }
+   }
+
+   private JSONObject run(final ServerLocator locator, final HornetQConnectionFactory connectionFactory) throws Exception
+   {
+      List<Worker> consumers = new ArrayList<Worker>();
+      List<Worker> producers = new ArrayList<Worker>();
+
+      producing = true;
+      produced = false;
+      consuming = true;
+
+      sendLatencies.reset();
+      endToEndLatencies.reset();
+      sent.set(0);
+      received.set(0);
+      receivedInWindow.set(0);
+      errors.set(0);
+
+      measureStart = System.nanoTime() + TimeUnit.SECONDS.toNanos(getInt("warmup"));
+      measureEnd = measureStart + TimeUnit.SECONDS.toNanos(getInt("duration"));
+
+      try
+      {
+         for (int i = 0; i < getInt("consumers"); i++)
+         {
+            Worker consumer = new ConsumerWorker(i, isJMS() ? new JMSEndpoint(connectionFactory) : new CoreEndpoint(locator));
+            consumers.add(consumer);
+            consumer.start();
+         }
+
+         for (int i = 0; i < getInt("producers"); i++)
+         {
+            Worker producer = new ProducerWorker(i, isJMS() ? new JMSEndpoint(connectionFactory) : new CoreEndpoint(locator));
+            producers.add(producer);
+            producer.start();
+         }
+
+         // the producers stop by themselves when the window closes
+         for (Worker producer : producers)
+         {
+            producer.join();
+         }
+
+         produced = true;
+
+         // the consumers drain the queue until it's empty or for a while
+         long drainDeadline = System.currentTimeMillis() + DRAIN_TIMEOUT;
+
+         for (Worker consumer : consumers)
+         {
+            consumer.join(Math.max(1, drainDeadline - System.currentTimeMillis()));
+         }
+
+         consuming = false;
+
+         for (Worker consumer : consumers)
+         {
+            consumer.join();
+         }
+
+         JSONObject results = createResults(measureEnd - measureStart);
+
+         printReport(results);
+
+         String output = getString("output");
+
+         if (output.length() > 0)
+         {
+            Writer writer = new FileWriter(output);
+            try
+            {
+               writer.write(results.toString(3));
+            }
+            finally
+            {
+               writer.close();
+            }
+         }
+
+         return results;
+      }
+      finally
+      {
+         producing = false;
+         consuming = false;
+      }
+   }
+
+   private JSONObject createResults(final long elapsed) throws Exception
+   {
+      double seconds = (double) elapsed / TimeUnit.SECONDS.toNanos(1);
+
+      JSONObject results = new JSONObject();
+      results.put("parameters", new HashMap<String, String>(parameters));
+      results.put("duration", seconds);
+      results.put("sent", sent.get());
+      results.put("received", received.get());
+      results.put("errors", errors.get());
+      results.put("sendRate", sent.get() / seconds);
+      results.put("receiveRate", receivedInWindow.get() / seconds);
+      results.put("sendLatency", toJSON(sendLatencies));
+      results.put("endToEndLatency", toJSON(endToEndLatencies));
+
+      return results;
+   }
+
+   private static JSONObject toJSON(final LatencyHistogram histogram) throws Exception
+   {
+      JSONObject json = new JSONObject();
+      json.put("count", histogram.getCount());
+      json.put("mean", histogram.getMean());
+      for (double percentile : PERCENTILES)
+      {
+         json.put("p" + formatPercentile(percentile), histogram.getValueAtPercentile(percentile));
+      }
+      json.put("max", histogram.getMax());
+      return json;
+   }
+
+   private static String formatPercentile(final double percentile)
+   {
+      return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+   }
+
+   private void printReport(final JSONObject results) throws Exception
+   {
+      System.out.println("sent " + results.getLong("sent") + " messages, " +
+                            format(results.getDouble("sendRate")) + " msg/s");
+      System.out.println("received " + results.getLong("received") + " messages, " +
+                            format(results.getDouble("receiveRate")) + " msg/s");
+
+      if (results.getLong("errors") > 0)
+      {
+         System.out.println(results.getLong("errors") + " errors");
+      }
+
+      printLatencies("send latency (us)", results.getJSONObject("sendLatency"));
+      printLatencies("end to end latency (us)", results.getJSONObject("endToEndLatency"));
+   }
+
+   private static void printLatencies(final String title, final JSONObject latencies) throws Exception
+   {
+      StringBuilder line = new StringBuilder(title).append(": mean=").append(format(latencies.getDouble("mean")));
+
+      for (double percentile : PERCENTILES)
+      {
+         String name = "p" + formatPercentile(percentile);
+         line.append(", ").append(name).append('=').append(latencies.getLong(name));
+      }
+
+      line.append(", max=").append(latencies.getLong("max"));
+
+      System.out.println(line);
+   }
+
+   private static String format(final double value)
+   {
+      return String.format("%.1f", value);
+   }
+
+   private HornetQServer startServer() throws Exception
+   {
+      String dataDirectory = getString("data-directory");
+
+      Configuration configuration = new ConfigurationImpl()
+         .setPersistenceEnabled(getBoolean("durable"))
+         .setSecurityEnabled(false)
+         .setJMXManagementEnabled(false)
+         .setBindingsDirectory(new File(dataDirectory, "bindings").getPath())
+         .setJournalDirectory(new File(dataDirectory, "journal").getPath())
+         .setPagingDirectory(new File(dataDirectory, "paging").getPath())
+         .setLargeMessagesDirectory(new File(dataDirectory, "large-messages").getPath())
+         .addAcceptorConfiguration(new TransportConfiguration(InVMAcceptorFactory.class.getName()));
+
+      HornetQServer server = HornetQServers.newHornetQServer(configuration, false);
+
+      server.start();
+
+      return server;
+   }
+
+   private TransportConfiguration createTransportConfiguration()
+   {
+      if (getBoolean("embedded"))
+      {
+         return new TransportConfiguration(InVMConnectorFactory.class.getName());
+      }
+
+      Map<String, Object> transportParameters = new HashMap<String, Object>();
+      transportParameters.put(TransportConstants.HOST_PROP_NAME, getString("host"));
+      transportParameters.put(TransportConstants.PORT_PROP_NAME, getInt("port"));
+
+      return new TransportConfiguration(NettyConnectorFactory.class.getName(), transportParameters);
+   }
+
+   private ServerLocator createLocator()
+   {
+      return HornetQClient.createServerLocatorWithoutHA(createTransportConfiguration());
+   }
+
+   private void createQueue(final ServerLocator locator) throws Exception
+   {
+      SimpleString queue = new SimpleString(getQueueName());
+
+      ClientSessionFactory factory = locator.createSessionFactory();
+
+      try
+      {
+         ClientSession session = factory.createSession(getUser(), getPassword(), false, true, true, false, 0);
+
+         if (!session.queueQuery(queue).isExists())
+         {
+            session.createQueue(queue, queue, getBoolean("durable"));
+         }
+
+         session.close();
+      }
+      finally
+      {
+         factory.close();
+      }
+   }
+
+   private String getQueueName()
+   {
+      return isJMS() ? "jms.queue." + getString("queue") : getString("queue");
+   }
+
+   private boolean isJMS()
+   {
+      String protocol = getString("protocol");
+
+      if ("jms".equals(protocol))
+      {
+         return true;
+      }
+      else if ("core".equals(protocol))
+      {
+         return false;
+      }
+
+      throw new IllegalArgumentException("Unknown protocol " + protocol);
+   }
+
+   private String getUser()
+   {
+      return getString("user").length() == 0 ? null : getString("user");
+   }
+
+   private String getPassword()
+   {
+      return getString("password").length() == 0 ? null : getString("password");
+   }
+
+   private String getString(final String name)
+   {
+      return parameters.get(name).trim();
+   }
+
+   private int getInt(final String name)
+   {
+      return Integer.parseInt(getString(name));
+   }
+
+   private boolean getBoolean(final String name)
+   {
+      return Boolean.parseBoolean(getString(name));
+   }
+
+   private static void printUsage()
+   {
+      System.out.println(Main.USAGE + " load-generator [<properties-file>] [<parameter>=<value>...]");
+      System.out.println("where the parameters are:");
+      for (String[] parameter : DEFAULTS)
+      {
+         System.out.println("   " + parameter[0] + " (default \"" + parameter[1] + "\"): " + parameter[2]);
+      }
+   }
+
+   /**
+    * The messaging done by a producer or a consumer, through the core or the JMS API.
+    */
+   private interface Endpoint
+   {
+      void startProducer() throws Exception;
+
+      void send(int producer, long sentTime, boolean measured) throws Exception;
+
+      void startConsumer() throws Exception;
+
+      /**
+       * @return whether a message was received, {@link #getSentTime()} and {@link #isMeasured()} then
+       * describe it
+       */
+      boolean receive(long timeout) throws Exception;
+
+      long getSentTime();
+
+      boolean isMeasured();
+
+      void commit() throws Exception;
+
+      void close() throws Exception;
+   }
+
+   private final class CoreEndpoint implements Endpoint
+   {
+      private final ServerLocator locator;
+
+      private ClientSessionFactory factory;
+
+      private ClientSession session;
+
+      private ClientProducer producer;
+
+      private ClientConsumer consumer;
+
+      private long sentTime;
+
+      private boolean measured;
+
+      CoreEndpoint(final ServerLocator locator)
+      {
+         this.locator = locator;
+      }
+
+      private void createSession() throws Exception
+      {
+         boolean autoCommit = getInt("transaction-batch") == 0;
+
+         factory = locator.createSessionFactory();
+
+         session = factory.createSession(getUser(),
+                                         getPassword(),
+                                         false,
+                                         autoCommit,
+                                         autoCommit,
+                                         false,
+                                         locator.getAckBatchSize());
+      }
+
+      public void startProducer() throws Exception
+      {
+         createSession();
+
+         producer = session.createProducer(getQueueName());
+      }
+
+      public void send(final int producerID, final long sentTime, final boolean measured) throws Exception
+      {
+         ClientMessage message = session.createMessage(getBoolean("durable"));
+         message.putIntProperty(PRODUCER_PROPERTY, producerID);
+         message.putLongProperty(SENT_TIME_PROPERTY, sentTime);
+         message.putBooleanProperty(MEASURED_PROPERTY, measured);
+         message.getBodyBuffer().writeBytes(payload);
+
+         producer.send(message);
+      }
+
+      public void startConsumer() throws Exception
+      {
+         createSession();
+
+         String selector = getString("selector");
+
+         consumer = selector.length() == 0 ? session.createConsumer(getQueueName())
+            : session.createConsumer(getQueueName(), selector);
+
+         session.start();
+      }
+
+      public boolean receive(final long timeout) throws Exception
+      {
+         ClientMessage message = consumer.receive(timeout);
+
+         if (message == null)
+         {
+            return false;
+         }
+
+         message.acknowledge();
+
+         sentTime = message.getLongProperty(SENT_TIME_PROPERTY);
+         measured = message.getBooleanProperty(MEASURED_PROPERTY);
+
+         return true;
+      }
+
+      public long getSentTime()
+      {
+         return sentTime;
+      }
+
+      public boolean isMeasured()
+      {
+         return measured;
+      }
+
+      public void commit() throws Exception
+      {
+         session.commit();
+      }
+
+      public void close() throws Exception
+      {
+         if (session != null)
+         {
+            session.close();
+         }
+         if (factory != null)
+         {
+            factory.close();
+         }
+      }
+   }
+
+   private final class JMSEndpoint implements Endpoint
+   {
+      private final HornetQConnectionFactory connectionFactory;
+
+      private Connection connection;
+
+      private Session session;
+
+      private MessageProducer producer;
+
+      private MessageConsumer consumer;
+
+      private long sentTime;
+
+      private boolean measured;
+
+      JMSEndpoint(final HornetQConnectionFactory connectionFactory)
+      {
+         this.connectionFactory = connectionFactory;
+      }
+
+      private void createSession() throws Exception
+      {
+         connection = connectionFactory.createConnection(getUser(), getPassword());
+
+         session = connection.createSession(getInt("transaction-batch") > 0, Session.AUTO_ACKNOWLEDGE);
+      }
+
+      public void startProducer() throws Exception
+      {
+         createSession();
+
+         producer = session.createProducer(HornetQJMSClient.createQueue(getString("queue")));
+         producer.setDeliveryMode(getBoolean("durable") ? DeliveryMode.PERSISTENT : DeliveryMode.NON_PERSISTENT);
+         producer.setDisableMessageID(true);
+         producer.setDisableMessageTimestamp(true);
+      }
+
+      public void send(final int producerID, final long sentTime, final boolean measured) throws Exception
+      {
+         BytesMessage message = session.createBytesMessage();
+         message.setIntProperty(PRODUCER_PROPERTY, producerID);
+         message.setLongProperty(SENT_TIME_PROPERTY, sentTime);
+         message.setBooleanProperty(MEASURED_PROPERTY, measured);
+         message.writeBytes(payload);
+
+         producer.send(message);
+      }
+
+      public void startConsumer() throws Exception
+      {
+         createSession();
+
+         String selector = getString("selector");
+
+         consumer = session.createConsumer(HornetQJMSClient.createQueue(getString("queue")),
+                                           selector.length() == 0 ? null : selector);
+
+         connection.start();
+      }
+
+      public boolean receive(final long timeout) throws Exception
+      {
+         Message message = consumer.receive(timeout);
+
+         if (message == null)
+         {
+            return false;
+         }
+
+         sentTime = message.getLongProperty(SENT_TIME_PROPERTY);
+         measured = message.getBooleanProperty(MEASURED_PROPERTY);
+
+         return true;
+      }
+
+      public long getSentTime()
+      {
+         return sentTime;
+      }
+
+      public boolean isMeasured()
+      {
+         return measured;
+      }
+
+      public void commit() throws Exception
+      {
+         session.commit();
+      }
+
+      public void close() throws Exception
+      {
+         if (connection != null)
+         {
+            connection.close();
+         }
+      }
+   }
+
+   private abstract class Worker extends Thread
+   {
+      protected final int id;
+
+      protected final Endpoint endpoint;
+
+      Worker(final String name, final int id, final Endpoint endpoint)
+      {
+         super(name + "-" + id);
+         this.id = id;
+         this.endpoint = endpoint;
+      }
+
+      @Override
+      public void run()
+      {
+         try
+         {
+            work();
+         }
+         catch (Exception e)
+         {
+            if (errors.getAndIncrement() == 0)
+            {
+               e.printStackTrace();
+            }
+         }
+         finally
+         {
+            try
+            {
+               endpoint.close();
+            }
+            catch (Exception e)
+            {
+               errors.incrementAndGet();
+            }
+         }
+      }
+
+      protected abstract void work() throws Exception;
+   }
+
+   private final class ProducerWorker extends Worker
+   {
+      ProducerWorker(final int id, final Endpoint endpoint)
+      {
+         super("load-producer", id, endpoint);
+      }
+
+      @Override
+      protected void work() throws Exception
+      {
+         endpoint.startProducer();
+
+         int rate = getInt("rate");
+         int transactionBatch = getInt("transaction-batch");
+
+         long interval = rate > 0 ? TimeUnit.SECONDS.toNanos(1) / rate : 0;
+         long start = System.nanoTime();
+         long count = 0;
+
+         while (producing)
+         {
+            // with a rate, the message is due at its scheduled time even if the previous sends were late
+            long sentTime = interval > 0 ? start + count * interval : System.nanoTime();
+
+            if (sentTime - measureEnd >= 0)
+            {
+               // the window is closed
+               break;
+            }
+
+            long delay = sentTime - System.nanoTime();
+
+            if (delay > 0)
+            {
+               LockSupport.parkNanos(delay);
+               continue;
+            }
+
+            boolean measured = sentTime - measureStart >= 0;
+
+            endpoint.send(id, sentTime, measured);
+
+            count++;
+
+            if (transactionBatch > 0 && count % transactionBatch == 0)
+            {
+               endpoint.commit();
+            }
+
+            if (measured)
+            {
+               sendLatencies.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - sentTime));
+
+               sent.incrementAndGet();
+            }
+         }
+
+         if (transactionBatch > 0 && count % transactionBatch != 0)
+         {
+            endpoint.commit();
+         }
+      }
+   }
+
+   private final class ConsumerWorker extends Worker
+   {
+      ConsumerWorker(final int id, final Endpoint endpoint)
+      {
+         super("load-consumer", id, endpoint);
+      }
+
+      @Override
+      protected void work() throws Exception
+      {
+         endpoint.startConsumer();
+
+         int transactionBatch = getInt("transaction-batch");
+
+         long count = 0;
+
+         while (consuming)
+         {
+            if (!endpoint.receive(RECEIVE_TIMEOUT))
+            {
+               if (produced)
+               {
+                  // the queue is drained
+                  break;
+               }
+               continue;
+            }
+
+            long now = System.nanoTime();
+
+            if (now - measureStart >= 0 && now - measureEnd < 0)
+            {
+               receivedInWindow.incrementAndGet();
+            }
+
+            if (endpoint.isMeasured())
+            {
+               endToEndLatencies.record(TimeUnit.NANOSECONDS.toMicros(now - endpoint.getSentTime()));
+
+               received.incrementAndGet();
+            }
+
+            count++;
+
+            if (transactionBatch > 0 && count % transactionBatch == 0)
+            {
+               endpoint.commit();
+            }
+         }
+
+         if (transactionBatch > 0 && count % transactionBatch != 0)
+         {
+            endpoint.commit();
+         }
+      }
+   }
+}
@@ -22,7 +22,8 @@ public class Main
    private static final String PRINT_PAGES = "print-pages";
    private static final String DATA_TOOL = "data-tool";
    private static final String TRANSFER = "transfer-queue";
-   private static final String OPTIONS = " [" + IMPORT + "|" + EXPORT + "|" + PRINT_DATA + "|" + PRINT_PAGES + "|" + DATA_TOOL + "|" + TRANSFER + "]";
+   private static final String LOAD_GENERATOR = "load-generator";
+   private static final String OPTIONS = " [" + IMPORT + "|" + EXPORT + "|" + PRINT_DATA + "|" + PRINT_PAGES + "|" + DATA_TOOL + "|" + TRANSFER + "|" + LOAD_GENERATOR + "]";
 
    public static void main(String[] arg) throws Exception
    {
@@ -38,6 +39,11 @@ public class Main
          TransferQueue tool = new TransferQueue();
          tool.process(arg);
       }
+      else if (LOAD_GENERATOR.equals(arg[0]))
+      {
+         LoadGenerator tool = new LoadGenerator();
+         tool.process(arg);
+      }
       else if (DATA_TOOL.equals(arg[0]))
       {
          DataTool dataTool = new DataTool();
@@ -18,6 +18,7 @@ import org.junit.After;
 import org.junit.Test;
 
 import java.lang.management.ManagementFactory;
+import java.nio.channels.FileChannel;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
@@ -595,6 +596,16 @@ public class HangConsumerTest extends ServiceTestBase
          return targetCallback.sendLargeMessageContinuation(consumer, body, continues, requiresResponse);
       }
 
+      @Override
+      public int sendLargeMessageContinuation(ServerConsumer consumer,
+                                              FileChannel file,
+                                              long position,
+                                              int length,
+                                              boolean continues) throws Exception
+      {
+         return targetCallback.sendLargeMessageContinuation(consumer, file, position, length, continues);
+      }
+
       /* (non-Javadoc)
        * @see org.hornetq.spi.core.protocol.SessionCallback#closed()
        */
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.tests.integration.client;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.api.core.client.ClientConsumer;
+import org.hornetq.api.core.client.ClientMessage;
+import org.hornetq.api.core.client.ClientProducer;
+import org.hornetq.api.core.client.ClientSession;
+import org.hornetq.api.core.client.ClientSessionFactory;
+import org.hornetq.api.core.client.ServerLocator;
+import org.hornetq.core.config.Configuration;
+import org.hornetq.core.config.DivertConfiguration;
+import org.hornetq.core.server.HornetQServer;
+import org.hornetq.tests.util.ServiceTestBase;
+import org.hornetq.tests.util.UnitTestCase;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Large messages with their bodies appended to shared segment files.
+ */
+public class LargeMessageSegmentsTest extends ServiceTestBase
+{
+   private static final String QUEUE = "LargeMessageSegmentsTest";
+
+   private static final String DIVERTED = "LargeMessageSegmentsTest.diverted";
+
+   private static final int MIN_LARGE_MESSAGE_SIZE = 10 * 1024;
+
+   private static final int SEGMENT_SIZE = 100 * 1024;
+
+   private HornetQServer server;
+
+   private ServerLocator locator;
+
+   @Override
+   @Before
+   public void setUp() throws Exception
+   {
+      super.setUp();
+
+      locator = createInVMNonHALocator();
+      locator.setMinLargeMessageSize(MIN_LARGE_MESSAGE_SIZE);
+   }
+
+   @Test
+   public void testSendReceive() throws Exception
+   {
+      startServer(SEGMENT_SIZE);
+
+      send(QUEUE, 20, 3 * MIN_LARGE_MESSAGE_SIZE + 7, true);
+
+      Assert.assertTrue(getSegmentFiles().length > 1);
+      Assert.assertEquals(0, getMessageFiles().length);
+
+      receive(QUEUE, 20, 3 * MIN_LARGE_MESSAGE_SIZE + 7);
+
+      // the segments with no live body are deleted, only the current one is kept
+      waitForSegmentFiles(1);
+   }
+
+   @Test
+   public void testRestart() throws Exception
+   {
+      startServer(SEGMENT_SIZE);
+
+      send(QUEUE, 10, 5 * MIN_LARGE_MESSAGE_SIZE + 3, true);
+
+      send(QUEUE, 2, 5 * MIN_LARGE_MESSAGE_SIZE + 3, false);
+
+      server.stop();
+
+      server.start();
+
+      receive(QUEUE, 10, 5 * MIN_LARGE_MESSAGE_SIZE + 3);
+
+      waitForSegmentFiles(1);
+   }
+
+   @Test
+   public void testCompaction() throws Exception
+   {
+      startServer(SEGMENT_SIZE);
+
+      int size = 2 * MIN_LARGE_MESSAGE_SIZE + 1;
+
+      send(QUEUE, 40, size, true);
+
+      int segments = getSegmentFiles().length;
+
+      ClientSessionFactory sf = addSessionFactory(createSessionFactory(locator));
+
+      ClientSession session = addClientSession(sf.createSession(false, true, true));
+
+      ClientConsumer consumer = session.createConsumer(QUEUE);
+
+      session.start();
+
+      // one message out of three is left, so every segment falls under the compact percentage
+      List<ClientMessage> kept = new ArrayList<ClientMessage>();
+
+      for (int i = 0; i < 40; i++)
+      {
+         ClientMessage message = consumer.receive(5000);
+         Assert.assertNotNull(message);
+         if (i % 3 == 0)
+         {
+            kept.add(message);
+         }
+         else
+         {
+            message.individualAcknowledge();
+         }
+      }
+
+      consumer.close();
+
+      session.close();
+
+      // the live bodies fill about a third of the segments once they are relocated
+      long timeout = System.currentTimeMillis() + 5000;
+      while (getSegmentFiles().length > segments / 2 && System.currentTimeMillis() < timeout)
+      {
+         Thread.sleep(50);
+      }
+
+      Assert.assertTrue(getSegmentFiles().length <= segments / 2);
+
+      server.stop();
+
+      server.start();
+
+      Assert.assertEquals(14, kept.size());
+
+      receive(QUEUE, 14, size);
+   }
+
+   @Test
+   public void testDivertSharesBody() throws Exception
+   {
+      List<DivertConfiguration> diverts = new ArrayList<DivertConfiguration>();
+      diverts.add(new DivertConfiguration()
+                     .setName("divert")
+                     .setRoutingName("divert")
+                     .setAddress(QUEUE)
+                     .setForwardingAddress(DIVERTED)
+                     .setExclusive(false));
+
+      Configuration config = createDefaultConfig()
+         .setLargeMessagesSegmentSize(10 * 1024 * 1024)
+         .setDivertConfigurations(diverts);
+
+      server = createServer(true, config);
+      server.start();
+
+      ClientSessionFactory sf = addSessionFactory(createSessionFactory(locator));
+
+      ClientSession session = addClientSession(sf.createSession(false, true, true));
+
+      session.createQueue(DIVERTED, DIVERTED, true);
+
+      session.close();
+
+      int size = 100 * MIN_LARGE_MESSAGE_SIZE;
+
+      send(QUEUE, 5, size, true);
+
+      // the copies routed by the divert only add references to the bodies
+      Assert.assertEquals(1, getSegmentFiles().length);
+      Assert.assertTrue(getSegmentFiles()[0].length() < 6 * size);
+
+      receive(QUEUE, 5, size);
+
+      server.stop();
+
+      server.start();
+
+      receive(DIVERTED, 5, size);
+   }
+
+   @Test
+   public void testBodiesInTheirOwnFilesStillRead() throws Exception
+   {
+      startServer(-1);
+
+      send(QUEUE, 5, 3 * MIN_LARGE_MESSAGE_SIZE, true);
+
+      Assert.assertEquals(5, getMessageFiles().length);
+
+      server.stop();
+
+      server.getConfiguration().setLargeMessagesSegmentSize(SEGMENT_SIZE);
+
+      server.start();
+
+      send(QUEUE, 5, 3 * MIN_LARGE_MESSAGE_SIZE, false);
+
+      Assert.assertEquals(5, getMessageFiles().length);
+
+      receive(QUEUE, 10, 3 * MIN_LARGE_MESSAGE_SIZE);
+
+      validateNoFilesOnLargeDir(1);
+   }
+
+   private void startServer(final int segmentSize) throws Exception
+   {
+      Configuration config = createDefaultConfig()
+         .setLargeMessagesSegmentSize(segmentSize);
+
+      server = createServer(true, config);
+      server.start();
+   }
+
+   private void send(final String queue, final int numberOfMessages, final int size, final boolean durable) throws Exception
+   {
+      ClientSessionFactory sf = addSessionFactory(createSessionFactory(locator));
+
+      ClientSession session = addClientSession(sf.createSession(false, true, true));
+
+      if (server.locateQueue(new SimpleString(queue)) == null)
+      {
+         session.createQueue(queue, queue, true);
+      }
+
+      ClientProducer producer = session.createProducer(queue);
+
+      for (int i = 0; i < numberOfMessages; i++)
+      {
+         ClientMessage message = session.createMessage(durable);
+         message.setBodyInputStream(UnitTestCase.createFakeLargeStream(size));
+         producer.send(message);
+      }
+
+      session.close();
+   }
+
+   private void receive(final String queue, final int numberOfMessages, final int size) throws Exception
+   {
+      ClientSessionFactory sf = addSessionFactory(createSessionFactory(locator));
+
+      ClientSession session = addClientSession(sf.createSession(false, true, true));
+
+      ClientConsumer consumer = session.createConsumer(queue);
+
+      session.start();
+
+      for (int i = 0; i < numberOfMessages; i++)
+      {
+         ClientMessage message = consumer.receive(5000);
+         Assert.assertNotNull(message);
+         Assert.assertEquals(size, message.getBodySize());
+         for (int j = 0; j < size; j++)
+         {
+            Assert.assertEquals(UnitTestCase.getSamplebyte(j), message.getBodyBuffer().readByte());
+         }
+         message.acknowledge();
+      }
+
+      Assert.assertNull(consumer.receiveImmediate());
+
+      session.close();
+   }
+
+   private void waitForSegmentFiles(final int expected) throws Exception
+   {
+      long timeout = System.currentTimeMillis() + 5000;
+      while (getSegmentFiles().length != expected && System.currentTimeMillis() < timeout)
+      {
+         Thread.sleep(50);
+      }
+
+      Assert.assertEquals(expected, getSegmentFiles().length);
+   }
+
+   private File[] getSegmentFiles()
+   {
+      return listLargeMessagesDir(".blob");
+   }
+
+   private File[] getMessageFiles()
+   {
+      return listLargeMessagesDir(".msg");
+   }
+
+   private File[] listLargeMessagesDir(final String extension)
+   {
+      return new File(getLargeMessagesDir()).listFiles(new FilenameFilter()
+      {
+         public boolean accept(final File dir, final String name)
+         {
+            return name.endsWith(extension);
+         }
+      });
+   }
+}
@@ -166,6 +166,82 @@ public class MessageExpirationTest extends ServiceTestBase
       session.deleteQueue(queue);
    }
 
+   @Test
+   public void testExpireReferencesOnlyRemovesExpiredMessages() throws Exception
+   {
+      SimpleString address = RandomUtil.randomSimpleString();
+      SimpleString queue = RandomUtil.randomSimpleString();
+      SimpleString expiryAddress = RandomUtil.randomSimpleString();
+      SimpleString expiryQueue = RandomUtil.randomSimpleString();
+
+      AddressSettings addressSettings = new AddressSettings();
+      addressSettings.setExpiryAddress(expiryAddress);
+      server.getAddressSettingsRepository().addMatch(address.toString(), addressSettings);
+
+      session.createQueue(address, queue, false);
+      session.createQueue(expiryAddress, expiryQueue, false);
+
+      ClientProducer producer = session.createProducer(address);
+
+      for (int i = 0; i < 1000; i++)
+      {
+         ClientMessage message = session.createMessage(false);
+         message.putIntProperty("i", i);
+         // one message out of ten expires, on different priorities
+         if (i % 10 == 0)
+         {
+            message.setPriority((byte) (i % 7));
+            message.setExpiration(System.currentTimeMillis() + MessageExpirationTest.EXPIRATION);
+         }
+         producer.send(message);
+      }
+
+      Queue serverQueue = (Queue) server.getPostOffice().getBinding(queue).getBindable();
+
+      Thread.sleep(MessageExpirationTest.EXPIRATION * 2);
+
+      serverQueue.expireReferences();
+
+      long timeout = System.currentTimeMillis() + 5000;
+      while (getMessageCount(serverQueue) != 900 && System.currentTimeMillis() < timeout)
+      {
+         Thread.sleep(50);
+      }
+
+      Assert.assertEquals(900, getMessageCount(serverQueue));
+
+      session.start();
+
+      ClientConsumer consumer = session.createConsumer(expiryQueue);
+
+      for (int i = 0; i < 100; i++)
+      {
+         ClientMessage message = consumer.receive(5000);
+         Assert.assertNotNull(message);
+         Assert.assertEquals(0, message.getIntProperty("i") % 10);
+      }
+
+      Assert.assertNull(consumer.receiveImmediate());
+
+      consumer.close();
+
+      consumer = session.createConsumer(queue);
+
+      for (int i = 0; i < 1000; i++)
+      {
+         if (i % 10 != 0)
+         {
+            ClientMessage message = consumer.receive(5000);
+            Assert.assertNotNull(message);
+            Assert.assertEquals(i, message.getIntProperty("i").intValue());
+         }
+      }
+
+      Assert.assertNull(consumer.receiveImmediate());
+
+      consumer.close();
+   }
+
    @Test
    public void testMessageExpirationOnClient() throws Exception
    {
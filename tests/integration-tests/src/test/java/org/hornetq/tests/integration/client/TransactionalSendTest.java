@@ -12,13 +12,19 @@
  */
 package org.hornetq.tests.integration.client;
 
+import org.hornetq.api.core.HornetQException;
+import org.hornetq.api.core.HornetQExceptionType;
 import org.hornetq.api.core.SimpleString;
+import org.hornetq.api.core.client.ClientMessage;
 import org.hornetq.api.core.client.ClientProducer;
 import org.hornetq.api.core.client.ClientSession;
 import org.hornetq.api.core.client.ClientSessionFactory;
 import org.hornetq.api.core.client.ServerLocator;
+import org.hornetq.core.paging.PagingStore;
 import org.hornetq.core.server.HornetQServer;
 import org.hornetq.core.server.Queue;
+import org.hornetq.core.settings.impl.AddressFullMessagePolicy;
+import org.hornetq.core.settings.impl.AddressSettings;
 import org.hornetq.tests.util.ServiceTestBase;
 import org.junit.Assert;
 import org.junit.Before;
@@ -105,4 +111,49 @@ public class TransactionalSendTest extends ServiceTestBase
       session.close();
    }
 
+   @Test
+   public void testFailedNonBlockingSendFailsCommit() throws Exception
+   {
+      HornetQServer server = createServer(true);
+      AddressSettings settings = new AddressSettings();
+      settings.setMaxSizeBytes(10 * 1024);
+      settings.setAddressFullMessagePolicy(AddressFullMessagePolicy.FAIL);
+      server.getAddressSettingsRepository().addMatch(addressA.toString(), settings);
+      server.start();
+      locator.setBlockOnDurableSend(false);
+      locator.setProducerWindowSize(-1);
+      ClientSessionFactory cf = createSessionFactory(locator);
+      ClientSession session = cf.createSession(false, false, false);
+      session.createQueue(addressA, queueA, true);
+      ClientProducer cp = session.createProducer(addressA);
+      PagingStore store = server.getPagingManager().getPageStore(addressA);
+      int numMessages = 0;
+      while (store.getAddressSize() <= store.getMaxSize())
+      {
+         ClientMessage message = session.createMessage(true);
+         message.getBodyBuffer().writeBytes(new byte[1024]);
+         cp.send(message);
+         session.commit();
+         numMessages++;
+      }
+      // the address is now full, so these sends fail on the server without the client knowing
+      for (int i = 0; i < 10; i++)
+      {
+         ClientMessage message = session.createMessage(true);
+         message.getBodyBuffer().writeBytes(new byte[1024]);
+         cp.send(message);
+      }
+      try
+      {
+         session.commit();
+         Assert.fail("commit should fail once a send of the transaction failed");
+      }
+      catch (HornetQException e)
+      {
+         Assert.assertEquals(HornetQExceptionType.ADDRESS_FULL, e.getType());
+      }
+      Queue q = (Queue) server.getPostOffice().getBinding(queueA).getBindable();
+      Assert.assertEquals(numMessages, getMessageCount(q));
+      session.close();
+   }
 }
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.tests.integration.client;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.hornetq.api.core.HornetQException;
+import org.hornetq.api.core.Interceptor;
+import org.hornetq.api.core.TransportConfiguration;
+import org.hornetq.api.core.client.ClientConsumer;
+import org.hornetq.api.core.client.ClientMessage;
+import org.hornetq.api.core.client.ClientProducer;
+import org.hornetq.api.core.client.ClientSession;
+import org.hornetq.api.core.client.ClientSessionFactory;
+import org.hornetq.api.core.client.HornetQClient;
+import org.hornetq.api.core.client.ServerLocator;
+import org.hornetq.core.config.Configuration;
+import org.hornetq.core.protocol.core.Packet;
+import org.hornetq.core.remoting.impl.netty.TransportConstants;
+import org.hornetq.core.server.HornetQServer;
+import org.hornetq.spi.core.protocol.RemotingConnection;
+import org.hornetq.tests.util.ServiceTestBase;
+import org.hornetq.tests.util.UnitTestCase;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Large messages delivered with the bodies sent straight from their files.
+ */
+public class ZeroCopyLargeMessageTest extends ServiceTestBase
+{
+   private static final String QUEUE = "ZeroCopyLargeMessageTest";
+
+   private static final int MIN_LARGE_MESSAGE_SIZE = 10 * 1024;
+
+   private HornetQServer server;
+
+   private ServerLocator locator;
+
+   @Override
+   @Before
+   public void setUp() throws Exception
+   {
+      super.setUp();
+
+      Map<String, Object> params = new HashMap<String, Object>();
+      params.put(TransportConstants.ZERO_COPY_LARGE_MESSAGES_PROP_NAME, true);
+
+      Configuration config = createDefaultConfig()
+         .addAcceptorConfiguration(new TransportConfiguration(NETTY_ACCEPTOR_FACTORY, params));
+
+      server = createServer(true, config);
+      server.start();
+
+      locator = addServerLocator(HornetQClient.createServerLocatorWithoutHA(createTransportConfiguration(true, false, new HashMap<String, Object>())));
+      locator.setMinLargeMessageSize(MIN_LARGE_MESSAGE_SIZE);
+   }
+
+   @Test
+   public void testFileRegionsEnabled() throws Exception
+   {
+      ClientSessionFactory sf = addSessionFactory(createSessionFactory(locator));
+
+      addClientSession(sf.createSession());
+
+      Assert.assertEquals(1, server.getRemotingService().getConnections().size());
+
+      for (RemotingConnection connection : server.getRemotingService().getConnections())
+      {
+         Assert.assertTrue(connection.getTransportConnection().isFileRegionCapable());
+      }
+   }
+
+   @Test
+   public void testLargeMessages() throws Exception
+   {
+      sendReceive(10, 1024 * 1024 + 17);
+   }
+
+   @Test
+   public void testLargeMessagesConsumerFlowControl() throws Exception
+   {
+      // a window smaller than a chunk, so the delivery stops and resumes on every chunk
+      locator.setConsumerWindowSize(MIN_LARGE_MESSAGE_SIZE / 2);
+
+      sendReceive(5, 200 * 1024 + 3);
+   }
+
+   @Test
+   public void testLargeMessagesWithOutgoingInterceptor() throws Exception
+   {
+      // the packets must hold the bodies, they are read from the files
+      server.getRemotingService().addOutgoingInterceptor(new Interceptor()
+      {
+         public boolean intercept(final Packet packet, final RemotingConnection connection) throws HornetQException
+         {
+            return true;
+         }
+      });
+
+      sendReceive(5, 200 * 1024 + 3);
+   }
+
+   @Test
+   public void testLargeAndRegularMessagesInterleaved() throws Exception
+   {
+      ClientSessionFactory sf = addSessionFactory(createSessionFactory(locator));
+
+      ClientSession session = addClientSession(sf.createSession(false, true, true));
+
+      session.createQueue(QUEUE, QUEUE, true);
+
+      ClientProducer producer = session.createProducer(QUEUE);
+
+      for (int i = 0; i < 20; i++)
+      {
+         int size = i % 2 == 0 ? 100 : 3 * MIN_LARGE_MESSAGE_SIZE + i;
+         ClientMessage message = session.createMessage(true);
+         message.putIntProperty("i", i);
+         message.setBodyInputStream(UnitTestCase.createFakeLargeStream(size));
+         producer.send(message);
+      }
+
+      ClientConsumer consumer = session.createConsumer(QUEUE);
+
+      session.start();
+
+      for (int i = 0; i < 20; i++)
+      {
+         int size = i % 2 == 0 ? 100 : 3 * MIN_LARGE_MESSAGE_SIZE + i;
+         ClientMessage message = consumer.receive(5000);
+         Assert.assertNotNull(message);
+         Assert.assertEquals(i, message.getIntProperty("i").intValue());
+         assertBody(message, size);
+         message.acknowledge();
+      }
+
+      Assert.assertNull(consumer.receiveImmediate());
+   }
+
+   private void sendReceive(final int numberOfMessages, final int size) throws Exception
+   {
+      ClientSessionFactory sf = addSessionFactory(createSessionFactory(locator));
+
+      ClientSession session = addClientSession(sf.createSession(false, true, true));
+
+      session.createQueue(QUEUE, QUEUE, true);
+
+      ClientProducer producer = session.createProducer(QUEUE);
+
+      for (int i = 0; i < numberOfMessages; i++)
+      {
+         ClientMessage message = session.createMessage(true);
+         message.putIntProperty("i", i);
+         message.setBodyInputStream(UnitTestCase.createFakeLargeStream(size));
+         producer.send(message);
+      }
+
+      ClientConsumer consumer = session.createConsumer(QUEUE);
+
+      session.start();
+
+      for (int i = 0; i < numberOfMessages; i++)
+      {
+         ClientMessage message = consumer.receive(10000);
+         Assert.assertNotNull(message);
+         Assert.assertEquals(i, message.getIntProperty("i").intValue());
+         assertBody(message, size);
+         message.acknowledge();
+      }
+
+      Assert.assertNull(consumer.receiveImmediate());
+   }
+
+   private void assertBody(final ClientMessage message, final int size)
+   {
+      Assert.assertEquals(size, message.getBodySize());
+
+      for (int i = 0; i < size; i++)
+      {
+         Assert.assertEquals(UnitTestCase.getSamplebyte(i), message.getBodyBuffer().readByte());
+      }
+   }
+}
@@ -47,6 +47,7 @@ import org.hornetq.core.remoting.impl.invm.TransportConstants;
 import org.hornetq.core.server.HornetQServer;
 import org.hornetq.core.server.MessageReference;
 import org.hornetq.core.server.Queue;
+import org.hornetq.core.server.cluster.Bridge;
 import org.hornetq.core.server.cluster.impl.BridgeImpl;
 import org.hornetq.core.transaction.impl.TransactionImpl;
 import org.hornetq.spi.core.protocol.RemotingConnection;
@@ -271,6 +272,163 @@ public class BridgeTest extends ServiceTestBase
    }
 
 
+   @Test
+   public void testBatchedBridge() throws Exception
+   {
+      Map<String, Object> server0Params = new HashMap<String, Object>();
+      server0 = createClusteredServerWithParams(isNetty(), 0, true, server0Params);
+
+      Map<String, Object> server1Params = new HashMap<String, Object>();
+      addTargetParameters(server1Params);
+      if (isNetty())
+      {
+         // the same parameters are used by the acceptor and the connector
+         server1Params.put(org.hornetq.core.remoting.impl.netty.TransportConstants.COMPRESSION_PROP_NAME, true);
+      }
+      server1 = createClusteredServerWithParams(isNetty(), 1, true, server1Params);
+
+      final String testAddress = "testAddress";
+      final String queueName0 = "queue0";
+      final String forwardAddress = "forwardAddress";
+      final String queueName1 = "queue1";
+
+      TransportConfiguration server0tc = new TransportConfiguration(getConnector(), server0Params);
+
+      TransportConfiguration server1tc = new TransportConfiguration(getConnector(), server1Params);
+
+      HashMap<String, TransportConfiguration> connectors = new HashMap<String, TransportConfiguration>();
+      connectors.put(server1tc.getName(), server1tc);
+      server0.getConfiguration().setConnectorConfigurations(connectors);
+
+      final int messageSize = 1024;
+
+      final int numMessages = 500;
+
+      ArrayList<String> connectorConfig = new ArrayList<String>();
+      connectorConfig.add(server1tc.getName());
+      BridgeConfiguration bridgeConfiguration = new BridgeConfiguration()
+         .setName("bridge1")
+         .setQueueName(queueName0)
+         .setForwardingAddress(forwardAddress)
+         .setRetryInterval(1000)
+         .setReconnectAttemptsOnSameNode(-1)
+         .setUseDuplicateDetection(true)
+         .setConfirmationWindowSize(numMessages * messageSize / 10)
+         .setBatchSize(16 * messageSize)
+         .setBatchDelay(50)
+         .setStaticConnectors(connectorConfig);
+
+      List<BridgeConfiguration> bridgeConfigs = new ArrayList<BridgeConfiguration>();
+      bridgeConfigs.add(bridgeConfiguration);
+      server0.getConfiguration().setBridgeConfigurations(bridgeConfigs);
+
+      CoreQueueConfiguration queueConfig0 = new CoreQueueConfiguration()
+         .setAddress(testAddress)
+         .setName(queueName0);
+      List<CoreQueueConfiguration> queueConfigs0 = new ArrayList<CoreQueueConfiguration>();
+      queueConfigs0.add(queueConfig0);
+      server0.getConfiguration().setQueueConfigurations(queueConfigs0);
+
+      CoreQueueConfiguration queueConfig1 = new CoreQueueConfiguration()
+         .setAddress(forwardAddress)
+         .setName(queueName1);
+      List<CoreQueueConfiguration> queueConfigs1 = new ArrayList<CoreQueueConfiguration>();
+      queueConfigs1.add(queueConfig1);
+      server1.getConfiguration().setQueueConfigurations(queueConfigs1);
+
+      server1.start();
+      server0.start();
+      locator = addServerLocator(HornetQClient.createServerLocatorWithoutHA(server0tc, server1tc));
+      ClientSessionFactory sf0 = addSessionFactory(locator.createSessionFactory(server0tc));
+
+      ClientSessionFactory sf1 = addSessionFactory(locator.createSessionFactory(server1tc));
+
+      ClientSession session0 = sf0.createSession(false, true, true);
+
+      ClientSession session1 = sf1.createSession(false, true, true);
+
+      ClientProducer producer0 = session0.createProducer(new SimpleString(testAddress));
+
+      ClientConsumer consumer1 = session1.createConsumer(queueName1);
+
+      session1.start();
+
+      final byte[] bytes = new byte[messageSize];
+
+      final SimpleString propKey = new SimpleString("testkey");
+
+      for (int i = 0; i < numMessages; i++)
+      {
+         ClientMessage message = session0.createMessage(true);
+
+         message.putIntProperty(propKey, i);
+
+         message.getBodyBuffer().writeBytes(bytes);
+
+         producer0.send(message);
+      }
+
+      for (int i = 0; i < numMessages; i++)
+      {
+         ClientMessage message = consumer1.receive(5000);
+
+         Assert.assertNotNull(message);
+
+         Assert.assertEquals(i, message.getObjectProperty(propKey));
+
+         message.acknowledge();
+      }
+
+      Assert.assertNull(consumer1.receiveImmediate());
+
+      Bridge bridge = server0.getClusterManager().getBridges().get("bridge1");
+
+      Queue queue0 = (Queue) server0.getPostOffice().getBinding(new SimpleString(queueName0)).getBindable();
+
+      // the last batch is acknowledged by the timer
+      long timeout = System.currentTimeMillis() + 5000;
+      while ((bridge.getMessagesPendingAcknowledgement() > 0 || getMessageCount(queue0) > 0) &&
+         System.currentTimeMillis() < timeout)
+      {
+         Thread.sleep(10);
+      }
+
+      Assert.assertEquals(0, bridge.getMessagesPendingAcknowledgement());
+      Assert.assertEquals(0, getMessageCount(queue0));
+      Assert.assertEquals(numMessages, bridge.getMessagesForwarded());
+      Assert.assertEquals(0, bridge.getForwardingLag());
+
+      session0.close();
+
+      session1.close();
+
+      sf0.close();
+
+      sf1.close();
+
+      closeFields();
+      assertEquals(0, loadQueues(server0).size());
+   }
+
+   @Test
+   public void testBatchedBridgeWithoutBatchDelayIsNotDeployed() throws Exception
+   {
+      server0 = createClusteredServerWithParams(isNetty(), 0, true, new HashMap<String, Object>());
+      server0.start();
+
+      BridgeConfiguration bridgeConfiguration = new BridgeConfiguration()
+         .setName("bridge1")
+         .setQueueName("queue0")
+         .setForwardingAddress("forwardAddress")
+         .setBatchSize(1024)
+         .setBatchDelay(0)
+         .setStaticConnectors(new ArrayList<String>());
+
+      server0.getClusterManager().deployBridge(bridgeConfiguration);
+
+      Assert.assertNull(server0.getClusterManager().getBridges().get("bridge1"));
+   }
+
    @Test
    public void testLostMessageSimpleMessage() throws Exception
    {
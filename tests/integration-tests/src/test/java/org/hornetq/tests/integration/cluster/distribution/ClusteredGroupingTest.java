@@ -1749,6 +1749,67 @@ public class ClusteredGroupingTest extends ClusterTestBase
       return true;
    }
 
+   @Test
+   public void testGroupingManyGroupsFromRemoteNodeStored() throws Exception
+   {
+      final int groups = 50;
+
+      setupServer(0, isFileStorage(), isNetty());
+      setupServer(1, isFileStorage(), isNetty());
+
+      setupClusterConnection("cluster0", "queues", false, 1, isNetty(), 0, 1);
+
+      setupClusterConnection("cluster1", "queues", false, 1, isNetty(), 1, 0);
+
+      setUpGroupHandler(GroupingHandlerConfiguration.TYPE.LOCAL, 0);
+      setUpGroupHandler(GroupingHandlerConfiguration.TYPE.REMOTE, 1);
+
+      startServers(0, 1);
+
+      setupSessionFactory(0, isNetty());
+      setupSessionFactory(1, isNetty());
+
+      createQueue(0, "queues.testaddress", "queue0", null, true);
+      createQueue(1, "queues.testaddress", "queue0", null, true);
+
+      waitForBindings(0, "queues.testaddress", 1, 0, true);
+      waitForBindings(1, "queues.testaddress", 1, 0, true);
+
+      waitForBindings(0, "queues.testaddress", 1, 0, false);
+      waitForBindings(1, "queues.testaddress", 1, 0, false);
+
+      // the proposals of the senders reach the local handler together and are stored in batches
+      CountDownLatch latch = new CountDownLatch(1);
+      Thread[] threads = new Thread[groups];
+      for (int i = 0; i < groups; i++)
+      {
+         threads[i] = new Thread(new ThreadSender(i, i + 1, 1, new SimpleString("id" + i), latch, i > 0));
+      }
+      for (Thread thread : threads)
+      {
+         thread.start();
+      }
+      for (Thread thread : threads)
+      {
+         thread.join();
+      }
+
+      for (int i = 0; i < groups; i++)
+      {
+         assertNotNull(servers[1].getGroupingHandler().getProposal(new SimpleString("id" + i + ".queue0"), false));
+      }
+
+      closeAllSessionFactories();
+      stopServers(1, 0);
+
+      startServers(0);
+
+      for (int i = 0; i < groups; i++)
+      {
+         assertNotNull(servers[0].getGroupingHandler().getProposal(new SimpleString("id" + i + ".queue0"), false));
+      }
+   }
+
    class ThreadSender implements Runnable
    {
       private final int msgStart;
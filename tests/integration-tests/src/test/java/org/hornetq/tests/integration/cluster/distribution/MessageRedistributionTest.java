@@ -1032,6 +1032,54 @@ public class MessageRedistributionTest extends ClusterTestBase
       verifyReceiveAll(QueueImpl.REDISTRIBUTOR_BATCH_SIZE * 2, 1);
    }
 
+   @Test
+   public void testRedistributionBatchedWithMaxRate() throws Exception
+   {
+      setupCluster(false);
+
+      AddressSettings as = new AddressSettings();
+      as.setRedistributionDelay(0);
+      as.setRedistributionBatchSize(7);
+      as.setRedistributionMaxRate(100);
+
+      getServer(0).getAddressSettingsRepository().addMatch("queues.*", as);
+      getServer(1).getAddressSettingsRepository().addMatch("queues.*", as);
+      getServer(2).getAddressSettingsRepository().addMatch("queues.*", as);
+
+      startServers(0, 1, 2);
+
+      setupSessionFactory(0, isNetty());
+      setupSessionFactory(1, isNetty());
+      setupSessionFactory(2, isNetty());
+
+      createQueue(0, "queues.testaddress", "queue0", null, false);
+      createQueue(1, "queues.testaddress", "queue0", null, false);
+      createQueue(2, "queues.testaddress", "queue0", null, false);
+
+      addConsumer(0, 0, "queue0", null);
+
+      waitForBindings(0, "queues.testaddress", 1, 1, true);
+      waitForBindings(1, "queues.testaddress", 1, 0, true);
+      waitForBindings(2, "queues.testaddress", 1, 0, true);
+
+      waitForBindings(0, "queues.testaddress", 2, 0, false);
+      waitForBindings(1, "queues.testaddress", 2, 1, false);
+      waitForBindings(2, "queues.testaddress", 2, 1, false);
+
+      send(0, "queues.testaddress", 250, false, null);
+
+      long start = System.currentTimeMillis();
+
+      removeConsumer(0);
+      addConsumer(1, 1, "queue0", null);
+
+      verifyReceiveAll(250, 1);
+
+      // 100 messages per second, the last 50 cannot be moved before 2 seconds
+      long elapsed = System.currentTimeMillis() - start;
+      assertTrue("redistribution should be limited to 100 messages per second, took " + elapsed + "ms", elapsed >= 1500);
+   }
+
    /*
     * Start one node with no consumers and send some messages
     * Start another node add a consumer and verify all messages are redistribute
@@ -12,6 +12,7 @@
  */
 package org.hornetq.tests.integration.cluster.distribution;
 
+import org.hornetq.api.core.client.ClientMessage;
 import org.hornetq.tests.integration.IntegrationTestLogger;
 import org.junit.Before;
 import org.junit.Test;
@@ -82,6 +83,54 @@ public class TwoWayTwoNodeClusterTest extends ClusterTestBase
       stopServers(0, 1);
    }
 
+   @Test
+   public void testLoadAwareLoadBalancing() throws Exception
+   {
+      servers[0].getConfiguration().getClusterConfigurations().get(0).setLoadReportPeriod(100);
+      servers[1].getConfiguration().getClusterConfigurations().get(0).setLoadReportPeriod(100);
+
+      startServers(0, 1);
+
+      setupSessionFactory(0, isNetty());
+      setupSessionFactory(1, isNetty());
+
+      createQueue(0, "queues", "queue0", null, false);
+      createQueue(1, "queues", "queue0", null, false);
+
+      addConsumer(0, 0, "queue0", null, false);
+      addConsumer(1, 1, "queue0", null);
+
+      waitForBindings(0, "queues", 1, 1, true);
+      waitForBindings(1, "queues", 1, 1, true);
+
+      waitForBindings(0, "queues", 1, 1, false);
+      waitForBindings(1, "queues", 1, 1, false);
+
+      // let both nodes advertise their load
+      Thread.sleep(500);
+
+      // only the consumer on node 0 acknowledges, so the queue on node 1 builds up a backlog
+      int received = 0;
+
+      for (int i = 0; i < 10; i++)
+      {
+         send(0, "queues", 20, false, null);
+
+         ClientMessage message;
+         while ((message = consumers[0].consumer.receive(200)) != null)
+         {
+            message.acknowledge();
+            received++;
+         }
+
+         consumers[0].session.commit();
+      }
+
+      assertTrue("received " + received + " out of 200 messages on node 0", received > 150);
+
+      stopServers(0, 1);
+   }
+
    @Test
    public void testStartPauseStartOther() throws Exception
    {
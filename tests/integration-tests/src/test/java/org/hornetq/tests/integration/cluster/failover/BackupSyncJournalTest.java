@@ -52,7 +52,7 @@ public class BackupSyncJournalTest extends FailoverTestBase
    protected ClientSessionFactoryInternal sessionFactory;
    protected ClientSession session;
    protected ClientProducer producer;
-   private BackupSyncDelay syncDelay;
+   protected BackupSyncDelay syncDelay;
    private final int defaultNMsgs = 20;
    private int n_msgs = defaultNMsgs;
 
@@ -31,7 +31,10 @@ import org.hornetq.api.core.client.ClientMessage;
 import org.hornetq.api.core.client.ClientProducer;
 import org.hornetq.api.core.client.ClientSession;
 import org.hornetq.api.core.client.ServerLocator;
+import org.hornetq.api.core.management.HornetQServerControl;
 import org.hornetq.core.client.impl.ServerLocatorInternal;
+import org.hornetq.core.replication.ReplicationManager;
+import org.hornetq.core.server.cluster.ha.ReplicatedPolicy;
 import org.hornetq.tests.util.UnitTestCase;
 
 public class BackupSyncLargeMessageTest extends BackupSyncJournalTest
@@ -112,6 +115,70 @@ public class BackupSyncLargeMessageTest extends BackupSyncJournalTest
                    getAllMessageFileIds(backupLMdir).size());
    }
 
+   /**
+    * A restarted backup keeps the large messages it already holds instead of receiving them again.
+    */
+   @Test
+   public void testRestartedBackupReusesLargeMessages() throws Exception
+   {
+      createProducerSendSomeMessages();
+      startBackupFinishSyncing();
+      backupServer.stop();
+
+      startBackupFinishSyncing();
+      ReplicationManager replicationManager = liveServer.getServer().getReplicationManager();
+      assertTrue("backup should reuse its large messages", replicationManager.getSyncBytesReused() >= getNumberOfMessages() * MIN_LARGE_MESSAGE);
+
+      crash(session);
+      assertTrue("backup initialized", backupServer.getServer().waitForActivation(5, TimeUnit.SECONDS));
+      receiveMsgsInRange(0, getNumberOfMessages());
+      assertNoMoreMessages();
+   }
+
+   @Test
+   public void testSyncProgressWithCappedBandwidth() throws Exception
+   {
+      final long maxBytesPerSecond = 1024 * 1024;
+      ReplicatedPolicy policy = (ReplicatedPolicy) liveServer.getServer().getHAPolicy();
+      policy.setSyncStreams(4);
+      policy.setSyncMaxBytesPerSecond(maxBytesPerSecond);
+      createProducerSendSomeMessages();
+      HornetQServerControl control = liveServer.getServer().getHornetQServerControl();
+      assertEquals(0, control.getReplicationSyncBytesRemaining());
+
+      final long start = System.currentTimeMillis();
+      syncDelay.deliverUpToDateMsg();
+      backupServer.start();
+
+      boolean progressSeen = false;
+      ReplicationManager replicationManager = null;
+      while (replicationManager == null || replicationManager.isSynchronizing())
+      {
+         assertTrue("backup should synchronize", System.currentTimeMillis() - start < BACKUP_WAIT_TIME * 1000);
+         if (control.getReplicationSyncBytesDone() > 0 && control.getReplicationSyncBytesRemaining() > 0)
+         {
+            progressSeen = true;
+         }
+         replicationManager = liveServer.getServer().getReplicationManager();
+         Thread.sleep(10);
+      }
+      final long elapsed = System.currentTimeMillis() - start;
+      waitForRemoteBackup(sessionFactory, BACKUP_WAIT_TIME, true, backupServer.getServer());
+
+      assertTrue("progress should be reported during the synchronization", progressSeen);
+      assertEquals(0, control.getReplicationSyncBytesRemaining());
+      assertEquals(0, control.getReplicationSyncEstimatedTimeRemaining());
+      final long sent = replicationManager.getSyncBytesSent();
+      assertTrue(control.getReplicationSyncBytesDone() >= sent);
+      assertTrue("synchronization should respect the bandwidth cap: " + sent + " bytes in " + elapsed + "ms",
+                 elapsed >= (sent / maxBytesPerSecond - 1) * 1000);
+
+      crash(session);
+      assertTrue("backup initialized", backupServer.getServer().waitForActivation(5, TimeUnit.SECONDS));
+      receiveMsgsInRange(0, getNumberOfMessages());
+      assertNoMoreMessages();
+   }
+
    /**
     * LargeMessages are passed from the client to the server in chunks. Here we test the backup
     * starting the data synchronization with the live in the middle of a multiple chunks large
@@ -15,6 +15,7 @@
  */
 package org.hornetq.tests.integration.cluster.util;
 
+import java.nio.channels.FileChannel;
 import java.util.concurrent.locks.Lock;
 
 import org.hornetq.api.core.HornetQException;
@@ -27,6 +28,7 @@ import org.hornetq.core.protocol.core.Packet;
 import org.hornetq.core.protocol.core.impl.PacketImpl;
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationResponseMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationStartSyncMessage;
+import org.hornetq.core.protocol.core.impl.wireformat.SessionReceiveContinuationMessage;
 import org.hornetq.core.replication.ReplicationEndpoint;
 import org.hornetq.core.server.HornetQServer;
 import org.hornetq.core.server.impl.SharedNothingBackupActivation;
@@ -251,6 +253,18 @@ public class BackupSyncDelay implements Interceptor
          throw new UnsupportedOperationException();
       }
 
+      @Override
+      public boolean supportsFileRegions()
+      {
+         return false;
+      }
+
+      @Override
+      public void send(SessionReceiveContinuationMessage packet, FileChannel file, long position, int length)
+      {
+         throw new UnsupportedOperationException();
+      }
+
       @Override
       public Packet sendBlocking(Packet packet, byte expected) throws HornetQException
       {
@@ -368,6 +382,18 @@ public class BackupSyncDelay implements Interceptor
          throw new UnsupportedOperationException();
       }
 
+      @Override
+      public int getResendCacheSize()
+      {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public long getResendCacheSizeInBytes()
+      {
+         throw new UnsupportedOperationException();
+      }
+
       @Override
       public void setTransferring(boolean transferring)
       {
@@ -78,6 +78,12 @@ public class AcceptorControlUsingCoreTest extends AcceptorControlTest
             return (Map<String, Object>)proxy.retrieveAttributeValue("parameters");
          }
 
+         @SuppressWarnings("unchecked")
+         public Map<String, Object> getConnectionCountPerEventLoop()
+         {
+            return (Map<String, Object>)proxy.retrieveAttributeValue("connectionCountPerEventLoop");
+         }
+
          public boolean isStarted()
          {
             return (Boolean)proxy.retrieveAttributeValue("started");
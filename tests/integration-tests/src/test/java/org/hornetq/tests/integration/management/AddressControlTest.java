@@ -35,6 +35,7 @@ import org.hornetq.core.server.impl.QueueImpl;
 import org.hornetq.core.settings.impl.AddressSettings;
 import org.hornetq.tests.util.RandomUtil;
 import org.hornetq.tests.util.UnitTestCase;
+import org.hornetq.utils.json.JSONObject;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -204,6 +205,31 @@ public class AddressControlTest extends ManagementTestBase
       session.deleteQueue(queue);
    }
 
+   @Test
+   public void testGetLatenciesAsJSON() throws Exception
+   {
+      SimpleString address = RandomUtil.randomSimpleString();
+      SimpleString queue = RandomUtil.randomSimpleString();
+      SimpleString anotherQueue = RandomUtil.randomSimpleString();
+
+      session.createQueue(address, queue, false);
+      session.createQueue(address, anotherQueue, false);
+
+      ClientProducer producer = session.createProducer(address);
+      producer.send(session.createMessage(false));
+
+      consumeMessages(1, session, queue);
+      consumeMessages(1, session, anotherQueue);
+
+      AddressControl addressControl = createManagementControl(address);
+      JSONObject latencies = new JSONObject(addressControl.getLatenciesAsJSON());
+      Assert.assertEquals(2, latencies.getJSONObject("delivery").getLong("count"));
+      Assert.assertEquals(2, latencies.getJSONObject("acknowledge").getLong("count"));
+
+      session.deleteQueue(queue);
+      session.deleteQueue(anotherQueue);
+   }
+
    @Test
    public void testGetNumberOfPages() throws Exception
    {
@@ -67,6 +67,11 @@ public class BridgeControlTest extends ManagementTestBase
                           0.000001);
       Assert.assertEquals(bridgeConfig.getReconnectAttempts(), bridgeControl.getReconnectAttempts());
       Assert.assertEquals(bridgeConfig.isUseDuplicateDetection(), bridgeControl.isUseDuplicateDetection());
+      Assert.assertEquals(bridgeConfig.getBatchSize(), bridgeControl.getBatchSize());
+      Assert.assertEquals(bridgeConfig.getBatchDelay(), bridgeControl.getBatchDelay());
+      Assert.assertEquals(0, bridgeControl.getMessagesForwarded());
+      Assert.assertEquals(0, bridgeControl.getMessagesPendingAcknowledgement());
+      Assert.assertEquals(0, bridgeControl.getForwardingLag());
 
       String[] connectorPairData = bridgeControl.getStaticConnectors();
       Assert.assertEquals(bridgeConfig.getStaticConnectors().get(0), connectorPairData[0]);
@@ -162,6 +167,8 @@ public class BridgeControlTest extends ManagementTestBase
          .setReconnectAttemptsOnSameNode(RandomUtil.randomPositiveInt())
          .setUseDuplicateDetection(RandomUtil.randomBoolean())
          .setConfirmationWindowSize(RandomUtil.randomPositiveInt())
+         .setBatchSize(RandomUtil.randomPositiveInt())
+         .setBatchDelay(RandomUtil.randomPositiveInt())
          .setStaticConnectors(connectors)
          .setPassword(CLUSTER_PASSWORD);
 
@@ -89,6 +89,13 @@ public class BridgeControlUsingCoreTest extends ManagementTestBase
                           ((Integer)proxy.retrieveAttributeValue("reconnectAttempts")).intValue());
       Assert.assertEquals(bridgeConfig.isUseDuplicateDetection(),
                           ((Boolean)proxy.retrieveAttributeValue("useDuplicateDetection")).booleanValue());
+      Assert.assertEquals(bridgeConfig.getBatchSize(),
+                          ((Integer)proxy.retrieveAttributeValue("batchSize")).intValue());
+      Assert.assertEquals(bridgeConfig.getBatchDelay(),
+                          ((Number)proxy.retrieveAttributeValue("batchDelay")).longValue());
+      Assert.assertEquals(0L, ((Number)proxy.retrieveAttributeValue("messagesForwarded")).longValue());
+      Assert.assertEquals(0, ((Integer)proxy.retrieveAttributeValue("messagesPendingAcknowledgement")).intValue());
+      Assert.assertEquals(0L, ((Number)proxy.retrieveAttributeValue("forwardingLag")).longValue());
 
       Object[] data = (Object[])proxy.retrieveAttributeValue("staticConnectors");
       Assert.assertEquals(bridgeConfig.getStaticConnectors().get(0), data[0]);
@@ -153,6 +160,8 @@ public class BridgeControlUsingCoreTest extends ManagementTestBase
          .setReconnectAttemptsOnSameNode(RandomUtil.randomPositiveInt())
          .setUseDuplicateDetection(RandomUtil.randomBoolean())
          .setConfirmationWindowSize(RandomUtil.randomPositiveInt())
+         .setBatchSize(RandomUtil.randomPositiveInt())
+         .setBatchDelay(RandomUtil.randomPositiveInt())
          .setStaticConnectors(connectors);
 
       Configuration conf_1 = createBasicConfig()
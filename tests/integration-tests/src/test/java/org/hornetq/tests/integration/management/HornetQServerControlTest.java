@@ -868,6 +868,104 @@ public class HornetQServerControlTest extends ManagementTestBase
       Assert.assertTrue(txDetails.matches(".*m4.*"));
    }
 
+   @Test
+   public void testXATransactionMetrics() throws Exception
+   {
+      SimpleString atestq = new SimpleString("BasicXaTestq");
+
+      ServerLocator locator = HornetQClient.createServerLocatorWithoutHA(new TransportConfiguration(UnitTestCase.INVM_CONNECTOR_FACTORY));
+      ClientSessionFactory csf = createSessionFactory(locator);
+      ClientSession clientSession = csf.createSession(true, false, false);
+      clientSession.createQueue(atestq, atestq, null, true);
+      ClientProducer clientProducer = clientSession.createProducer(atestq);
+
+      HornetQServerControl serverControl = createManagementControl();
+
+      assertEquals(0, serverControl.getXATransactionsCommitted());
+      assertEquals(0, serverControl.getXATransactionsRolledBack());
+      assertEquals(0, serverControl.getXATransactionsTimedOut());
+
+      Xid xid = newXID();
+      clientSession.start(xid, XAResource.TMNOFLAGS);
+      clientProducer.send(createTextMessage(clientSession, ""));
+      clientSession.end(xid, XAResource.TMSUCCESS);
+      clientSession.prepare(xid);
+      clientSession.commit(xid, false);
+
+      xid = newXID();
+      clientSession.start(xid, XAResource.TMNOFLAGS);
+      clientProducer.send(createTextMessage(clientSession, ""));
+      clientSession.end(xid, XAResource.TMSUCCESS);
+      clientSession.commit(xid, true);
+
+      xid = newXID();
+      clientSession.start(xid, XAResource.TMNOFLAGS);
+      clientProducer.send(createTextMessage(clientSession, ""));
+      clientSession.end(xid, XAResource.TMSUCCESS);
+      clientSession.rollback(xid);
+
+      clientSession.close();
+      locator.close();
+
+      assertEquals(2, serverControl.getXATransactionsCommitted());
+      assertEquals(1, serverControl.getXATransactionsRolledBack());
+      assertEquals(0, serverControl.getXATransactionsTimedOut());
+
+      JSONObject times = new JSONObject(serverControl.listXATransactionTimesAsJSON());
+      assertEquals(1, times.getJSONObject("prepare").getLong("count"));
+      assertEquals(2, times.getJSONObject("commit").getLong("count"));
+      assertTrue(times.getJSONObject("commit").getLong("max") >= times.getJSONObject("commit").getLong("p50"));
+   }
+
+   @Test
+   public void testListResendCacheSizesAsJSON() throws Exception
+   {
+      ServerLocator locator = HornetQClient.createServerLocatorWithoutHA(new TransportConfiguration(UnitTestCase.INVM_CONNECTOR_FACTORY));
+      locator.setConfirmationWindowSize(1024 * 1024);
+      ClientSessionFactory csf = createSessionFactory(locator);
+      ClientSession clientSession = csf.createSession();
+      clientSession.createQueue(RandomUtil.randomString(), RandomUtil.randomString(), false);
+
+      HornetQServerControl serverControl = createManagementControl();
+
+      // the server keeps its responses until the client confirms them, which it only does every half window
+      JSONArray caches = new JSONArray(serverControl.listResendCacheSizesAsJSON());
+      int packets = 0;
+      long bytes = 0;
+      for (int i = 0; i < caches.length(); i++)
+      {
+         packets += caches.getJSONObject(i).getInt("packets");
+         bytes += caches.getJSONObject(i).getLong("bytes");
+      }
+      assertTrue(packets > 0);
+      assertTrue(bytes > 0);
+
+      clientSession.close();
+      locator.close();
+   }
+
+   @Test
+   public void testListStoreLatenciesAsJSON() throws Exception
+   {
+      SimpleString atestq = new SimpleString("StoreLatenciesTestq");
+
+      ServerLocator locator = HornetQClient.createServerLocatorWithoutHA(new TransportConfiguration(UnitTestCase.INVM_CONNECTOR_FACTORY));
+      ClientSessionFactory csf = createSessionFactory(locator);
+      ClientSession clientSession = csf.createSession(false, true, true);
+      clientSession.createQueue(atestq, atestq, null, true);
+      ClientProducer clientProducer = clientSession.createProducer(atestq);
+      clientProducer.send(createTextMessage(clientSession, ""));
+
+      clientSession.close();
+      locator.close();
+
+      HornetQServerControl serverControl = createManagementControl();
+
+      JSONObject latencies = new JSONObject(serverControl.listStoreLatenciesAsJSON());
+      assertTrue(latencies.getLong("count") > 0);
+      assertTrue(latencies.getLong("max") >= latencies.getLong("p50"));
+   }
+
    @Test
    public void testListPreparedTransactionDetailsAsHTML() throws Exception
    {
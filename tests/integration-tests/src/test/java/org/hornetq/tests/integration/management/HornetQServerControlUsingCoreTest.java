@@ -131,6 +131,36 @@ public class HornetQServerControlUsingCoreTest extends HornetQServerControlTest
             return (Boolean) proxy.retrieveAttributeValue("sharedStore");
          }
 
+         public long getReplicationSyncBytesDone()
+         {
+            return (Long) proxy.retrieveAttributeValue("replicationSyncBytesDone", Long.class);
+         }
+
+         public long getReplicationSyncBytesRemaining()
+         {
+            return (Long) proxy.retrieveAttributeValue("replicationSyncBytesRemaining", Long.class);
+         }
+
+         public long getReplicationSyncEstimatedTimeRemaining()
+         {
+            return (Long) proxy.retrieveAttributeValue("replicationSyncEstimatedTimeRemaining", Long.class);
+         }
+
+         public long getScaleDownMessagesDone()
+         {
+            return (Long) proxy.retrieveAttributeValue("scaleDownMessagesDone", Long.class);
+         }
+
+         public long getScaleDownMessagesRemaining()
+         {
+            return (Long) proxy.retrieveAttributeValue("scaleDownMessagesRemaining", Long.class);
+         }
+
+         public double getScaleDownMessagesPerSecond()
+         {
+            return (Double) proxy.retrieveAttributeValue("scaleDownMessagesPerSecond", Double.class);
+         }
+
          public boolean closeConnectionsForAddress(final String ipAddress) throws Exception
          {
             return (Boolean) proxy.invokeOperation("closeConnectionsForAddress", ipAddress);
@@ -336,6 +366,21 @@ public class HornetQServerControlUsingCoreTest extends HornetQServerControlTest
             return (Long) proxy.retrieveAttributeValue("transactionTimeoutScanPeriod", Long.class);
          }
 
+         public long getXATransactionsCommitted()
+         {
+            return (Long) proxy.retrieveAttributeValue("XATransactionsCommitted", Long.class);
+         }
+
+         public long getXATransactionsRolledBack()
+         {
+            return (Long) proxy.retrieveAttributeValue("XATransactionsRolledBack", Long.class);
+         }
+
+         public long getXATransactionsTimedOut()
+         {
+            return (Long) proxy.retrieveAttributeValue("XATransactionsTimedOut", Long.class);
+         }
+
          public String getVersion()
          {
             return (String) proxy.retrieveAttributeValue("version");
@@ -431,6 +476,11 @@ public class HornetQServerControlUsingCoreTest extends HornetQServerControlTest
             return (String[]) proxy.invokeOperation("listConnectionIDs");
          }
 
+         public String listResendCacheSizesAsJSON() throws Exception
+         {
+            return (String) proxy.invokeOperation("listResendCacheSizesAsJSON");
+         }
+
          public String[] listPreparedTransactions() throws Exception
          {
             return (String[]) proxy.invokeOperation("listPreparedTransactions");
@@ -456,6 +506,16 @@ public class HornetQServerControlUsingCoreTest extends HornetQServerControlTest
             return (String[]) proxy.invokeOperation("listHeuristicRolledBackTransactions");
          }
 
+         public String listXATransactionTimesAsJSON() throws Exception
+         {
+            return (String) proxy.invokeOperation("listXATransactionTimesAsJSON");
+         }
+
+         public String listStoreLatenciesAsJSON() throws Exception
+         {
+            return (String) proxy.invokeOperation("listStoreLatenciesAsJSON");
+         }
+
          public String[] listRemoteAddresses() throws Exception
          {
             return (String[]) proxy.invokeOperation("listRemoteAddresses");
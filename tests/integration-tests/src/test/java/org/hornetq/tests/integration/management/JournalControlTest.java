@@ -0,0 +1,165 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.tests.integration.management;
+
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.api.core.client.ClientProducer;
+import org.hornetq.api.core.client.ClientSession;
+import org.hornetq.api.core.client.ClientSessionFactory;
+import org.hornetq.api.core.client.ServerLocator;
+import org.hornetq.api.core.management.JournalControl;
+import org.hornetq.api.core.management.ObjectNameBuilder;
+import org.hornetq.core.config.Configuration;
+import org.hornetq.core.server.HornetQServer;
+import org.hornetq.core.server.HornetQServers;
+import org.hornetq.utils.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JournalControlTest extends ManagementTestBase
+{
+   private HornetQServer server;
+
+   private Configuration conf;
+
+   private ClientSession session;
+
+   @Test
+   public void testAttributes() throws Exception
+   {
+      checkResource(ObjectNameBuilder.DEFAULT.getJournalObjectName("messages"));
+      checkResource(ObjectNameBuilder.DEFAULT.getJournalObjectName("bindings"));
+
+      JournalControl messagesControl = createManagementControl("messages");
+      JournalControl bindingsControl = createManagementControl("bindings");
+
+      assertEquals("messages", messagesControl.getName());
+      assertEquals(conf.getJournalDirectory(), messagesControl.getDirectory());
+      assertEquals(conf.getBindingsDirectory(), bindingsControl.getDirectory());
+      assertTrue(messagesControl.getOpenedFilesCount() > 0);
+   }
+
+   @Test
+   public void testMetrics() throws Exception
+   {
+      JournalControl messagesControl = createManagementControl("messages");
+      JournalControl bindingsControl = createManagementControl("bindings");
+
+      long bindingRecords = bindingsControl.getRecordsAppended();
+
+      SimpleString address = new SimpleString("JournalControlTest");
+      session.createQueue(address, address, true);
+
+      assertTrue(bindingsControl.getRecordsAppended() > bindingRecords);
+
+      // the bindings journal has no buffer, its synced writes are timed as they complete
+      assertTrue(new JSONObject(bindingsControl.getSyncTimesAsJSON()).getLong("count") > 0);
+
+      messagesControl.resetMetrics();
+
+      assertEquals(0, messagesControl.getRecordsAppended());
+      assertEquals(0, messagesControl.getBytesAppended());
+
+      ClientProducer producer = session.createProducer(address);
+
+      for (int i = 0; i < 100; i++)
+      {
+         producer.send(session.createMessage(true));
+      }
+
+      assertTrue(messagesControl.getRecordsAppended() >= 100);
+      assertTrue(messagesControl.getBytesAppended() > 0);
+
+      JSONObject syncTimes = new JSONObject(messagesControl.getSyncTimesAsJSON());
+      assertTrue(syncTimes.getLong("count") > 0);
+
+      assertTrue(messagesControl.getAverageFlushRecords() >= 1);
+      assertTrue(messagesControl.getFlushSizeP99() > 0);
+
+      new JSONObject(messagesControl.getAppendLockWaitsAsJSON());
+      new JSONObject(messagesControl.getCompactionTimesAsJSON());
+      new JSONObject(messagesControl.getCompactionStallsAsJSON());
+
+      messagesControl.resetMetrics();
+
+      assertEquals(0, messagesControl.getRecordsAppended());
+      assertEquals(0, new JSONObject(messagesControl.getSyncTimesAsJSON()).getLong("count"));
+   }
+
+   @Test
+   public void testRatesAreSampledWithoutBeingRead() throws Exception
+   {
+      JournalControl messagesControl = createManagementControl("messages");
+
+      SimpleString address = new SimpleString("JournalControlTest");
+      session.createQueue(address, address, true);
+
+      ClientProducer producer = session.createProducer(address);
+
+      long timeout = System.currentTimeMillis() + 5000;
+
+      // the rate is only set by the sampler, never by reading it
+      while (messagesControl.getRecordsAppendedPerSecond() == 0 && System.currentTimeMillis() < timeout)
+      {
+         producer.send(session.createMessage(true));
+      }
+
+      assertTrue(messagesControl.getRecordsAppendedPerSecond() > 0);
+      assertTrue(messagesControl.getBytesAppendedPerSecond() > 0);
+
+      // once nothing is appended the next samples go back to zero, however rarely they are read
+      Thread.sleep(2500);
+
+      assertEquals(0, messagesControl.getRecordsAppendedPerSecond(), 0);
+      assertEquals(0, messagesControl.getBytesAppendedPerSecond(), 0);
+   }
+
+   @Override
+   @Before
+   public void setUp() throws Exception
+   {
+      super.setUp();
+
+      conf = createDefaultConfig(false)
+         .setJMXManagementEnabled(true);
+      server = addServer(HornetQServers.newHornetQServer(conf, mbeanServer, true));
+      server.start();
+
+      ServerLocator locator = addServerLocator(createInVMNonHALocator());
+      ClientSessionFactory sf = createSessionFactory(locator);
+      session = addClientSession(sf.createSession(false, true, true));
+   }
+
+   @Override
+   @After
+   public void tearDown() throws Exception
+   {
+      session.close();
+      server.stop();
+
+      checkNoResource(ObjectNameBuilder.DEFAULT.getJournalObjectName("messages"));
+      checkNoResource(ObjectNameBuilder.DEFAULT.getJournalObjectName("bindings"));
+
+      session = null;
+      server = null;
+      conf = null;
+
+      super.tearDown();
+   }
+
+   protected JournalControl createManagementControl(final String name) throws Exception
+   {
+      return ManagementControlHelper.createJournalControl(name, mbeanServer);
+   }
+}
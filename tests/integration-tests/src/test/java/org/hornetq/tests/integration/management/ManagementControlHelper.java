@@ -26,6 +26,7 @@ import org.hornetq.api.core.management.BroadcastGroupControl;
 import org.hornetq.api.core.management.ClusterConnectionControl;
 import org.hornetq.api.core.management.DivertControl;
 import org.hornetq.api.core.management.HornetQServerControl;
+import org.hornetq.api.core.management.JournalControl;
 import org.hornetq.api.core.management.ObjectNameBuilder;
 import org.hornetq.api.core.management.QueueControl;
 import org.hornetq.api.jms.management.ConnectionFactoryControl;
@@ -76,6 +77,13 @@ public class ManagementControlHelper
                                                                 mbeanServer);
    }
 
+   public static JournalControl createJournalControl(final String name, final MBeanServer mbeanServer) throws Exception
+   {
+      return (JournalControl)ManagementControlHelper.createProxy(ObjectNameBuilder.DEFAULT.getJournalObjectName(name),
+                                                                 JournalControl.class,
+                                                                 mbeanServer);
+   }
+
    public static ClusterConnectionControl createClusterConnectionControl(final String name,
                                                                          final MBeanServer mbeanServer) throws Exception
    {
@@ -47,6 +47,7 @@ import org.hornetq.core.settings.impl.AddressSettings;
 import org.hornetq.tests.integration.jms.server.management.JMSUtil;
 import org.hornetq.tests.util.RandomUtil;
 import org.hornetq.utils.json.JSONArray;
+import org.hornetq.utils.json.JSONObject;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -737,6 +738,63 @@ public class QueueControlTest extends ManagementTestBase
       session.deleteQueue(queue);
    }
 
+   @Test
+   public void testListMessagesWithOffsetAndLimit() throws Exception
+   {
+      SimpleString key = new SimpleString("key");
+      SimpleString address = RandomUtil.randomSimpleString();
+      SimpleString queue = RandomUtil.randomSimpleString();
+
+      session.createQueue(address, queue, null, false);
+      QueueControl queueControl = createManagementControl(address, queue);
+
+      ClientProducer producer = session.createProducer(address);
+      for (int i = 0; i < 10; i++)
+      {
+         ClientMessage message = session.createMessage(false);
+         message.putLongProperty(key, i);
+         producer.send(message);
+      }
+
+      Map<String, Object>[] messages = queueControl.listMessages(null, 0, 4);
+      Assert.assertEquals(4, messages.length);
+      Assert.assertEquals(0L, messages[0].get("key"));
+
+      messages = queueControl.listMessages(null, 8, 4);
+      Assert.assertEquals(2, messages.length);
+      Assert.assertEquals(8L, messages[0].get("key"));
+      Assert.assertEquals(9L, messages[1].get("key"));
+
+      messages = queueControl.listMessages(null, 10, 4);
+      Assert.assertEquals(0, messages.length);
+
+      // the offset counts the matching messages only
+      messages = queueControl.listMessages(key + " >= 5", 1, 2);
+      Assert.assertEquals(2, messages.length);
+      Assert.assertEquals(6L, messages[0].get("key"));
+      Assert.assertEquals(7L, messages[1].get("key"));
+
+      JSONArray array = new JSONArray(queueControl.listMessagesAsJSON(key + " >= 5", 3, 10));
+      Assert.assertEquals(2, array.length());
+      Assert.assertEquals(8, array.getJSONObject(0).getLong("key"));
+
+      try
+      {
+         queueControl.listMessages(null, 0, 0);
+         Assert.fail("the limit must be positive");
+      }
+      catch (Exception e)
+      {
+      }
+
+      ManagementTestBase.consumeMessages(10, session, queue);
+
+      messages = queueControl.listMessages(null, 0, 4);
+      Assert.assertEquals(0, messages.length);
+
+      session.deleteQueue(queue);
+   }
+
    @Test
    public void testListMessagesAsJSONWithFilter() throws Exception
    {
@@ -1953,6 +2011,39 @@ public class QueueControlTest extends ManagementTestBase
       session.deleteQueue(queue);
    }
 
+   @Test
+   public void testGetLatenciesAsJSON() throws Exception
+   {
+      SimpleString address = RandomUtil.randomSimpleString();
+      SimpleString queue = RandomUtil.randomSimpleString();
+
+      session.createQueue(address, queue, null, false);
+
+      QueueControl queueControl = createManagementControl(address, queue);
+      JSONObject latencies = new JSONObject(queueControl.getLatenciesAsJSON());
+      Assert.assertEquals(0, latencies.getJSONObject("delivery").getLong("count"));
+      Assert.assertEquals(0, latencies.getJSONObject("acknowledge").getLong("count"));
+
+      ClientProducer producer = session.createProducer(address);
+      producer.send(session.createMessage(false));
+      producer.send(session.createMessage(false));
+      ManagementTestBase.consumeMessages(2, session, queue);
+
+      latencies = new JSONObject(queueControl.getLatenciesAsJSON());
+      JSONObject delivery = latencies.getJSONObject("delivery");
+      Assert.assertEquals(2, delivery.getLong("count"));
+      Assert.assertTrue(delivery.getLong("max") >= delivery.getLong("p99"));
+      Assert.assertEquals(2, latencies.getJSONObject("acknowledge").getLong("count"));
+
+      queueControl.resetLatencies();
+
+      latencies = new JSONObject(queueControl.getLatenciesAsJSON());
+      Assert.assertEquals(0, latencies.getJSONObject("delivery").getLong("count"));
+      Assert.assertEquals(0, latencies.getJSONObject("acknowledge").getLong("count"));
+
+      session.deleteQueue(queue);
+   }
+
    //make sure notifications are always received no matter whether
    //a Queue is created via QueueControl or by JMSServerManager directly.
    @Test
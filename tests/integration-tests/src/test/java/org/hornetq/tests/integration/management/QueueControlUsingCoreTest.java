@@ -134,6 +134,16 @@ public class QueueControlUsingCoreTest extends QueueControlTest
             proxy.invokeOperation("resetMessagesAcknowledged");
          }
 
+         public String getLatenciesAsJSON() throws Exception
+         {
+            return (String) proxy.retrieveAttributeValue("latenciesAsJSON");
+         }
+
+         public void resetLatencies() throws Exception
+         {
+            proxy.invokeOperation("resetLatencies");
+         }
+
          public String getName()
          {
             return (String) proxy.retrieveAttributeValue("name");
@@ -205,6 +215,22 @@ public class QueueControlUsingCoreTest extends QueueControlTest
             return (String) proxy.invokeOperation("listMessagesAsJSON", filter);
          }
 
+         public Map<String, Object>[] listMessages(final String filter, final int offset, final int limit) throws Exception
+         {
+            Object[] res = (Object[]) proxy.invokeOperation("listMessages", filter, offset, limit);
+            Map<String, Object>[] results = new Map[res.length];
+            for (int i = 0; i < res.length; i++)
+            {
+               results[i] = (Map<String, Object>) res[i];
+            }
+            return results;
+         }
+
+         public String listMessagesAsJSON(final String filter, final int offset, final int limit) throws Exception
+         {
+            return (String) proxy.invokeOperation("listMessagesAsJSON", filter, offset, limit);
+         }
+
          public Map<String, Object>[] listScheduledMessages() throws Exception
          {
             Object[] res = (Object[]) proxy.invokeOperation("listScheduledMessages");
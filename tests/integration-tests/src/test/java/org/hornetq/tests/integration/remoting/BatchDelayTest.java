@@ -52,8 +52,7 @@ public class BatchDelayTest extends ServiceTestBase
    {
       super.setUp();
 
-      Map<String, Object> params = new HashMap<String, Object>();
-      params.put(TransportConstants.BATCH_DELAY, DELAY);
+      Map<String, Object> params = createBatchParams();
 
       TransportConfiguration tc = new TransportConfiguration(NETTY_ACCEPTOR_FACTORY, params);
 
@@ -63,10 +62,16 @@ public class BatchDelayTest extends ServiceTestBase
       server.start();
    }
 
-   protected ClientSessionFactory createSessionFactory() throws Exception
+   protected Map<String, Object> createBatchParams()
    {
       Map<String, Object> params = new HashMap<String, Object>();
       params.put(TransportConstants.BATCH_DELAY, DELAY);
+      return params;
+   }
+
+   protected ClientSessionFactory createSessionFactory() throws Exception
+   {
+      Map<String, Object> params = createBatchParams();
       ServerLocator locator =
                HornetQClient.createServerLocatorWithoutHA(createTransportConfiguration(true, false, params));
       addServerLocator(locator);
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.tests.integration.remoting;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.hornetq.core.remoting.impl.netty.TransportConstants;
+
+/**
+ * Runs the {@link BatchDelayTest} tests with coalesced writes instead of the batch buffer.
+ */
+public class CoalescedWritesTest extends BatchDelayTest
+{
+   @Override
+   protected Map<String, Object> createBatchParams()
+   {
+      Map<String, Object> params = new HashMap<String, Object>();
+      params.put(TransportConstants.COALESCE_WRITES_PROP_NAME, true);
+      return params;
+   }
+}
@@ -67,6 +67,8 @@ import org.hornetq.core.persistence.impl.journal.JournalStorageManager;
 import org.hornetq.core.persistence.impl.journal.OperationContextImpl;
 import org.hornetq.core.protocol.core.CoreRemotingConnection;
 import org.hornetq.core.protocol.core.Packet;
+import org.hornetq.core.protocol.core.impl.PacketImpl;
+import org.hornetq.core.protocol.core.impl.wireformat.ReplicationBatchMessage;
 import org.hornetq.core.replication.ReplicatedJournal;
 import org.hornetq.core.replication.ReplicationManager;
 import org.hornetq.core.server.HornetQComponent;
@@ -313,6 +315,153 @@ public final class ReplicationTest extends ServiceTestBase
       Assert.assertEquals(0, store.getNumberOfPages());
    }
 
+   @Test
+   public void testBatchedPackets() throws Exception
+   {
+      final int nThreads = 4;
+      final int nRecords = 500;
+      BatchCountingInterceptor.reset();
+      setupServer(true);
+
+      manager = liveServer.getReplicationManager();
+      waitForComponent(manager);
+      liveServer.getRemotingService().addOutgoingInterceptor(new BatchCountingInterceptor());
+
+      final Journal replicatedJournal = new ReplicatedJournal((byte) 1, new FakeJournal(), manager);
+
+      final CountDownLatch done = new CountDownLatch(nThreads);
+      final AtomicInteger errors = new AtomicInteger(0);
+
+      for (int t = 0; t < nThreads; t++)
+      {
+         final int thread = t;
+         executor.execute(new Runnable()
+         {
+            public void run()
+            {
+               try
+               {
+                  for (int i = 0; i < nRecords; i++)
+                  {
+                     replicatedJournal.appendAddRecord(thread * nRecords + i, (byte) 1, new FakeData(), false);
+                  }
+               }
+               catch (Exception e)
+               {
+                  errors.incrementAndGet();
+               }
+               finally
+               {
+                  done.countDown();
+               }
+            }
+         });
+      }
+
+      Assert.assertTrue(done.await(30, TimeUnit.SECONDS));
+      Assert.assertEquals(0, errors.get());
+
+      long timeout = System.currentTimeMillis() + 30000;
+      while (!manager.getActiveTokens().isEmpty() && System.currentTimeMillis() < timeout)
+      {
+         Thread.sleep(10);
+      }
+
+      Assert.assertTrue("Expecting no active tokens:" + manager.getActiveTokens(), manager.getActiveTokens().isEmpty());
+      Assert.assertEquals(nThreads * nRecords, BatchCountingInterceptor.records.get());
+      Assert.assertTrue("operations should share packets: " + BatchCountingInterceptor.batches.get(),
+                        BatchCountingInterceptor.batches.get() < nThreads * nRecords);
+   }
+
+   @Test
+   public void testFailedBatchedPacket() throws Exception
+   {
+      setupServer(true);
+
+      manager = liveServer.getReplicationManager();
+      waitForComponent(manager);
+
+      final Journal replicatedJournal = new ReplicatedJournal((byte) 1, new FakeJournal(), manager);
+      // the backup has no such journal, so it fails to apply the records sent to it
+      final Journal missingJournal = new ReplicatedJournal((byte) 7, new FakeJournal(), manager);
+
+      final CountDownLatch latch = new CountDownLatch(1);
+      final AtomicInteger lastError = new AtomicInteger(0);
+
+      try
+      {
+         replicatedJournal.appendAddRecord(1, (byte) 1, new FakeData(), false);
+         missingJournal.appendAddRecord(2, (byte) 1, new FakeData(), false);
+         replicatedJournal.appendAddRecord(3, (byte) 1, new FakeData(), false);
+
+         OperationContextImpl.getContext(factory).executeOnCompletion(new IOAsyncTask()
+         {
+            public void onError(final int errorCode, final String errorMessage)
+            {
+               lastError.set(errorCode);
+               latch.countDown();
+            }
+
+            public void done()
+            {
+               latch.countDown();
+            }
+         });
+
+         Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+         Assert.assertEquals(HornetQExceptionType.INTERNAL_ERROR.getCode(), lastError.get());
+      }
+      finally
+      {
+         OperationContextImpl.clearContext();
+      }
+
+      long timeout = System.currentTimeMillis() + 10000;
+      while (!manager.getActiveTokens().isEmpty() && System.currentTimeMillis() < timeout)
+      {
+         Thread.sleep(10);
+      }
+
+      Assert.assertTrue("Expecting no active tokens:" + manager.getActiveTokens(), manager.getActiveTokens().isEmpty());
+   }
+
+   @Test
+   public void testBackupFileDigestsTimeout() throws Exception
+   {
+      setupServer(true);
+
+      manager = liveServer.getReplicationManager();
+      waitForComponent(manager);
+
+      long start = System.currentTimeMillis();
+      manager.requestBackupFileDigests();
+      Assert.assertTrue(System.currentTimeMillis() - start < 10000);
+
+      Interceptor dropDigests = new Interceptor()
+      {
+         public boolean intercept(final Packet packet, final RemotingConnection connection) throws HornetQException
+         {
+            return packet.getType() != PacketImpl.REPLICATION_SYNC_DIGEST_RESPONSE;
+         }
+      };
+      liveServer.getRemotingService().addIncomingInterceptor(dropDigests);
+
+      try
+      {
+         manager.setCallTimeout(500);
+
+         start = System.currentTimeMillis();
+         manager.requestBackupFileDigests();
+         long elapsed = System.currentTimeMillis() - start;
+
+         Assert.assertTrue("waited " + elapsed, elapsed >= 500 && elapsed < 10000);
+      }
+      finally
+      {
+         liveServer.getRemotingService().removeIncomingInterceptor(dropDigests);
+      }
+   }
+
    @Test
    public void testSendPacketsWithFailure() throws Exception
    {
@@ -679,6 +828,29 @@ public final class ReplicationTest extends ServiceTestBase
 
    }
 
+   public static final class BatchCountingInterceptor implements Interceptor
+   {
+      static final AtomicInteger batches = new AtomicInteger(0);
+
+      static final AtomicInteger records = new AtomicInteger(0);
+
+      static void reset()
+      {
+         batches.set(0);
+         records.set(0);
+      }
+
+      public boolean intercept(final Packet packet, final RemotingConnection connection) throws HornetQException
+      {
+         if (packet.getType() == PacketImpl.REPLICATION_BATCH)
+         {
+            batches.incrementAndGet();
+            records.addAndGet(((ReplicationBatchMessage) packet).getCount());
+         }
+         return true;
+      }
+   }
+
    static final class FakeJournal implements Journal
    {
 
@@ -30,6 +30,9 @@ import org.hornetq.core.persistence.impl.journal.JournalStorageManager;
 import org.hornetq.core.persistence.impl.journal.LargeServerMessageImpl;
 import org.hornetq.core.postoffice.Binding;
 import org.hornetq.core.postoffice.impl.LocalQueueBinding;
+import org.hornetq.core.server.cluster.ha.LiveOnlyPolicy;
+import org.hornetq.core.server.impl.LiveOnlyActivation;
+import org.hornetq.core.server.impl.ScaleDownHandler;
 import org.hornetq.core.settings.impl.AddressSettings;
 import org.hornetq.tests.integration.cluster.distribution.ClusterTestBase;
 import org.hornetq.tests.util.UnitTestCase;
@@ -509,6 +512,66 @@ public class ScaleDownTest extends ClusterTestBase
       removeConsumer(0);
    }
 
+   @Test
+   public void testPagingOnlyRemembersTheCurrentBatch() throws Exception
+   {
+      final int CHUNK_SIZE = 50;
+      final int BATCH_SIZE = 7;
+      int messageCount = 0;
+      final String addressName = "testAddress";
+      final String queueName = "testQueue";
+
+      LiveOnlyPolicy haPolicy = (LiveOnlyPolicy) servers[0].getHAPolicy();
+      haPolicy.getScaleDownPolicy().setBatchSize(BATCH_SIZE);
+
+      createQueue(0, addressName, queueName, null, false);
+      createQueue(1, addressName, queueName, null, false);
+
+      ClientSessionFactory sf = sfs[0];
+      ClientSession session = addClientSession(sf.createSession(false, false));
+      ClientProducer producer = addClientProducer(session.createProducer(addressName));
+
+      AddressSettings defaultSetting = new AddressSettings();
+      defaultSetting.setPageSizeBytes(10 * 1024);
+      defaultSetting.setMaxSizeBytes(20 * 1024);
+      servers[0].getAddressSettingsRepository().addMatch("#", defaultSetting);
+
+      // page several chunks so that many more messages than a batch are paged
+      int pagedChunks = 0;
+      while (pagedChunks < 4)
+      {
+         for (int i = 0; i < CHUNK_SIZE; i++)
+         {
+            Message message = session.createMessage(true);
+            message.getBodyBuffer().writeBytes(new byte[1024]);
+            message.putIntProperty("order", messageCount);
+            producer.send(message);
+            messageCount++;
+         }
+         session.commit();
+         if (servers[0].getPagingManager().getPageStore(new SimpleString(addressName)).isPaging())
+         {
+            pagedChunks++;
+         }
+      }
+
+      servers[0].stop();
+
+      ScaleDownHandler scaleDownHandler = ((LiveOnlyActivation) servers[0].getActivation()).getScaleDownHandler();
+      Assert.assertEquals(messageCount, scaleDownHandler.getMessagesDone());
+      Assert.assertTrue(scaleDownHandler.getMaxPagedMessagesInFlight() > 0);
+      Assert.assertTrue(scaleDownHandler.getMaxPagedMessagesInFlight() <= BATCH_SIZE);
+
+      addConsumer(0, 1, queueName, null);
+      for (int i = 0; i < messageCount; i++)
+      {
+         Assert.assertEquals(i, consumers[0].getConsumer().receive(250).getIntProperty("order").intValue());
+      }
+
+      Assert.assertNull(consumers[0].getConsumer().receive(250));
+      removeConsumer(0);
+   }
+
    @Test
    public void testFilters() throws Exception
    {
@@ -563,4 +626,52 @@ public class ScaleDownTest extends ClusterTestBase
       removeConsumer(0);
       removeConsumer(1);
    }
+
+   @Test
+   public void testParallelBatchedScaleDown() throws Exception
+   {
+      final int ADDRESSES = 5;
+      final int TEST_SIZE = 100;
+      final String addressName = "testAddress";
+      final String queueName = "testQueue";
+
+      LiveOnlyPolicy haPolicy = (LiveOnlyPolicy) servers[0].getHAPolicy();
+      haPolicy.getScaleDownPolicy().setParallelism(3);
+      haPolicy.getScaleDownPolicy().setBatchSize(7);
+
+      ClientSession session = addClientSession(sfs[0].createSession(false, false));
+      ClientProducer producer = addClientProducer(session.createProducer());
+
+      for (int i = 0; i < ADDRESSES; i++)
+      {
+         createQueue(0, addressName + i, queueName + i, null, false);
+         createQueue(1, addressName + i, queueName + i, null, false);
+
+         for (int j = 0; j < TEST_SIZE; j++)
+         {
+            Message message = session.createMessage(true);
+            message.putIntProperty("order", j);
+            producer.send(addressName + i, message);
+         }
+         session.commit();
+      }
+
+      servers[0].stop();
+
+      ScaleDownHandler scaleDownHandler = ((LiveOnlyActivation) servers[0].getActivation()).getScaleDownHandler();
+      Assert.assertEquals(ADDRESSES * TEST_SIZE, scaleDownHandler.getMessagesDone());
+      Assert.assertEquals(0, scaleDownHandler.getMessagesRemaining());
+      Assert.assertTrue(scaleDownHandler.getMessagesPerSecond() > 0);
+
+      for (int i = 0; i < ADDRESSES; i++)
+      {
+         addConsumer(0, 1, queueName + i, null);
+         for (int j = 0; j < TEST_SIZE; j++)
+         {
+            Assert.assertEquals(j, consumers[0].getConsumer().receive(250).getIntProperty("order").intValue());
+         }
+         Assert.assertNull(consumers[0].getConsumer().receive(250));
+         removeConsumer(0);
+      }
+   }
 }
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.integration.tools;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.Reader;
+import java.util.Properties;
+
+import org.hornetq.tests.util.UnitTestCase;
+import org.hornetq.tools.LoadGenerator;
+import org.hornetq.utils.json.JSONObject;
+import org.hornetq.utils.json.JSONTokener;
+import org.junit.Test;
+
+public class LoadGeneratorTest extends UnitTestCase
+{
+   @Test
+   public void testCore() throws Exception
+   {
+      Properties properties = createProperties();
+      properties.setProperty("producers", "2");
+      properties.setProperty("consumers", "2");
+      properties.setProperty("rate", "500");
+      // the messages sent during the warmup are consumed but not counted
+      properties.setProperty("warmup", "1");
+
+      JSONObject results = new LoadGenerator(properties).run();
+
+      assertEquals(0, results.getLong("errors"));
+      assertTrue(results.getLong("sent") > 0);
+      assertTrue(results.getLong("sent") <= 2 * 500 * 1.1);
+      assertEquals(results.getLong("sent"), results.getJSONObject("sendLatency").getLong("count"));
+      assertEquals(results.getLong("sent"), results.getLong("received"));
+      assertEquals(results.getLong("received"), results.getJSONObject("endToEndLatency").getLong("count"));
+      assertTrue(results.getDouble("sendRate") <= 2 * 500 * 1.1);
+   }
+
+   @Test
+   public void testJMSDurableTransacted() throws Exception
+   {
+      Properties properties = createProperties();
+      properties.setProperty("protocol", "jms");
+      properties.setProperty("durable", "true");
+      properties.setProperty("transaction-batch", "10");
+      properties.setProperty("producers", "2");
+      properties.setProperty("selector", LoadGenerator.PRODUCER_PROPERTY + " = 1");
+
+      JSONObject results = new LoadGenerator(properties).run();
+
+      assertEquals(0, results.getLong("errors"));
+      assertTrue(results.getLong("received") > 0);
+      assertTrue(results.getLong("received") < results.getLong("sent"));
+   }
+
+   @Test
+   public void testOutput() throws Exception
+   {
+      File output = new File(getTestDir(), "results.json");
+
+      Properties properties = createProperties();
+      properties.setProperty("output", output.getPath());
+
+      JSONObject results = new LoadGenerator(properties).run();
+
+      Reader reader = new FileReader(output);
+      try
+      {
+         JSONObject written = new JSONObject(new JSONTokener(reader));
+
+         assertEquals(results.getLong("sent"), written.getLong("sent"));
+         assertEquals("core", written.getJSONObject("parameters").getString("protocol"));
+         assertTrue(written.getJSONObject("sendLatency").has("p99.9"));
+      }
+      finally
+      {
+         reader.close();
+      }
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testUnknownParameter()
+   {
+      Properties properties = new Properties();
+      properties.setProperty("producer", "1");
+
+      new LoadGenerator(properties);
+   }
+
+   private Properties createProperties()
+   {
+      Properties properties = new Properties();
+      properties.setProperty("data-directory", getTestDir());
+      properties.setProperty("warmup", "0");
+      properties.setProperty("duration", "1");
+      return properties;
+   }
+}
@@ -17,9 +17,12 @@ import java.util.List;
 import java.util.Random;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.embedded.EmbeddedChannel;
 import org.hornetq.core.remoting.impl.netty.HornetQFrameDecoder2;
+import org.hornetq.core.remoting.impl.netty.PartialPooledByteBufAllocator;
 import org.hornetq.tests.util.UnitTestCase;
 import org.junit.After;
 import org.junit.Assert;
@@ -97,6 +100,53 @@ public class HornetQFrameDecoder2Test extends UnitTestCase
       Assert.assertEquals(HornetQFrameDecoder2Test.MSG_CNT, cnt);
    }
 
+   @Test
+   public void testPooledIOBuffersAreReleased() throws Exception
+   {
+      final EmbeddedChannel decoder = new EmbeddedChannel(new HornetQFrameDecoder2());
+      final ByteBufAllocator allocator = PartialPooledByteBufAllocator.INSTANCE.withPooledIO();
+      decoder.config().setAllocator(allocator);
+
+      List<ByteBuf> frames = new ArrayList<ByteBuf>();
+
+      for (int i = 0; i < 100; i++)
+      {
+         ByteBuf read = allocator.ioBuffer(64);
+         Assert.assertTrue(read.alloc() instanceof PooledByteBufAllocator);
+         read.writeInt(4).writeInt(i);
+         read.writeInt(4).writeInt(-i);
+
+         decoder.writeInbound(read);
+
+         // the read buffer goes back to the pool as soon as its frames are decoded
+         Assert.assertEquals(0, read.refCnt());
+
+         for (ByteBuf frame = (ByteBuf) decoder.readInbound(); frame != null; frame = (ByteBuf) decoder.readInbound())
+         {
+            frames.add(frame);
+         }
+      }
+
+      Assert.assertEquals(200, frames.size());
+      for (int i = 0; i < frames.size(); i++)
+      {
+         ByteBuf frame = frames.get(i);
+         // frames outlive the read buffers so they must not come from the pool
+         Assert.assertFalse(frame.alloc() instanceof PooledByteBufAllocator);
+         Assert.assertEquals(i % 2 == 0 ? i / 2 : -(i / 2), frame.getInt(4));
+         frame.release();
+      }
+
+      // an incomplete frame is kept until the channel is closed
+      ByteBuf partial = allocator.ioBuffer(64);
+      partial.writeInt(4).writeShort(0);
+      decoder.writeInbound(partial);
+      Assert.assertEquals(1, partial.refCnt());
+
+      decoder.finish();
+      Assert.assertEquals(0, partial.refCnt());
+   }
+
    @Test
    public void testExtremeFragmentation() throws Exception
    {
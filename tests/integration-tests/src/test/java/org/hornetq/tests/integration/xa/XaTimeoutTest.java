@@ -621,6 +621,36 @@ public class XaTimeoutTest extends UnitTestCase
       Assert.assertNull(m);
    }
 
+   @Test
+   public void testChangingTimeoutOfStartedTransaction() throws Exception
+   {
+      Xid xid = new XidImpl("xa1".getBytes(), 1, UUIDGenerator.getInstance().generateStringUUID().getBytes());
+
+      ClientMessage m1 = createTextMessage(clientSession, "m1");
+      clientSession.start(xid, XAResource.TMNOFLAGS);
+      CountDownLatch latch = new CountDownLatch(1);
+      messagingService.getResourceManager().getTransaction(xid).addOperation(new RollbackCompleteOperation(latch));
+      clientProducer.send(m1);
+
+      // the transaction was started with the default timeout
+      clientSession.setTransactionTimeout(1);
+      clientSession.end(xid, XAResource.TMSUCCESS);
+      Assert.assertTrue(latch.await(2600, TimeUnit.MILLISECONDS));
+      Assert.assertNull(messagingService.getResourceManager().getTransaction(xid));
+      Assert.assertEquals(1, messagingService.getResourceManager().getTimedOutTransactionCount());
+      try
+      {
+         clientSession.commit(xid, true);
+         Assert.fail("the transaction should have timed out");
+      }
+      catch (XAException e)
+      {
+         Assert.assertTrue(e.errorCode == XAException.XAER_NOTA);
+      }
+      clientSession.start();
+      Assert.assertNull(clientConsumer.receiveImmediate());
+   }
+
    @Test
    public void testMultipleTransactionsTimedOut() throws Exception
    {
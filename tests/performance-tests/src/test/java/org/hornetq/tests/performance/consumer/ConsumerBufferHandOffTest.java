@@ -0,0 +1,210 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.tests.performance.consumer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.hornetq.api.core.HornetQException;
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.api.core.client.ClientConsumer;
+import org.hornetq.api.core.client.ClientMessage;
+import org.hornetq.api.core.client.ClientProducer;
+import org.hornetq.api.core.client.ClientSession;
+import org.hornetq.api.core.client.ClientSessionFactory;
+import org.hornetq.api.core.client.MessageHandler;
+import org.hornetq.api.core.client.ServerLocator;
+import org.hornetq.core.server.HornetQServer;
+import org.hornetq.tests.util.ServiceTestBase;
+import org.hornetq.utils.PriorityLinkedListImpl;
+import org.hornetq.utils.SingleProducerPriorityBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Compares the hand-off between the remoting thread and the consumer thread as done by ClientConsumerImpl.
+ * <p>
+ * The legacy variant reproduces the previous buffer (PriorityLinkedListImpl guarded by the consumer monitor with
+ * wait/notify), the current variant uses SingleProducerPriorityBuffer with park/unpark.
+ * The last test measures message-listener throughput end to end over an in-VM connection.
+ */
+public class ConsumerBufferHandOffTest extends ServiceTestBase
+{
+   private static final int NUMBER_OF_PRIORITIES = 10;
+
+   private static final int HAND_OFF_MESSAGES = 5000000;
+
+   private static final int LISTENER_MESSAGES = 100000;
+
+   private static final int ITERATIONS = 5;
+
+   @Test
+   public void testLegacyMonitorHandOff() throws Exception
+   {
+      final PriorityLinkedListImpl<Object> list = new PriorityLinkedListImpl<Object>(NUMBER_OF_PRIORITIES);
+      final Object lock = new Object();
+      final Object message = new Object();
+
+      for (int iteration = 0; iteration < ITERATIONS; iteration++)
+      {
+         Thread consumer = new Thread()
+         {
+            @Override
+            public void run()
+            {
+               for (int i = 0; i < HAND_OFF_MESSAGES; i++)
+               {
+                  synchronized (lock)
+                  {
+                     while (list.poll() == null)
+                     {
+                        try
+                        {
+                           lock.wait();
+                        }
+                        catch (InterruptedException e)
+                        {
+                           return;
+                        }
+                     }
+                  }
+               }
+            }
+         };
+
+         long start = System.nanoTime();
+
+         consumer.start();
+
+         for (int i = 0; i < HAND_OFF_MESSAGES; i++)
+         {
+            synchronized (lock)
+            {
+               list.addTail(message, 4);
+               lock.notify();
+            }
+         }
+
+         consumer.join();
+
+         report("legacy monitor hand-off", HAND_OFF_MESSAGES, System.nanoTime() - start);
+      }
+   }
+
+   @Test
+   public void testSingleProducerBufferHandOff() throws Exception
+   {
+      final SingleProducerPriorityBuffer<Object> buffer = new SingleProducerPriorityBuffer<Object>(NUMBER_OF_PRIORITIES);
+      final Object message = new Object();
+
+      for (int iteration = 0; iteration < ITERATIONS; iteration++)
+      {
+         final Thread consumer = new Thread()
+         {
+            @Override
+            public void run()
+            {
+               for (int i = 0; i < HAND_OFF_MESSAGES; i++)
+               {
+                  while (buffer.poll() == null)
+                  {
+                     LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+                  }
+               }
+            }
+         };
+
+         long start = System.nanoTime();
+
+         consumer.start();
+
+         for (int i = 0; i < HAND_OFF_MESSAGES; i++)
+         {
+            buffer.addTail(message, 4);
+            LockSupport.unpark(consumer);
+         }
+
+         consumer.join();
+
+         report("single producer buffer hand-off", HAND_OFF_MESSAGES, System.nanoTime() - start);
+      }
+   }
+
+   @Test
+   public void testMessageListenerThroughput() throws Exception
+   {
+      HornetQServer server = createServer(false);
+      server.start();
+
+      ServerLocator locator = createInVMNonHALocator();
+      locator.setBlockOnNonDurableSend(false);
+      locator.setConsumerWindowSize(1024 * 1024);
+
+      ClientSessionFactory factory = createSessionFactory(locator);
+
+      SimpleString queue = new SimpleString("perfQueue");
+
+      ClientSession session = addClientSession(factory.createSession(false, true, true));
+      session.createQueue(queue, queue, null, false);
+
+      ClientProducer producer = session.createProducer(queue);
+
+      for (int iteration = 0; iteration < ITERATIONS; iteration++)
+      {
+         final CountDownLatch latch = new CountDownLatch(LISTENER_MESSAGES);
+
+         ClientConsumer consumer = session.createConsumer(queue);
+         consumer.setMessageHandler(new MessageHandler()
+         {
+            public void onMessage(final ClientMessage message)
+            {
+               try
+               {
+                  message.acknowledge();
+               }
+               catch (HornetQException e)
+               {
+                  e.printStackTrace();
+               }
+               latch.countDown();
+            }
+         });
+
+         session.start();
+
+         long start = System.nanoTime();
+
+         for (int i = 0; i < LISTENER_MESSAGES; i++)
+         {
+            ClientMessage message = session.createMessage(false);
+            message.getBodyBuffer().writeBytes(new byte[100]);
+            producer.send(message);
+         }
+
+         Assert.assertTrue(latch.await(60, TimeUnit.SECONDS));
+
+         report("message listener", LISTENER_MESSAGES, System.nanoTime() - start);
+
+         consumer.close();
+         session.stop();
+      }
+   }
+
+   private static void report(final String name, final int messages, final long elapsedNanos)
+   {
+      long millis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+      System.out.println(name + ": " + messages + " messages in " + millis + " milliseconds = " +
+                         (messages * 1000L / Math.max(1, millis)) + " msgs/s");
+   }
+}
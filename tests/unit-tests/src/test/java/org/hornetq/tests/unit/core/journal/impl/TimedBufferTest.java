@@ -26,6 +26,7 @@ import org.junit.Assert;
 import org.hornetq.api.core.HornetQBuffer;
 import org.hornetq.api.core.HornetQBuffers;
 import org.hornetq.core.journal.IOAsyncTask;
+import org.hornetq.core.journal.JournalMetrics;
 import org.hornetq.core.journal.impl.TimedBuffer;
 import org.hornetq.core.journal.impl.TimedBufferObserver;
 import org.hornetq.tests.util.UnitTestCase;
@@ -140,6 +141,54 @@ public class TimedBufferTest extends UnitTestCase
 
    }
 
+   @Test
+   public void testFlushMetrics()
+   {
+      class TestObserver implements TimedBufferObserver
+      {
+         public void flushBuffer(final ByteBuffer buffer, final boolean sync, final List<IOAsyncTask> callbacks)
+         {
+         }
+
+         public ByteBuffer newBuffer(final int minSize, final int maxSize)
+         {
+            return ByteBuffer.allocate(maxSize);
+         }
+
+         public int getRemainingBytes()
+         {
+            return 1024 * 1024;
+         }
+      }
+
+      JournalMetrics metrics = new JournalMetrics();
+
+      TimedBuffer timedBuffer = new TimedBuffer(100, TimedBufferTest.ONE_SECOND_IN_NANOS, false, metrics);
+
+      timedBuffer.start();
+
+      try
+      {
+         timedBuffer.setObserver(new TestObserver());
+
+         for (int i = 0; i < 10; i++)
+         {
+            timedBuffer.checkSize(10);
+            timedBuffer.addBytes(HornetQBuffers.wrappedBuffer(new byte[10]), false, dummyCallback);
+         }
+
+         timedBuffer.checkSize(1);
+
+         Assert.assertEquals(1, metrics.getFlushedBytes().getCount());
+         Assert.assertEquals(100, metrics.getFlushedBytes().getMax());
+         Assert.assertEquals(10, metrics.getFlushedRecords().getMax());
+      }
+      finally
+      {
+         timedBuffer.stop();
+      }
+   }
+
    @Test
    public void testTimingAndFlush() throws Exception
    {
@@ -26,6 +26,7 @@ import org.hornetq.api.core.HornetQExceptionType;
 import org.hornetq.core.asyncio.BufferCallback;
 import org.hornetq.core.journal.EncodingSupport;
 import org.hornetq.core.journal.IOAsyncTask;
+import org.hornetq.core.journal.JournalMetrics;
 import org.hornetq.core.journal.SequentialFile;
 import org.hornetq.core.journal.SequentialFileFactory;
 import org.hornetq.core.journal.impl.TimedBuffer;
@@ -53,6 +54,8 @@ public class FakeSequentialFileFactory implements SequentialFileFactory
 
    private final List<CallbackRunnable> callbacksInHold;
 
+   private final JournalMetrics metrics = new JournalMetrics();
+
    public FakeSequentialFileFactory(final int alignment, final boolean supportsCallback)
    {
       this.alignment = alignment;
@@ -713,6 +716,12 @@ public class FakeSequentialFileFactory implements SequentialFileFactory
    {
    }
 
+   @Override
+   public JournalMetrics getMetrics()
+   {
+      return metrics;
+   }
+
    @Override
    public void onIOError(Exception exception, String message, SequentialFile file)
    {
@@ -27,6 +27,8 @@ import org.hornetq.core.filter.Filter;
 import org.hornetq.core.postoffice.Binding;
 import org.hornetq.core.postoffice.BindingType;
 import org.hornetq.core.postoffice.Bindings;
+import org.hornetq.core.postoffice.QueueBinding;
+import org.hornetq.core.postoffice.QueueLoad;
 import org.hornetq.core.postoffice.impl.BindingsImpl;
 import org.hornetq.core.server.Bindable;
 import org.hornetq.core.server.Queue;
@@ -79,6 +81,44 @@ public class BindingsImplTest extends UnitTestCase
       }
    }
 
+   @Test
+   public void testLoadAwareRouting() throws Exception
+   {
+      final Bindings bind = new BindingsImpl(null, null, null);
+      bind.setLoadAwareRouting(true, 1000, 10000);
+
+      FakeLoadBinding fast = new FakeLoadBinding(1, new SimpleString("a"));
+      FakeLoadBinding slow = new FakeLoadBinding(2, new SimpleString("a"));
+      bind.addBinding(fast);
+      bind.addBinding(slow);
+
+      long now = System.currentTimeMillis();
+      // the fast queue has no backlog, the slow one has a backlog of 10 seconds
+      fast.getLoad().update(0, 100, 1, now);
+      slow.getLoad().update(1000, 100, 1, now);
+
+      for (int i = 0; i < 1100; i++)
+      {
+         bind.route(new ServerMessageImpl(i, 100), new RoutingContextImpl(null));
+      }
+
+      assertEquals(1100, fast.routed + slow.routed);
+      assertTrue("fast=" + fast.routed + ", slow=" + slow.routed, fast.routed > slow.routed * 4);
+
+      // without a recent load, messages are load balanced round-robin
+      bind.setLoadAwareRouting(true, 1000, -1);
+      fast.routed = 0;
+      slow.routed = 0;
+
+      for (int i = 0; i < 100; i++)
+      {
+         bind.route(new ServerMessageImpl(i, 100), new RoutingContextImpl(null));
+      }
+
+      assertEquals(50, fast.routed);
+      assertEquals(50, slow.routed);
+   }
+
    private void internalTest(final boolean route) throws Exception
    {
       final FakeBinding fake = new FakeBinding(new SimpleString("a"));
@@ -246,6 +286,11 @@ public class BindingsImplTest extends UnitTestCase
 
       }
 
+      public int getTimeout()
+      {
+         return -1;
+      }
+
       public List<TransactionOperation> getAllOperations()
       {
          return null;
@@ -414,6 +459,120 @@ public class BindingsImplTest extends UnitTestCase
 
    }
 
+   private final class FakeLoadBinding implements QueueBinding
+   {
+      final long id;
+
+      final SimpleString name;
+
+      final QueueLoad load = new QueueLoad();
+
+      int routed;
+
+      FakeLoadBinding(final long id, final SimpleString name)
+      {
+         this.id = id;
+         this.name = name;
+      }
+
+      public QueueLoad getLoad()
+      {
+         return load;
+      }
+
+      public int consumerCount()
+      {
+         return 1;
+      }
+
+      public Queue getQueue()
+      {
+         return null;
+      }
+
+      public void unproposed(SimpleString groupID)
+      {
+      }
+
+      public SimpleString getAddress()
+      {
+         return name;
+      }
+
+      public Bindable getBindable()
+      {
+         return null;
+      }
+
+      public BindingType getType()
+      {
+         return BindingType.LOCAL_QUEUE;
+      }
+
+      public SimpleString getUniqueName()
+      {
+         return name.concat(String.valueOf(id));
+      }
+
+      public SimpleString getRoutingName()
+      {
+         return name;
+      }
+
+      public SimpleString getClusterName()
+      {
+         return getUniqueName();
+      }
+
+      public Filter getFilter()
+      {
+         return null;
+      }
+
+      public boolean isHighAcceptPriority(final ServerMessage message)
+      {
+         return true;
+      }
+
+      public boolean isExclusive()
+      {
+         return false;
+      }
+
+      public long getID()
+      {
+         return id;
+      }
+
+      public int getDistance()
+      {
+         return 0;
+      }
+
+      public void route(final ServerMessage message, final RoutingContext context) throws Exception
+      {
+         routed++;
+      }
+
+      public void routeWithAck(ServerMessage message, RoutingContext context)
+      {
+      }
+
+      public void close() throws Exception
+      {
+      }
+
+      public String toManagementString()
+      {
+         return null;
+      }
+
+      public boolean isConnected()
+      {
+         return true;
+      }
+   }
+
    // Package protected ---------------------------------------------
 
    // Protected -----------------------------------------------------
@@ -14,7 +14,10 @@ package org.hornetq.tests.unit.core.postoffice.impl;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -190,4 +193,114 @@ public class DuplicateDetectionUnitTest extends ServiceTestBase
       }
 
    }
+
+   @Test
+   public void testReloadSharedRecords() throws Exception
+   {
+      JournalStorageManager journal = null;
+
+      try
+      {
+         clearDataRecreateServerDirs();
+
+         SimpleString ADDRESS = new SimpleString("address");
+
+         Configuration configuration = createDefaultConfig();
+
+         PostOffice postOffice = new FakePostOffice();
+
+         FakePagingManager pagingManager = new FakePagingManager();
+
+         HashMap<SimpleString, List<Pair<byte[], Long>>> mapDups = new HashMap<SimpleString, List<Pair<byte[], Long>>>();
+
+         journal = startJournal(configuration, postOffice, pagingManager, mapDups);
+
+         DuplicateIDCacheImpl cacheID = new DuplicateIDCacheImpl(ADDRESS, 100, journal, true);
+
+         List<byte[]> ids = new ArrayList<byte[]>();
+
+         for (int i = 0; i < 250; i++)
+         {
+            byte[] id = RandomUtil.randomBytes();
+            ids.add(id);
+            cacheID.addToCache(id, null);
+         }
+
+         journal.stop();
+
+         journal = startJournal(configuration, postOffice, pagingManager, mapDups);
+
+         List<Pair<byte[], Long>> values = mapDups.get(ADDRESS);
+
+         // the ids are stored in records of DuplicateIDCacheImpl.SEGMENT_SIZE ids, and a record is only
+         // deleted when all its ids have been evicted
+         Set<Long> records = new HashSet<Long>();
+         for (Pair<byte[], Long> value : values)
+         {
+            records.add(value.getB());
+         }
+         Assert.assertEquals(4, records.size());
+         Assert.assertEquals(3 * DuplicateIDCacheImpl.SEGMENT_SIZE + 250 % DuplicateIDCacheImpl.SEGMENT_SIZE, values.size());
+
+         cacheID = new DuplicateIDCacheImpl(ADDRESS, 100, journal, true);
+         cacheID.load(values);
+
+         Assert.assertEquals(100, cacheID.getMap().size());
+
+         for (int i = 0; i < 250; i++)
+         {
+            Assert.assertEquals(i >= 150, cacheID.contains(ids.get(i)));
+         }
+
+         cacheID.deleteFromCache(ids.get(150));
+         Assert.assertFalse(cacheID.contains(ids.get(150)));
+         Assert.assertEquals(99, cacheID.getMap().size());
+
+         for (int i = 0; i < 250; i++)
+         {
+            cacheID.addToCache(ids.get(i), null);
+         }
+
+         for (int i = 0; i < 250; i++)
+         {
+            Assert.assertEquals(i >= 150, cacheID.contains(ids.get(i)));
+         }
+      }
+      finally
+      {
+         if (journal != null)
+         {
+            try
+            {
+               journal.stop();
+            }
+            catch (Throwable ignored)
+            {
+            }
+         }
+      }
+   }
+
+   private JournalStorageManager startJournal(final Configuration configuration,
+                                              final PostOffice postOffice,
+                                              final FakePagingManager pagingManager,
+                                              final Map<SimpleString, List<Pair<byte[], Long>>> mapDups) throws Exception
+   {
+      ScheduledExecutorService scheduledThreadPool = Executors.newScheduledThreadPool(HornetQDefaultConfiguration.getDefaultScheduledThreadPoolMaxSize());
+
+      mapDups.clear();
+
+      JournalStorageManager journal = new JournalStorageManager(configuration, factory, null);
+      journal.start();
+      journal.loadBindingJournal(new ArrayList<QueueBindingInfo>(), new ArrayList<GroupingInfo>());
+      journal.loadMessageJournal(postOffice,
+                                 pagingManager,
+                                 new ResourceManagerImpl(0, 0, scheduledThreadPool),
+                                 null,
+                                 mapDups,
+                                 null,
+                                 null,
+                                 new PostOfficeJournalLoader(postOffice, pagingManager, null, null, null, null, null, null));
+      return journal;
+   }
 }
@@ -12,6 +12,7 @@
  */
 package org.hornetq.tests.unit.core.postoffice.impl;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -27,6 +28,7 @@ import org.hornetq.core.server.Queue;
 import org.hornetq.core.server.RoutingContext;
 import org.hornetq.core.server.ServerMessage;
 import org.hornetq.core.transaction.Transaction;
+import org.hornetq.utils.LatencyHistogram;
 import org.hornetq.utils.LinkedListIterator;
 import org.hornetq.utils.ReferenceCounter;
 
@@ -243,6 +245,13 @@ public class FakeQueue implements Queue
       return false;
    }
 
+   @Override
+   public int deleteReferences(final Collection<MessageReference> refs) throws Exception
+   {
+      // no-op
+      return 0;
+   }
+
    @Override
    public void deliverAsync()
    {
@@ -337,6 +346,20 @@ public class FakeQueue implements Queue
       return 0;
    }
 
+   @Override
+   public LatencyHistogram getDeliveryLatencies()
+   {
+      // no-op
+      return null;
+   }
+
+   @Override
+   public LatencyHistogram getAcknowledgeLatencies()
+   {
+      // no-op
+      return null;
+   }
+
    @Override
    public void resetMessagesAdded()
    {
@@ -351,6 +374,12 @@ public class FakeQueue implements Queue
 
    }
 
+   @Override
+   public void resetLatencies()
+   {
+      // no-op
+   }
+
    @Override
    public void incrementMesssagesAdded()
    {
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.tests.unit.core.postoffice.impl;
+
+import org.hornetq.core.postoffice.QueueLoad;
+import org.hornetq.tests.util.UnitTestCase;
+import org.junit.Test;
+
+public class QueueLoadTest extends UnitTestCase
+{
+   @Test
+   public void testUnknownLoadIsStale() throws Exception
+   {
+      QueueLoad load = new QueueLoad();
+
+      assertEquals(-1, load.getWeight(1000, 5000), 0);
+
+      load.update(10, 100, 0.5, 1000);
+
+      assertTrue(load.getWeight(6000, 5000) > 0);
+      assertEquals(-1, load.getWeight(6001, 5000), 0);
+   }
+
+   @Test
+   public void testSmoothing() throws Exception
+   {
+      QueueLoad load = new QueueLoad();
+
+      // the first update is taken as is
+      load.update(100, 10, 0.5, 1000);
+      assertEquals(100, load.getMessageCount(), 0);
+      assertEquals(10, load.getConsumeRate(), 0);
+
+      load.update(0, 30, 0.5, 2000);
+      assertEquals(50, load.getMessageCount(), 0);
+      assertEquals(20, load.getConsumeRate(), 0);
+   }
+
+   @Test
+   public void testWeight() throws Exception
+   {
+      QueueLoad idle = new QueueLoad();
+      QueueLoad fast = new QueueLoad();
+      QueueLoad backlogged = new QueueLoad();
+
+      idle.update(0, 0, 1, 1000);
+      fast.update(0, 100, 1, 1000);
+      backlogged.update(1000, 100, 1, 1000);
+
+      assertEquals(1, idle.getWeight(1000, 5000), 0);
+      assertEquals(100, fast.getWeight(1000, 5000), 0);
+      assertEquals(100d / 11, backlogged.getWeight(1000, 5000), 0.0001);
+   }
+
+   @Test
+   public void testSample() throws Exception
+   {
+      QueueLoad load = new QueueLoad();
+
+      assertEquals(-1, load.sample(10, 0, 1, 1000), 0);
+      assertEquals(-1, load.getWeight(1000, 5000), 0);
+
+      assertEquals(50, load.sample(10, 100, 1, 3000), 0);
+      assertEquals(10, load.getMessageCount(), 0);
+      assertEquals(50, load.getConsumeRate(), 0);
+   }
+}
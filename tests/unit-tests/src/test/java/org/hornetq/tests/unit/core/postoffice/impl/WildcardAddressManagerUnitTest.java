@@ -231,6 +231,12 @@ public class WildcardAddressManagerUnitTest extends UnitTestCase
 
       }
 
+      @Override
+      public void setLoadAwareRouting(boolean loadAware, long loadReportPeriod, long loadStaleTimeout)
+      {
+
+      }
+
       @Override
       public void unproposed(SimpleString groupID)
       {
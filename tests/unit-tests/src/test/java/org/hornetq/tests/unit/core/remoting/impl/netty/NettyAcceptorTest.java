@@ -69,6 +69,60 @@ public class NettyAcceptorTest extends UnitTestCase
 
    @Test
    public void testStartStop() throws Exception
+   {
+      Map<String, Object> params = new HashMap<String, Object>();
+      NettyAcceptor acceptor = createAcceptor(params);
+
+      addHornetQComponent(acceptor);
+      acceptor.start();
+      Assert.assertTrue(acceptor.isStarted());
+      acceptor.stop();
+      Assert.assertFalse(acceptor.isStarted());
+      UnitTestCase.checkFreePort(TransportConstants.DEFAULT_PORT);
+
+      acceptor.start();
+      Assert.assertTrue(acceptor.isStarted());
+      acceptor.stop();
+      Assert.assertFalse(acceptor.isStarted());
+      UnitTestCase.checkFreePort(TransportConstants.DEFAULT_PORT);
+
+      pool2.shutdown();
+
+      pool2.awaitTermination(1, TimeUnit.SECONDS);
+   }
+
+   @Test
+   public void testStartStopWithEpoll() throws Exception
+   {
+      // falls back to NIO when the native transport is not available
+      Map<String, Object> params = new HashMap<String, Object>();
+      params.put(TransportConstants.USE_EPOLL_PROP_NAME, true);
+      params.put(TransportConstants.EPOLL_REUSE_PORT_PROP_NAME, true);
+      params.put(TransportConstants.NIO_REMOTING_THREADS_PROPNAME, 2);
+      NettyAcceptor acceptor = createAcceptor(params);
+
+      addHornetQComponent(acceptor);
+      acceptor.start();
+      Assert.assertTrue(acceptor.isStarted());
+
+      Map<String, Object> counts = acceptor.getConnectionCountPerEventLoop();
+      Assert.assertEquals(2, counts.size());
+      for (Object count : counts.values())
+      {
+         Assert.assertEquals(0, count);
+      }
+
+      acceptor.stop();
+      Assert.assertFalse(acceptor.isStarted());
+      Assert.assertTrue(acceptor.getConnectionCountPerEventLoop().isEmpty());
+      UnitTestCase.checkFreePort(TransportConstants.DEFAULT_PORT);
+
+      pool2.shutdown();
+
+      pool2.awaitTermination(1, TimeUnit.SECONDS);
+   }
+
+   private NettyAcceptor createAcceptor(final Map<String, Object> params)
    {
       BufferHandler handler = new BufferHandler()
       {
@@ -78,7 +132,6 @@ public class NettyAcceptorTest extends UnitTestCase
          }
       };
 
-      Map<String, Object> params = new HashMap<String, Object>();
       ConnectionLifeCycleListener listener = new ConnectionLifeCycleListener()
       {
 
@@ -106,23 +159,7 @@ public class NettyAcceptorTest extends UnitTestCase
                                                  listener,
                                                  pool2,
                                                  null);
-
-      addHornetQComponent(acceptor);
-      acceptor.start();
-      Assert.assertTrue(acceptor.isStarted());
-      acceptor.stop();
-      Assert.assertFalse(acceptor.isStarted());
-      UnitTestCase.checkFreePort(TransportConstants.DEFAULT_PORT);
-
-      acceptor.start();
-      Assert.assertTrue(acceptor.isStarted());
-      acceptor.stop();
-      Assert.assertFalse(acceptor.isStarted());
-      UnitTestCase.checkFreePort(TransportConstants.DEFAULT_PORT);
-
-      pool2.shutdown();
-
-      pool2.awaitTermination(1, TimeUnit.SECONDS);
+      return acceptor;
    }
 
 }
@@ -16,6 +16,7 @@ import java.nio.ByteBuffer;
 import java.util.Collections;
 import java.util.Map;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.embedded.EmbeddedChannel;
@@ -62,6 +63,37 @@ public class NettyConnectionTest extends UnitTestCase
       Assert.assertEquals(1, channel.outboundMessages().size());
    }
 
+   @Test
+   public void testCoalescedWrites() throws Exception
+   {
+      EmbeddedChannel channel = createChannel();
+
+      NettyConnection conn = new NettyConnection(emptyMap, channel, new MyListener(), true, false, true);
+
+      HornetQBuffer[] buffers = new HornetQBuffer[3];
+      for (int i = 0; i < buffers.length; i++)
+      {
+         buffers[i] = HornetQBuffers.wrappedBuffer(new byte[128]);
+         conn.write(buffers[i], false, true);
+      }
+
+      Assert.assertEquals(0, channel.outboundMessages().size());
+
+      channel.runPendingTasks();
+
+      // the buffers are written one by one, without being copied into a batch buffer
+      Assert.assertEquals(buffers.length, channel.outboundMessages().size());
+      for (int i = 0; i < buffers.length; i++)
+      {
+         Assert.assertEquals(128, ((ByteBuf) channel.readOutbound()).readableBytes());
+      }
+
+      // a flushed write goes straight out
+      conn.write(HornetQBuffers.wrappedBuffer(new byte[128]), true, true);
+      channel.runPendingTasks();
+      Assert.assertEquals(1, channel.outboundMessages().size());
+   }
+
    @Test
    public void testCreateBuffer() throws Exception
    {
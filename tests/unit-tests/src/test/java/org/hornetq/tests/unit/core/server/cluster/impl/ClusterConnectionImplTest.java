@@ -0,0 +1,68 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.tests.unit.core.server.cluster.impl;
+
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.api.core.management.ManagementHelper;
+import org.hornetq.core.filter.Filter;
+import org.hornetq.core.filter.impl.FilterImpl;
+import org.hornetq.core.server.ServerMessage;
+import org.hornetq.core.server.cluster.impl.ClusterConnectionBridge;
+import org.hornetq.core.server.cluster.impl.ClusterConnectionImpl;
+import org.hornetq.core.server.impl.ServerMessageImpl;
+import org.hornetq.tests.util.UnitTestCase;
+import org.junit.Test;
+
+public class ClusterConnectionImplTest extends UnitTestCase
+{
+   @Test
+   public void testMatchesAddressByPrefix()
+   {
+      assertTrue(ClusterConnectionImpl.matchesAddress("jms", "jms.queue.orders"));
+      assertTrue(ClusterConnectionImpl.matchesAddress("jms.queue", "jms.queue"));
+      assertTrue(ClusterConnectionImpl.matchesAddress("", "jms.queue.orders"));
+      assertTrue(ClusterConnectionImpl.matchesAddress("jms.queue.orders", "jms.queue.ordersEU"));
+      assertFalse(ClusterConnectionImpl.matchesAddress("jms.queue.orders", "jms.queue"));
+   }
+
+   @Test
+   public void testMatchesAddressForListsAndExclusions()
+   {
+      assertTrue(ClusterConnectionImpl.matchesAddress("jms.queue,jms.topic", "jms.topic.news"));
+      assertFalse(ClusterConnectionImpl.matchesAddress("jms.queue,jms.topic", "hq.notifications"));
+      assertTrue(ClusterConnectionImpl.matchesAddress("!jms.topic", "jms.queue.orders"));
+      assertFalse(ClusterConnectionImpl.matchesAddress("!jms.topic", "jms.topic.news"));
+      assertFalse(ClusterConnectionImpl.matchesAddress("jms,!jms.topic", "jms.topic.news"));
+      assertTrue(ClusterConnectionImpl.matchesAddress("jms,!jms.topic", "jms.queue.orders"));
+   }
+
+   @Test
+   public void testMatchesAddressLikeTheNotificationSelector() throws Exception
+   {
+      String[] clusterAddresses = {"jms.queue.orders", "!jms.topic", "jms.queue,jms.topic", "jms,!jms.topic", ""};
+      String[] queueAddresses = {"jms.queue.orders", "jms.queue.ordersEU", "jms.topic.news", "jms.topics", "hq.notifications"};
+
+      for (String clusterAddress : clusterAddresses)
+      {
+         Filter filter = FilterImpl.createFilter(ClusterConnectionBridge.createSelectorFromAddress(clusterAddress));
+         for (String queueAddress : queueAddresses)
+         {
+            ServerMessage message = new ServerMessageImpl(1, 100);
+            message.putStringProperty(ManagementHelper.HDR_ADDRESS, new SimpleString(queueAddress));
+            assertEquals(clusterAddress + " / " + queueAddress,
+                         filter.match(message),
+                         ClusterConnectionImpl.matchesAddress(clusterAddress, queueAddress));
+         }
+      }
+   }
+}
@@ -16,7 +16,9 @@ import org.junit.Test;
 
 import org.hornetq.api.core.SimpleString;
 import org.hornetq.core.server.Queue;
+import org.hornetq.core.server.ServerMessage;
 import org.hornetq.core.server.cluster.impl.RemoteQueueBindingImpl;
+import org.hornetq.core.server.impl.ServerMessageImpl;
 import org.hornetq.tests.unit.core.postoffice.impl.FakeQueue;
 import org.hornetq.tests.util.RandomUtil;
 import org.hornetq.tests.util.UnitTestCase;
@@ -79,4 +81,44 @@ public class RemoteQueueBindImplTest extends UnitTestCase
       assertEquals(0, binding.getFilters().size());
 
    }
+
+   @Test
+   public void testHighAcceptPriority() throws Exception
+   {
+      RemoteQueueBindingImpl binding = new RemoteQueueBindingImpl(RandomUtil.randomLong(),
+                                                                  RandomUtil.randomSimpleString(),
+                                                                  RandomUtil.randomSimpleString(),
+                                                                  RandomUtil.randomSimpleString(),
+                                                                  RandomUtil.randomLong(),
+                                                                  null,
+                                                                  new FakeQueue(null),
+                                                                  RandomUtil.randomSimpleString(),
+                                                                  0);
+
+      ServerMessage message = new ServerMessageImpl(1, 50);
+      message.putIntProperty(new SimpleString("A"), 1);
+
+      assertFalse(binding.isHighAcceptPriority(message));
+
+      binding.addConsumer(new SimpleString("A>1"));
+      assertFalse(binding.isHighAcceptPriority(message));
+
+      binding.addConsumer(new SimpleString("A=1"));
+      assertTrue(binding.isHighAcceptPriority(message));
+
+      binding.removeConsumer(new SimpleString("A=1"));
+      assertFalse(binding.isHighAcceptPriority(message));
+
+      // a consumer without filter accepts any message
+      binding.addConsumer(null);
+      assertTrue(binding.isHighAcceptPriority(message));
+      assertEquals(2, binding.consumerCount());
+
+      binding.removeConsumer(null);
+      assertFalse(binding.isHighAcceptPriority(message));
+
+      binding.reset();
+      assertEquals(0, binding.consumerCount());
+      assertEquals(0, binding.getFilters().size());
+   }
 }
@@ -105,6 +105,83 @@ public class LinkedListTest extends UnitTestCase
 
    }
 
+   @Test
+   public void testRemoveNode()
+   {
+      Object[] nodes = new Object[10];
+
+      for (int i = 0; i < 10; i++)
+      {
+         nodes[i] = list.addTail(i);
+      }
+
+      LinkedListIterator<Integer> iter = list.iterator();
+
+      assertEquals(0, iter.next().intValue());
+
+      // remove the element the iterator is on, and the head and tail
+      assertTrue(list.remove(nodes[0]));
+      assertTrue(list.remove(nodes[1]));
+      assertTrue(list.remove(nodes[9]));
+      assertFalse(list.remove(nodes[1]));
+
+      assertEquals(7, list.size());
+
+      for (int i = 2; i < 9; i++)
+      {
+         assertTrue(iter.hasNext());
+         assertEquals(i, iter.next().intValue());
+      }
+
+      assertFalse(iter.hasNext());
+
+      iter.close();
+
+      for (int i = 2; i < 9; i++)
+      {
+         assertTrue(list.remove(nodes[i]));
+      }
+
+      assertEquals(0, list.size());
+      assertNull(list.poll());
+
+      list.addTail(10);
+
+      assertEquals(10, list.poll().intValue());
+   }
+
+   @Test
+   public void testRemoveNodeAfterClear()
+   {
+      Object[] nodes = new Object[10];
+
+      for (int i = 0; i < 10; i++)
+      {
+         nodes[i] = list.addTail(i);
+      }
+
+      list.clear();
+
+      // the nodes are no longer in the list
+      for (int i = 0; i < 10; i++)
+      {
+         assertFalse(list.remove(nodes[i]));
+      }
+
+      assertEquals(0, list.size());
+
+      Object node = list.addTail(10);
+
+      assertFalse(list.remove(nodes[9]));
+
+      assertEquals(1, list.size());
+
+      assertTrue(list.remove(node));
+
+      assertEquals(0, list.size());
+      assertNull(list.poll());
+   }
+
    @Test
    public void testAddHeadAndRemove()
    {
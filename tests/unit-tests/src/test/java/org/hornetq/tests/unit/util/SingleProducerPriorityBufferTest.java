@@ -0,0 +1,126 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.tests.unit.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hornetq.tests.util.UnitTestCase;
+import org.hornetq.utils.SingleProducerPriorityBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * A SingleProducerPriorityBufferTest
+ */
+public class SingleProducerPriorityBufferTest extends UnitTestCase
+{
+   @Test
+   public void testPriorityOrder()
+   {
+      SingleProducerPriorityBuffer<Integer> buffer = new SingleProducerPriorityBuffer<Integer>(10);
+
+      Assert.assertTrue(buffer.isEmpty());
+      Assert.assertNull(buffer.poll());
+
+      buffer.addTail(1, 0);
+      buffer.addTail(2, 4);
+      buffer.addTail(3, 9);
+      buffer.addTail(4, 4);
+      buffer.addTail(5, 0);
+
+      Assert.assertEquals(5, buffer.size());
+      Assert.assertFalse(buffer.isEmpty());
+
+      Assert.assertEquals(3, buffer.poll().intValue());
+      Assert.assertEquals(2, buffer.poll().intValue());
+      Assert.assertEquals(4, buffer.poll().intValue());
+      Assert.assertEquals(1, buffer.poll().intValue());
+      Assert.assertEquals(5, buffer.poll().intValue());
+      Assert.assertNull(buffer.poll());
+
+      Assert.assertEquals(0, buffer.size());
+      Assert.assertTrue(buffer.isEmpty());
+   }
+
+   @Test
+   public void testClear()
+   {
+      SingleProducerPriorityBuffer<Integer> buffer = new SingleProducerPriorityBuffer<Integer>(10);
+
+      for (int i = 0; i < 100; i++)
+      {
+         buffer.addTail(i, i % 10);
+      }
+
+      buffer.clear();
+
+      Assert.assertEquals(0, buffer.size());
+      Assert.assertNull(buffer.poll());
+
+      buffer.addTail(10, 3);
+
+      Assert.assertEquals(10, buffer.poll().intValue());
+   }
+
+   @Test
+   public void testConcurrentHandOff() throws Exception
+   {
+      final int numberOfMessages = 100000;
+
+      final SingleProducerPriorityBuffer<Integer> buffer = new SingleProducerPriorityBuffer<Integer>(10);
+
+      final CountDownLatch done = new CountDownLatch(1);
+
+      final AtomicInteger errors = new AtomicInteger(0);
+
+      Thread consumer = new Thread()
+      {
+         @Override
+         public void run()
+         {
+            // same priority for all, so FIFO order must be kept
+            int expected = 0;
+            while (expected < numberOfMessages)
+            {
+               Integer value = buffer.poll();
+               if (value != null)
+               {
+                  if (value.intValue() != expected)
+                  {
+                     errors.incrementAndGet();
+                  }
+                  expected++;
+               }
+            }
+            done.countDown();
+         }
+      };
+
+      consumer.start();
+
+      for (int i = 0; i < numberOfMessages; i++)
+      {
+         buffer.addTail(i, 4);
+      }
+
+      Assert.assertTrue(done.await(30, TimeUnit.SECONDS));
+
+      consumer.join();
+
+      Assert.assertEquals(0, errors.get());
+      Assert.assertTrue(buffer.isEmpty());
+      Assert.assertEquals(0, buffer.size());
+   }
+}
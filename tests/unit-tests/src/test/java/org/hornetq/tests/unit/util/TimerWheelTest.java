@@ -0,0 +1,359 @@
+/*
+ * Copyright 2005-2014 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.tests.unit.util;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.hornetq.tests.util.UnitTestCase;
+import org.hornetq.utils.TimerWheel;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Drives a {@link TimerWheel} with a synthetic clock across the boundaries of its levels.
+ */
+public class TimerWheelTest extends UnitTestCase
+{
+   private static final long LEVEL_1 = 1L << 8;
+
+   private static final long LEVEL_2 = 1L << 14;
+
+   private static final long LEVEL_3 = 1L << 20;
+
+   private static final long OVERFLOW = 1L << 26;
+
+   @Test
+   public void testFirstLevel()
+   {
+      TimerWheel<TimedEntry> wheel = new TimerWheel<TimedEntry>(0);
+
+      TimedEntry e5 = add(wheel, 5);
+      TimedEntry e255 = add(wheel, LEVEL_1 - 1);
+
+      assertDueExactlyAt(wheel, e5);
+      assertDueExactlyAt(wheel, e255);
+
+      Assert.assertEquals(0, wheel.size());
+   }
+
+   @Test
+   public void testCascadeFromSecondLevel()
+   {
+      TimerWheel<TimedEntry> wheel = new TimerWheel<TimedEntry>(0);
+
+      TimedEntry first = add(wheel, LEVEL_1);
+      TimedEntry middle = add(wheel, 1000);
+      TimedEntry last = add(wheel, LEVEL_2 - 1);
+
+      assertDueExactlyAt(wheel, first);
+      assertDueExactlyAt(wheel, middle);
+      assertDueExactlyAt(wheel, last);
+   }
+
+   @Test
+   public void testCascadeFromThirdLevel()
+   {
+      TimerWheel<TimedEntry> wheel = new TimerWheel<TimedEntry>(0);
+
+      TimedEntry first = add(wheel, LEVEL_2);
+      TimedEntry unaligned = add(wheel, LEVEL_2 + LEVEL_1 + 123);
+      TimedEntry last = add(wheel, LEVEL_3 - 1);
+
+      assertDueExactlyAt(wheel, first);
+      assertDueExactlyAt(wheel, unaligned);
+      assertDueExactlyAt(wheel, last);
+   }
+
+   @Test
+   public void testCascadeFromFourthLevel()
+   {
+      TimerWheel<TimedEntry> wheel = new TimerWheel<TimedEntry>(0);
+
+      TimedEntry first = add(wheel, LEVEL_3);
+      TimedEntry unaligned = add(wheel, 3 * LEVEL_3 + LEVEL_2 + 5000);
+      TimedEntry last = add(wheel, OVERFLOW - 1);
+
+      assertDueExactlyAt(wheel, first);
+      assertDueExactlyAt(wheel, unaligned);
+      assertDueExactlyAt(wheel, last);
+   }
+
+   @Test
+   public void testOverflowRescan()
+   {
+      // an unaligned start, so the first overflow entry is on the last level and the others are rescanned
+      final long start = 12345;
+
+      TimerWheel<TimedEntry> wheel = new TimerWheel<TimedEntry>(start);
+
+      TimedEntry nextWindow = add(wheel, OVERFLOW + 42);
+      TimedEntry overflowed = add(wheel, start + OVERFLOW + 7);
+      TimedEntry rescannedTwice = add(wheel, 5 * OVERFLOW + 17);
+
+      assertDueExactlyAt(wheel, nextWindow);
+      assertDueExactlyAt(wheel, overflowed);
+
+      // crossing the overflow boundaries one at a time
+      for (long tick = 2 * OVERFLOW; tick < 5 * OVERFLOW; tick += OVERFLOW)
+      {
+         wheel.advance(tick);
+         Assert.assertFalse(wheel.hasDue());
+         Assert.assertTrue(rescannedTwice.isScheduled());
+      }
+
+      assertDueExactlyAt(wheel, rescannedTwice);
+   }
+
+   @Test
+   public void testRemoveCascadedEntry()
+   {
+      TimerWheel<TimedEntry> wheel = new TimerWheel<TimedEntry>(0);
+
+      TimedEntry removed = add(wheel, LEVEL_3 + LEVEL_2 + 500);
+      TimedEntry sameSlot = add(wheel, LEVEL_3 + LEVEL_2 + 600);
+
+      // cascades the last level into the third, and then into the second
+      wheel.advance(LEVEL_3);
+      wheel.advance(LEVEL_3 + LEVEL_2);
+
+      Assert.assertFalse(wheel.hasDue());
+      Assert.assertTrue(removed.isScheduled());
+
+      wheel.remove(removed);
+
+      Assert.assertFalse(removed.isScheduled());
+      Assert.assertEquals(1, wheel.size());
+
+      // removing it again is a noop
+      wheel.remove(removed);
+      Assert.assertEquals(1, wheel.size());
+
+      wheel.advance(removed.getDeadline());
+      Assert.assertFalse(wheel.hasDue());
+
+      assertDueExactlyAt(wheel, sameSlot);
+      Assert.assertEquals(0, wheel.size());
+
+      // it can be added back once removed
+      add(wheel, removed, LEVEL_3 * 2);
+      assertDueExactlyAt(wheel, removed);
+   }
+
+   @Test
+   public void testNextTick()
+   {
+      long[] deadlines = {100, 1000, LEVEL_2 + 77, LEVEL_3 + 99, OVERFLOW + 3, 3 * OVERFLOW + 11};
+
+      for (long deadline : deadlines)
+      {
+         TimerWheel<TimedEntry> wheel = new TimerWheel<TimedEntry>(0);
+
+         Assert.assertEquals(Long.MAX_VALUE, wheel.nextTick());
+
+         TimedEntry entry = add(wheel, deadline);
+
+         long previous = -1;
+         int calls = 0;
+
+         while (!wheel.hasDue())
+         {
+            long next = wheel.nextTick();
+
+            Assert.assertTrue(next > previous);
+            Assert.assertTrue(next + " is after " + deadline, next <= deadline);
+            Assert.assertTrue(++calls < 20);
+
+            wheel.advance(next);
+
+            previous = next;
+         }
+
+         // following the next ticks never skips a deadline, and never reaches it early
+         Assert.assertEquals(deadline, previous);
+
+         // while something is due it must be drained right away
+         Assert.assertTrue(wheel.nextTick() <= deadline);
+
+         Assert.assertEquals(entry, drain(wheel, Integer.MAX_VALUE).get(0));
+         Assert.assertEquals(Long.MAX_VALUE, wheel.nextTick());
+      }
+   }
+
+   @Test
+   public void testDrainOrder()
+   {
+      TimerWheel<TimedEntry> wheel = new TimerWheel<TimedEntry>(0);
+
+      TimedEntry late = add(wheel, LEVEL_2 + 10);
+      TimedEntry early = add(wheel, 10);
+      TimedEntry middle = add(wheel, 300);
+
+      wheel.advance(LEVEL_3);
+
+      // an entry added with a past deadline is due after the ones already due
+      TimedEntry past = add(wheel, 5);
+
+      List<TimedEntry> drained = drain(wheel, Integer.MAX_VALUE);
+
+      Assert.assertEquals(4, drained.size());
+      Assert.assertSame(early, drained.get(0));
+      Assert.assertSame(middle, drained.get(1));
+      Assert.assertSame(late, drained.get(2));
+      Assert.assertSame(past, drained.get(3));
+   }
+
+   @Test
+   public void testDrainDueLimit()
+   {
+      TimerWheel<TimedEntry> wheel = new TimerWheel<TimedEntry>(0);
+
+      for (int i = 0; i < 10; i++)
+      {
+         add(wheel, i);
+      }
+
+      wheel.advance(100);
+
+      List<TimedEntry> drained = new ArrayList<TimedEntry>();
+
+      Assert.assertEquals(3, wheel.drainDue(drained, 3));
+      Assert.assertEquals(7, wheel.size());
+      Assert.assertTrue(wheel.hasDue());
+
+      Assert.assertEquals(7, wheel.drainDue(drained, 100));
+      Assert.assertEquals(0, wheel.size());
+      Assert.assertFalse(wheel.hasDue());
+
+      Assert.assertEquals(0, wheel.drainDue(drained, 100));
+
+      for (int i = 0; i < 10; i++)
+      {
+         Assert.assertEquals(i, drained.get(i).getDeadline());
+      }
+   }
+
+   @Test
+   public void testAgainstSetOfDeadlines()
+   {
+      Random random = new Random(1234);
+
+      final long start = random.nextInt(1 << 20);
+
+      TimerWheel<TimedEntry> wheel = new TimerWheel<TimedEntry>(start);
+
+      Set<TimedEntry> pending = new HashSet<TimedEntry>();
+
+      long now = start;
+
+      for (int step = 0; step < 2000; step++)
+      {
+         for (int i = random.nextInt(4); i > 0; i--)
+         {
+            // from the first level to the overflow, some of them on the boundaries
+            long delay = random.nextBoolean() ? random.nextInt(1 << (8 + random.nextInt(22))) : 1L << (8 + random.nextInt(22));
+
+            pending.add(add(wheel, now + delay));
+         }
+
+         if (!pending.isEmpty() && random.nextInt(5) == 0)
+         {
+            TimedEntry removed = pending.iterator().next();
+            wheel.remove(removed);
+            pending.remove(removed);
+         }
+
+         if (wheel.size() > 0 && random.nextBoolean())
+         {
+            now = wheel.nextTick();
+         }
+         else
+         {
+            now += random.nextInt(1 << random.nextInt(27));
+         }
+
+         wheel.advance(now);
+
+         Set<TimedEntry> expected = new HashSet<TimedEntry>();
+
+         for (TimedEntry entry : pending)
+         {
+            if (entry.getDeadline() <= now)
+            {
+               expected.add(entry);
+            }
+         }
+
+         Assert.assertEquals(expected, new HashSet<TimedEntry>(drain(wheel, Integer.MAX_VALUE)));
+
+         pending.removeAll(expected);
+
+         Assert.assertEquals(pending.size(), wheel.size());
+
+         long nextTick = wheel.nextTick();
+
+         for (TimedEntry entry : pending)
+         {
+            Assert.assertTrue(nextTick <= entry.getDeadline());
+         }
+      }
+   }
+
+   private static TimedEntry add(final TimerWheel<TimedEntry> wheel, final long deadline)
+   {
+      return add(wheel, new TimedEntry(), deadline);
+   }
+
+   private static TimedEntry add(final TimerWheel<TimedEntry> wheel, final TimedEntry entry, final long deadline)
+   {
+      wheel.add(entry, deadline);
+
+      Assert.assertTrue(entry.isScheduled());
+      Assert.assertEquals(deadline, entry.getDeadline());
+
+      return entry;
+   }
+
+   private static List<TimedEntry> drain(final TimerWheel<TimedEntry> wheel, final int max)
+   {
+      List<TimedEntry> drained = new ArrayList<TimedEntry>();
+      wheel.drainDue(drained, max);
+      return drained;
+   }
+
+   /**
+    * Asserts the entry isn't due a tick before its deadline, and is the only one due on it.
+    */
+   private static void assertDueExactlyAt(final TimerWheel<TimedEntry> wheel, final TimedEntry entry)
+   {
+      wheel.advance(entry.getDeadline() - 1);
+
+      Assert.assertFalse(wheel.hasDue());
+      Assert.assertTrue(entry.isScheduled());
+
+      wheel.advance(entry.getDeadline());
+
+      List<TimedEntry> drained = drain(wheel, Integer.MAX_VALUE);
+
+      Assert.assertEquals(1, drained.size());
+      Assert.assertSame(entry, drained.get(0));
+      Assert.assertFalse(entry.isScheduled());
+   }
+
+   private static final class TimedEntry extends TimerWheel.Entry
+   {
+   }
+}